@@ -0,0 +1,179 @@
+/*
+ * InvestBook
+ * Copyright (C) 2022  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.investbook.benchmark;
+
+import lombok.RequiredArgsConstructor;
+import org.spacious_team.broker.pojo.CashFlowType;
+import org.spacious_team.broker.pojo.ForeignExchangeRate;
+import org.spacious_team.broker.pojo.Portfolio;
+import org.spacious_team.broker.pojo.Security;
+import org.spacious_team.broker.pojo.SecurityEventCashFlow;
+import org.spacious_team.broker.pojo.SecurityQuote;
+import org.spacious_team.broker.report_parser.api.AbstractTransaction;
+import org.spacious_team.broker.report_parser.api.SecurityRegistrar;
+import org.spacious_team.broker.report_parser.api.SecurityTransaction;
+import ru.investbook.parser.InvestbookApiClient;
+import ru.investbook.parser.InvestbookBatchApiClient;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Populates database with synthetic data by the same batch API, which is used for broker report import.
+ * Generated data is deterministic for the same parameters.
+ */
+@RequiredArgsConstructor
+class BenchmarkDataGenerator {
+    private static final int YEARS = 5;
+    private static final List<String> CURRENCY_PAIRS = List.of("USDRUB", "EURRUB");
+    private final InvestbookApiClient api;
+    private final InvestbookBatchApiClient batchApi;
+    private final SecurityRegistrar securityRegistrar;
+    private final Random random = new Random(42);
+    private final Instant toDate = LocalDate.now().atStartOfDay(ZoneId.systemDefault()).toInstant();
+    private final Instant fromDate = toDate.minus(YEARS * 365L, ChronoUnit.DAYS);
+
+    /**
+     * @param portfolios         number of portfolios
+     * @param securities         number of securities, each even security is a bond
+     * @param tradesPerSecurity  number of trades of each security in each portfolio
+     * @param couponsPerBond     number of coupons of each bond in each portfolio
+     * @param fxRateDays         number of days with known exchange rates of each currency pair
+     */
+    void generate(int portfolios, int securities, int tradesPerSecurity, int couponsPerBond, int fxRateDays) {
+        List<Integer> securityIds = addSecurities(securities);
+        for (int p = 0; p < portfolios; p++) {
+            String portfolio = "benchmark-" + p;
+            api.addPortfolio(Portfolio.builder().id(portfolio).build());
+            batchApi.addTransactions(getTransactions(portfolio, securityIds, tradesPerSecurity));
+            batchApi.addSecurityEventCashFlows(getCoupons(portfolio, securityIds, couponsPerBond));
+        }
+        batchApi.addSecurityQuotes(getQuotes(securityIds));
+        batchApi.addForeignExchangeRates(getForeignExchangeRates(fxRateDays));
+    }
+
+    private List<Integer> addSecurities(int securities) {
+        List<Integer> securityIds = new ArrayList<>(securities);
+        for (int i = 0; i < securities; i++) {
+            String isin = "RU%09d0".formatted(i);
+            int id = isBond(i) ?
+                    securityRegistrar.declareBondByIsin(isin, () -> Security.builder().isin(isin).name("Облигация " + isin)) :
+                    securityRegistrar.declareStockByIsin(isin, () -> Security.builder().isin(isin).name("Акция " + isin));
+            securityIds.add(id);
+        }
+        return securityIds;
+    }
+
+    private static boolean isBond(int securityIndex) {
+        return securityIndex % 2 == 0;
+    }
+
+    /**
+     * Buys and sells security keeping position non-negative, last trade of each third security closes position
+     */
+    private Collection<AbstractTransaction> getTransactions(String portfolio, List<Integer> securityIds, int trades) {
+        Collection<AbstractTransaction> transactions = new ArrayList<>(securityIds.size() * trades);
+        for (int s = 0; s < securityIds.size(); s++) {
+            int security = securityIds.get(s);
+            int position = 0;
+            for (int t = 0; t < trades; t++) {
+                boolean isLast = (t == trades - 1);
+                int count = (isLast && s % 3 == 0 && position > 0) ? -position :
+                        (position == 0 || random.nextBoolean()) ? 1 + random.nextInt(100) : -1 - random.nextInt(position);
+                position += count;
+                BigDecimal price = BigDecimal.valueOf(900 + random.nextInt(200));
+                BigDecimal value = price.multiply(BigDecimal.valueOf(-count));
+                transactions.add(SecurityTransaction.builder()
+                        .tradeId(portfolio + "-" + security + "-" + t)
+                        .portfolio(portfolio)
+                        .security(security)
+                        .timestamp(getTimestamp(t, trades))
+                        .count(count)
+                        .value(value)
+                        .accruedInterest(isBond(s) ? value.movePointLeft(2) : BigDecimal.ZERO)
+                        .fee(value.abs().movePointLeft(3).negate())
+                        .valueCurrency("RUB")
+                        .feeCurrency("RUB")
+                        .build());
+            }
+        }
+        return transactions;
+    }
+
+    private Collection<SecurityEventCashFlow> getCoupons(String portfolio, List<Integer> securityIds, int coupons) {
+        Collection<SecurityEventCashFlow> cashFlows = new ArrayList<>();
+        for (int s = 0; s < securityIds.size(); s += 2) { // bonds
+            for (int c = 0; c < coupons; c++) {
+                cashFlows.add(SecurityEventCashFlow.builder()
+                        .portfolio(portfolio)
+                        .security(securityIds.get(s))
+                        .timestamp(getTimestamp(c, coupons).plus(1, ChronoUnit.DAYS))
+                        .count(1 + random.nextInt(100))
+                        .eventType(CashFlowType.COUPON)
+                        .value(BigDecimal.valueOf(10 + random.nextInt(500)))
+                        .currency("RUB")
+                        .build());
+            }
+        }
+        return cashFlows;
+    }
+
+    private Collection<SecurityQuote> getQuotes(List<Integer> securityIds) {
+        return securityIds.stream()
+                .map(security -> SecurityQuote.builder()
+                        .security(security)
+                        .timestamp(toDate)
+                        .quote(BigDecimal.valueOf(90 + random.nextInt(20)))
+                        .price(BigDecimal.valueOf(900 + random.nextInt(200)))
+                        .accruedInterest(BigDecimal.ONE)
+                        .currency("RUB")
+                        .build())
+                .toList();
+    }
+
+    private Collection<ForeignExchangeRate> getForeignExchangeRates(int days) {
+        LocalDate to = LocalDate.ofInstant(toDate, ZoneId.systemDefault());
+        Collection<ForeignExchangeRate> rates = new ArrayList<>(days * CURRENCY_PAIRS.size());
+        for (String currencyPair : CURRENCY_PAIRS) {
+            for (int d = 0; d < days; d++) {
+                rates.add(ForeignExchangeRate.builder()
+                        .date(to.minusDays(d))
+                        .currencyPair(currencyPair)
+                        .rate(BigDecimal.valueOf(60 + random.nextInt(4000), 2))
+                        .build());
+            }
+        }
+        return rates;
+    }
+
+    /**
+     * @return evenly distributed timestamp from {@link #fromDate} to {@link #toDate}
+     */
+    private Instant getTimestamp(int index, int count) {
+        long seconds = ChronoUnit.SECONDS.between(fromDate, toDate);
+        return fromDate.plusSeconds(seconds * index / Math.max(1, count));
+    }
+}
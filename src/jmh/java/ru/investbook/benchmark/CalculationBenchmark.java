@@ -0,0 +1,115 @@
+/*
+ * InvestBook
+ * Copyright (C) 2022  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.investbook.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.spacious_team.broker.pojo.Security;
+import org.spacious_team.broker.pojo.SecurityQuote;
+import ru.investbook.report.FifoPositions;
+import ru.investbook.report.FifoPositionsFactory;
+import ru.investbook.report.FifoPositionsFilter;
+import ru.investbook.report.InternalRateOfReturn;
+import ru.investbook.report.ViewFilter;
+import ru.investbook.service.SecurityProfitService;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures position and profit calculations for all securities of generated portfolios. Caches are evicted
+ * before each invocation, so each invocation loads data from database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CalculationBenchmark {
+    private static final String CURRENCY = "RUB";
+    private FifoPositionsFactory positionsFactory;
+    private InternalRateOfReturn internalRateOfReturn;
+    private SecurityProfitService securityProfitService;
+    private ViewFilter filter;
+    private FifoPositionsFilter positionsFilter;
+    private final Map<Integer, SecurityQuote> quotes = new HashMap<>();
+
+    @Setup(Level.Trial)
+    public void setup(InvestbookState state) {
+        positionsFactory = state.getBean(FifoPositionsFactory.class);
+        internalRateOfReturn = state.getBean(InternalRateOfReturn.class);
+        securityProfitService = state.getBean(SecurityProfitService.class);
+        filter = state.getViewFilter();
+        positionsFilter = FifoPositionsFilter.of(filter);
+        for (Security security : state.getSecurities()) {
+            SecurityQuote quote = securityProfitService.getSecurityQuote(security, CURRENCY, filter.getToDate());
+            if (quote != null) {
+                quotes.put(security.getId(), quote);
+            }
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void invalidateCaches(InvestbookState state) {
+        state.invalidateCaches();
+    }
+
+    @Benchmark
+    public void fifoPositions(InvestbookState state, Blackhole blackhole) {
+        for (Security security : state.getSecurities()) {
+            blackhole.consume(positionsFactory.get(security, positionsFilter));
+        }
+    }
+
+    @Benchmark
+    public void internalRateOfReturn(InvestbookState state, Blackhole blackhole) {
+        for (Security security : state.getSecurities()) {
+            blackhole.consume(internalRateOfReturn.calc(filter.getPortfolios(), security,
+                    quotes.get(security.getId()), filter.getFromDate(), filter.getToDate()));
+        }
+    }
+
+    @Benchmark
+    public Map<Integer, Double> internalRateOfReturnForAll(InvestbookState state) {
+        return internalRateOfReturn.calcAll(filter.getPortfolios(), state.getSecurities(), quotes,
+                filter.getFromDate(), filter.getToDate());
+    }
+
+    @Benchmark
+    public void securityProfit(InvestbookState state, Blackhole blackhole) {
+        for (Security security : state.getSecurities()) {
+            FifoPositions positions = positionsFactory.get(security, positionsFilter);
+            blackhole.consume(securityProfitService.getGrossProfit(filter.getPortfolios(), security, positions, CURRENCY));
+            blackhole.consume(securityProfitService.getPurchaseCost(security, positions, CURRENCY));
+            blackhole.consume(securityProfitService.getPurchaseAccruedInterest(security, positions, CURRENCY));
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * InvestBook
+ * Copyright (C) 2022  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.investbook.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.spacious_team.broker.pojo.Security;
+import org.spacious_team.broker.report_parser.api.SecurityRegistrar;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.FileSystemUtils;
+import ru.investbook.InvestbookApplication;
+import ru.investbook.converter.SecurityConverter;
+import ru.investbook.parser.InvestbookApiClient;
+import ru.investbook.parser.InvestbookBatchApiClient;
+import ru.investbook.report.ViewFilter;
+import ru.investbook.repository.DataChangedEvent;
+import ru.investbook.repository.SecurityRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Application context with in-memory H2 database populated by {@link BenchmarkDataGenerator}
+ */
+@State(Scope.Benchmark)
+public class InvestbookState {
+
+    @Param("2")
+    public int portfolios;
+
+    @Param("50")
+    public int securities;
+
+    @Param("100")
+    public int tradesPerSecurity;
+
+    @Param("10")
+    public int couponsPerBond;
+
+    @Param("1000")
+    public int fxRateDays;
+
+    private Path dataPath;
+    private ConfigurableApplicationContext context;
+    private List<Security> allSecurities;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        dataPath = Files.createTempDirectory("investbook-benchmark");
+        context = new SpringApplicationBuilder(InvestbookApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:" + UUID.randomUUID() + ";mode=mysql;non_keywords=value",
+                        "investbook.data-path=" + dataPath,
+                        "investbook.report-backup=false",
+                        "investbook.report-cache=false",
+                        "investbook.dashboard-refresh-delay=365d", // no background refresh after invalidateCaches()
+                        "investbook.open-home-page-after-start=false",
+                        "logging.level.root=warn")
+                .run();
+        new BenchmarkDataGenerator(
+                getBean(InvestbookApiClient.class),
+                getBean(InvestbookBatchApiClient.class),
+                getBean(SecurityRegistrar.class))
+                .generate(portfolios, securities, tradesPerSecurity, couponsPerBond, fxRateDays);
+        SecurityConverter securityConverter = getBean(SecurityConverter.class);
+        allSecurities = getBean(SecurityRepository.class)
+                .findAll()
+                .stream()
+                .map(securityConverter::fromEntity)
+                .toList();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        FileSystemUtils.deleteRecursively(dataPath);
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public <T> List<T> getBeans(Class<T> type) {
+        return List.copyOf(context.getBeansOfType(type).values());
+    }
+
+    public List<Security> getSecurities() {
+        return allSecurities;
+    }
+
+    public ViewFilter getViewFilter() {
+        return ViewFilter.builder().build();
+    }
+
+    /**
+     * Evicts all application caches, so benchmark measures calculation but not cache lookup.
+     * Report table cache and home page data refresh are disabled by context properties,
+     * the event doesn't start background computations.
+     */
+    public void invalidateCaches() {
+        context.publishEvent(DataChangedEvent.all());
+    }
+
+    /**
+     * Executes action in read-only transaction as report builder does
+     */
+    public <T> T inTransaction(Supplier<T> action) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(getBean(PlatformTransactionManager.class));
+        transactionTemplate.setReadOnly(true);
+        return transactionTemplate.execute(_ -> action.get());
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * InvestBook
+ * Copyright (C) 2022  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.investbook.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.investbook.report.ViewFilter;
+import ru.investbook.report.excel.ExcelView;
+import ru.investbook.report.html.HtmlView;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures end-to-end report creation with all sheets
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class ReportBenchmark {
+    private ExcelView excelView;
+    private HtmlView htmlView;
+    private ViewFilter filter;
+
+    @Setup(Level.Trial)
+    public void setup(InvestbookState state) {
+        excelView = state.getBean(ExcelView.class);
+        htmlView = state.getBean(HtmlView.class);
+        filter = state.getViewFilter();
+    }
+
+    @Setup(Level.Invocation)
+    public void invalidateCaches(InvestbookState state) {
+        state.invalidateCaches();
+    }
+
+    @Benchmark
+    public void excelView() {
+        excelView.create(OutputStream.nullOutputStream(), filter);
+    }
+
+    @Benchmark
+    public void htmlView() throws Exception {
+        htmlView.create(OutputStream.nullOutputStream(), filter);
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * InvestBook
+ * Copyright (C) 2022  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.investbook.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+import ru.investbook.InvestbookApplication;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.System.nanoTime;
+
+/**
+ * Measures time from application start to the first served home page in a fresh JVM.
+ * Fails if start is slower than {@link #DEFAULT_STARTUP_MAX_TIME}, run with
+ * {@code -jvmArgsAppend -Dinvestbook.benchmark.startup-max-time=PT15S} to change max time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(5)
+public class StartupBenchmark {
+
+    private static final String DEFAULT_STARTUP_MAX_TIME = "PT30S";
+
+    @Param({"false", "true"})
+    public boolean fastStart;
+
+    private Path dataPath;
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        dataPath = Files.createTempDirectory("investbook-startup-benchmark");
+    }
+
+    @Benchmark
+    public int timeToFirstRequest() throws Exception {
+        long t0 = nanoTime();
+        context = new SpringApplicationBuilder(InvestbookApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:" + UUID.randomUUID() + ";mode=mysql;non_keywords=value",
+                        "investbook.data-path=" + dataPath,
+                        "investbook.fast-start=" + fastStart,
+                        "investbook.report-backup=false",
+                        "investbook.open-home-page-after-start=false",
+                        "logging.level.root=warn")
+                .run();
+        String port = context.getEnvironment().getRequiredProperty("local.server.port");
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            HttpResponse<Void> response = client.send(
+                    HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/")).build(),
+                    HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Home page returned HTTP " + response.statusCode());
+            }
+            assertStartupTime(Duration.ofNanos(nanoTime() - t0));
+            return response.statusCode();
+        }
+    }
+
+    private static void assertStartupTime(Duration startupTime) {
+        String maxTime = System.getProperty("investbook.benchmark.startup-max-time", DEFAULT_STARTUP_MAX_TIME);
+        if (startupTime.compareTo(Duration.parse(maxTime)) > 0) {
+            throw new IllegalStateException("Time to first request " + startupTime + " exceeds " + maxTime);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        if (context != null) {
+            context.close();
+            context = null;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteDataPath() throws IOException {
+        if (dataPath != null) {
+            FileSystemUtils.deleteRecursively(dataPath);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * InvestBook
+ * Copyright (C) 2022  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.investbook.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.ClassUtils;
+import ru.investbook.report.ViewFilter;
+import ru.investbook.report.excel.ExcelTable;
+import ru.investbook.report.excel.ExcelTableView;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures each sheet creation, i.e. {@link ru.investbook.report.TableFactory} of the sheet, for all portfolios
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TableFactoryBenchmark {
+
+    @Param({
+            "PortfolioAnalysisExcelTableView",
+            "PortfolioStatusExcelTableView",
+            "StockMarketProfitExcelTableView",
+            "DerivativesMarketProfitExcelTableView",
+            "DerivativesMarketTotalProfitExcelTableView",
+            "ForeignMarketProfitExcelTableView",
+            "SecuritiesDepositAndWithdrawalExcelTableView",
+            "PortfolioPaymentExcelTableView",
+            "ForeignPortfolioPaymentExcelTableView",
+            "CashFlowExcelTableView",
+            "CommissionExcelTableView",
+            "TaxExcelTableView"})
+    private String view;
+
+    private ExcelTableView excelTableView;
+    private ViewFilter filter;
+
+    @Setup(Level.Trial)
+    public void setup(InvestbookState state) {
+        excelTableView = state.getBeans(ExcelTableView.class)
+                .stream()
+                .filter(bean -> ClassUtils.getUserClass(bean).getSimpleName().equals(view))
+                .findAny()
+                .orElseThrow(() -> new IllegalArgumentException("Не найден лист " + view));
+        filter = state.getViewFilter();
+    }
+
+    @Setup(Level.Invocation)
+    public void invalidateCaches(InvestbookState state) {
+        state.invalidateCaches();
+    }
+
+    @Benchmark
+    public Collection<ExcelTable> createTables(InvestbookState state) {
+        return state.inTransaction(() -> ViewFilter.callWith(filter, excelTableView::createExcelTables));
+    }
+}
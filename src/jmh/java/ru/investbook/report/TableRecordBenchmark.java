@@ -0,0 +1,137 @@
+/*
+ * InvestBook
+ * Copyright (C) 2022  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.investbook.report;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import ru.investbook.report.excel.StockMarketProfitExcelTableHeader;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares array backed {@link Table.Record} with hash map based record, which was used before, by filling
+ * and reading rows of stock market profit sheet the same way as {@link ru.investbook.report.excel.ExcelTableView}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TableRecordBenchmark {
+    private static final StockMarketProfitExcelTableHeader[] HEADERS = StockMarketProfitExcelTableHeader.values();
+
+    @Param({"1000", "100000"})
+    private int rows;
+
+    private Table table;
+    private List<Map<TableHeader, Object>> hashMapTable;
+
+    @Setup
+    public void setup() {
+        table = fillTable();
+        hashMapTable = fillHashMapTable();
+    }
+
+    @Benchmark
+    public Table fillTable() {
+        Table table = new Table();
+        for (int i = 0; i < rows; i++) {
+            Table.Record record = table.addNewRecord();
+            for (StockMarketProfitExcelTableHeader header : HEADERS) {
+                record.put(header, value(i, header));
+            }
+        }
+        return table;
+    }
+
+    @Benchmark
+    public List<Map<TableHeader, Object>> fillHashMapTable() {
+        List<Map<TableHeader, Object>> table = new LinkedList<>();
+        for (int i = 0; i < rows; i++) {
+            Map<TableHeader, Object> record = new HashMap<>();
+            table.add(record);
+            for (StockMarketProfitExcelTableHeader header : HEADERS) {
+                record.put(header, value(i, header));
+            }
+        }
+        return table;
+    }
+
+    @Benchmark
+    public void readTable(Blackhole blackhole) {
+        for (Table.Record record : table) {
+            for (StockMarketProfitExcelTableHeader header : HEADERS) {
+                blackhole.consume(record.get(header));
+            }
+        }
+    }
+
+    @Benchmark
+    public void readHashMapTable(Blackhole blackhole) {
+        for (Map<TableHeader, Object> record : hashMapTable) {
+            for (StockMarketProfitExcelTableHeader header : HEADERS) {
+                blackhole.consume(record.get(header));
+            }
+        }
+    }
+
+    @Benchmark
+    public Table copyTable() {
+        Table copy = new Table();
+        for (Table.Record record : table) {
+            copy.add(new Table.Record(record));
+        }
+        return copy;
+    }
+
+    @Benchmark
+    public List<Map<TableHeader, Object>> copyHashMapTable() {
+        List<Map<TableHeader, Object>> copy = new ArrayList<>(hashMapTable.size());
+        for (Map<TableHeader, Object> record : hashMapTable) {
+            copy.add(new HashMap<>(record));
+        }
+        return copy;
+    }
+
+    private static Object value(int row, StockMarketProfitExcelTableHeader header) {
+        return switch (header.ordinal() % 3) {
+            case 0 -> "=SUM(A" + row + ":B" + row + ")";
+            case 1 -> BigDecimal.valueOf(row, 2);
+            default -> Instant.ofEpochSecond(row);
+        };
+    }
+}
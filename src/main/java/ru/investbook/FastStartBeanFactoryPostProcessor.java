@@ -0,0 +1,191 @@
+/*
+ * InvestBook
+ * Copyright (C) 2022  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.investbook;
+import lombok.extern.slf4j.Slf4j;
+import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * In fast start mode ({@code investbook.fast-start=true}) initializes report, Moex ISS and mail subsystems
+ * at first usage instead of application start. Bean is left eager if eager bean injects it
+ * not by {@link Lazy @Lazy} injection point, because lazy init of such a bean does not defer anything.
+ * Web controllers are eager, otherwise their init time is added to the first request.
+ */
+@Component
+@Slf4j
+public class FastStartBeanFactoryPostProcessor implements BeanFactoryPostProcessor, EnvironmentAware {
+
+    private static final List<String> LAZY_PACKAGES = List.of(
+            "ru.investbook.report.",
+            "ru.investbook.service.moex.");
+    private static final List<String> LAZY_CLASSES = List.of(
+            "ru.investbook.parser.MailboxReportParserService");
+    private @MonotonicNonNull Environment environment;
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+        if (environment == null || !environment.getProperty("investbook.fast-start", Boolean.class, false)) {
+            return;
+        }
+        Map<String, Class<?>> lazyBeans = new HashMap<>();
+        Deque<Executable> eagerInjectionPoints = new ArrayDeque<>();
+        Deque<Class<?>> eagerBeans = new ArrayDeque<>();
+        for (String beanName : beanFactory.getBeanDefinitionNames()) {
+            BeanDefinition beanDefinition = beanFactory.getBeanDefinition(beanName);
+            @Nullable Class<?> beanType = beanDefinition.isAbstract() ? null : beanFactory.getType(beanName, false);
+            if (beanType == null || !beanDefinition.isSingleton() || beanDefinition.isLazyInit()) {
+                continue;
+            }
+            beanType = ClassUtils.getUserClass(beanType);
+            if (beanDefinition instanceof AbstractBeanDefinition definition &&
+                    definition.getLazyInit() == null && // not configured explicitly
+                    isLazy(beanType.getName())) {
+                lazyBeans.put(beanName, beanType);
+            } else {
+                eagerBeans.add(beanType);
+                eagerInjectionPoints.addAll(getFactoryMethods(beanFactory, beanDefinition));
+            }
+        }
+        // lazy bean injected into eager one is eager itself, as well as its dependencies
+        while (!lazyBeans.isEmpty() && !(eagerBeans.isEmpty() && eagerInjectionPoints.isEmpty())) {
+            @Nullable Class<?> eagerBean = eagerBeans.poll();
+            Collection<ResolvableType> dependencies = (eagerBean != null) ?
+                    getDependencies(eagerBean) :
+                    getParameterTypes(eagerInjectionPoints.remove());
+            for (ResolvableType dependency : dependencies) {
+                lazyBeans.values().removeIf(beanType -> {
+                    boolean isEager = dependency.isAssignableFrom(beanType);
+                    if (isEager) {
+                        eagerBeans.add(beanType);
+                    }
+                    return isEager;
+                });
+            }
+        }
+        lazyBeans.keySet().forEach(beanName -> beanFactory.getBeanDefinition(beanName).setLazyInit(true));
+        log.info("Fast start mode: {} beans will be initialized at first usage", lazyBeans.size());
+    }
+
+    private static boolean isLazy(String className) {
+        return LAZY_CLASSES.contains(className) || LAZY_PACKAGES.stream().anyMatch(className::startsWith);
+    }
+
+    /**
+     * @return @Bean methods creating bean
+     */
+    private static Collection<Method> getFactoryMethods(ConfigurableListableBeanFactory beanFactory,
+                                                        BeanDefinition beanDefinition) {
+        @Nullable String factoryMethod = beanDefinition.getFactoryMethodName();
+        @Nullable String factoryBean = beanDefinition.getFactoryBeanName();
+        @Nullable Class<?> factoryClass = (factoryBean != null) ?
+                beanFactory.getType(factoryBean, false) :
+                (beanDefinition instanceof AbstractBeanDefinition definition && definition.hasBeanClass()) ?
+                        definition.getBeanClass() : null;
+        if (factoryMethod == null || factoryClass == null) {
+            return List.of();
+        }
+        List<Method> methods = new ArrayList<>();
+        ReflectionUtils.doWithMethods(ClassUtils.getUserClass(factoryClass), methods::add,
+                method -> method.getName().equals(factoryMethod));
+        return methods;
+    }
+
+    /**
+     * @return types of beans injected by constructors, autowired fields and methods
+     */
+    private static Collection<ResolvableType> getDependencies(Class<?> beanType) {
+        List<ResolvableType> dependencies = new ArrayList<>();
+        for (Constructor<?> constructor : beanType.getDeclaredConstructors()) {
+            dependencies.addAll(getParameterTypes(constructor));
+        }
+        ReflectionUtils.doWithFields(beanType,
+                field -> {
+                    if (!field.isAnnotationPresent(Lazy.class)) {
+                        dependencies.add(getBeanType(ResolvableType.forField(field)));
+                    }
+                },
+                field -> field.isAnnotationPresent(Autowired.class));
+        ReflectionUtils.doWithMethods(beanType,
+                method -> dependencies.addAll(getParameterTypes(method)),
+                method -> method.isAnnotationPresent(Autowired.class));
+        return dependencies;
+    }
+
+    private static Collection<ResolvableType> getParameterTypes(Executable executable) {
+        boolean isLazy = executable.isAnnotationPresent(Lazy.class);
+        List<ResolvableType> types = new ArrayList<>();
+        for (int i = 0; i < executable.getParameterCount(); i++) {
+            MethodParameter parameter = MethodParameter.forExecutable(executable, i);
+            if (!isLazy && !parameter.hasParameterAnnotation(Lazy.class)) {
+                types.add(getBeanType(ResolvableType.forMethodParameter(parameter)));
+            }
+        }
+        return types;
+    }
+
+    /**
+     * @return bean type of injection point, {@link ResolvableType#NONE} if bean is resolved at usage
+     */
+    private static ResolvableType getBeanType(ResolvableType injectionPointType) {
+        Class<?> type = injectionPointType.toClass();
+        if (ObjectFactory.class.isAssignableFrom(type) || type.getName().equals("jakarta.inject.Provider")) {
+            return ResolvableType.NONE;
+        } else if (injectionPointType.isArray()) {
+            return getBeanType(injectionPointType.getComponentType());
+        } else if (Collection.class.isAssignableFrom(type) || type == Optional.class) {
+            return getBeanType(injectionPointType.getGeneric(0));
+        } else if (Map.class.isAssignableFrom(type)) {
+            return getBeanType(injectionPointType.getGeneric(1));
+        } else if (type == Object.class || type.isPrimitive() || type.getName().startsWith("java.")) {
+            return ResolvableType.NONE;
+        }
+        return injectionPointType;
+    }
+}
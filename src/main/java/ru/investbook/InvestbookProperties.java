@@ -28,6 +28,7 @@ import org.springframework.stereotype.Component;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.List;
 import java.util.Set;
 
@@ -49,6 +50,12 @@ public class InvestbookProperties implements InitializingBean {
 
     private boolean tryAltIndexLogoUrl = true;
 
+    /**
+     * Initializes report, Moex ISS and mail subsystems at first usage instead of application start.
+     * Property is read before application context refresh, see {@link FastStartBeanFactoryPostProcessor}
+     */
+    private boolean fastStart = false;
+
     /**
      * Configures extensions packages which provides TableFactory interfaces.
      * Do not configure {@link org.spacious_team.table_wrapper} package, because they are configured by default.
@@ -57,6 +64,75 @@ public class InvestbookProperties implements InitializingBean {
 
     private boolean reportBackup = true;
 
+    /**
+     * Builds Excel report in streaming mode: sheet rows exceeding {@link #reportStreamingWindowSize}
+     * are flushed to temporary files instead of being held in memory
+     */
+    private boolean reportStreaming = false;
+
+    /**
+     * Number of sheet rows kept in memory in Excel report streaming mode
+     */
+    private int reportStreamingWindowSize = 500;
+
+    /**
+     * Number of threads building report tables. Up to twice as many report views are built
+     * or wait for write to the report at the same time
+     */
+    private int reportBuilderThreads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Caches report tables built for "all time to today" filter and rebuilds them in background after data changes.
+     * Disabled by default, because tables of all report views are held in memory
+     */
+    private boolean reportCache = false;
+
+    /**
+     * Delay of report tables rebuild after the last data change when {@link #reportCache} is enabled
+     */
+    private Duration reportCacheRefreshDelay = Duration.ofSeconds(10);
+
+    /**
+     * Max age of cached report tables, for ex. tables with today's date based values
+     */
+    private Duration reportCacheMaxAge = Duration.ofHours(1);
+
+    /**
+     * Delay of home page data computation after the last data change
+     */
+    private Duration dashboardRefreshDelay = Duration.ofSeconds(2);
+
+    /**
+     * Max age of home page data, for ex. assets estimated by today's quotes
+     */
+    private Duration dashboardMaxAge = Duration.ofMinutes(15);
+
+    /**
+     * Delay of home page data computation after application start in {@link #fastStart} mode
+     */
+    private Duration dashboardStartDelay = Duration.ofMinutes(1);
+
+    /**
+     * Saves broker report tables by batches of multi-row INSERT statements instead of row by row
+     */
+    private boolean reportImportBatch = true;
+
+    /**
+     * Max rows inserted by one statement when {@link #reportImportBatch} is enabled
+     */
+    private int reportImportBatchSize = 500;
+
+    /**
+     * Max securities which quotes are concurrently requested from Moex ISS
+     */
+    private int moexIssMaxConcurrentRequests = 8;
+
+    /**
+     * Downloads main Moex boards trading held security types by one request per board,
+     * instead of requesting quote of each security
+     */
+    private boolean moexIssBulkQuotes = true;
+
     public List<Path> getSqlImportFiles() {
         return requireNonNull(sqlImportFiles);
     }
@@ -43,7 +43,6 @@ import org.springframework.web.bind.annotation.RestController;
 import ru.investbook.converter.ForeignExchangeRateConverter;
 import ru.investbook.entity.ForeignExchangeRateEntity;
 import ru.investbook.entity.ForeignExchangeRateEntityPk;
-import ru.investbook.report.ForeignExchangeRateService;
 import ru.investbook.repository.ForeignExchangeRateRepository;
 
 import java.net.URI;
@@ -60,15 +59,12 @@ import static org.springframework.http.HttpHeaders.LOCATION;
 public class ForeignExchangeRateRestController extends AbstractRestController<ForeignExchangeRateEntityPk, ForeignExchangeRate, ForeignExchangeRateEntity> {
     private final ForeignExchangeRateRepository foreignExchangeRateRepository;
     private final ForeignExchangeRateConverter foreignExchangeRateConverter;
-    private final ForeignExchangeRateService foreignExchangeRateService;
 
     public ForeignExchangeRateRestController(ForeignExchangeRateRepository repository,
-                                             ForeignExchangeRateConverter converter,
-                                             ForeignExchangeRateService foreignExchangeRateService) {
+                                             ForeignExchangeRateConverter converter) {
         super(repository, converter);
         this.foreignExchangeRateRepository = repository;
         this.foreignExchangeRateConverter = converter;
-        this.foreignExchangeRateService = foreignExchangeRateService;
     }
 
     @Override
@@ -122,7 +118,6 @@ public class ForeignExchangeRateRestController extends AbstractRestController<Fo
             @ApiResponse(responseCode = "409"),
             @ApiResponse(responseCode = "500", content = @Content)})
     public ResponseEntity<Void> post(@RequestBody @Valid ForeignExchangeRate object) {
-        foreignExchangeRateService.invalidateCache();
         return super.post(object);
     }
 
@@ -145,7 +140,6 @@ public class ForeignExchangeRateRestController extends AbstractRestController<Fo
                                     @RequestBody
                                     @Valid
                                     ForeignExchangeRate object) {
-        foreignExchangeRateService.invalidateCache();
         return super.put(getId(currencyPair, date), object);
     }
 
@@ -164,7 +158,6 @@ public class ForeignExchangeRateRestController extends AbstractRestController<Fo
                                        @Parameter(description = "Дата", example = "2021-01-23")
                                        @DateTimeFormat(pattern = "yyyy-MM-dd")
                                        LocalDate date) {
-        foreignExchangeRateService.invalidateCache();
         return super.delete(getId(currencyPair, date));
     }
 
@@ -42,22 +42,17 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import ru.investbook.converter.EntityConverter;
 import ru.investbook.entity.SecurityEventCashFlowEntity;
-import ru.investbook.report.FifoPositionsFactory;
 
-import static org.spacious_team.broker.pojo.CashFlowType.REDEMPTION;
 import static org.springframework.http.HttpHeaders.LOCATION;
 
 @RestController
 @Tag(name = "События по бумаге", description = "Дивиденды, купоны, амортизации, вариационная маржа, комиссии, налоги")
 @RequestMapping("/api/v1/security-event-cash-flows")
 public class SecurityEventCashFlowRestController extends AbstractRestController<Integer, SecurityEventCashFlow, SecurityEventCashFlowEntity> {
-    private final FifoPositionsFactory positionsFactory;
 
     public SecurityEventCashFlowRestController(JpaRepository<SecurityEventCashFlowEntity, Integer> repository,
-                                               EntityConverter<SecurityEventCashFlowEntity, SecurityEventCashFlow> converter,
-                                               FifoPositionsFactory positionsFactory) {
+                                               EntityConverter<SecurityEventCashFlowEntity, SecurityEventCashFlow> converter) {
         super(repository, converter);
-        this.positionsFactory = positionsFactory;
     }
 
     @Override
@@ -89,7 +84,6 @@ public class SecurityEventCashFlowRestController extends AbstractRestController<
             @ApiResponse(responseCode = "409"),
             @ApiResponse(responseCode = "500", content = @Content)})
     public ResponseEntity<Void> post(@RequestBody @Valid SecurityEventCashFlow event) {
-        if (event.getEventType() == REDEMPTION) positionsFactory.invalidateCache();
         return super.post(event);
     }
 
@@ -105,7 +99,6 @@ public class SecurityEventCashFlowRestController extends AbstractRestController<
                                     @RequestBody
                                     @Valid
                                     SecurityEventCashFlow event) {
-        if (event.getEventType() == REDEMPTION) positionsFactory.invalidateCache();
         return super.put(id, event);
     }
 
@@ -117,7 +110,6 @@ public class SecurityEventCashFlowRestController extends AbstractRestController<
     public ResponseEntity<Void> delete(@PathVariable("id")
                                        @Parameter(description = "Внутренний идентификатор выплаты")
                                        Integer id) {
-        positionsFactory.invalidateCache();
         return super.delete(id);
     }
 
@@ -43,7 +43,6 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import ru.investbook.converter.TransactionConverter;
 import ru.investbook.entity.TransactionEntity;
-import ru.investbook.report.FifoPositionsFactory;
 import ru.investbook.repository.TransactionRepository;
 
 import java.util.List;
@@ -56,15 +55,12 @@ import static org.springframework.http.HttpHeaders.LOCATION;
 public class TransactionRestController extends AbstractRestController<Integer, Transaction, TransactionEntity> {
     private final TransactionRepository repository;
     private final TransactionConverter converter;
-    private final FifoPositionsFactory positionsFactory;
 
     public TransactionRestController(TransactionRepository repository,
-                                     TransactionConverter converter,
-                                     FifoPositionsFactory positionsFactory) {
+                                     TransactionConverter converter) {
         super(repository, converter);
         this.repository = repository;
         this.converter = converter;
-        this.positionsFactory = positionsFactory;
     }
 
     @GetMapping
@@ -135,7 +131,6 @@ public class TransactionRestController extends AbstractRestController<Integer, T
                     @ApiResponse(responseCode = "409"),
                     @ApiResponse(responseCode = "500", content = @Content)})
     public ResponseEntity<Void> post(@RequestBody @Valid Transaction object) {
-        positionsFactory.invalidateCache();
         return super.post(object);
     }
 
@@ -155,7 +150,6 @@ public class TransactionRestController extends AbstractRestController<Integer, T
                                     @RequestBody
                                     @Valid
                                     Transaction object) {
-        positionsFactory.invalidateCache();
         return super.put(id, object);
     }
 
@@ -171,7 +165,6 @@ public class TransactionRestController extends AbstractRestController<Integer, T
     public ResponseEntity<Void> delete(@PathVariable("id")
                                        @Parameter(description = "Внутренний идентификатор сделки")
                                        Integer id) {
-        positionsFactory.invalidateCache();
         return super.delete(id);
     }
 
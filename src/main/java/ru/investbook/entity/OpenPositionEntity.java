@@ -0,0 +1,44 @@
+/*
+ * InvestBook
+ * Copyright (C) 2022  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package ru.investbook.entity;
+
+import jakarta.persistence.Basic;
+import jakarta.persistence.Column;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/**
+ * Sum of transaction counts by portfolio and security, only non-zero sums are stored.
+ * Maintained by {@link ru.investbook.repository.OpenPositionRepository#refresh(java.util.Collection)}.
+ */
+@Entity
+@Table(name = "open_position")
+@Data
+public class OpenPositionEntity {
+
+    @EmbeddedId
+    private OpenPositionEntityPk pk;
+
+    @Basic
+    @Column(name = "count", nullable = false)
+    private int count;
+}
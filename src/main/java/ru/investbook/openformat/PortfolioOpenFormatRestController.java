@@ -18,6 +18,7 @@
 
 package ru.investbook.openformat;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
@@ -31,12 +32,11 @@ import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 import ru.investbook.openformat.v1_1_0.PortfolioOpenFormatBuilder;
 import ru.investbook.openformat.v1_1_0.PortfolioOpenFormatPersister;
-import ru.investbook.openformat.v1_1_0.PortfolioOpenFormatV1_1_0;
-import ru.investbook.parser.ValidatorService;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.Set;
 
@@ -52,35 +52,45 @@ public class PortfolioOpenFormatRestController {
     private final ObjectMapper objectMapper;
     private final PortfolioOpenFormatBuilder portfolioOpenFormatFactory;
     private final PortfolioOpenFormatPersister portfolioOpenFormatPersister;
-    private final ValidatorService validator;
 
+    /**
+     * File is written to temporary file first, success headers are sent only after the file is built,
+     * so build error is reported by error page instead of truncated file
+     */
     @GetMapping("download")
     public void download(HttpServletResponse response) throws IOException {
+        Path file = Files.createTempFile("portfolio", ".json");
         try {
             long t0 = System.nanoTime();
             String fileName = "portfolio.json";
-            PortfolioOpenFormatV1_1_0 object = portfolioOpenFormatFactory.create();
-            validate(object);
-            sendSuccessHeader(response, fileName, "application/json");
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(10240);
-            objectMapper.writerWithDefaultPrettyPrinter().writeValue(outputStream, object);
-            outputStream.writeTo(response.getOutputStream());
+            try (OutputStream out = Files.newOutputStream(file);
+                 JsonGenerator json = objectMapper.createGenerator(out)) {
+                json.useDefaultPrettyPrinter();
+                portfolioOpenFormatFactory.write(json);
+            }
             log.info("Файл '{}' в формате 'Portfolio Open Format' сформирован за {}",
                     fileName, Duration.ofNanos(System.nanoTime() - t0));
+            sendSuccessHeader(response, fileName, "application/json");
+            response.setContentLengthLong(Files.size(file));
+            Files.copy(file, response.getOutputStream());
         } catch (Exception e) {
             log.error("Ошибка генерации файла бэкапа", e);
+            if (response.isCommitted()) {
+                throw e; // file is partially sent, abort connection
+            }
+            response.reset();
             sendErrorPage(response, e);
+        } finally {
+            Files.deleteIfExists(file);
         }
         response.flushBuffer();
     }
 
     @PostMapping("upload")
     public ResponseEntity<String> upload(@RequestParam("file") MultipartFile file) {
-        try (InputStream inputStream = file.getInputStream()) { // creates new input stream
+        try {
             long t0 = System.nanoTime();
-            PortfolioOpenFormatV1_1_0 object = objectMapper.readValue(inputStream, PortfolioOpenFormatV1_1_0.class);
-            validate(object);
-            portfolioOpenFormatPersister.persist(object);
+            portfolioOpenFormatPersister.persist(file); // file input stream is read twice
             log.info("Выполнено восстановление данных из бэкапа за {}", Duration.ofNanos(System.nanoTime() - t0));
             return ok();
         } catch (Exception e) {
@@ -95,12 +105,4 @@ public class PortfolioOpenFormatRestController {
                 <script type="text/javascript">document.location.href="/"</script>
                 """);
     }
-
-    private void validate(PortfolioOpenFormatV1_1_0 object) {
-        try {
-            validator.validate(object);
-        } catch (Exception e) {
-            log.warn("Найдены ошибки в данных формата 'Open Portfolio Format'", e);
-        }
-    }
 }
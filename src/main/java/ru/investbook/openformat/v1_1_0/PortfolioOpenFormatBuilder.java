@@ -18,13 +18,18 @@
 
 package ru.investbook.openformat.v1_1_0;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.spacious_team.broker.pojo.CashFlowType;
 import org.spacious_team.broker.pojo.SecurityType;
 import org.springframework.boot.info.BuildProperties;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.investbook.api.PortfolioCashRestController;
 import ru.investbook.api.PortfolioPropertyRestController;
 import ru.investbook.api.SecurityDescriptionRestController;
@@ -36,21 +41,23 @@ import ru.investbook.entity.PortfolioPropertyEntity;
 import ru.investbook.entity.SecurityEventCashFlowEntity;
 import ru.investbook.entity.TransactionCashFlowEntity;
 import ru.investbook.entity.TransactionEntity;
+import ru.investbook.parser.ValidatorService;
 import ru.investbook.repository.EventCashFlowRepository;
 import ru.investbook.repository.PortfolioCashRepository;
 import ru.investbook.repository.PortfolioPropertyRepository;
 import ru.investbook.repository.PortfolioRepository;
 import ru.investbook.repository.SecurityEventCashFlowRepository;
 import ru.investbook.repository.SecurityRepository;
-import ru.investbook.repository.TransactionCashFlowRepository;
 import ru.investbook.repository.TransactionRepository;
 import ru.investbook.service.AssetsAndCashService;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -63,14 +70,17 @@ import static org.spacious_team.broker.pojo.SecurityType.CURRENCY_PAIR;
 import static org.spacious_team.broker.pojo.SecurityType.DERIVATIVE;
 
 @Service
+@Slf4j
 @RequiredArgsConstructor
 public class PortfolioOpenFormatBuilder {
+    private static final int CLEAR_PERSISTENCE_CONTEXT_INTERVAL = 1000; // transactions
+    private final EntityManager entityManager;
+    private final ValidatorService validator;
     private final BuildProperties buildProperties;
     private final AssetsAndCashService assetsAndCashService;
     private final PortfolioRepository portfolioRepository;
     private final SecurityRepository securityRepository;
     private final TransactionRepository transactionRepository;
-    private final TransactionCashFlowRepository transactionCashFlowRepository;
     private final SecurityEventCashFlowRepository securityEventCashFlowRepository;
     private final EventCashFlowRepository eventCashFlowRepository;
     private final PortfolioPropertyRepository portfolioPropertyRepository;
@@ -80,24 +90,72 @@ public class PortfolioOpenFormatBuilder {
     private final PortfolioCashRestController portfolioCashRestController;
     private final SecurityQuoteRestController securityQuoteRestController;
 
-    public PortfolioOpenFormatV1_1_0 create() {
+    /**
+     * Writes portfolio straight to output. Trades, transfers, payments and cash flows are read by cursors,
+     * so memory used does not depend on events count.
+     */
+    @Transactional(readOnly = true)
+    public void write(JsonGenerator json) throws IOException {
         try {
-            return PortfolioOpenFormatV1_1_0.builder()
+            PortfolioOpenFormatV1_1_0 header = PortfolioOpenFormatV1_1_0.builder()
                     .end(getLatestEventTimestamp())
-                    .accounts(getAccounts())
-                    .cashBalances(getCashBalances())
-                    .assets(getAssets())
-                    .trades(getTradesAndTransfers().trades)
-                    .transfer(getTradesAndTransfers().transfers)
-                    .payments(getPayments())
-                    .cashFlows(getCashFlows())
-                    .vndInvestbook(getVndInvestbook())
                     .build();
+            json.writeStartObject();
+            json.writeStringField("version", header.getVersion());
+            json.writeStringField("generated-by", header.getGeneratedBy());
+            json.writeNumberField("generated", header.getGenerated());
+            json.writeNumberField("end", header.getEnd());
+            writeArray(json, "accounts", getAccounts());
+            writeArray(json, "cash-balances", getCashBalances());
+            writeArray(json, "assets", getAssets());
+            writeTrades(json);
+            try (Stream<TransferPof> transfers = getTransfers()) {
+                writeArray(json, "transfers", transfers);
+            }
+            try (Stream<PaymentPof> payments = getPayments()) {
+                writeArray(json, "payments", payments);
+            }
+            try (Stream<CashFlowPof> cashFlows = getCashFlows()) {
+                writeArray(json, "cash-flows", cashFlows);
+            }
+            json.writeFieldName("vnd-investbook");
+            writeObject(json, getVndInvestbook());
+            json.writeEndObject();
+            json.flush();
         } finally {
             AccountPof.resetAccountIdGenerator(); // release mem
         }
     }
 
+    private void writeArray(JsonGenerator json, String fieldName, Collection<?> objects) throws IOException {
+        json.writeArrayFieldStart(fieldName);
+        for (Object object : objects) {
+            writeObject(json, object);
+        }
+        json.writeEndArray();
+    }
+
+    private void writeArray(JsonGenerator json, String fieldName, Stream<?> objects) throws IOException {
+        json.writeArrayFieldStart(fieldName);
+        Iterator<?> iterator = objects.iterator();
+        for (int count = 1; iterator.hasNext(); count++) {
+            writeObject(json, iterator.next());
+            if (count % CLEAR_PERSISTENCE_CONTEXT_INTERVAL == 0) {
+                entityManager.clear(); // release mem, read entities are not required anymore
+            }
+        }
+        json.writeEndArray();
+    }
+
+    private void writeObject(JsonGenerator json, Object object) throws IOException {
+        try {
+            validator.validate(object);
+        } catch (Exception e) {
+            log.warn("Найдены ошибки в данных формата 'Open Portfolio Format'", e);
+        }
+        json.writeObject(object);
+    }
+
     private long getLatestEventTimestamp() {
         return Stream.of(
                         transactionRepository.findFirstByOrderByTimestampDesc()
@@ -153,25 +211,64 @@ public class PortfolioOpenFormatBuilder {
         return CashBalancesPof.of(AccountPof.getAccountId(portfolio.getId()), latestCashBalances);
     }
 
-    private record TradesAndTransfers(Collection<TradePof> trades, Collection<TransferPof> transfers) {
-        TradesAndTransfers() {
-            this(new ArrayList<>(10240), new ArrayList<>(10240));
+    /**
+     * Writes trades while reading transactions joined with cash flows, deposits and withdrawals are skipped
+     */
+    private void writeTrades(JsonGenerator json) throws IOException {
+        int maxTradeId = 0;
+        json.writeArrayFieldStart("trades");
+        try (Stream<Object[]> rows = transactionRepository.streamAllJoinTransactionCashFlows()) {
+            Iterator<Object[]> iterator = rows.iterator();
+            @Nullable TransactionEntity transaction = null;
+            List<TransactionCashFlowEntity> cashFlow = new ArrayList<>();
+            int transactionCount = 0;
+            while (iterator.hasNext()) {
+                Object[] row = iterator.next();
+                TransactionEntity rowTransaction = (TransactionEntity) row[0];
+                if (transaction != null && !transaction.getId().equals(rowTransaction.getId())) {
+                    maxTradeId = Math.max(maxTradeId, writeTrade(json, transaction, cashFlow));
+                    cashFlow = new ArrayList<>();
+                    if (++transactionCount % CLEAR_PERSISTENCE_CONTEXT_INTERVAL == 0) {
+                        entityManager.clear(); // release mem, read entities are not required anymore
+                    }
+                }
+                transaction = rowTransaction;
+                if (row[1] != null) {
+                    cashFlow.add((TransactionCashFlowEntity) row[1]);
+                }
+            }
+            if (transaction != null) {
+                maxTradeId = Math.max(maxTradeId, writeTrade(json, transaction, cashFlow));
+            }
+        }
+        for (TradePof redemption : getBondRedemptions(maxTradeId)) {
+            writeObject(json, redemption);
         }
+        json.writeEndArray();
     }
 
-    private TradesAndTransfers getTradesAndTransfers() {
-        TradesAndTransfers result = new TradesAndTransfers();
-        for (TransactionEntity transaction : transactionRepository.findAll()) {
-            List<TransactionCashFlowEntity> cashFlow =
-                    transactionCashFlowRepository.findByTransactionId(transaction.getId());
-            if (isDepositOrWithdrawal(transaction, cashFlow)) {
-                result.transfers.add(TransferPof.of(transaction));
-            } else {
-                result.trades.add(TradePof.of(transaction, cashFlow));
-            }
+    /**
+     * @return written trade id or 0 if transaction is deposit or withdrawal
+     */
+    private int writeTrade(JsonGenerator json,
+                           TransactionEntity transaction,
+                           List<TransactionCashFlowEntity> cashFlow) throws IOException {
+        if (isDepositOrWithdrawal(transaction, cashFlow)) {
+            return 0;
         }
-        addBondRedemptionsTo(result.trades);
-        return result;
+        TradePof trade = TradePof.of(transaction, cashFlow);
+        writeObject(json, trade);
+        return trade.getId();
+    }
+
+    /**
+     * Returns deposits and withdrawals, see {@link #isDepositOrWithdrawal(TransactionEntity, List)}. Stream should be closed.
+     */
+    private Stream<TransferPof> getTransfers() {
+        return transactionRepository.streamAllWithoutCashFlowTypes(
+                        Set.of(PRICE.getId(), DERIVATIVE_PRICE.getId()),
+                        Set.of(DERIVATIVE, CURRENCY_PAIR))
+                .map(TransferPof::of);
     }
 
     private static boolean isDepositOrWithdrawal(TransactionEntity transaction,
@@ -185,44 +282,32 @@ public class PortfolioOpenFormatBuilder {
                                         e.getCashFlowType().getId() == DERIVATIVE_PRICE.getId()));
     }
 
-    private void addBondRedemptionsTo(Collection<TradePof> trades) {
-        int _maxTradeId = trades.stream()
-                .mapToInt(TradePof::getId)
-                .max()
-                .orElse(0);
-        AtomicInteger maxTradeId = new AtomicInteger(_maxTradeId);
-        securityEventCashFlowRepository.findByCashFlowTypeId(CashFlowType.REDEMPTION.getId())
+    private List<TradePof> getBondRedemptions(int maxTradeId) {
+        AtomicInteger tradeId = new AtomicInteger(maxTradeId);
+        return securityEventCashFlowRepository.findByCashFlowTypeId(CashFlowType.REDEMPTION.getId())
                 .stream()
-                .map(redemption -> TradePof.of(redemption, maxTradeId.incrementAndGet()))
-                .forEach(trades::add);
-    }
-
-    private Collection<PaymentPof> getPayments() {
-        return securityEventCashFlowRepository.findAll()
-                .stream()
-                .filter(e -> e.getCashFlowType().getId() != CashFlowType.TAX.getId() &&
-                        e.getCashFlowType().getId() != CashFlowType.REDEMPTION.getId()) // bond redemptions saved as trades
-                .map(e -> PaymentPof.of(e, getPaymentTax(e)))
+                .map(redemption -> TradePof.of(redemption, tradeId.incrementAndGet()))
                 .toList();
     }
 
-    private Optional<SecurityEventCashFlowEntity> getPaymentTax(SecurityEventCashFlowEntity cashFlow) {
-        if (cashFlow.getCashFlowType().getId() != CashFlowType.TAX.getId()) {
-            return securityEventCashFlowRepository.findByPortfolioIdAndSecurityIdAndCashFlowTypeIdAndTimestampAndCount(
-                            cashFlow.getPortfolio().getId(),
-                            cashFlow.getSecurity().getId(),
-                            CashFlowType.TAX.getId(),
-                            cashFlow.getTimestamp(),
-                            cashFlow.getCount());
-        }
-        return Optional.empty();
+    /**
+     * Returns payments except taxes and bond redemptions (saved as trades). Stream should be closed.
+     */
+    private Stream<PaymentPof> getPayments() {
+        return securityEventCashFlowRepository.streamAllJoinTax(
+                        CashFlowType.TAX.getId(),
+                        Set.of(CashFlowType.TAX.getId(), CashFlowType.REDEMPTION.getId()))
+                .map(row -> PaymentPof.of(
+                        (SecurityEventCashFlowEntity) row[0],
+                        Optional.ofNullable((SecurityEventCashFlowEntity) row[1])));
     }
 
-    private Collection<CashFlowPof> getCashFlows() {
-        return eventCashFlowRepository.findAll()
-                .stream()
-                .map(CashFlowPof::of)
-                .toList();
+    /**
+     * Stream should be closed
+     */
+    private Stream<CashFlowPof> getCashFlows() {
+        return eventCashFlowRepository.streamAll()
+                .map(CashFlowPof::of);
     }
 
     private VndInvestbookPof getVndInvestbook() {
@@ -18,17 +18,26 @@
 
 package ru.investbook.openformat.v1_1_0;
 
-import lombok.RequiredArgsConstructor;
-import lombok.SneakyThrows;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
-import org.checkerframework.checker.nullness.qual.Nullable;
+import org.spacious_team.broker.pojo.EventCashFlow;
 import org.spacious_team.broker.pojo.SecurityDescription;
+import org.spacious_team.broker.pojo.SecurityEventCashFlow;
 import org.spacious_team.broker.pojo.SecurityQuote;
 import org.spacious_team.broker.pojo.SecurityType;
+import org.spacious_team.broker.pojo.Transaction;
+import org.spacious_team.broker.report_parser.api.AbstractTransaction;
+import org.springframework.core.io.InputStreamSource;
 import org.springframework.stereotype.Service;
+import ru.investbook.InvestbookProperties;
 import ru.investbook.parser.InvestbookApiClient;
+import ru.investbook.parser.InvestbookBatchApiClient;
 import ru.investbook.parser.SecurityRegistrar;
+import ru.investbook.parser.ValidatorService;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -37,25 +46,54 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
 
-import static java.util.concurrent.Executors.newWorkStealingPool;
 import static java.util.stream.Collectors.toMap;
 import static org.springframework.util.StringUtils.hasText;
 import static ru.investbook.openformat.v1_1_0.PortfolioOpenFormatV1_1_0.GENERATED_BY_INVESTBOOK;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class PortfolioOpenFormatPersister {
     private static final int TRADE_ID_MAX_LENGTH = 32; // investbook storage limit
+    private static final String TRADES = "trades";
+    private static final String TRANSFERS = "transfers";
+    private static final String PAYMENTS = "payments";
+    private static final String CASH_FLOWS = "cash-flows";
+    private static final String VND_INVESTBOOK = "vnd-investbook";
     private final InvestbookApiClient api;
+    private final InvestbookBatchApiClient batchApi;
     private final SecurityRegistrar securityRegistrar;
+    private final ValidatorService validator;
+    private final InvestbookProperties properties;
+    private final PortfolioOpenFormatStreamReader reader;
 
-    public void persist(PortfolioOpenFormatV1_1_0 object) {
-        Collection<Runnable> tasks = new ArrayList<>();
+    public PortfolioOpenFormatPersister(InvestbookApiClient api,
+                                        InvestbookBatchApiClient batchApi,
+                                        SecurityRegistrar securityRegistrar,
+                                        ValidatorService validator,
+                                        InvestbookProperties properties,
+                                        ObjectMapper objectMapper) {
+        this.api = api;
+        this.batchApi = batchApi;
+        this.securityRegistrar = securityRegistrar;
+        this.validator = validator;
+        this.properties = properties;
+        this.reader = new PortfolioOpenFormatStreamReader(objectMapper);
+    }
+
+    /**
+     * Reads file twice. Accounts and assets are read and saved first, then trades, transfers, payments
+     * and cash flows are read and saved by chunks, each chunk is saved by batches
+     * or row by row if report import batching is disabled.
+     */
+    public void persist(InputStreamSource file) throws IOException {
+        long t0 = System.nanoTime();
+        PortfolioOpenFormatV1_1_0 object;
+        try (InputStream in = file.getInputStream()) {
+            object = reader.readSkipping(in, Set.of(TRADES, TRANSFERS, PAYMENTS, CASH_FLOWS, VND_INVESTBOOK));
+        }
+        validate(object);
 
         object.getAccounts()
                 .stream()
@@ -78,61 +116,123 @@ public class PortfolioOpenFormatPersister {
                 .stream()
                 .collect(toMap(AssetPof::getId, AssetPof::getSecurityType));
 
-        tasks.add(() -> getTradesWithUniqTradeId(object.getTrades(), assetToSecurityId)
-                .parallelStream()
-                .map(t -> t.toTransaction(accountToPortfolioId, assetToSecurityId, assetTypes))
-                .flatMap(Optional::stream)
-                .forEach(api::addTransaction));
+        Set<String> tradeIds = new HashSet<>();
+        Set<String> transferIds = new HashSet<>();
+        AtomicLong count = new AtomicLong();
+        int chunkSize = Math.max(1, properties.getReportImportBatchSize());
+        Map<String, PortfolioOpenFormatStreamReader.FieldReader> fieldReaders = Map.of(
+                TRADES, reader.arrayByChunks(TradePof.class, chunkSize, trades -> {
+                    trades.forEach(this::validate);
+                    addTransactions(getTradesWithUniqTradeId(trades, assetToSecurityId, tradeIds)
+                            .stream()
+                            .map(t -> t.toTransaction(accountToPortfolioId, assetToSecurityId, assetTypes))
+                            .flatMap(Optional::stream)
+                            .toList());
+                    count.addAndGet(trades.size());
+                }),
+                TRANSFERS, reader.arrayByChunks(TransferPof.class, chunkSize, transfers -> {
+                    transfers.forEach(this::validate);
+                    addTransfers(getTransfersWithUniqTransferId(transfers, assetToSecurityId, transferIds)
+                            .stream()
+                            .map(t -> t.toTransaction(accountToPortfolioId, assetToSecurityId))
+                            .flatMap(Optional::stream)
+                            .toList());
+                    addSecurityEventCashFlows(transfers.stream()
+                            .map(t -> t.getSecurityEventCashFlow(accountToPortfolioId, assetToSecurityId))
+                            .flatMap(Collection::stream)
+                            .toList());
+                    count.addAndGet(transfers.size());
+                }),
+                PAYMENTS, reader.arrayByChunks(PaymentPof.class, chunkSize, payments -> {
+                    payments.forEach(this::validate);
+                    addSecurityEventCashFlows(payments.stream()
+                            .map(t -> t.getSecurityEventCashFlow(accountToPortfolioId, assetToSecurityId, assetTypes))
+                            .flatMap(Collection::stream)
+                            .toList());
+                    count.addAndGet(payments.size());
+                }),
+                CASH_FLOWS, reader.arrayByChunks(CashFlowPof.class, chunkSize, cashFlows -> {
+                    cashFlows.forEach(this::validate);
+                    addEventCashFlows(cashFlows.stream()
+                            .map(c -> c.toEventCashFlow(accountToPortfolioId))
+                            .flatMap(Optional::stream)
+                            .toList());
+                    count.addAndGet(cashFlows.size());
+                }),
+                VND_INVESTBOOK, reader.object(VndInvestbookPof.class, vndInvestbook -> {
+                    validate(vndInvestbook);
+                    persistVndInvestbook(vndInvestbook, assetToSecurityId);
+                }));
+        try (InputStream in = file.getInputStream()) {
+            reader.read(in, fieldReaders);
+        }
 
-        tasks.add(() -> getTransfersWithUniqTransferId(object.getTransfer(), assetToSecurityId)
-                .parallelStream()
-                .map(t -> t.toTransaction(accountToPortfolioId, assetToSecurityId))
-                .flatMap(Optional::stream)
-                .forEach(api::addTransaction));
+        if (!Objects.equals(object.getGeneratedBy(), GENERATED_BY_INVESTBOOK)) {
+            persistTotalAssetsAndPortfolioCash(object, accountToPortfolioId);
+        }
+        Duration duration = Duration.ofNanos(System.nanoTime() - t0);
+        log.info("Загружено {} сделок, переводов и выплат за {} ({} записей/с)",
+                count.get(), duration, count.get() * 1_000_000_000 / Math.max(1, duration.toNanos()));
+    }
 
-        tasks.add(() -> object.getTransfer()
-                .parallelStream()
-                .map(t -> t.getSecurityEventCashFlow(accountToPortfolioId, assetToSecurityId))
-                .flatMap(Collection::stream)
-                .forEach(api::addSecurityEventCashFlow));
+    private void persistVndInvestbook(VndInvestbookPof vndInvestbook, Map<Integer, Integer> assetToSecurityId) {
+        Collection<SecurityQuote> quotes = vndInvestbook.getSecurityQuotes()
+                .stream()
+                .map(quote -> withSecurityId(quote, assetToSecurityId))
+                .toList();
+        if (properties.isReportImportBatch()) {
+            batchApi.addPortfolioCashes(vndInvestbook.getPortfolioCash());
+            batchApi.addPortfolioProperties(vndInvestbook.getPortfolioProperties());
+        } else {
+            vndInvestbook.getPortfolioCash().forEach(api::addPortfolioCash);
+            vndInvestbook.getPortfolioProperties().forEach(api::addPortfolioProperty);
+        }
+        vndInvestbook.getSecurityDescriptions()
+                .forEach(security -> persistSecurityDescription(security, assetToSecurityId));
+        if (properties.isReportImportBatch()) {
+            batchApi.addSecurityQuotes(quotes);
+        } else {
+            quotes.forEach(api::addSecurityQuote);
+        }
+    }
 
-        tasks.add(() -> object.getPayments()
-                .parallelStream()
-                .map(t -> t.getSecurityEventCashFlow(accountToPortfolioId, assetToSecurityId, assetTypes))
-                .flatMap(Collection::stream)
-                .forEach(api::addSecurityEventCashFlow));
+    private void addTransactions(Collection<AbstractTransaction> transactions) {
+        if (properties.isReportImportBatch()) {
+            batchApi.addTransactions(transactions);
+        } else {
+            transactions.forEach(api::addTransaction);
+        }
+    }
 
-        tasks.add(() -> object.getCashFlows()
-                .parallelStream()
-                .map(c -> c.toEventCashFlow(accountToPortfolioId))
-                .flatMap(Optional::stream)
-                .forEach(api::addEventCashFlow));
-
-        @Nullable VndInvestbookPof vndInvestbook = object.getVndInvestbook();
-        if (vndInvestbook != null) {
-            tasks.add(() -> vndInvestbook.getPortfolioCash().forEach(api::addPortfolioCash));
-            tasks.add(() -> vndInvestbook.getPortfolioProperties().forEach(api::addPortfolioProperty));
-            tasks.add(() -> vndInvestbook.getSecurityDescriptions()
-                    .forEach(security -> persistSecurityDescription(security, assetToSecurityId)));
-            tasks.add(() -> vndInvestbook.getSecurityQuotes()
-                    .forEach(quote -> persistSecurityQuote(quote, assetToSecurityId)));
+    private void addTransfers(Collection<Transaction> transfers) {
+        if (properties.isReportImportBatch()) {
+            batchApi.addTransfers(transfers);
+        } else {
+            transfers.forEach(api::addTransaction);
         }
+    }
 
-        if (!Objects.equals(object.getGeneratedBy(), GENERATED_BY_INVESTBOOK)) {
-            tasks.add(() -> persistTotalAssetsAndPortfolioCash(object, accountToPortfolioId));
+    private void addSecurityEventCashFlows(Collection<SecurityEventCashFlow> cashFlows) {
+        if (properties.isReportImportBatch()) {
+            batchApi.addSecurityEventCashFlows(cashFlows);
+        } else {
+            cashFlows.forEach(api::addSecurityEventCashFlow);
         }
+    }
 
-        runTasks(tasks);
+    private void addEventCashFlows(Collection<EventCashFlow> cashFlows) {
+        if (properties.isReportImportBatch()) {
+            batchApi.addEventCashFlows(cashFlows);
+        } else {
+            cashFlows.forEach(api::addEventCashFlow);
+        }
     }
 
-    @SneakyThrows
-    private void runTasks(Collection<Runnable> tasks) {
-        try (ExecutorService executorService = newWorkStealingPool(4 * Runtime.getRuntime().availableProcessors())) {
-            @SuppressWarnings("assignment")
-            Collection<Callable<Object>> callables = tasks.stream()
-                    .map(Executors::callable)
-                    .toList();
-            executorService.invokeAll(callables);
+    private void validate(Object object) {
+        try {
+            validator.validate(object);
+        } catch (Exception e) {
+            log.warn("Найдены ошибки в данных формата 'Open Portfolio Format'", e);
         }
     }
 
@@ -145,10 +245,13 @@ public class PortfolioOpenFormatPersister {
     private record SecurityIdentifierMap(int assetId, int securityId) {
     }
 
+    /**
+     * @param tradeIds trade ids of previous chunks, updated by this method
+     */
     private Collection<TradePof> getTradesWithUniqTradeId(Collection<TradePof> trades,
-                                                          Map<Integer, Integer> assetToSecurityId) {
+                                                          Map<Integer, Integer> assetToSecurityId,
+                                                          Set<String> tradeIds) {
         Collection<TradePof> tradesWithUniqId = new ArrayList<>(trades.size());
-        Set<String> tradeIds = new HashSet<>(trades.size());
         for (TradePof t : trades) {
             String tradeId = hasText(t.getTradeId()) ?
                     t.getTradeId() :
@@ -162,10 +265,13 @@ public class PortfolioOpenFormatPersister {
         return tradesWithUniqId;
     }
 
+    /**
+     * @param transferIds transfer ids of previous chunks, updated by this method
+     */
     private Collection<TransferPof> getTransfersWithUniqTransferId(Collection<TransferPof> transfers,
-                                                                   Map<Integer, Integer> assetToSecurityId) {
+                                                                   Map<Integer, Integer> assetToSecurityId,
+                                                                   Set<String> transferIds) {
         Collection<TransferPof> transfersWithUniqId = new ArrayList<>(transfers.size());
-        Set<String> transferIds = new HashSet<>(transfers.size());
         for (TransferPof t : transfers) {
             @SuppressWarnings("assignment")
             String transferId = hasText(t.getTransferId()) ?
@@ -203,12 +309,11 @@ public class PortfolioOpenFormatPersister {
         api.addSecurityDescription(security);
     }
 
-    private void persistSecurityQuote(SecurityQuote quote, Map<Integer, Integer> assetToSecurityId) {
+    private static SecurityQuote withSecurityId(SecurityQuote quote, Map<Integer, Integer> assetToSecurityId) {
         int assetId = quote.getSecurity();
-        quote = quote.toBuilder()
+        return quote.toBuilder()
                 .security(getSecurityId(assetToSecurityId, assetId))
                 .build();
-        api.addSecurityQuote(quote);
     }
 
     private static int getSecurityId(Map<Integer, Integer> assetToSecurityId, int asset) {
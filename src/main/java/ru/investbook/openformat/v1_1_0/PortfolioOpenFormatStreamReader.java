@@ -0,0 +1,114 @@
+/*
+ * InvestBook
+ * Copyright (C) 2022  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.investbook.openformat.v1_1_0;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Reads Portfolio Open Format file field by field, large arrays are read element by element
+ */
+@RequiredArgsConstructor
+class PortfolioOpenFormatStreamReader {
+    private final ObjectMapper objectMapper;
+
+    @FunctionalInterface
+    interface FieldReader {
+        /**
+         * @param parser parser positioned on field value first token
+         */
+        void read(JsonParser parser) throws IOException;
+    }
+
+    /**
+     * @param skippedFields fields, which are not read
+     * @return object without skipped fields
+     */
+    PortfolioOpenFormatV1_1_0 readSkipping(InputStream in, Set<String> skippedFields) throws IOException {
+        ObjectNode object = objectMapper.createObjectNode();
+        readFields(in, field -> skippedFields.contains(field) ?
+                JsonParser::skipChildren :
+                parser -> object.set(field, objectMapper.readTree(parser)));
+        return objectMapper.treeToValue(object, PortfolioOpenFormatV1_1_0.class);
+    }
+
+    /**
+     * Reads only fields having reader
+     */
+    void read(InputStream in, Map<String, FieldReader> fieldReaders) throws IOException {
+        readFields(in, field -> fieldReaders.getOrDefault(field, JsonParser::skipChildren));
+    }
+
+    private void readFields(InputStream in, Function<String, FieldReader> fieldReaders)
+            throws IOException {
+        try (JsonParser parser = objectMapper.createParser(in)) {
+            expect(parser.nextToken(), JsonToken.START_OBJECT);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                fieldReaders.apply(field).read(parser);
+            }
+        }
+    }
+
+    /**
+     * @return reader of array field, which passes array elements to consumer by chunks
+     */
+    <T> FieldReader arrayByChunks(Class<T> type, int chunkSize, Consumer<List<T>> chunkConsumer) {
+        return parser -> {
+            expect(parser.currentToken(), JsonToken.START_ARRAY);
+            List<T> chunk = new ArrayList<>(chunkSize);
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                chunk.add(objectMapper.readValue(parser, type));
+                if (chunk.size() >= chunkSize) {
+                    chunkConsumer.accept(chunk);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                chunkConsumer.accept(chunk);
+            }
+        };
+    }
+
+    /**
+     * @return reader of object field
+     */
+    <T> FieldReader object(Class<T> type, Consumer<T> consumer) {
+        return parser -> consumer.accept(objectMapper.readValue(parser, type));
+    }
+
+    private static void expect(JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new IOException("Неожиданный формат файла, ожидается " + expected + ", найдено " + actual);
+        }
+    }
+}
@@ -37,7 +37,10 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
@@ -123,40 +126,65 @@ public class BrokerReportParserServiceImpl implements BrokerReportParserService
         return path;
     }
 
-    private BrokerNameAndReport getBrokerReport(ByteArrayInputStream inputStream, String fileName, String providedByBroker) {
-        if (StringUtils.hasLength(providedByBroker)) {
-            return getReportOfKnownBroker(inputStream, fileName, providedByBroker);
-        } else {
-            return getReportOfUnknownBroker(inputStream, fileName);
+    private BrokerNameAndReport getBrokerReport(ByteArrayInputStream inputStream,
+                                                String fileName,
+                                                String providedByBroker) throws IOException {
+        try (ReportFile reportFile = new ReportFile(fileName, inputStream.readAllBytes())) {
+            if (StringUtils.hasLength(providedByBroker)) {
+                return getReportOfKnownBroker(reportFile, providedByBroker);
+            } else {
+                return getReportOfUnknownBroker(reportFile);
+            }
         }
     }
 
-    @SneakyThrows
-    private BrokerNameAndReport getReportOfUnknownBroker(ByteArrayInputStream inputStream, String fileName) {
-        Optional<BrokerReport> brokerReport;
-        // convert to mark supporting input stream
-
-        for (BrokerReportFactory brokerReportFactory : brokerReportFactories) {
-            if (!brokerReportFactory.canCreate(fileName, inputStream)) continue;
-            brokerReport = brokerReportFactory.create(fileName, inputStream);
-            if (brokerReport.isPresent()) {
-                return new BrokerNameAndReport(brokerReportFactory.getBrokerName(), brokerReport.get());
-            }
-        }
-        throw new IllegalArgumentException("Неизвестный формат отчета '" + fileName + "'");
+    private BrokerNameAndReport getReportOfUnknownBroker(ReportFile reportFile) {
+        return getBrokerReport(getCandidateFactories(reportFile), reportFile)
+                .orElseThrow(() -> new IllegalArgumentException("Неизвестный формат отчета '" + reportFile.getFileName() + "'"));
     }
 
-    @SneakyThrows
-    private BrokerNameAndReport getReportOfKnownBroker(ByteArrayInputStream inputStream, String fileName, String providedByBroker) {
-        return findBrokerReportFactory(providedByBroker).stream()
-                .flatMap(f -> f.create(fileName, inputStream)
-                        .map(report -> new BrokerNameAndReport(f.getBrokerName(), report))
-                        .stream())
-                .findAny()
-                .orElseThrow(() -> new IllegalArgumentException("Файл " + fileName +
+    private BrokerNameAndReport getReportOfKnownBroker(ReportFile reportFile, String providedByBroker) {
+        return getBrokerReport(findBrokerReportFactory(providedByBroker), reportFile)
+                .orElseThrow(() -> new IllegalArgumentException("Файл " + reportFile.getFileName() +
                         " не является отчетом брокера " + providedByBroker));
     }
 
+    /**
+     * @return factories accepting file name, factories with matched file signature are first
+     */
+    private List<BrokerReportFactory> getCandidateFactories(ReportFile reportFile) {
+        return brokerReportFactories.stream()
+                .filter(factory -> factory.canCreate(reportFile.getFileName(), reportFile.getInputStream()))
+                .sorted(Comparator.comparing(factory -> !isSignatureMatched(factory, reportFile)))
+                .toList();
+    }
+
+    private static boolean isSignatureMatched(BrokerReportFactory factory, ReportFile reportFile) {
+        return factory instanceof ReportFileBrokerReportFactory f && f.isSignatureMatched(reportFile);
+    }
+
+    /**
+     * Tries factories one by one, logs time spent by each factory
+     */
+    private Optional<BrokerNameAndReport> getBrokerReport(Collection<BrokerReportFactory> factories, ReportFile reportFile) {
+        Map<String, Duration> detectionTimes = new LinkedHashMap<>();
+        try {
+            for (BrokerReportFactory factory : factories) {
+                long t0 = System.nanoTime();
+                Optional<BrokerReport> brokerReport = (factory instanceof ReportFileBrokerReportFactory f) ?
+                        f.create(reportFile) :
+                        factory.create(reportFile.getFileName(), reportFile.getInputStream());
+                detectionTimes.put(factory.getClass().getSimpleName(), Duration.ofNanos(System.nanoTime() - t0));
+                if (brokerReport.isPresent()) {
+                    return Optional.of(new BrokerNameAndReport(factory.getBrokerName(), brokerReport.get()));
+                }
+            }
+            return Optional.empty();
+        } finally {
+            log.info("Формат отчета '{}' ({}) проверен за {}", reportFile.getFileName(), reportFile.getContainerType(), detectionTimes);
+        }
+    }
+
     private Collection<BrokerReportFactory> findBrokerReportFactory(String broker) {
         return brokerReportFactories.stream()
                 .filter(b -> b.getBrokerName().equalsIgnoreCase(broker))
@@ -49,6 +49,8 @@ import ru.investbook.api.TransactionCashFlowRestController;
 import ru.investbook.api.TransactionRestController;
 import ru.investbook.service.moex.MoexDerivativeCodeService;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -105,23 +107,35 @@ public class InvestbookApiClient {
     }
 
     public void addTransaction(AbstractTransaction transaction) {
-        saveWithoutUpdateAndGet(
+        addTransactionAndGetCashFlows(transaction)
+                .forEach(this::addTransactionCashFlow);
+    }
+
+    /**
+     * Saves transaction without its cash flows
+     *
+     * @return cash flows of saved transaction or empty collection if transaction is not saved
+     */
+    Collection<TransactionCashFlow> addTransactionAndGetCashFlows(AbstractTransaction transaction) {
+        return saveWithoutUpdateAndGet(
                 transaction.getTransaction(),
                 transactionRestController::createIfAbsentAndGet,
                 "Не могу добавить транзакцию")
                 .map(Transaction::getId)
-                .ifPresentOrElse(
-                        transactionId -> addCashTransactionFlows(transaction, transactionId),
-                        () -> log.warn("Не могу добавить транзакцию в БД, " +
-                                "не задан внутренний идентификатор записи: {}", transaction));
+                .map(transactionId -> getTransactionCashFlows(transaction, transactionId))
+                .orElseGet(() -> {
+                    log.warn("Не могу добавить транзакцию в БД, " +
+                            "не задан внутренний идентификатор записи: {}", transaction);
+                    return List.of();
+                });
     }
 
-    private void addCashTransactionFlows(AbstractTransaction transaction, int transactionId) {
-        transaction.toBuilder()
+    static Collection<TransactionCashFlow> getTransactionCashFlows(AbstractTransaction transaction,
+                                                                   int transactionId) {
+        return transaction.toBuilder()
                 .id(transactionId)
                 .build()
-                .getTransactionCashFlows()
-                .forEach(this::addTransactionCashFlow);
+                .getTransactionCashFlows();
     }
 
     public void addTransaction(Transaction transaction) {
@@ -146,15 +160,19 @@ public class InvestbookApiClient {
     }
 
     public void addSecurityEventCashFlow(SecurityEventCashFlow cf) {
-        if (cf.getCount() == null && cf.getEventType() == DERIVATIVE_PROFIT) {
-            cf = cf.toBuilder().count(0).build(); // count is optional for derivatives
-        }
         saveWithoutUpdate(
-                cf,
+                withDefaultCount(cf),
                 securityEventCashFlowRestController::createIfAbsent,
                 "Не могу добавить информацию о движении денежных средств");
     }
 
+    static SecurityEventCashFlow withDefaultCount(SecurityEventCashFlow cf) {
+        if (cf.getCount() == null && cf.getEventType() == DERIVATIVE_PROFIT) {
+            cf = cf.toBuilder().count(0).build(); // count is optional for derivatives
+        }
+        return cf;
+    }
+
     public void addPortfolioCash(PortfolioCash cash) {
         saveWithoutUpdate(
                 cash,
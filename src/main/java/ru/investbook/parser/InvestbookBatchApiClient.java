@@ -0,0 +1,311 @@
+/*
+ * InvestBook
+ * Copyright (C) 2022  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.investbook.parser;
+
+import jakarta.validation.ConstraintViolationException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.spacious_team.broker.pojo.EventCashFlow;
+import org.spacious_team.broker.pojo.ForeignExchangeRate;
+import org.spacious_team.broker.pojo.PortfolioCash;
+import org.spacious_team.broker.pojo.PortfolioProperty;
+import org.spacious_team.broker.pojo.SecurityEventCashFlow;
+import org.spacious_team.broker.pojo.SecurityQuote;
+import org.spacious_team.broker.pojo.Transaction;
+import org.spacious_team.broker.pojo.TransactionCashFlow;
+import org.spacious_team.broker.report_parser.api.AbstractTransaction;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import ru.investbook.InvestbookProperties;
+import ru.investbook.entity.OpenPositionEntityPk;
+import ru.investbook.entity.TransactionEntity;
+import ru.investbook.repository.BatchInsertRepository;
+import ru.investbook.repository.DataChangedEvent;
+import ru.investbook.repository.OpenPositionRepository;
+import ru.investbook.repository.TransactionRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static java.util.Collections.newSetFromMap;
+import static java.util.Comparator.comparing;
+import static java.util.Comparator.naturalOrder;
+import static java.util.Comparator.nullsFirst;
+import static java.util.Objects.requireNonNullElse;
+import static java.util.stream.Collectors.toMap;
+
+/**
+ * Saves report tables by batches. Duplicates are skipped by primary or unique key the same way
+ * as by {@link InvestbookApiClient}. Batch failed by other error is saved by {@link InvestbookApiClient}
+ * row by row to log the error for each row.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class InvestbookBatchApiClient {
+    private static final String DEFAULT_CURRENCY = "RUR";
+    private static final List<String> TRANSACTION_COLUMNS =
+            List.of("id", "trade_id", "portfolio", "security", "timestamp", "count");
+    private final InvestbookApiClient api;
+    private final BatchInsertRepository batchInsertRepository;
+    private final TransactionRepository transactionRepository;
+    private final OpenPositionRepository openPositionRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ValidatorService validator;
+    private final InvestbookProperties properties;
+
+    public void addPortfolioProperties(Collection<PortfolioProperty> portfolioProperties) {
+        List<PortfolioProperty> savedProperties = insert(portfolioProperties,
+                "portfolio_property",
+                List.of("id", "portfolio", "timestamp", "property", "value"),
+                p -> new Object[]{p.getId(), p.getPortfolio(), p.getTimestamp(), p.getProperty().name(), p.getValue()},
+                api::addPortfolioProperty,
+                "Не могу добавить информацию о свойствах портфеля");
+        publishDataChanged(savedProperties, p -> DataChangedEvent.other(p.getPortfolio()));
+    }
+
+    public void addPortfolioCashes(Collection<PortfolioCash> portfolioCashes) {
+        List<PortfolioCash> savedCashes = insert(portfolioCashes,
+                "portfolio_cash",
+                List.of("id", "portfolio", "timestamp", "market", "value", "currency"),
+                c -> new Object[]{c.getId(), c.getPortfolio(), c.getTimestamp(), c.getMarket(), c.getValue(), c.getCurrency()},
+                api::addPortfolioCash,
+                "Не могу добавить информацию об остатках денежных средств портфеля");
+        publishDataChanged(savedCashes, c -> DataChangedEvent.other(c.getPortfolio()));
+    }
+
+    public void addEventCashFlows(Collection<EventCashFlow> eventCashFlows) {
+        List<EventCashFlow> savedCashFlows = insert(eventCashFlows,
+                "event_cash_flow",
+                List.of("id", "portfolio", "timestamp", "type", "value", "currency", "description"),
+                cf -> new Object[]{cf.getId(), cf.getPortfolio(), cf.getTimestamp(), cf.getEventType().getId(),
+                        cf.getValue(), requireNonNullElse(cf.getCurrency(), DEFAULT_CURRENCY), emptyToNull(cf.getDescription())},
+                api::addEventCashFlow,
+                "Не могу добавить информацию о движении денежных средств");
+        publishDataChanged(savedCashFlows, cf -> DataChangedEvent.other(cf.getPortfolio()));
+    }
+
+    /**
+     * Saves transactions by batches, then selects identifiers of saved transactions by one query per batch
+     * to save cash flows of all transactions by batches. Open positions are refreshed for saved transactions.
+     */
+    public void addTransactions(Collection<? extends AbstractTransaction> transactions) {
+        List<TransactionCashFlow> transactionCashFlows = new ArrayList<>(transactions.size() * 2);
+        List<? extends AbstractTransaction> list = List.copyOf(transactions);
+        int batchSize = getBatchSize();
+        for (int i = 0; i < list.size(); i += batchSize) {
+            transactionCashFlows.addAll(addTransactionsAndGetCashFlows(list.subList(i, Math.min(i + batchSize, list.size()))));
+        }
+        addTransactionCashFlows(transactionCashFlows);
+    }
+
+    private Collection<TransactionCashFlow> addTransactionsAndGetCashFlows(List<? extends AbstractTransaction> transactions) {
+        List<AbstractTransaction> validTransactions =
+                validate(transactions, AbstractTransaction::getTransaction, "Не могу добавить транзакцию");
+        Set<AbstractTransaction> failedTransactions = newSetFromMap(new IdentityHashMap<>());
+        failedTransactions.addAll(batchInsertRepository.insertIgnore("`transaction`", TRANSACTION_COLUMNS,
+                validTransactions, t -> toValues(t.getTransaction()), getBatchSize()));
+        Collection<TransactionCashFlow> transactionCashFlows = new ArrayList<>(transactions.size() * 2);
+        failedTransactions.forEach(t -> transactionCashFlows.addAll(api.addTransactionAndGetCashFlows(t)));
+        List<AbstractTransaction> savedTransactions = validTransactions.stream()
+                .filter(t -> !failedTransactions.contains(t))
+                .toList();
+        List<Transaction> savedTransactionPojos = savedTransactions.stream().map(AbstractTransaction::getTransaction).toList();
+        refreshOpenPositions(savedTransactionPojos);
+        publishTransactionsChanged(savedTransactionPojos);
+        Map<String, Integer> transactionIds = getTransactionIds(savedTransactions);
+        for (AbstractTransaction transaction : savedTransactions) {
+            @Nullable Integer transactionId = transactionIds.get(
+                    getTransactionKey(transaction.getPortfolio(), transaction.getTradeId()));
+            if (transactionId == null) {
+                log.warn("Не могу добавить транзакцию в БД, " +
+                        "не задан внутренний идентификатор записи: {}", transaction);
+            } else {
+                transactionCashFlows.addAll(InvestbookApiClient.getTransactionCashFlows(transaction, transactionId));
+            }
+        }
+        return transactionCashFlows;
+    }
+
+    private Map<String, Integer> getTransactionIds(Collection<AbstractTransaction> transactions) {
+        if (transactions.isEmpty()) {
+            return Map.of();
+        }
+        Set<String> portfolios = new HashSet<>();
+        Set<String> tradeIds = new HashSet<>();
+        for (AbstractTransaction transaction : transactions) {
+            portfolios.add(transaction.getPortfolio());
+            tradeIds.add(transaction.getTradeId());
+        }
+        Map<String, Integer> transactionIds = new HashMap<>();
+        for (TransactionEntity entity : transactionRepository.findByPortfolioInAndTradeIdIn(portfolios, tradeIds)) {
+            transactionIds.put(getTransactionKey(entity.getPortfolio(), entity.getTradeId()), entity.getId());
+        }
+        return transactionIds;
+    }
+
+    private static String getTransactionKey(String portfolio, String tradeId) {
+        return portfolio + '\u0000' + tradeId;
+    }
+
+    /**
+     * Saves transactions without cash flows, for ex. security deposits and withdrawals
+     */
+    public void addTransfers(Collection<Transaction> transactions) {
+        List<Transaction> savedTransactions = insert(transactions,
+                "`transaction`",
+                TRANSACTION_COLUMNS,
+                InvestbookBatchApiClient::toValues,
+                api::addTransaction,
+                "Не могу добавить транзакцию");
+        refreshOpenPositions(savedTransactions);
+        publishTransactionsChanged(savedTransactions);
+    }
+
+    /**
+     * Rows inserted by native queries are not tracked by {@link ru.investbook.repository.OpenPositionListener}
+     */
+    private void refreshOpenPositions(Collection<Transaction> transactions) {
+        Set<OpenPositionEntityPk> positions = new HashSet<>();
+        for (Transaction transaction : transactions) {
+            positions.add(OpenPositionEntityPk.of(transaction.getPortfolio(), transaction.getSecurity()));
+        }
+        openPositionRepository.refresh(positions);
+    }
+
+    private void publishTransactionsChanged(Collection<Transaction> transactions) {
+        publishDataChanged(transactions, t -> DataChangedEvent.transaction(
+                t.getPortfolio(), t.getSecurity(), t.getTimestamp()));
+    }
+
+    private static @Nullable Object[] toValues(Transaction t) {
+        return new Object[]{t.getId(), t.getTradeId(), t.getPortfolio(), t.getSecurity(), t.getTimestamp(), t.getCount()};
+    }
+
+    public void addTransactionCashFlows(Collection<TransactionCashFlow> transactionCashFlows) {
+        List<TransactionCashFlow> savedCashFlows = insert(transactionCashFlows,
+                "transaction_cash_flow",
+                List.of("id", "transaction_id", "type", "value", "currency"),
+                cf -> new Object[]{cf.getId(), cf.getTransactionId(), cf.getEventType().getId(),
+                        cf.getValue(), requireNonNullElse(cf.getCurrency(), DEFAULT_CURRENCY)},
+                api::addTransactionCashFlow,
+                "Не могу добавить информацию о передвижении средств");
+        publishDataChanged(savedCashFlows, _ -> DataChangedEvent.other(null));
+    }
+
+    public void addSecurityEventCashFlows(Collection<SecurityEventCashFlow> securityEventCashFlows) {
+        List<SecurityEventCashFlow> savedCashFlows = insert(securityEventCashFlows.stream().map(InvestbookApiClient::withDefaultCount).toList(),
+                "security_event_cash_flow",
+                List.of("id", "portfolio", "timestamp", "security", "count", "type", "value", "currency"),
+                cf -> new Object[]{cf.getId(), cf.getPortfolio(), cf.getTimestamp(), cf.getSecurity(), cf.getCount(),
+                        cf.getEventType().getId(), cf.getValue(), requireNonNullElse(cf.getCurrency(), DEFAULT_CURRENCY)},
+                api::addSecurityEventCashFlow,
+                "Не могу добавить информацию о движении денежных средств");
+        publishDataChanged(savedCashFlows, cf -> DataChangedEvent.securityEventCashFlow(
+                cf.getPortfolio(), cf.getSecurity(), cf.getTimestamp()));
+    }
+
+    public void addSecurityQuotes(Collection<SecurityQuote> securityQuotes) {
+        List<SecurityQuote> savedQuotes = insert(securityQuotes,
+                "security_quote",
+                List.of("id", "security", "timestamp", "quote", "price", "accrued_interest", "currency"),
+                q -> new Object[]{q.getId(), q.getSecurity(), q.getTimestamp(), q.getQuote(), q.getPrice(),
+                        q.getAccruedInterest(), q.getCurrency()},
+                api::addSecurityQuote,
+                "Не могу добавить информацию о котировке финансового инструмента");
+        publishDataChanged(savedQuotes, q -> DataChangedEvent.securityQuote(q.getSecurity(), q.getTimestamp()));
+    }
+
+    public void addForeignExchangeRates(Collection<ForeignExchangeRate> exchangeRates) {
+        List<ForeignExchangeRate> savedRates = insert(exchangeRates,
+                "foreign_exchange_rate",
+                List.of("date", "currency_pair", "rate"),
+                r -> new Object[]{r.getDate(), r.getCurrencyPair(), r.getRate()},
+                api::addForeignExchangeRate,
+                "Не могу добавить информацию о курсе валюты");
+        publishDataChanged(savedRates, r -> DataChangedEvent.foreignExchangeRate(r.getCurrencyPair(), r.getDate()));
+    }
+
+    /**
+     * @return rows inserted or skipped as duplicates by batches, rows saved by row by row saver are not returned
+     */
+    private <T> List<T> insert(Collection<T> objects,
+                               String table,
+                               List<String> columns,
+                               Function<T, @Nullable Object[]> toValues,
+                               Consumer<T> rowByRowSaver,
+                               String errorMsg) {
+        List<T> validObjects = validate(objects, Function.identity(), errorMsg);
+        Set<T> failedObjects = newSetFromMap(new IdentityHashMap<>());
+        failedObjects.addAll(batchInsertRepository.insertIgnore(table, columns, validObjects, toValues, getBatchSize()));
+        failedObjects.forEach(rowByRowSaver);
+        return validObjects.stream()
+                .filter(o -> !failedObjects.contains(o))
+                .toList();
+    }
+
+    /**
+     * Rows inserted by native queries are not tracked by {@link ru.investbook.repository.DataChangedEventPublisher}.
+     * Publishes one event with the earliest timestamp for each portfolio and security.
+     */
+    private <T> void publishDataChanged(Collection<T> savedObjects, Function<T, DataChangedEvent> toEvent) {
+        savedObjects.stream()
+                .map(toEvent)
+                .collect(toMap(
+                        e -> Arrays.asList(e.type(), e.portfolio(), e.security()),
+                        Function.identity(),
+                        BinaryOperator.minBy(comparing(DataChangedEvent::timestamp, nullsFirst(naturalOrder()))),
+                        LinkedHashMap::new))
+                .values()
+                .forEach(eventPublisher::publishEvent);
+    }
+
+    private <T> List<T> validate(Collection<? extends T> objects, Function<T, ?> validatedPart, String errorMsg) {
+        List<T> validObjects = new ArrayList<>(objects.size());
+        for (T object : objects) {
+            try {
+                validator.validate(validatedPart.apply(object));
+                validObjects.add(object);
+            } catch (ConstraintViolationException e) {  // jakarta.validation, not SQL constraint
+                log.warn("{}, {}: {}", errorMsg, e.getMessage(), object);
+            }
+        }
+        return validObjects;
+    }
+
+    private int getBatchSize() {
+        return Math.max(1, properties.getReportImportBatchSize());
+    }
+
+    private static @Nullable String emptyToNull(@Nullable String value) {
+        return (value == null || value.isEmpty()) ? null : value;
+    }
+}
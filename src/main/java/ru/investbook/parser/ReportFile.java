@@ -0,0 +1,197 @@
+/*
+ * InvestBook
+ * Copyright (C) 2022  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package ru.investbook.parser;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.spacious_team.broker.report_parser.api.BrokerReport;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Optional;
+import java.util.function.BiFunction;
+
+/**
+ * Report file content shared by broker report factories while detecting the broker.
+ * Container type is sniffed and workbook is parsed once for all factories.
+ * Workbook should not be modified until report format is checked.
+ */
+@Slf4j
+public class ReportFile implements AutoCloseable {
+    private static final int HEADER_ROWS = 10;
+    @Getter
+    private final String fileName;
+    private final byte[] content;
+    @Getter
+    private final ContainerType containerType;
+    private boolean isWorkbookParsed = false;
+    private @Nullable Workbook workbook;
+    private boolean isWorkbookOwnedByReport = false;
+    private @Nullable String header;
+
+    public ReportFile(String fileName, byte[] content) {
+        this.fileName = fileName;
+        this.content = content;
+        this.containerType = ContainerType.of(fileName, content);
+    }
+
+    /**
+     * @return new stream of file content
+     */
+    public ByteArrayInputStream getInputStream() {
+        return new ByteArrayInputStream(content);
+    }
+
+    /**
+     * @return workbook parsed once or null if file is not an Excel workbook
+     */
+    public @Nullable Workbook getWorkbook() {
+        if (!isWorkbookParsed) {
+            isWorkbookParsed = true;
+            try {
+                workbook = switch (containerType) {
+                    case XLS -> new HSSFWorkbook(getInputStream());
+                    case XLSX -> new XSSFWorkbook(getInputStream());
+                    default -> null;
+                };
+            } catch (Exception e) {
+                log.debug("Не смог открыть excel файл {}", fileName, e);
+            }
+        }
+        return workbook;
+    }
+
+    public boolean hasSheet(String sheetName) {
+        @Nullable Workbook workbook = getWorkbook();
+        return workbook != null && workbook.getSheet(sheetName) != null;
+    }
+
+    /**
+     * @return true if any string cell of the first rows of the first sheet contains text
+     */
+    public boolean isHeaderContains(String text) {
+        return getHeader().contains(text);
+    }
+
+    private String getHeader() {
+        if (header == null) {
+            StringBuilder builder = new StringBuilder();
+            @Nullable Workbook workbook = getWorkbook();
+            if (workbook != null && workbook.getNumberOfSheets() > 0) {
+                Sheet sheet = workbook.getSheetAt(0);
+                for (Row row : sheet) {
+                    if (row.getRowNum() >= HEADER_ROWS) {
+                        break;
+                    }
+                    for (Cell cell : row) {
+                        if (cell.getCellType() == CellType.STRING) {
+                            builder.append(cell.getStringCellValue()).append('\n');
+                        }
+                    }
+                }
+            }
+            header = builder.toString();
+        }
+        return header;
+    }
+
+    /**
+     * Creates report from shared workbook. Created report owns the workbook and closes it.
+     *
+     * @return report or empty if file is not a workbook or report has other format
+     */
+    public Optional<BrokerReport> createFromWorkbook(BiFunction<String, Workbook, BrokerReport> reportProvider) {
+        @Nullable Workbook workbook = getWorkbook();
+        if (workbook == null) {
+            return Optional.empty();
+        }
+        try {
+            BrokerReport report = reportProvider.apply(fileName, workbook);
+            isWorkbookOwnedByReport = true;
+            return Optional.of(report);
+        } catch (Exception e) {
+            log.trace("Файл {} не является отчетом ожидаемого формата", fileName, e);
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (workbook != null && !isWorkbookOwnedByReport) {
+            workbook.close();
+        }
+    }
+
+    public enum ContainerType {
+        XLS, XLSX, ZIP, XML, JSON, OTHER;
+
+        private static final byte[] OLE2_SIGNATURE = {(byte) 0xD0, (byte) 0xCF, 0x11, (byte) 0xE0};
+        private static final byte[] ZIP_SIGNATURE = {0x50, 0x4B, 0x03, 0x04};
+
+        static ContainerType of(String fileName, byte[] content) {
+            if (startsWith(content, OLE2_SIGNATURE)) {
+                return XLS;
+            } else if (startsWith(content, ZIP_SIGNATURE)) {
+                // xlsx is a zip archive too
+                return fileName.toLowerCase().endsWith(".zip") ? ZIP : XLSX;
+            }
+            int i = 0;
+            if (content.length >= 3 && content[0] == (byte) 0xEF && content[1] == (byte) 0xBB && content[2] == (byte) 0xBF) {
+                i = 3; // UTF-8 BOM
+            }
+            while (i < content.length && Character.isWhitespace(content[i])) {
+                i++;
+            }
+            if (i < content.length) {
+                switch (content[i]) {
+                    case '<' -> {
+                        return XML;
+                    }
+                    case '{', '[' -> {
+                        return JSON;
+                    }
+                    default -> {
+                    }
+                }
+            }
+            return OTHER;
+        }
+
+        private static boolean startsWith(byte[] content, byte[] prefix) {
+            if (content.length < prefix.length) {
+                return false;
+            }
+            for (int i = 0; i < prefix.length; i++) {
+                if (content[i] != prefix[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
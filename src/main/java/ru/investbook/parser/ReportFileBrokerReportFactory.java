@@ -0,0 +1,43 @@
+/*
+ * InvestBook
+ * Copyright (C) 2022  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package ru.investbook.parser;
+
+import org.spacious_team.broker.report_parser.api.BrokerReport;
+import org.spacious_team.broker.report_parser.api.BrokerReportFactory;
+
+import java.util.Optional;
+
+/**
+ * Broker report factory, which creates report from {@link ReportFile} shared by all factories
+ * instead of parsing file content again
+ */
+public interface ReportFileBrokerReportFactory extends BrokerReportFactory {
+
+    /**
+     * Cheap check of file header, for ex. broker name in first rows of workbook. Used to try
+     * factories with matched signature first, should not throw exceptions.
+     */
+    boolean isSignatureMatched(ReportFile file);
+
+    /**
+     * @return report or empty if file has other format
+     */
+    Optional<BrokerReport> create(ReportFile file);
+}
@@ -29,6 +29,7 @@ import org.spacious_team.broker.report_parser.api.AbstractTransaction;
 import org.spacious_team.broker.report_parser.api.ReportTable;
 import org.spacious_team.broker.report_parser.api.ReportTables;
 import org.springframework.stereotype.Service;
+import ru.investbook.InvestbookProperties;
 
 import java.util.Collection;
 import java.util.HashSet;
@@ -43,6 +44,8 @@ import static java.util.stream.Collectors.toCollection;
 @RequiredArgsConstructor
 public class ReportParserService {
     private final InvestbookApiClient api;
+    private final InvestbookBatchApiClient batchApi;
+    private final InvestbookProperties properties;
 
     public void parse(ReportTables reportTables) {
         try {
@@ -50,6 +53,10 @@ public class ReportParserService {
             if (!isAdded) {
                 return;
             }
+            if (properties.isReportImportBatch()) {
+                parseByBatches(reportTables);
+                return;
+            }
 
             reportTables.getPortfolioPropertyTable()
                     .getData()
@@ -82,6 +89,19 @@ public class ReportParserService {
         }
     }
 
+    private void parseByBatches(ReportTables reportTables) {
+        batchApi.addPortfolioProperties(reportTables.getPortfolioPropertyTable().getData());
+        batchApi.addPortfolioCashes(reportTables.getPortfolioCashTable().getData());
+        reportTables.getSecuritiesTable()
+                .getData()
+                .forEach(api::addSecurity);
+        batchApi.addEventCashFlows(reportTables.getCashFlowTable().getData());
+        batchApi.addTransactions(reportTables.getTransactionTable().getData());
+        batchApi.addSecurityEventCashFlows(reportTables.getSecurityEventCashFlowTable().getData());
+        batchApi.addSecurityQuotes(reportTables.getSecurityQuoteTable().getData());
+        batchApi.addForeignExchangeRates(reportTables.getForeignExchangeRateTable().getData());
+    }
+
     private static Set<Portfolio> getPortfolios(ReportTables tables) {
         Set<String> portfolios = new HashSet<>();
 
@@ -0,0 +1,97 @@
+/*
+ * InvestBook
+ * Copyright (C) 2022  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.investbook.parser;
+
+import lombok.extern.slf4j.Slf4j;
+import org.spacious_team.table_wrapper.api.TableFactory;
+
+import java.io.IOException;
+import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.stream.Stream;
+
+/**
+ * Generates {@link ServiceLoader} index of table factories of extension jar at build time, indexed factories
+ * are registered by {@link TableFactoryRegistryService} without scan of extension packages at application start.
+ * Extension build runs generator on compiled classes, for ex. by exec-maven-plugin at process-classes phase:
+ * <pre>
+ * java -Dloader.main=ru.investbook.parser.TableFactoryIndexGenerator -jar investbook.jar target/classes
+ * </pre>
+ */
+@Slf4j
+public class TableFactoryIndexGenerator {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            throw new IllegalArgumentException("Usage: TableFactoryIndexGenerator <compiled classes directory>...");
+        }
+        for (String classesDirectory : args) {
+            List<String> factories = generateIndex(Path.of(classesDirectory), TableFactory.class);
+            log.info("{} table factories indexed in {}: {}", factories.size(), classesDirectory, factories);
+        }
+    }
+
+    /**
+     * Writes {@code META-INF/services/<service class name>} file to classes directory, if directory contains
+     * service implementations, which can be instantiated by {@link ServiceLoader}
+     *
+     * @return indexed implementations class names
+     */
+    static List<String> generateIndex(Path classesDirectory, Class<?> service) throws IOException {
+        List<String> implementations;
+        try (URLClassLoader classLoader = new URLClassLoader(
+                new URL[]{classesDirectory.toUri().toURL()}, TableFactoryIndexGenerator.class.getClassLoader());
+             Stream<Path> files = Files.walk(classesDirectory)) {
+            implementations = files
+                    .map(classesDirectory::relativize)
+                    .map(Path::toString)
+                    .filter(file -> file.endsWith(".class") && !file.contains("-")) // skip module-info, package-info
+                    .map(file -> file.substring(0, file.length() - ".class".length())
+                            .replace(classesDirectory.getFileSystem().getSeparator(), "."))
+                    .filter(className -> isServiceImplementation(className, service, classLoader))
+                    .sorted()
+                    .toList();
+        }
+        if (!implementations.isEmpty()) {
+            Path servicesDirectory = Files.createDirectories(classesDirectory.resolve("META-INF/services"));
+            Files.write(servicesDirectory.resolve(service.getName()), implementations);
+        }
+        return implementations;
+    }
+
+    private static boolean isServiceImplementation(String className, Class<?> service, ClassLoader classLoader) {
+        try {
+            Class<?> clazz = Class.forName(className, false, classLoader);
+            clazz.getConstructor(); // ServiceLoader requires public no-arg constructor
+            int modifiers = clazz.getModifiers();
+            return service.isAssignableFrom(clazz) &&
+                    !clazz.isInterface() &&
+                    !Modifier.isAbstract(modifiers) &&
+                    Modifier.isPublic(modifiers) &&
+                    (clazz.getEnclosingClass() == null || Modifier.isStatic(modifiers));
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return false;
+        }
+    }
+}
@@ -30,19 +30,34 @@ import ru.investbook.InvestbookProperties;
 
 import java.lang.reflect.Constructor;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.Objects;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static java.lang.System.nanoTime;
 
+/**
+ * Registers extensions table factories. Extensions are found by {@link ServiceLoader} index
+ * ({@code META-INF/services/org.spacious_team.table_wrapper.api.TableFactory} file of extension jar
+ * generated by {@link TableFactoryIndexGenerator}), configured {@link InvestbookProperties#getTableParsers() packages}
+ * without indexed factories are scanned.
+ */
 @Component
 @Slf4j
 public class TableFactoryRegistryService {
 
     public TableFactoryRegistryService(InvestbookProperties properties) {
         long t0 = nanoTime();
+        Collection<TableFactory> indexedFactories = findIndexedTableFactories();
+        indexedFactories.forEach(TableFactoryRegistry::add);
         properties.getTableParsers()
                 .stream()
+                .filter(basePackage -> !hasFactoryInPackage(indexedFactories, basePackage))
                 .map(TableFactoryRegistryService::findTableFactories)
                 .flatMap(Collection::stream)
                 .forEach(TableFactoryRegistry::add);
@@ -55,6 +70,44 @@ public class TableFactoryRegistryService {
                         .toList());
     }
 
+    private static Collection<TableFactory> findIndexedTableFactories() {
+        Set<Class<?>> registered = TableFactoryRegistry.getAll()
+                .stream()
+                .map(TableFactory::getClass)
+                .collect(Collectors.toSet());
+        Collection<TableFactory> factories = new ArrayList<>();
+        Iterator<TableFactory> iterator = ServiceLoader
+                .load(TableFactory.class, TableFactoryRegistryService.class.getClassLoader())
+                .iterator();
+        while (hasNext(iterator)) {
+            try {
+                TableFactory factory = iterator.next();
+                if (!registered.contains(factory.getClass())) {
+                    factories.add(factory);
+                }
+            } catch (ServiceConfigurationError e) {
+                log.warn("Can't load indexed table factory, skipped", e);
+            }
+        }
+        return factories;
+    }
+
+    private static boolean hasNext(Iterator<TableFactory> iterator) {
+        try {
+            return iterator.hasNext();
+        } catch (ServiceConfigurationError e) {
+            log.warn("Can't read table factories index, other indexed factories are skipped", e);
+            return false;
+        }
+    }
+
+    private static boolean hasFactoryInPackage(Collection<TableFactory> factories, String basePackage) {
+        String prefix = basePackage + ".";
+        return factories.stream()
+                .map(factory -> factory.getClass().getName())
+                .anyMatch(className -> className.startsWith(prefix));
+    }
+
     @SuppressWarnings("return")
     private static Collection<TableFactory> findTableFactories(String basePackage) {
         ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
@@ -62,12 +62,27 @@ public class InvestbookBrokerReport implements ZoneIdAwareBrokerReport {
             this.reportPage = new CsvReportPage(is, charset, CsvReportPage.getDefaultCsvParserSettings());
         } else {
             this.workbook = getWorkBook(fileName, is);
-            this.reportPage = new ExcelSheet(workbook.getSheetAt(0));
-            @SuppressWarnings({"nullable", "DataFlowIssue"})
-            String string = reportPage.getRow(0).getCell(0).getStringValue();
-            Assert.isTrue(string.toLowerCase().contains("событие"), "Не отчет в формате Investbook");
+            this.reportPage = getExcelReportPage(workbook);
         }
-        this.instantParser = InstantParser.builder()
+        this.instantParser = createInstantParser(reportZoneId);
+    }
+
+    public InvestbookBrokerReport(String fileName, Workbook workbook) {
+        this.workbook = workbook;
+        this.reportPage = getExcelReportPage(workbook);
+        this.instantParser = createInstantParser(reportZoneId);
+    }
+
+    private static ReportPage getExcelReportPage(Workbook workbook) {
+        ReportPage reportPage = new ExcelSheet(workbook.getSheetAt(0));
+        @SuppressWarnings({"nullable", "DataFlowIssue"})
+        String string = reportPage.getRow(0).getCell(0).getStringValue();
+        Assert.isTrue(string.toLowerCase().contains("событие"), "Не отчет в формате Investbook");
+        return reportPage;
+    }
+
+    private static InstantParser createInstantParser(ZoneId reportZoneId) {
+        return InstantParser.builder()
                 .defaultZoneId(reportZoneId)
                 .defaultTime(LocalTime.NOON)
                 .build();
@@ -25,6 +25,8 @@ import org.spacious_team.broker.report_parser.api.BrokerReport;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
+import ru.investbook.parser.ReportFile;
+import ru.investbook.parser.ReportFileBrokerReportFactory;
 
 import java.io.InputStream;
 import java.util.Optional;
@@ -33,7 +35,7 @@ import java.util.Optional;
 @Component
 @Order(Ordered.LOWEST_PRECEDENCE)
 @SuppressWarnings("DefaultAnnotationParam")
-public class InvestbookBrokerReportFactory extends AbstractBrokerReportFactory {
+public class InvestbookBrokerReportFactory extends AbstractBrokerReportFactory implements ReportFileBrokerReportFactory {
     @Getter
     private final String brokerName = "Investbook";
 
@@ -42,12 +44,29 @@ public class InvestbookBrokerReportFactory extends AbstractBrokerReportFactory {
         return fileName.endsWith(".csv") || fileName.endsWith(".xls") || fileName.endsWith(".xlsx");
     }
 
+    @Override
+    public boolean isSignatureMatched(ReportFile file) {
+        return file.isHeaderContains("Событие") || file.isHeaderContains("событие");
+    }
+
     @Override
     public Optional<BrokerReport> create(String fileName, InputStream is) {
         Optional<BrokerReport> brokerReport = create(fileName, is, InvestbookBrokerReport::new);
-        if (brokerReport.isPresent()) {
-            log.info("Обнаружен отчет '{}' в формате Investbook", fileName);
+        brokerReport.ifPresent(_ -> logReportDetected(fileName));
+        return brokerReport;
+    }
+
+    @Override
+    public Optional<BrokerReport> create(ReportFile file) {
+        if (file.getFileName().endsWith(".csv")) {
+            return create(file.getFileName(), file.getInputStream());
         }
+        Optional<BrokerReport> brokerReport = file.createFromWorkbook(InvestbookBrokerReport::new);
+        brokerReport.ifPresent(_ -> logReportDetected(file.getFileName()));
         return brokerReport;
     }
+
+    private void logReportDetected(String fileName) {
+        log.info("Обнаружен отчет '{}' в формате Investbook", fileName);
+    }
 }
@@ -50,7 +50,11 @@ public class PsbBrokerReport extends AbstractExcelBrokerReport {
     }
 
     public PsbBrokerReport(String excelFileName, InputStream is, SecurityRegistrar securityRegistrar) {
-        super(getBrokerReportAttributes(excelFileName, is), securityRegistrar);
+        this(excelFileName, getWorkBook(excelFileName, is), securityRegistrar);
+    }
+
+    public PsbBrokerReport(String excelFileName, Workbook workbook, SecurityRegistrar securityRegistrar) {
+        super(getBrokerReportAttributes(excelFileName, workbook), securityRegistrar);
     }
 
     @SuppressWarnings("nullness")
@@ -58,8 +62,7 @@ public class PsbBrokerReport extends AbstractExcelBrokerReport {
         return path.getFileName().toString();
     }
 
-    private static ExcelAttributes getBrokerReportAttributes(String excelFileName, InputStream is) {
-        Workbook workbook = getWorkBook(excelFileName, is);
+    private static ExcelAttributes getBrokerReportAttributes(String excelFileName, Workbook workbook) {
         ReportPage reportPage = new ExcelSheet(workbook.getSheetAt(0));
         checkReportFormat(excelFileName, reportPage);
         Attributes attributes = new Attributes(
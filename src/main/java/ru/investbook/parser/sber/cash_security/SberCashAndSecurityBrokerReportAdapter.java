@@ -40,7 +40,11 @@ public class SberCashAndSecurityBrokerReportAdapter implements BrokerReport {
     private final Workbook book;
 
     public SberCashAndSecurityBrokerReportAdapter(String excelFileName, InputStream is, SecurityRegistrar securityRegistrar) {
-        this.book = getWorkBook(excelFileName, is);
+        this(excelFileName, getWorkBook(excelFileName, is), securityRegistrar);
+    }
+
+    public SberCashAndSecurityBrokerReportAdapter(String excelFileName, Workbook book, SecurityRegistrar securityRegistrar) {
+        this.book = book;
         this.cashReport = new SberCashBrokerReport(excelFileName, book);
         this.securityDepositReport = new SberSecurityDepositBrokerReport(excelFileName, book, securityRegistrar);
     }
@@ -26,6 +26,8 @@ import org.spacious_team.broker.report_parser.api.BrokerReport;
 import org.springframework.core.PriorityOrdered;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
+import ru.investbook.parser.ReportFile;
+import ru.investbook.parser.ReportFileBrokerReportFactory;
 import ru.investbook.parser.SecurityRegistrar;
 
 import java.io.InputStream;
@@ -36,7 +38,7 @@ import java.util.regex.Pattern;
 @Order(PriorityOrdered.HIGHEST_PRECEDENCE)
 @Slf4j
 @RequiredArgsConstructor
-public class SberCashAndSecurityBrokerReportFactory extends AbstractBrokerReportFactory {
+public class SberCashAndSecurityBrokerReportFactory extends AbstractBrokerReportFactory implements ReportFileBrokerReportFactory {
     private final SecurityRegistrar securityRegistrar;
     @Getter
     private final String brokerName = "Сбербанк Онлайн (деньги)";
@@ -47,13 +49,28 @@ public class SberCashAndSecurityBrokerReportFactory extends AbstractBrokerReport
         return super.canCreate(expectedFileNamePattern, excelFileName, is);
     }
 
+    @Override
+    public boolean isSignatureMatched(ReportFile file) {
+        return file.hasSheet("Движение ДС");
+    }
+
     @Override
     public Optional<BrokerReport> create(String excelFileName, InputStream is) {
         Optional<BrokerReport> brokerReport = create(excelFileName, is,
                 (fileName, stream) -> new SberCashAndSecurityBrokerReportAdapter(fileName, stream, securityRegistrar));
-        if (brokerReport.isPresent()) {
-            log.info("Обнаружен отчет зачислений и списаний '{}' СберБанк брокера", excelFileName);
-        }
+        brokerReport.ifPresent(_ -> logReportDetected(excelFileName));
         return brokerReport;
     }
+
+    @Override
+    public Optional<BrokerReport> create(ReportFile file) {
+        Optional<BrokerReport> brokerReport = file.createFromWorkbook(
+                (fileName, workbook) -> new SberCashAndSecurityBrokerReportAdapter(fileName, workbook, securityRegistrar));
+        brokerReport.ifPresent(_ -> logReportDetected(file.getFileName()));
+        return brokerReport;
+    }
+
+    private void logReportDetected(String fileName) {
+        log.info("Обнаружен отчет зачислений и списаний '{}' СберБанк брокера", fileName);
+    }
 }
@@ -45,7 +45,11 @@ public class SberTrBrokerReport implements BrokerReport {
     private final String toString;
 
     public SberTrBrokerReport(String excelFileName, InputStream is, SecurityRegistrar securityRegistrar) {
-        this.book = getWorkBook(excelFileName, is);
+        this(excelFileName, getWorkBook(excelFileName, is), securityRegistrar);
+    }
+
+    public SberTrBrokerReport(String excelFileName, Workbook book, SecurityRegistrar securityRegistrar) {
+        this.book = book;
         this.reportPage = new ExcelSheet(book.getSheetAt(0));
         this.toString = excelFileName;
         this.securityRegistrar = securityRegistrar;
@@ -48,11 +48,14 @@ public class TinkoffBrokerReport extends AbstractExcelBrokerReport {
             (cell instanceof String) && ((String) cell).contains("за период");
 
     public TinkoffBrokerReport(String excelFileName, InputStream is, SecurityRegistrar securityRegistrar) {
-        super(getBrokerReportAttributes(excelFileName, is), securityRegistrar);
+        this(excelFileName, getWorkBook(excelFileName, is), securityRegistrar);
     }
 
-    private static ExcelAttributes getBrokerReportAttributes(String excelFileName, InputStream is) {
-        Workbook workbook = getWorkBook(excelFileName, is);
+    public TinkoffBrokerReport(String excelFileName, Workbook workbook, SecurityRegistrar securityRegistrar) {
+        super(getBrokerReportAttributes(excelFileName, workbook), securityRegistrar);
+    }
+
+    private static ExcelAttributes getBrokerReportAttributes(String excelFileName, Workbook workbook) {
         ExcelSheet reportPage = new ExcelSheet(workbook.getSheetAt(0));
         checkReportFormat(excelFileName, reportPage);
         removePageNumRows(reportPage);
@@ -52,7 +52,11 @@ public class UralsibBrokerReport extends AbstractExcelBrokerReport {
     }
 
     public UralsibBrokerReport(String excelFileName, InputStream is, SecurityRegistrar securityRegistrar) {
-        super(getBrokerReportAttributes(excelFileName, is), securityRegistrar);
+        this(excelFileName, getWorkBook(excelFileName, is), securityRegistrar);
+    }
+
+    public UralsibBrokerReport(String excelFileName, Workbook workbook, SecurityRegistrar securityRegistrar) {
+        super(getBrokerReportAttributes(excelFileName, workbook), securityRegistrar);
     }
 
     @SuppressWarnings("DataFlowIssue")
@@ -65,8 +69,7 @@ public class UralsibBrokerReport extends AbstractExcelBrokerReport {
         }
     }
 
-    private static ExcelAttributes getBrokerReportAttributes(String excelFileName, InputStream is) {
-        Workbook workbook = getWorkBook(excelFileName, is);
+    private static ExcelAttributes getBrokerReportAttributes(String excelFileName, Workbook workbook) {
         ReportPage reportPage = new ExcelSheet(workbook.getSheetAt(0));
         checkReportFormat(excelFileName, reportPage);
         Attributes attributes = new Attributes(
@@ -26,6 +26,8 @@ import org.spacious_team.broker.report_parser.api.BrokerReport;
 import org.springframework.core.PriorityOrdered;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
+import ru.investbook.parser.ReportFile;
+import ru.investbook.parser.ReportFileBrokerReportFactory;
 import ru.investbook.parser.SecurityRegistrar;
 
 import java.io.InputStream;
@@ -38,7 +40,7 @@ import java.util.zip.ZipInputStream;
 @Order(PriorityOrdered.HIGHEST_PRECEDENCE)
 @Slf4j
 @RequiredArgsConstructor
-public class UralsibBrokerReportFactory extends AbstractBrokerReportFactory {
+public class UralsibBrokerReportFactory extends AbstractBrokerReportFactory implements ReportFileBrokerReportFactory {
     private final SecurityRegistrar securityRegistrar;
 
     @Getter
@@ -63,12 +65,30 @@ public class UralsibBrokerReportFactory extends AbstractBrokerReportFactory {
             reportProvider = (fileName, stream) ->  new UralsibBrokerReport(fileName, stream, securityRegistrar);
         }
         brokerReport = create(excelFileName, is, reportProvider);
-        if (brokerReport.isPresent()) {
-            log.info("Обнаружен отчет '{}' Уралсиб брокера", excelFileName);
-            if (!excelFileName.contains("_invest_")) {
-                log.warn("Рекомендуется загружать отчеты Уралсиб брокера, содержащие в имени файла слово 'invest'");
-            }
+        brokerReport.ifPresent(_ -> logReportDetected(excelFileName));
+        return brokerReport;
+    }
+
+    @Override
+    public boolean isSignatureMatched(ReportFile file) {
+        return file.isHeaderContains("Твой Брокер") || file.isHeaderContains("УРАЛСИБ");
+    }
+
+    @Override
+    public Optional<BrokerReport> create(ReportFile file) {
+        if (file.getContainerType() == ReportFile.ContainerType.ZIP) {
+            return create(file.getFileName(), file.getInputStream());
         }
+        Optional<BrokerReport> brokerReport = file.createFromWorkbook(
+                (fileName, workbook) -> new UralsibBrokerReport(fileName, workbook, securityRegistrar));
+        brokerReport.ifPresent(_ -> logReportDetected(file.getFileName()));
         return brokerReport;
     }
+
+    private void logReportDetected(String fileName) {
+        log.info("Обнаружен отчет '{}' Уралсиб брокера", fileName);
+        if (!fileName.contains("_invest_")) {
+            log.warn("Рекомендуется загружать отчеты Уралсиб брокера, содержащие в имени файла слово 'invest'");
+        }
+    }
 }
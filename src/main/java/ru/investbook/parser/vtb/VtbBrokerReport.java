@@ -42,11 +42,14 @@ public class VtbBrokerReport extends AbstractExcelBrokerReport {
     static final BigDecimal minValue = BigDecimal.valueOf(0.01);
 
     public VtbBrokerReport(String excelFileName, InputStream is, SecurityRegistrar securityRegistrar) {
-        super(getBrokerReportAttributes(excelFileName, is), securityRegistrar);
+        this(excelFileName, getWorkBook(excelFileName, is), securityRegistrar);
     }
 
-    private static ExcelAttributes getBrokerReportAttributes(String excelFileName, InputStream is) {
-        Workbook workbook = getWorkBook(excelFileName, is);
+    public VtbBrokerReport(String excelFileName, Workbook workbook, SecurityRegistrar securityRegistrar) {
+        super(getBrokerReportAttributes(excelFileName, workbook), securityRegistrar);
+    }
+
+    private static ExcelAttributes getBrokerReportAttributes(String excelFileName, Workbook workbook) {
         ReportPage reportPage = new ExcelSheet(workbook.getSheetAt(0));
         checkReportFormat(excelFileName, reportPage);
         Attributes attributes = new Attributes(
@@ -0,0 +1,61 @@
+/*
+ * InvestBook
+ * Copyright (C) 2022  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package ru.investbook.report;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Cache hit, miss and eviction counters, named as Spring cache metrics: {@code cache.gets} and {@code cache.evictions}
+ * tagged by cache name. Available by actuator metrics endpoint.
+ */
+public class CacheMetrics {
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public CacheMetrics(MeterRegistry registry, String cacheName) {
+        this.hits = Counter.builder("cache.gets")
+                .tag("cache", cacheName)
+                .tag("result", "hit")
+                .register(registry);
+        this.misses = Counter.builder("cache.gets")
+                .tag("cache", cacheName)
+                .tag("result", "miss")
+                .register(registry);
+        this.evictions = Counter.builder("cache.evictions")
+                .tag("cache", cacheName)
+                .register(registry);
+    }
+
+    public void hit() {
+        hits.increment();
+    }
+
+    public void miss() {
+        misses.increment();
+    }
+
+    public void evicted(int count) {
+        if (count > 0) {
+            evictions.increment(count);
+        }
+    }
+}
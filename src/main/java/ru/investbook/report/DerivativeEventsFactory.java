@@ -31,7 +31,6 @@ import ru.investbook.converter.SecurityEventCashFlowConverter;
 import ru.investbook.converter.TransactionCashFlowConverter;
 import ru.investbook.converter.TransactionConverter;
 import ru.investbook.repository.SecurityEventCashFlowRepository;
-import ru.investbook.repository.TransactionCashFlowRepository;
 import ru.investbook.repository.TransactionRepository;
 
 import java.math.BigDecimal;
@@ -41,18 +40,18 @@ import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.temporal.ChronoField;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Deque;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import static java.util.Collections.emptyList;
 import static java.util.Collections.singleton;
-import static java.util.Objects.nonNull;
 import static java.util.Objects.requireNonNull;
 
 @Component
@@ -62,47 +61,45 @@ public class DerivativeEventsFactory {
     private static final int LAST_TRADE_HOUR = 18;
     private final TransactionRepository transactionRepository;
     private final SecurityEventCashFlowRepository securityEventCashFlowRepository;
-    private final TransactionCashFlowRepository transactionCashFlowRepository;
+    private final TransactionCashFlowsFactory transactionCashFlowsFactory;
     private final TransactionConverter transactionConverter;
     private final SecurityEventCashFlowConverter securityEventCashFlowConverter;
     private final TransactionCashFlowConverter transactionCashFlowConverter;
 
+    /**
+     * Iterates only trade days with events. Transactions are grouped by trade day in one pass,
+     * cash flows of all contract transactions are loaded in bulk.
+     */
     public DerivativeEvents getDerivativeEvents(Portfolio portfolio, Security contract, ViewFilter filter) {
-        Deque<Transaction> transactions = getTransactions(portfolio, contract, filter);
+        LinkedList<Transaction> transactions = getTransactions(portfolio, contract, filter);
+        Map<LocalDate, List<Transaction>> dailyTransactions = transactions.stream()
+                .collect(Collectors.groupingBy(t -> getTradeDay(t.getTimestamp()), TreeMap::new, Collectors.toList()));
         Map<LocalDate, SecurityEventCashFlow> securityEventCashFlows = getSecurityEventCashFlows(portfolio, contract, filter);
+        TransactionCashFlows transactionCashFlows = transactionCashFlowsFactory.get(transactions);
 
-        @Nullable LocalDate firstEventDate = getContractFirstEventDate(transactions, securityEventCashFlows);
-        @Nullable LocalDate lastEventDate = Optional.ofNullable(getContractLastEventDate(transactions, securityEventCashFlows))
-                .orElse(firstEventDate);
+        SortedSet<LocalDate> eventDays = new TreeSet<>(dailyTransactions.keySet());
+        eventDays.addAll(securityEventCashFlows.keySet());
 
         DerivativeEvents derivativeEvents = new DerivativeEvents();
         BigDecimal totalProfit = BigDecimal.ZERO;
         int currentPosition = 0;
-        @Nullable LocalDate currentDay = firstEventDate;
-        //noinspection ConstantValue
-        while (nonNull(currentDay) && nonNull(lastEventDate) && currentDay.compareTo(lastEventDate) <= 0) {
-            Deque<Transaction> dailyTransactions = getDailyTransactions(transactions, currentDay);
-            @Nullable SecurityEventCashFlow cash = securityEventCashFlows.get(currentDay);
-            //noinspection ConstantValue
-            if ((dailyTransactions != null && !dailyTransactions.isEmpty())
-                    || (cash != null && !cash.getValue().equals(BigDecimal.ZERO))) {
-                //noinspection OptionalOfNullableMisuse
-                currentPosition += Optional.ofNullable(dailyTransactions)
-                        .orElse(new LinkedList<>())
-                        .stream()
-                        .mapToInt(Transaction::getCount)
-                        .sum();
+        for (LocalDate day : eventDays) {
+            List<Transaction> dayTransactions = dailyTransactions.getOrDefault(day, emptyList());
+            @Nullable SecurityEventCashFlow cash = securityEventCashFlows.get(day);
+            if (!dayTransactions.isEmpty() || (cash != null && !cash.getValue().equals(BigDecimal.ZERO))) {
+                for (Transaction transaction : dayTransactions) {
+                    currentPosition += transaction.getCount();
+                }
                 totalProfit = totalProfit.add((cash == null) ? BigDecimal.ZERO : cash.getValue());
 
                 derivativeEvents.getDerivativeDailyEvents().add(
                         DerivativeEvents.DerivativeDailyEvents.builder()
-                                .dailyTransactions(getCashFlows(dailyTransactions))
+                                .dailyTransactions(getCashFlows(dayTransactions, transactionCashFlows))
                                 .dailyProfit(cash)
                                 .totalProfit(totalProfit)
                                 .position(currentPosition)
                                 .build());
             }
-            currentDay = currentDay.plusDays(1);
         }
         return derivativeEvents;
     }
@@ -132,45 +129,6 @@ public class DerivativeEventsFactory {
                 .collect(Collectors.toMap(e -> getTradeDay(e.getTimestamp()), Function.identity()));
     }
 
-    private @Nullable LocalDate getContractFirstEventDate(Deque<Transaction> transactions,
-                                                Map<LocalDate, SecurityEventCashFlow> securityEventCashFlows) {
-        @Nullable LocalDate firstTransactionDate, firstEventDate;
-        firstEventDate = firstTransactionDate = Optional.ofNullable(transactions.peekFirst())
-                .map(t -> ZonedDateTime.ofInstant(t.getTimestamp(), MOEX_TIMEZONE).toLocalDate())
-                .orElse(null);
-        ArrayList<LocalDate> cashFlows = new ArrayList<>(securityEventCashFlows.keySet());
-        if (!cashFlows.isEmpty()) {
-            Collections.sort(cashFlows);
-            @Nullable LocalDate firstCashFlowDate = cashFlows.getFirst();
-            firstEventDate = (firstTransactionDate == null || firstCashFlowDate.compareTo(firstTransactionDate) < 0) ?
-                    firstCashFlowDate : firstTransactionDate;
-        }
-        return firstEventDate;
-    }
-
-    private @Nullable LocalDate getContractLastEventDate(Deque<Transaction> transactions,
-                                               Map<LocalDate, SecurityEventCashFlow> securityEventCashFlows) {
-        @Nullable LocalDate lastTransactionDate, lastEventDate;
-        lastEventDate = lastTransactionDate = Optional.ofNullable(transactions.peekLast())
-                .map(Transaction::getTimestamp)
-                .map(DerivativeEventsFactory::getTradeDay)
-                .orElse(null);
-        ArrayList<LocalDate> cashFlows = new ArrayList<>(securityEventCashFlows.keySet());
-        if (!cashFlows.isEmpty()) {
-            Collections.sort(cashFlows);
-            @Nullable LocalDate lastCashFlowDate = cashFlows.getLast();
-            lastEventDate = (lastTransactionDate == null || lastCashFlowDate.compareTo(lastTransactionDate) > 0) ?
-                    lastCashFlowDate : lastTransactionDate;
-        }
-        return lastEventDate;
-    }
-
-    private Deque<Transaction> getDailyTransactions(Deque<Transaction> transactions, LocalDate currentDay) {
-        return transactions.stream()
-                .filter(t -> getTradeDay(t.getTimestamp()).equals(currentDay))
-                .collect(Collectors.toCollection(LinkedList::new));
-    }
-
     /**
      * @return transaction day if transaction time less than 19-00 MSK, otherwise next day
      */
@@ -181,24 +139,19 @@ public class DerivativeEventsFactory {
                 dateTime.toLocalDate().plusDays(1);
     }
 
-    private LinkedHashMap<Transaction, Map<CashFlowType, TransactionCashFlow>> getCashFlows(Deque<Transaction> dailyTransactions) {
+    private LinkedHashMap<Transaction, Map<CashFlowType, TransactionCashFlow>> getCashFlows(
+            List<Transaction> dailyTransactions, TransactionCashFlows transactionCashFlows) {
         LinkedHashMap<Transaction, Map<CashFlowType, TransactionCashFlow>> dailyTransactionsCashFlows = new LinkedHashMap<>();
-        //noinspection ConstantValue
-        if (dailyTransactions != null) {
-            for (Transaction transaction : dailyTransactions) {
-                if (transaction.getId() != null) {
-                    dailyTransactionsCashFlows.put(transaction, getTransactionCashFlows(transaction));
-                }
+        for (Transaction transaction : dailyTransactions) {
+            @Nullable Integer transactionId = transaction.getId();
+            if (transactionId != null) {
+                Map<CashFlowType, TransactionCashFlow> cashFlows = transactionCashFlows.get(transactionId)
+                        .stream()
+                        .map(transactionCashFlowConverter::fromEntity)
+                        .collect(Collectors.toMap(TransactionCashFlow::getEventType, Function.identity()));
+                dailyTransactionsCashFlows.put(transaction, cashFlows);
             }
         }
         return dailyTransactionsCashFlows;
     }
-
-    private Map<CashFlowType, TransactionCashFlow> getTransactionCashFlows(Transaction transaction) {
-        return transactionCashFlowRepository
-                .findByTransactionId(requireNonNull(transaction.getId()))
-                .stream()
-                .map(transactionCashFlowConverter::fromEntity)
-                .collect(Collectors.toMap(TransactionCashFlow::getEventType, Function.identity()));
-    }
 }
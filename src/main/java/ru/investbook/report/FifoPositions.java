@@ -59,6 +59,53 @@ public class FifoPositions {
                 .orElse(0);
     }
 
+    /**
+     * Continues calculation of previous positions, previous positions is not modified.
+     *
+     * @param newTransactions transactions following all transactions of previous positions
+     * @param newRedemptions  redemptions following all transactions
+     */
+    private FifoPositions(FifoPositions previous,
+                          Deque<Transaction> newTransactions,
+                          Deque<SecurityEventCashFlow> newRedemptions) {
+        Assert.isTrue(previous.redemptions.isEmpty(), "Redemptions should be processed after all transactions");
+        this.transactions = new LinkedList<>(previous.transactions);
+        this.transactions.addAll(newTransactions);
+        this.redemptions = newRedemptions;
+        this.positionHistories.addAll(previous.positionHistories);
+        previous.openedPositions.forEach(position -> openedPositions.add(
+                new OpenedPosition(position.getOpenTransaction(), position.getUnclosedPositions())));
+        this.closedPositions.addAll(previous.closedPositions);
+        updateSecuritiesPastPositions(newTransactions, positionHistories);
+        processTransactions(newTransactions, openedPositions, closedPositions);
+        processRedemptions(redemptions, positionHistories, openedPositions, closedPositions);
+        this.currentOpenedPositionsCount = Optional.ofNullable(positionHistories.peekLast())
+                .map(PositionHistory::getOpenedPositions)
+                .orElse(0);
+    }
+
+    /**
+     * Returns positions for previous and new transactions. Only new transactions are processed
+     * if previous positions have no redemptions.
+     *
+     * @param newTransactions transactions following all transactions of previous positions
+     * @param newRedemptions  redemptions following all transactions
+     */
+    static FifoPositions extend(FifoPositions previous,
+                                Deque<Transaction> newTransactions,
+                                Deque<SecurityEventCashFlow> newRedemptions) {
+        if (newTransactions.isEmpty() && newRedemptions.isEmpty()) {
+            return previous;
+        } else if (previous.redemptions.isEmpty()) {
+            return new FifoPositions(previous, newTransactions, newRedemptions);
+        }
+        Deque<Transaction> transactions = new LinkedList<>(previous.transactions);
+        transactions.addAll(newTransactions);
+        Deque<SecurityEventCashFlow> redemptions = new LinkedList<>(previous.redemptions);
+        redemptions.addAll(newRedemptions);
+        return new FifoPositions(transactions, redemptions);
+    }
+
     private static void processTransactions(Deque<Transaction> transactions,
                                             Deque<OpenedPosition> openedPositions,
                                             Deque<ClosedPosition> closedPositions) {
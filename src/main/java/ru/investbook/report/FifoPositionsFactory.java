@@ -18,7 +18,8 @@
 
 package ru.investbook.report;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.spacious_team.broker.pojo.CashFlowType;
 import org.spacious_team.broker.pojo.Portfolio;
 import org.spacious_team.broker.pojo.Security;
@@ -26,14 +27,17 @@ import org.spacious_team.broker.pojo.SecurityEventCashFlow;
 import org.spacious_team.broker.pojo.SecurityType;
 import org.spacious_team.broker.pojo.Transaction;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
 import ru.investbook.converter.SecurityEventCashFlowConverter;
 import ru.investbook.converter.TransactionConverter;
 import ru.investbook.entity.SecurityEventCashFlowEntity;
 import ru.investbook.entity.TransactionEntity;
+import ru.investbook.repository.DataChangedEvent;
 import ru.investbook.repository.SecurityEventCashFlowRepository;
 import ru.investbook.repository.SecurityRepository;
 import ru.investbook.repository.TransactionRepository;
 
+import java.time.Instant;
 import java.util.ArrayDeque;
 import java.util.Collection;
 import java.util.Comparator;
@@ -41,24 +45,41 @@ import java.util.Deque;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.stream.Collectors;
 
 import static java.util.Objects.requireNonNull;
 import static org.spacious_team.broker.pojo.SecurityType.CURRENCY_PAIR;
 
 @Component
-@RequiredArgsConstructor
 public class FifoPositionsFactory {
 
-    private static final String ALL_PORTFOLIO_KEY = "all";
+    private static final int MAX_CHECKPOINTS = 4;
     private final TransactionRepository transactionRepository;
     private final SecurityEventCashFlowRepository securityEventCashFlowRepository;
     private final SecurityRepository securityRepository;
     private final TransactionConverter transactionConverter;
     private final SecurityEventCashFlowConverter securityEventCashFlowConverter;
-    // portfolios -> cache_key -> positions
-    private final Map<String, Map<String, FifoPositions>> positionsCache = new ConcurrentHashMap<>();
+    private final CacheMetrics metrics;
+    // portfolios (all if empty) -> security and from date -> to date -> positions
+    private final Map<Set<String>, Map<CacheKey, NavigableMap<Instant, FifoPositions>>> positionsCache = new ConcurrentHashMap<>();
+
+    public FifoPositionsFactory(TransactionRepository transactionRepository,
+                                SecurityEventCashFlowRepository securityEventCashFlowRepository,
+                                SecurityRepository securityRepository,
+                                TransactionConverter transactionConverter,
+                                SecurityEventCashFlowConverter securityEventCashFlowConverter,
+                                MeterRegistry meterRegistry) {
+        this.transactionRepository = transactionRepository;
+        this.securityEventCashFlowRepository = securityEventCashFlowRepository;
+        this.securityRepository = securityRepository;
+        this.transactionConverter = transactionConverter;
+        this.securityEventCashFlowConverter = securityEventCashFlowConverter;
+        this.metrics = new CacheMetrics(meterRegistry, "fifo-positions");
+    }
 
     public FifoPositions get(Security security, Portfolio portfolio) {
         return get(security, FifoPositionsFilter.of(portfolio));
@@ -73,9 +94,7 @@ public class FifoPositionsFactory {
      * @param currencyPair in USDRUB format
      */
     public FifoPositions getForCurrencyPair(String currencyPair, FifoPositionsFilter filter) {
-        return getPortfolioCache(filter).computeIfAbsent(
-                getCacheKey(currencyPair, filter),
-                k -> create(currencyPair, filter));
+        return get(currencyPair, filter, (previous, f) -> create(previous, currencyPair, f));
     }
 
     public FifoPositions get(int securityId, SecurityType securityType, FifoPositionsFilter filter) {
@@ -84,27 +103,113 @@ public class FifoPositionsFactory {
                     .orElseThrow(() -> new IllegalArgumentException("Валютная пара не найдена по id = " + securityId));
             return getForCurrencyPair(currencyPair, filter);
         }
-        return getPortfolioCache(filter).computeIfAbsent(
-                getCacheKey(String.valueOf(securityId), filter),
-                k -> create(securityId, securityType, filter));
+        return get(String.valueOf(securityId), filter, (previous, f) -> create(previous, securityId, securityType, f));
     }
 
-    private Map<String, FifoPositions> getPortfolioCache(FifoPositionsFilter filter) {
-        String key = filter.getPortfolios().stream().sorted().collect(Collectors.joining(","));
-        return positionsCache.computeIfAbsent(
-                key.isEmpty() ? ALL_PORTFOLIO_KEY : key,
-                k -> new ConcurrentHashMap<>());
+    /**
+     * Returns cached positions or calculates them. If positions up to an earlier date are cached,
+     * they are used as checkpoint and only later transactions are loaded and processed.
+     */
+    private FifoPositions get(String security, FifoPositionsFilter filter, PositionsCreator creator) {
+        NavigableMap<Instant, FifoPositions> checkpoints = getPortfolioCache(filter)
+                .computeIfAbsent(new CacheKey(security, filter.getFromDate()), k -> new ConcurrentSkipListMap<>());
+        Instant toDate = filter.getToDate();
+        @Nullable FifoPositions positions = checkpoints.get(toDate);
+        if (positions != null) {
+            metrics.hit();
+            return positions;
+        }
+        metrics.miss();
+        @Nullable Map.Entry<Instant, FifoPositions> checkpoint = checkpoints.lowerEntry(toDate);
+        positions = (checkpoint == null || checkpoint.getKey().isBefore(filter.getFromDate())) ?
+                creator.create(null, filter) :
+                creator.create(checkpoint.getValue(),
+                        FifoPositionsFilter.of(filter.getPortfolios(), checkpoint.getKey().plusNanos(1), toDate));
+        @Nullable FifoPositions cached = checkpoints.putIfAbsent(toDate, positions);
+        while (checkpoints.size() > MAX_CHECKPOINTS) {
+            checkpoints.pollFirstEntry();
+        }
+        return (cached == null) ? positions : cached;
+    }
+
+    private Map<CacheKey, NavigableMap<Instant, FifoPositions>> getPortfolioCache(FifoPositionsFilter filter) {
+        return positionsCache.computeIfAbsent(Set.copyOf(filter.getPortfolios()), k -> new ConcurrentHashMap<>());
     }
 
-    private String getCacheKey(String currencyPair, FifoPositionsFilter filter) {
-        return currencyPair + filter.getFromDate().toString() + filter.getToDate().toString();
+    @TransactionalEventListener(fallbackExecution = true)
+    void onDataChanged(DataChangedEvent event) {
+        switch (event.type()) {
+            case TRANSACTION, SECURITY_EVENT_CASH_FLOW -> invalidateCache(event);
+            case ALL -> invalidateCache();
+            case FOREIGN_EXCHANGE_RATE, SECURITY_QUOTE, OTHER -> {
+            }
+        }
     }
 
     public void invalidateCache() {
+        int evicted = positionsCache.values()
+                .stream()
+                .flatMap(portfolioCache -> portfolioCache.values().stream())
+                .mapToInt(Map::size)
+                .sum();
         positionsCache.clear();
+        metrics.evicted(evicted);
     }
 
-    private FifoPositions create(String currencyPair, FifoPositionsFilter filter) {
+    /**
+     * Invalidates positions of the event portfolio and security calculated up to the event date or later.
+     * Positions calculated up to an earlier date are kept as checkpoints.
+     */
+    private void invalidateCache(DataChangedEvent event) {
+        @Nullable String portfolio = event.portfolio();
+        Set<String> securities = getCacheSecurityKeys(event);
+        int evicted = 0;
+        for (Map.Entry<Set<String>, Map<CacheKey, NavigableMap<Instant, FifoPositions>>> portfolioCache :
+                positionsCache.entrySet()) {
+            Set<String> portfolios = portfolioCache.getKey();
+            if (portfolio == null || portfolios.isEmpty() || portfolios.contains(portfolio)) {
+                for (Map.Entry<CacheKey, NavigableMap<Instant, FifoPositions>> entry : portfolioCache.getValue().entrySet()) {
+                    CacheKey key = entry.getKey();
+                    if (securities.isEmpty() || securities.contains(key.security())) {
+                        evicted += evict(entry.getValue(), key.fromDate(), event.timestamp());
+                    }
+                }
+            }
+        }
+        metrics.evicted(evicted);
+    }
+
+    /**
+     * Currency pair is selected after commit, event doesn't initialize security reference during flush.
+     *
+     * @return security id and currency pair for foreign exchange contract,
+     * empty set for any security or if security is deleted
+     */
+    private Set<String> getCacheSecurityKeys(DataChangedEvent event) {
+        @Nullable Integer security = event.security();
+        if (security == null) {
+            return Set.of();
+        }
+        String securityId = String.valueOf(security);
+        return securityRepository.findCurrencyPair(security)
+                .map(currencyPair -> Set.of(securityId, currencyPair))
+                .orElseGet(() -> securityRepository.existsById(security) ? Set.of(securityId) : Set.of());
+    }
+
+    private static int evict(NavigableMap<Instant, FifoPositions> checkpoints, Instant fromDate, @Nullable Instant timestamp) {
+        if (timestamp != null && timestamp.isBefore(fromDate)) {
+            return 0; // positions don't include earlier events
+        }
+        Map<Instant, FifoPositions> evicted = (timestamp == null) ? checkpoints : checkpoints.tailMap(timestamp, true);
+        int count = evicted.size();
+        evicted.clear();
+        return count;
+    }
+
+    /**
+     * @param previous positions calculated before filter's from date
+     */
+    private FifoPositions create(@Nullable FifoPositions previous, String currencyPair, FifoPositionsFilter filter) {
         LinkedList<Transaction> transactions = getFxContracts(currencyPair, filter)
                 .stream()
                 .map(contract -> getTransactions(contract, filter))
@@ -112,15 +217,26 @@ public class FifoPositionsFactory {
                 .sorted(Comparator.comparing(Transaction::getTimestamp).thenComparing(Transaction::getId))
                 .collect(Collectors.toCollection(LinkedList::new));
 
-        return new FifoPositions(transactions, new ArrayDeque<>(0));
+        return createOrExtend(previous, transactions, new ArrayDeque<>(0));
     }
 
-    private FifoPositions create(Integer securityId, SecurityType type, FifoPositionsFilter filter) {
+    /**
+     * @param previous positions calculated before filter's from date
+     */
+    private FifoPositions create(@Nullable FifoPositions previous, Integer securityId, SecurityType type, FifoPositionsFilter filter) {
         LinkedList<Transaction> transactions = getTransactions(securityId, filter);
         Deque<SecurityEventCashFlow> redemption = type.isBond() ?
                 getRedemption(securityId, filter) :
                 new ArrayDeque<>(0);
-        return new FifoPositions(transactions, redemption);
+        return createOrExtend(previous, transactions, redemption);
+    }
+
+    private static FifoPositions createOrExtend(@Nullable FifoPositions previous,
+                                                Deque<Transaction> transactions,
+                                                Deque<SecurityEventCashFlow> redemption) {
+        return (previous == null) ?
+                new FifoPositions(transactions, redemption) :
+                FifoPositions.extend(previous, transactions, redemption);
     }
 
     private Collection<Integer> getFxContracts(String currencyPair, FifoPositionsFilter filter) {
@@ -175,4 +291,18 @@ public class FifoPositionsFactory {
                 .map(securityEventCashFlowConverter::fromEntity)
                 .collect(Collectors.toCollection(LinkedList::new));
     }
+
+    @FunctionalInterface
+    private interface PositionsCreator {
+        /**
+         * @param previous positions calculated before filter's from date or null
+         */
+        FifoPositions create(@Nullable FifoPositions previous, FifoPositionsFilter filter);
+    }
+
+    /**
+     * @param security security id or currency pair
+     */
+    private record CacheKey(String security, Instant fromDate) {
+    }
 }
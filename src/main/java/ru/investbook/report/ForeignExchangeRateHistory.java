@@ -0,0 +1,91 @@
+/*
+ * InvestBook
+ * Copyright (C) 2022  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.investbook.report;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+import ru.investbook.entity.ForeignExchangeRateEntity;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Exchange rates of currency pair, sorted by date
+ */
+class ForeignExchangeRateHistory {
+    private final int[] epochDays;
+    private final BigDecimal[] rates;
+
+    /**
+     * @param entities exchange rates of one currency pair sorted by date
+     */
+    ForeignExchangeRateHistory(List<ForeignExchangeRateEntity> entities) {
+        int[] epochDays = new int[entities.size()];
+        BigDecimal[] rates = new BigDecimal[entities.size()];
+        int size = 0;
+        for (ForeignExchangeRateEntity entity : entities) {
+            BigDecimal rate = entity.getRate();
+            if (rate.signum() != 0) { // zero rate is unknown rate
+                epochDays[size] = (int) entity.getPk().getDate().toEpochDay();
+                rates[size] = rate;
+                size++;
+            }
+        }
+        this.epochDays = Arrays.copyOf(epochDays, size);
+        this.rates = Arrays.copyOf(rates, size);
+    }
+
+    /**
+     * @return exchange rate at date or null if unknown
+     */
+    @Nullable
+    BigDecimal get(LocalDate date) {
+        int index = Arrays.binarySearch(epochDays, (int) date.toEpochDay());
+        return (index >= 0) ? rates[index] : null;
+    }
+
+    /**
+     * @return exchange rate at date or, if unknown, at the nearest previous date
+     */
+    @Nullable
+    BigDecimal getAtOrBefore(LocalDate date) {
+        int index = Arrays.binarySearch(epochDays, (int) date.toEpochDay());
+        if (index < 0) {
+            index = -index - 2; // previous to insertion point
+        }
+        return (index >= 0) ? rates[index] : null;
+    }
+
+    /**
+     * @return last known exchange rate or null if unknown
+     */
+    @Nullable
+    BigDecimal getLatest() {
+        return (rates.length == 0) ? null : rates[rates.length - 1];
+    }
+
+    /**
+     * @return date of last known exchange rate or null if unknown
+     */
+    @Nullable
+    LocalDate getLatestDate() {
+        return (epochDays.length == 0) ? null : LocalDate.ofEpochDay(epochDays[epochDays.length - 1]);
+    }
+}
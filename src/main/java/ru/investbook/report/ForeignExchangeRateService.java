@@ -18,7 +18,7 @@
 
 package ru.investbook.report;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.spacious_team.broker.pojo.SecurityQuote;
@@ -26,22 +26,25 @@ import org.spacious_team.broker.pojo.SecurityQuote.SecurityQuoteBuilder;
 import org.spacious_team.broker.pojo.SecurityType;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import ru.investbook.entity.ForeignExchangeRateEntity;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.investbook.repository.DataChangedEvent;
 import ru.investbook.repository.ForeignExchangeRateRepository;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
 
+import static java.util.Objects.requireNonNull;
 import static org.spacious_team.broker.pojo.SecurityType.*;
 
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class ForeignExchangeRateService {
     public static final String RUB = "RUB";
@@ -54,12 +57,23 @@ public class ForeignExchangeRateService {
     private final ForeignExchangeRateRepository foreignExchangeRateRepository;
     // base-currency -> quote-currency -> exchange-rate
     private final Map<String, Map<String, BigDecimal>> cache = new ConcurrentHashMap<>();
-    // base-currency -> quote-currency -> local date -> exchange-rate
-    private final Map<String, Map<String, Map<LocalDate, BigDecimal>>> cacheByDate = new ConcurrentHashMap<>();
+    // currency pair -> exchange rate history
+    private final Map<String, ForeignExchangeRateHistory> histories = new ConcurrentHashMap<>();
+    // incremented on each history eviction, history loaded by outdated data is not cached
+    private final AtomicLong historiesVersion = new AtomicLong();
+    private final CacheMetrics cacheMetrics;
+    private final CacheMetrics historyMetrics;
     @Value("${server.port}")
     @SuppressWarnings("unused")
     private int serverPort;
 
+    public ForeignExchangeRateService(ForeignExchangeRateRepository foreignExchangeRateRepository,
+                                      MeterRegistry meterRegistry) {
+        this.foreignExchangeRateRepository = foreignExchangeRateRepository;
+        this.cacheMetrics = new CacheMetrics(meterRegistry, "foreign-exchange-rates");
+        this.historyMetrics = new CacheMetrics(meterRegistry, "foreign-exchange-rate-histories");
+    }
+
     /**
      * Возвращает последнюю известную котировку базовой валюты в цене котируемой валюты. Например, для USD/RUB базовая валюта - USD.
      *
@@ -97,12 +111,8 @@ public class ForeignExchangeRateService {
         if (currency.equalsIgnoreCase("rub")) {
             return BigDecimal.ONE;
         }
-        BigDecimal exchangeRate = foreignExchangeRateRepository
-                .findFirstByPkCurrencyPairOrderByPkDateDesc(currency.toUpperCase() + "RUB")
-                .map(ForeignExchangeRateEntity::getRate)
-                .orElse(BigDecimal.ZERO);
-
-        if (exchangeRate.equals(BigDecimal.ZERO)) {
+        @Nullable BigDecimal exchangeRate = getHistory(currency).getLatest();
+        if (exchangeRate == null) {
             exchangeRate = getDefaultExchangeRate(currency);
         }
         cache(currency, "RUB", exchangeRate);
@@ -142,21 +152,15 @@ public class ForeignExchangeRateService {
     public BigDecimal getExchangeRate(String baseCurrency, String quoteCurrency, LocalDate atDate) {
         if (baseCurrency.equalsIgnoreCase(quoteCurrency)) {
             return BigDecimal.ONE;
-        }
-        @Nullable BigDecimal exchangeRate = getFromCache(baseCurrency, quoteCurrency, atDate);
-        if (exchangeRate != null) {
-            return exchangeRate;
         } else if (baseCurrency.equalsIgnoreCase("RUB")) {
-            exchangeRate = BigDecimal.ONE.divide(getExchangeRateToRub(quoteCurrency, atDate), 20, RoundingMode.HALF_UP);
+            return BigDecimal.ONE.divide(getExchangeRateToRub(quoteCurrency, atDate), 20, RoundingMode.HALF_UP);
         } else if (quoteCurrency.equalsIgnoreCase("RUB")) {
-            exchangeRate = getExchangeRateToRub(baseCurrency, atDate);
+            return getExchangeRateToRub(baseCurrency, atDate);
         } else {
             BigDecimal baseToRub = getExchangeRateToRub(baseCurrency, atDate);
             BigDecimal quoteToRub = getExchangeRateToRub(quoteCurrency, atDate);
-            exchangeRate = baseToRub.divide(quoteToRub, 20, RoundingMode.HALF_UP);
+            return baseToRub.divide(quoteToRub, 20, RoundingMode.HALF_UP);
         }
-        cache(baseCurrency, quoteCurrency, atDate, exchangeRate);
-        return exchangeRate;
     }
 
     /**
@@ -170,7 +174,10 @@ public class ForeignExchangeRateService {
         try {
             return getExchangeRateToRub(currency, atDate);
         } catch (Exception e) {
-            BigDecimal defaultExchangeRate = getDefaultExchangeRate(currency);
+            @Nullable BigDecimal previousExchangeRate = getHistory(currency).getAtOrBefore(atDate);
+            BigDecimal defaultExchangeRate = (previousExchangeRate == null) ?
+                    getDefaultExchangeRate(currency) :
+                    previousExchangeRate;
             log.warn("Курс валюты {}RUB на дату {} не известен, использую ориентировочное значение {}",
                     currency.toUpperCase(), atDate, defaultExchangeRate);
             return defaultExchangeRate;
@@ -189,45 +196,108 @@ public class ForeignExchangeRateService {
         if (currency.equalsIgnoreCase("rub")) {
             return BigDecimal.ONE;
         }
-        BigDecimal exchangeRate = foreignExchangeRateRepository
-                .findByPkCurrencyPairAndPkDate(currency.toUpperCase() + "RUB", atDate)
-                .map(ForeignExchangeRateEntity::getRate)
-                .orElse(BigDecimal.ZERO);
-
-        if (exchangeRate.equals(BigDecimal.ZERO)) {
+        @Nullable BigDecimal exchangeRate = getHistory(currency).get(atDate);
+        if (exchangeRate == null) {
             throw new NoSuchElementException("Курс валюты " + currency.toUpperCase() + "RUB на дату " + atDate +
                     " не известен, загрузите значение курса с сайта ЦБ РФ (https://www.cbr.ru/currency_base/dynamics/) " +
                     " запросом POST http://localhost:" + serverPort + "/foreign-exchange-rates");
         }
-        cache(currency, "RUB", atDate, exchangeRate);
         return exchangeRate;
     }
 
+    @TransactionalEventListener(fallbackExecution = true)
+    void onDataChanged(DataChangedEvent event) {
+        switch (event.type()) {
+            case FOREIGN_EXCHANGE_RATE -> invalidateCache(requireNonNull(event.currencyPair()), event.date());
+            case ALL -> invalidateCache();
+            case TRANSACTION, SECURITY_EVENT_CASH_FLOW, SECURITY_QUOTE, OTHER -> {
+            }
+        }
+    }
+
     public void invalidateCache() {
+        cacheMetrics.evicted(cache.values().stream().mapToInt(Map::size).sum());
+        historyMetrics.evicted(histories.size());
+        historiesVersion.incrementAndGet();
         this.cache.clear();
+        this.histories.clear();
     }
 
-    private void cache(String baseCurrency, String quoteCurrency, BigDecimal exchangeRate) {
-        this.cache.computeIfAbsent(baseCurrency, k -> new ConcurrentHashMap<>())
-                .putIfAbsent(quoteCurrency, exchangeRate);
+    /**
+     * Сбрасывает кеш курсов валютной пары. Кеш последних курсов сбрасывается, только если изменен курс
+     * на дату последнего известного курса или позже.
+     *
+     * @param currencyPair валютная пара, например USDRUB
+     * @param date         дата измененного курса или null, если неизвестна
+     */
+    private void invalidateCache(String currencyPair, @Nullable LocalDate date) {
+        historiesVersion.incrementAndGet();
+        @Nullable ForeignExchangeRateHistory history = histories.remove(currencyPair.toUpperCase());
+        historyMetrics.evicted((history == null) ? 0 : 1);
+        @Nullable LocalDate latestDate = (history == null) ? null : history.getLatestDate();
+        if (date == null || latestDate == null || !date.isBefore(latestDate)) {
+            String currency = currencyPair.substring(0, Math.min(3, currencyPair.length()));
+            cacheMetrics.evicted(evictExchangeRates(currency));
+        }
     }
 
-    private void cache(String baseCurrency, String quoteCurrency, LocalDate localDate, BigDecimal exchangeRate) {
-        this.cacheByDate.computeIfAbsent(baseCurrency, k -> new ConcurrentHashMap<>())
-                .computeIfAbsent(quoteCurrency, k -> new ConcurrentHashMap<>())
-                .putIfAbsent(localDate, exchangeRate);
+    /**
+     * Evicts exchange rates of currency and cross rates depending on it
+     *
+     * @return evicted exchange rates count
+     */
+    private int evictExchangeRates(String currency) {
+        int evicted = 0;
+        for (Iterator<Map.Entry<String, Map<String, BigDecimal>>> it = cache.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, Map<String, BigDecimal>> entry = it.next();
+            Map<String, BigDecimal> quoteCurrencyRates = entry.getValue();
+            if (entry.getKey().equalsIgnoreCase(currency)) {
+                evicted += quoteCurrencyRates.size();
+                it.remove();
+            } else {
+                int size = quoteCurrencyRates.size();
+                quoteCurrencyRates.keySet().removeIf(currency::equalsIgnoreCase);
+                evicted += size - quoteCurrencyRates.size();
+            }
+        }
+        return evicted;
     }
 
-    private @Nullable BigDecimal getFromCache(String baseCurrency, String quoteCurrency) {
-        return this.cache.computeIfAbsent(baseCurrency, k -> new ConcurrentHashMap<>())
-                .get(quoteCurrency);
+    private ForeignExchangeRateHistory getHistory(String currency) {
+        String currencyPair = currency.toUpperCase() + RUB;
+        @Nullable ForeignExchangeRateHistory history = histories.get(currencyPair);
+        if (history != null) {
+            historyMetrics.hit();
+            return history;
+        }
+        historyMetrics.miss();
+        // loaded outside of map lock, concurrent report builders may load the same history
+        long version = historiesVersion.get();
+        history = new ForeignExchangeRateHistory(
+                foreignExchangeRateRepository.findByPkCurrencyPairOrderByPkDateAsc(currencyPair));
+        @Nullable ForeignExchangeRateHistory cached = histories.putIfAbsent(currencyPair, history);
+        if (cached != null) {
+            return cached;
+        } else if (historiesVersion.get() != version) {
+            histories.remove(currencyPair, history); // rates changed while history was loaded
+        }
+        return history;
     }
 
-    private @Nullable BigDecimal getFromCache(String baseCurrency, String quoteCurrency, LocalDate localDate) {
-        return this.cacheByDate.computeIfAbsent(baseCurrency, k -> new ConcurrentHashMap<>())
-                .computeIfAbsent(quoteCurrency, k -> new ConcurrentHashMap<>())
-                .get(localDate);
+    private void cache(String baseCurrency, String quoteCurrency, BigDecimal exchangeRate) {
+        this.cache.computeIfAbsent(baseCurrency, k -> new ConcurrentHashMap<>())
+                .putIfAbsent(quoteCurrency, exchangeRate);
+    }
 
+    private @Nullable BigDecimal getFromCache(String baseCurrency, String quoteCurrency) {
+        @Nullable BigDecimal exchangeRate = this.cache.computeIfAbsent(baseCurrency, k -> new ConcurrentHashMap<>())
+                .get(quoteCurrency);
+        if (exchangeRate == null) {
+            cacheMetrics.miss();
+        } else {
+            cacheMetrics.hit();
+        }
+        return exchangeRate;
     }
 
     private static BigDecimal getDefaultExchangeRate(String currency) {
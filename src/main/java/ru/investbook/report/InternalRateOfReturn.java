@@ -31,22 +31,27 @@ import org.springframework.stereotype.Component;
 import ru.investbook.entity.SecurityEventCashFlowEntity;
 import ru.investbook.entity.TransactionCashFlowEntity;
 import ru.investbook.repository.SecurityEventCashFlowRepository;
-import ru.investbook.repository.TransactionCashFlowRepository;
 
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
 import static java.util.Objects.requireNonNull;
 import static java.util.Optional.empty;
 import static java.util.Optional.ofNullable;
-import static java.util.stream.Collectors.toCollection;
 import static org.spacious_team.broker.pojo.CashFlowType.*;
 import static org.spacious_team.broker.pojo.SecurityType.DERIVATIVE;
 
@@ -55,7 +60,7 @@ import static org.spacious_team.broker.pojo.SecurityType.DERIVATIVE;
 @Slf4j
 public class InternalRateOfReturn {
     private final FifoPositionsFactory positionsFactory;
-    private final TransactionCashFlowRepository transactionCashFlowRepository;
+    private final TransactionCashFlowsFactory transactionCashFlowsFactory;
     private final SecurityEventCashFlowRepository securityEventCashFlowRepository;
     private final ForeignExchangeRateService foreignExchangeRateService;
     private final ZoneId zoneId = ZoneId.systemDefault();
@@ -77,31 +82,84 @@ public class InternalRateOfReturn {
      */
     public @Nullable Double calc(
             Collection<String> portfolios, Security security, @Nullable SecurityQuote quote, Instant fromDate, Instant toDate) {
+        Map<Integer, SecurityQuote> quotes = (quote == null) ? emptyMap() : Map.of(requireNonNull(security.getId()), quote);
+        return calcAll(portfolios, List.of(security), quotes, fromDate, toDate)
+                .get(security.getId());
+    }
 
-        try {
-            boolean isDerivative = (security.getType() == DERIVATIVE);
-            if (isDerivative) {
-                return null;
-            }
-            FifoPositionsFilter pf = FifoPositionsFilter.of(portfolios, fromDate, toDate);
-            FifoPositions positions = positionsFactory.get(security, pf);
-            int count = positions.getCurrentOpenedPositionsCount();
-            if (count != 0 && (quote == null || quote.getDirtyPriceInCurrency(isDerivative) == null)) {
-                return null;
+    /**
+     * Возвращает внутреннюю норму доходности вложений для нескольких бумаг. Движения денежных средств по сделкам
+     * и выплаты по всем бумагам загружаются из БД пакетно, а не отдельными запросами по каждой сделке.
+     *
+     * @param quotes security id to quote map, quote may be absent, if current security position equals to 0
+     * @return security id to internal rate of return map, contains only securities for which it can be calculated
+     * @see #calc(Collection, Security, SecurityQuote, Instant, Instant)
+     */
+    public Map<Integer, Double> calcAll(Collection<String> portfolios,
+                                        Collection<Security> securities,
+                                        Map<Integer, SecurityQuote> quotes,
+                                        Instant fromDate,
+                                        Instant toDate) {
+        FifoPositionsFilter pf = FifoPositionsFilter.of(portfolios, fromDate, toDate);
+        Map<Security, FifoPositions> securityPositions = new LinkedHashMap<>();
+        for (Security security : securities) {
+            try {
+                if (security.getType() == DERIVATIVE) {
+                    continue;
+                }
+                FifoPositions positions = positionsFactory.get(security, pf);
+                int count = positions.getCurrentOpenedPositionsCount();
+                @Nullable SecurityQuote quote = quotes.get(security.getId());
+                if (count != 0 && (quote == null || quote.getDirtyPriceInCurrency(false) == null)) {
+                    continue;
+                }
+                securityPositions.put(security, positions);
+            } catch (Exception e) {
+                log.debug("Ошибка вычисления внутренней нормы доходности для бумаги {}", security, e);
             }
+        }
+        if (securityPositions.isEmpty()) {
+            return emptyMap();
+        }
 
-            String toCurrency = getTransactionCurrency(positions);
-            Collection<org.decampo.xirr.Transaction> transactions = positions.getTransactions()
-                    .stream()
-                    .map(transaction -> castToXirrTransaction(transaction, toCurrency))
-                    .flatMap(Optional::stream)
-                    .collect(Collectors.toList());
+        List<Transaction> allTransactions = securityPositions.values()
+                .stream()
+                .flatMap(positions -> positions.getTransactions().stream())
+                .toList();
+        TransactionCashFlows cashFlows = transactionCashFlowsFactory.get(allTransactions);
+        Map<Integer, List<SecurityEventCashFlowEntity>> payments =
+                getSecurityEventCashFlowEntities(portfolios, securityPositions.keySet(), fromDate, toDate);
 
-            getSecurityEventCashFlowEntities(portfolios, security, paymentTypes)
-                    .stream()
-                    .map(cash -> castToXirrTransaction(cash, toCurrency))
-                    .collect(toCollection(() -> transactions));
+        Map<Integer, Double> result = new HashMap<>();
+        securityPositions.forEach((security, positions) -> {
+            Integer securityId = requireNonNull(security.getId());
+            @Nullable Double irr = calc(security, positions, cashFlows,
+                    payments.getOrDefault(securityId, emptyList()), quotes.get(securityId));
+            if (irr != null) {
+                result.put(securityId, irr);
+            }
+        });
+        return result;
+    }
 
+    private @Nullable Double calc(Security security,
+                                  FifoPositions positions,
+                                  TransactionCashFlows cashFlows,
+                                  List<SecurityEventCashFlowEntity> payments,
+                                  @Nullable SecurityQuote quote) {
+        try {
+            String toCurrency = getTransactionCurrency(positions, cashFlows);
+            Deque<Transaction> securityTransactions = positions.getTransactions();
+            List<org.decampo.xirr.Transaction> transactions =
+                    new ArrayList<>(securityTransactions.size() + payments.size() + 1);
+            for (Transaction transaction : securityTransactions) {
+                castToXirrTransaction(transaction, cashFlows, toCurrency)
+                        .ifPresent(transactions::add);
+            }
+            for (SecurityEventCashFlowEntity payment : payments) {
+                transactions.add(castToXirrTransaction(payment, toCurrency));
+            }
+            int count = positions.getCurrentOpenedPositionsCount();
             castToXirrTransaction(quote, toCurrency, count, security.getType())
                     .ifPresent(transactions::add);
 
@@ -114,18 +172,20 @@ public class InternalRateOfReturn {
         }
     }
 
-    private String getTransactionCurrency(FifoPositions positions) {
+    private String getTransactionCurrency(FifoPositions positions, TransactionCashFlows cashFlows) {
         return positions.getTransactions()
                 .stream()
-                .map(t -> transactionCashFlowRepository.findByTransactionIdAndCashFlowType(requireNonNull(t.getId()), PRICE))
+                .map(t -> cashFlows.get(requireNonNull(t.getId()), PRICE))
                 .flatMap(Optional::stream)
                 .map(TransactionCashFlowEntity::getCurrency)
                 .findAny()
                 .orElseThrow(() -> new RuntimeException("Can't find any transaction payment currency"));
     }
 
-    private Optional<org.decampo.xirr.Transaction> castToXirrTransaction(Transaction transaction, String toCurrency) {
-        return getTransactionValue(transaction, toCurrency)
+    private Optional<org.decampo.xirr.Transaction> castToXirrTransaction(Transaction transaction,
+                                                                         TransactionCashFlows cashFlows,
+                                                                         String toCurrency) {
+        return getTransactionValue(transaction, cashFlows, toCurrency)
                 .map(value -> new org.decampo.xirr.Transaction(
                         value.doubleValue(),
                         toLocalDate(transaction.getTimestamp())));
@@ -150,35 +210,45 @@ public class InternalRateOfReturn {
                         toLocalDate(quote.getTimestamp())));
     }
 
-    private Optional<BigDecimal> getTransactionValue(Transaction t, String toCurrency) {
+    private Optional<BigDecimal> getTransactionValue(Transaction t, TransactionCashFlows cashFlows, String toCurrency) {
         @Nullable BigDecimal value = null;
         @Nullable Integer transactionId = t.getId();
         if (transactionId != null) { // bond redemption, accounted by other way, skipping
-            value = transactionCashFlowRepository.findByTransactionId(transactionId)
-                    .stream()
-                    .map(entity -> convertToCurrency(entity.getValue(), entity.getCurrency(), toCurrency))
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+            value = BigDecimal.ZERO;
+            for (TransactionCashFlowEntity entity : cashFlows.get(transactionId)) {
+                value = value.add(convertToCurrency(entity.getValue(), entity.getCurrency(), toCurrency));
+            }
         }
         return (BigDecimal.ZERO.equals(value)) ? empty() : ofNullable(value);
     }
 
-    public List<SecurityEventCashFlowEntity> getSecurityEventCashFlowEntities(Collection<String> portfolios,
-                                                                              Security security,
-                                                                              Set<Integer> cashFlowTypes) {
-        return portfolios.isEmpty() ?
+    /**
+     * @return security id to payments map
+     */
+    private Map<Integer, List<SecurityEventCashFlowEntity>> getSecurityEventCashFlowEntities(Collection<String> portfolios,
+                                                                                             Collection<Security> securities,
+                                                                                             Instant fromDate,
+                                                                                             Instant toDate) {
+        List<Integer> securityIds = securities.stream()
+                .map(Security::getId)
+                .map(id -> requireNonNull(id))
+                .toList();
+        List<SecurityEventCashFlowEntity> entities = portfolios.isEmpty() ?
                 securityEventCashFlowRepository
-                        .findBySecurityIdAndCashFlowTypeIdInAndTimestampBetweenOrderByTimestampAsc(
-                                requireNonNull(security.getId()),
-                                cashFlowTypes,
-                                ViewFilter.get().getFromDate(),
-                                ViewFilter.get().getToDate()) :
+                        .findBySecurityIdInAndCashFlowTypeIdInAndTimestampBetweenOrderByTimestampAsc(
+                                securityIds,
+                                paymentTypes,
+                                fromDate,
+                                toDate) :
                 securityEventCashFlowRepository
-                        .findByPortfolioIdInAndSecurityIdAndCashFlowTypeIdInAndTimestampBetweenOrderByTimestampAsc(
+                        .findByPortfolioIdInAndSecurityIdInAndCashFlowTypeIdInAndTimestampBetweenOrderByTimestampAsc(
                                 portfolios,
-                                requireNonNull(security.getId()),
-                                cashFlowTypes,
-                                ViewFilter.get().getFromDate(),
-                                ViewFilter.get().getToDate());
+                                securityIds,
+                                paymentTypes,
+                                fromDate,
+                                toDate);
+        return entities.stream()
+                .collect(Collectors.groupingBy(entity -> entity.getSecurity().getId()));
     }
 
     private BigDecimal convertToCurrency(BigDecimal value, String fromCurrency, String toCurrency) {
@@ -36,15 +36,22 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 import static java.util.Collections.singleton;
+import static java.util.Comparator.comparing;
+import static java.util.Comparator.naturalOrder;
+import static java.util.Comparator.nullsFirst;
 import static java.util.Objects.requireNonNull;
 import static org.spacious_team.broker.pojo.CashFlowType.*;
 
@@ -53,6 +60,9 @@ import static org.spacious_team.broker.pojo.CashFlowType.*;
 @Slf4j
 public class PaidInterestFactory {
     private static final CashFlowType[] PAY_TYPES = new CashFlowType[]{COUPON, AMORTIZATION, DIVIDEND, TAX};
+    private static final Set<Integer> PAY_TYPE_IDS = Arrays.stream(PAY_TYPES)
+            .map(CashFlowType::getId)
+            .collect(Collectors.toUnmodifiableSet());
     private final FifoPositionsFactory positionsFactory;
     private final SecurityEventCashFlowRepository securityEventCashFlowRepository;
     private final SecurityEventCashFlowConverter securityEventCashFlowConverter;
@@ -63,46 +73,46 @@ public class PaidInterestFactory {
         return create(portfolio.getId(), security, positions, fromDate, toDate);
     }
 
+    /**
+     * Loads payments of all types by one query. Book closure dates are found by binary search
+     * in position history index, paid positions are found by one sweep of payments ordered by book closure date.
+     */
     private PaidInterest create(
             String portfolio, Security security, FifoPositions positions, Instant fromDate, Instant toDate) {
 
         PaidInterest paidInterest = new PaidInterest();
-        for (CashFlowType type : PAY_TYPES) {
-            paidInterest.get(type)
-                    .putAll(getPositionWithPayments(
-                            portfolio, requireNonNull(security.getId()), positions, type, fromDate, toDate));
-        }
-        return paidInterest;
-    }
-
-    private Map<Position, List<SecurityEventCashFlow>> getPositionWithPayments(String portfolio,
-                                                                               Integer securityId,
-                                                                               FifoPositions positions,
-                                                                               CashFlowType event,
-                                                                               Instant fromDate,
-                                                                               Instant toDate) {
         List<SecurityEventCashFlowEntity> eventCashFlowEntities = securityEventCashFlowRepository
-                .findByPortfolioIdInAndSecurityIdAndCashFlowTypeIdAndTimestampBetweenOrderByTimestampAsc(
+                .findByPortfolioIdInAndSecurityIdAndCashFlowTypeIdInAndTimestampBetweenOrderByTimestampAsc(
                         singleton(portfolio),
-                        securityId,
-                        event.getId(),
+                        requireNonNull(security.getId()),
+                        PAY_TYPE_IDS,
                         fromDate,
                         toDate);
 
-        Map<Position, List<SecurityEventCashFlow>> payments = new HashMap<>();
-        for (SecurityEventCashFlowEntity entity : eventCashFlowEntities) {
+        PositionHistoryIndex positionHistoryIndex = new PositionHistoryIndex(positions.getPositionHistories());
+        List<@Nullable Instant> bookClosureDates = eventCashFlowEntities.stream()
+                .map(entity -> positionHistoryIndex.getBookClosureDate(entity.getTimestamp(), entity.getCount()))
+                .collect(Collectors.toCollection(ArrayList::new));
+        List<@Nullable List<Position>> paidPositions = getPayedPositions(positions, bookClosureDates);
+
+        for (int i = 0; i < eventCashFlowEntities.size(); i++) {
+            SecurityEventCashFlowEntity entity = eventCashFlowEntities.get(i);
             SecurityEventCashFlow cash = securityEventCashFlowConverter.fromEntity(entity);
+            Map<Position, List<SecurityEventCashFlow>> payments = paidInterest.get(cash.getEventType());
             try {
-                Instant bookClosureDate = getBookClosureDate(positions.getPositionHistories(), entity);
-                Deque<Position> paidPositions = getPayedPositions(positions.getClosedPositions(), bookClosureDate);
-                paidPositions.addAll(getPayedPositions(positions.getOpenedPositions(), bookClosureDate));
-
+                if (bookClosureDates.get(i) == null) {
+                    throw new IllegalArgumentException("История транзакций для ЦБ " + entity.getSecurity() +
+                            " не полная, не найден день в прошлом, " +
+                            "в который количество открытых позиций равно " + entity.getCount() +
+                            ", по которым выполнена выплата купона/дивиденда");
+                }
                 // filter only positions was opened in 'filter' interval
-                paidPositions = paidPositions.stream()
+                Deque<Position> positionsOpenedInInterval = requireNonNull(paidPositions.get(i))
+                        .stream()
                         .filter(position -> position.wasOpenedBetweenDates(fromDate, toDate))
                         .collect(Collectors.toCollection(LinkedList::new));
 
-                getPayments(cash, paidPositions).forEach((position, cashs) ->
+                getPayments(cash, positionsOpenedInInterval).forEach((position, cashs) ->
                         cashs.forEach(securityCash ->
                                 payments.computeIfAbsent(position, _ -> new ArrayList<>())
                                         .add(securityCash)));
@@ -113,48 +123,59 @@ public class PaidInterestFactory {
                         .add(cash);
             }
         }
-        return payments;
+        return paidInterest;
     }
 
     /**
-     * @param positionHistories securities position (date in the past -> securities count)
-     * @param payment           dividend or bonds accrued interest payment
-     * @return shares book closure (bonds accrued interest paying) date
+     * Sweeps book closure dates in ascending order keeping positions opened at the date. Positions are ordered
+     * as closed positions followed by opened positions, each in positions deque order.
+     *
+     * @param bookClosureDates shares book closure (bonds accrued interest paying) dates, null if unknown
+     * @return positions opened at each book closure date, null for unknown date
      */
-    private Instant getBookClosureDate(Deque<PositionHistory> positionHistories, SecurityEventCashFlowEntity payment) {
-        Instant payDate = payment.getTimestamp(); // дата перечисления дивидендов/купонов Брокером
-        int payForSecurities = payment.getCount();
-        Iterator<PositionHistory> it = positionHistories.descendingIterator();
-        // дата перечисления дивидендов/купонов Эмитентом (дата фиксации реестра акционеров)
-        // с точностью до временного интервала между 2-мя соседними транзакции
-        @Nullable Instant bookClosureDate = null;
-        while (it.hasNext()) {
-            PositionHistory positionHistory = it.next();
-            Instant pastInstant = positionHistory.getInstant();
-            if (payDate.isAfter(pastInstant) && (payForSecurities == positionHistory.getOpenedPositions())) {
-                bookClosureDate = pastInstant.plusNanos(1);
-                break;
+    static List<@Nullable List<Position>> getPayedPositions(FifoPositions positions,
+                                                            List<@Nullable Instant> bookClosureDates) {
+        List<OpenedPosition> allPositions = new ArrayList<>(positions.getClosedPositions());
+        allPositions.addAll(positions.getOpenedPositions());
+        Integer[] byOpenInstant = new Integer[allPositions.size()];
+        Arrays.setAll(byOpenInstant, i -> i);
+        Arrays.sort(byOpenInstant, comparing(i -> allPositions.get(i).getOpenTransaction().getTimestamp()));
+        Integer[] byCloseInstant = new Integer[positions.getClosedPositions().size()]; // closed positions only
+        Arrays.setAll(byCloseInstant, i -> i);
+        Arrays.sort(byCloseInstant, comparing(i -> getCloseInstant(allPositions.get(i))));
+        Integer[] payments = new Integer[bookClosureDates.size()];
+        Arrays.setAll(payments, i -> i);
+        Arrays.sort(payments, comparing(bookClosureDates::get, nullsFirst(naturalOrder())));
+
+        List<@Nullable List<Position>> result = new ArrayList<>(Collections.nCopies(payments.length, null));
+        SortedMap<Integer, Position> activePositions = new TreeMap<>(); // positions list index -> position
+        int opened = 0, closed = 0;
+        for (int payment : payments) {
+            @Nullable Instant bookClosureDate = bookClosureDates.get(payment);
+            if (bookClosureDate == null) {
+                continue;
             }
+            for (; opened < byOpenInstant.length; opened++) {
+                OpenedPosition position = allPositions.get(byOpenInstant[opened]);
+                if (!position.getOpenTransaction().getTimestamp().isBefore(bookClosureDate)) {
+                    break;
+                } else if (!(position instanceof ClosedPosition) || bookClosureDate.isBefore(getCloseInstant(position))) {
+                    activePositions.put(byOpenInstant[opened], position);
+                }
+            }
+            for (; closed < byCloseInstant.length; closed++) {
+                if (getCloseInstant(allPositions.get(byCloseInstant[closed])).isAfter(bookClosureDate)) {
+                    break;
+                }
+                activePositions.remove(byCloseInstant[closed]);
+            }
+            result.set(payment, new ArrayList<>(activePositions.values()));
         }
-        if (bookClosureDate == null) {
-            throw new IllegalArgumentException("История транзакций для ЦБ " + payment.getSecurity() +
-                    " не полная, не найден день в прошлом, " +
-                    "в который количество открытых позиций равно " + payForSecurities +
-                    ", по которым выполнена выплата купона/дивиденда");
-        }
-        return bookClosureDate;
+        return result;
     }
 
-    private <T extends Position> Deque<Position> getPayedPositions(Deque<T> positions, Instant bookClosureDate) {
-        Iterator<? extends T> it = positions.descendingIterator();
-        Deque<Position> payedPositions = new LinkedList<>();
-        while (it.hasNext()) {
-            T position = it.next();
-            if (position.wasOpenedAtTheInstant(bookClosureDate)) {
-                payedPositions.addFirst(position);
-            }
-        }
-        return payedPositions;
+    private static Instant getCloseInstant(OpenedPosition closedPosition) {
+        return ((ClosedPosition) closedPosition).getCloseTransaction().getTimestamp();
     }
 
     private Map<Position, List<SecurityEventCashFlow>> getPayments(SecurityEventCashFlow cash, Deque<Position> paidPositions) {
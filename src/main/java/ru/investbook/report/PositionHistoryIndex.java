@@ -0,0 +1,104 @@
+/*
+ * InvestBook
+ * Copyright (C) 2022  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.investbook.report;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Position histories indexed by opened positions count and instant
+ */
+class PositionHistoryIndex {
+    // opened positions count -> instants sorted ascending
+    private final Map<Integer, Instant[]> instants = new HashMap<>();
+    // opened positions count -> instant of the latest (in history order) position history among first sorted instants
+    private final Map<Integer, Instant[]> latestHistoryInstants = new HashMap<>();
+
+    /**
+     * @param positionHistories securities position (date in the past -> securities count)
+     */
+    PositionHistoryIndex(Collection<PositionHistory> positionHistories) {
+        Map<Integer, List<PositionHistory>> histories = new HashMap<>();
+        for (PositionHistory positionHistory : positionHistories) {
+            histories.computeIfAbsent(positionHistory.getOpenedPositions(), _ -> new ArrayList<>())
+                    .add(positionHistory);
+        }
+        histories.forEach((openedPositions, list) -> {
+            int size = list.size();
+            Integer[] order = new Integer[size];
+            Arrays.setAll(order, i -> i);
+            Arrays.sort(order, Comparator.comparing(i -> list.get(i).getInstant())); // stable sort
+            Instant[] sortedInstants = new Instant[size];
+            Instant[] latestInstants = new Instant[size];
+            int latest = -1;
+            for (int i = 0; i < size; i++) {
+                sortedInstants[i] = list.get(order[i]).getInstant();
+                latest = Math.max(latest, order[i]);
+                latestInstants[i] = list.get(latest).getInstant();
+            }
+            instants.put(openedPositions, sortedInstants);
+            latestHistoryInstants.put(openedPositions, latestInstants);
+        });
+    }
+
+    /**
+     * Dividends or coupons are paid for securities count, which was opened at book closure date.
+     * Book closure date is known with accuracy to the time interval between two adjacent transactions.
+     *
+     * @param payDate  date of payment by broker
+     * @param payCount securities count of payment
+     * @return book closure date, i.e. the latest position history before pay date with opened positions
+     * equal to pay count plus 1 nanosecond, or null if not found
+     */
+    @Nullable
+    Instant getBookClosureDate(Instant payDate, int payCount) {
+        Instant @Nullable [] sortedInstants = instants.get(payCount);
+        if (sortedInstants == null) {
+            return null;
+        }
+        int count = countBefore(sortedInstants, payDate);
+        return (count == 0) ? null : requireNonNull(latestHistoryInstants.get(payCount))[count - 1].plusNanos(1);
+    }
+
+    /**
+     * @return number of instants before the instant
+     */
+    private static int countBefore(Instant[] sortedInstants, Instant instant) {
+        int low = 0, high = sortedInstants.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedInstants[mid].isBefore(instant)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * InvestBook
+ * Copyright (C) 2022  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.investbook.report;
+
+import jakarta.annotation.PreDestroy;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.springframework.stereotype.Component;
+import ru.investbook.InvestbookProperties;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Builds table rows of several securities in parallel. {@link ViewFilter} of the calling thread
+ * is bound to worker threads. Calling thread builds rows too and waits only for rows taken by running workers,
+ * so nested calls from worker threads can't deadlock on the bounded pool.
+ */
+@Component
+public class ReportExecutor {
+    private final ExecutorService executor;
+    private final int parallelism;
+
+    public ReportExecutor(InvestbookProperties properties) {
+        this.parallelism = Math.max(1, properties.getReportBuilderThreads());
+        this.executor = Executors.newFixedThreadPool(parallelism, Thread.ofPlatform().name("report-rows-builder-", 0).factory());
+    }
+
+    /**
+     * @return mapper results in items order
+     */
+    public <T, R> List<R> map(Collection<T> items, Function<? super T, ? extends R> mapper) {
+        List<T> tasks = new ArrayList<>(items);
+        int size = tasks.size();
+        int helpers = Math.min(parallelism, size) - 1;
+        if (helpers <= 0) {
+            List<R> results = new ArrayList<>(size);
+            tasks.forEach(task -> results.add(mapper.apply(task)));
+            return results;
+        }
+        @Nullable Object[] results = new Object[size];
+        AtomicInteger next = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(size);
+        AtomicReference<@Nullable RuntimeException> error = new AtomicReference<>();
+        Runnable worker = () -> {
+            int i;
+            while ((i = next.getAndIncrement()) < size) {
+                try {
+                    if (error.get() == null) { // other rows are not required after error
+                        results[i] = mapper.apply(tasks.get(i));
+                    }
+                } catch (RuntimeException e) {
+                    error.compareAndSet(null, e);
+                } finally {
+                    done.countDown();
+                }
+            }
+        };
+        @Nullable ViewFilter filter = ViewFilter.getIfBound();
+        Runnable boundWorker = (filter == null) ? worker : () -> ViewFilter.callWith(filter, () -> {
+            worker.run();
+            return null;
+        });
+        List<Future<?>> futures = new ArrayList<>(helpers);
+        for (int i = 0; i < helpers; i++) {
+            futures.add(executor.submit(boundWorker));
+        }
+        worker.run();
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Построение отчета прервано", e);
+        } finally {
+            futures.forEach(future -> future.cancel(false)); // not started workers have nothing to do
+        }
+        @Nullable RuntimeException exception = error.get();
+        if (exception != null) {
+            throw exception;
+        }
+        @SuppressWarnings("unchecked")
+        List<R> list = (List<R>) Arrays.asList(results);
+        return new ArrayList<>(list);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
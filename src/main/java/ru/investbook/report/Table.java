@@ -20,13 +20,23 @@ package ru.investbook.report;
 
 import org.checkerframework.checker.nullness.qual.Nullable;
 
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
 
-public class Table extends LinkedList<Table.Record> {
+public class Table extends ArrayList<Table.Record> {
 
+    /**
+     * Adds new empty record, which could be filled later, for ex. by exchange rates
+     */
     public void addEmptyRecord() {
-        add(Record.EMPTY);
+        add(new Record());
     }
 
     public Record addNewRecord() {
@@ -39,14 +49,208 @@ public class Table extends LinkedList<Table.Record> {
         return new Record();
     }
 
-    public static class Record extends HashMap<TableHeader, @Nullable Object> {
-        public static Record EMPTY = new Record();
+    /**
+     * Table row. Values are stored in array indexed by {@link TableHeader#ordinal()}, so all keys of the record
+     * should be constants of the same enum. The enum is bound to the record by the first added key.
+     */
+    public static class Record extends AbstractMap<TableHeader, @Nullable Object> {
+        private static final TableHeader[] NO_HEADERS = new TableHeader[0];
+        private static final @Nullable Object[] NO_VALUES = new Object[0];
+        private static final Object NULL = new Object(); // null value, which differs from absent value (null)
+        private @Nullable Class<? extends TableHeader> headerType;
+        private TableHeader[] headers = NO_HEADERS;
+        private @Nullable Object[] values = NO_VALUES;
+        private int size = 0;
 
         public Record() {
         }
 
         public Record(Record record) {
-            super(record);
+            this.headerType = record.headerType;
+            this.headers = record.headers;
+            this.values = record.values.clone();
+            this.size = record.size;
+        }
+
+        /**
+         * @return enum of record keys or null if record is empty
+         */
+        public @Nullable Class<? extends TableHeader> getHeaderType() {
+            return isEmpty() ? null : headerType;
+        }
+
+        @Override
+        public @Nullable Object get(Object key) {
+            int index = indexOf(key);
+            return (index == -1) ? null : unmask(values[index]);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            int index = indexOf(key);
+            return index != -1 && values[index] != null;
+        }
+
+        @Override
+        public @Nullable Object put(TableHeader key, @Nullable Object value) {
+            int index = indexOf(key);
+            if (index == -1) {
+                index = bind(key);
+            }
+            @Nullable Object previous = values[index];
+            values[index] = (value == null) ? NULL : value;
+            if (previous == null) {
+                size++;
+            }
+            return unmask(previous);
+        }
+
+        @Override
+        public @Nullable Object remove(Object key) {
+            int index = indexOf(key);
+            return (index == -1) ? null : removeAt(index);
+        }
+
+        private @Nullable Object removeAt(int index) {
+            @Nullable Object previous = values[index];
+            if (previous != null) {
+                values[index] = null;
+                size--;
+            }
+            return unmask(previous);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void clear() {
+            Arrays.fill(values, null);
+            size = 0;
+        }
+
+        @Override
+        public Set<Entry<TableHeader, @Nullable Object>> entrySet() {
+            return new EntrySet();
+        }
+
+        /**
+         * @return index of key or -1 if key is not a constant of bound enum
+         */
+        private int indexOf(@Nullable Object key) {
+            if (key instanceof TableHeader header) {
+                int index = header.ordinal();
+                if (index < headers.length && headers[index] == header) {
+                    return index;
+                }
+            }
+            return -1;
+        }
+
+        private int bind(TableHeader key) {
+            if (headerType != null) {
+                throw new IllegalArgumentException("Запись таблицы содержит колонки " + headerType.getSimpleName() +
+                        ", не могу добавить колонку " + key);
+            } else if (!(key instanceof Enum<?> enumKey)) {
+                throw new IllegalArgumentException("Колонка таблицы должна быть перечислением: " + key);
+            }
+            @SuppressWarnings("unchecked")
+            Class<? extends TableHeader> type = (Class<? extends TableHeader>) enumKey.getDeclaringClass();
+            headerType = type;
+            headers = type.getEnumConstants();
+            values = new Object[headers.length];
+            return key.ordinal();
+        }
+
+        private static @Nullable Object unmask(@Nullable Object value) {
+            return (value == NULL) ? null : value;
+        }
+
+        private class EntrySet extends AbstractSet<Entry<TableHeader, @Nullable Object>> {
+
+            @Override
+            public Iterator<Entry<TableHeader, @Nullable Object>> iterator() {
+                return new Iterator<>() {
+                    private int next = nextIndex(0);
+                    private int last = -1;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < values.length;
+                    }
+
+                    @Override
+                    public Entry<TableHeader, @Nullable Object> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        last = next;
+                        next = nextIndex(next + 1);
+                        return new RecordEntry(last);
+                    }
+
+                    @Override
+                    public void remove() {
+                        if (last == -1) {
+                            throw new IllegalStateException();
+                        }
+                        removeAt(last);
+                        last = -1;
+                    }
+                };
+            }
+
+            private int nextIndex(int from) {
+                int index = from;
+                while (index < values.length && values[index] == null) {
+                    index++;
+                }
+                return index;
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        }
+
+        private class RecordEntry implements Entry<TableHeader, @Nullable Object> {
+            private final int index;
+
+            RecordEntry(int index) {
+                this.index = index;
+            }
+
+            @Override
+            public TableHeader getKey() {
+                return headers[index];
+            }
+
+            @Override
+            public @Nullable Object getValue() {
+                return unmask(values[index]);
+            }
+
+            @Override
+            public @Nullable Object setValue(@Nullable Object value) {
+                @Nullable Object previous = getValue();
+                values[index] = (value == null) ? NULL : value;
+                return previous;
+            }
+
+            @Override
+            public boolean equals(Object o) {
+                return o instanceof Map.Entry<?, ?> e &&
+                        getKey().equals(e.getKey()) &&
+                        Objects.equals(getValue(), e.getValue());
+            }
+
+            @Override
+            public int hashCode() {
+                return getKey().hashCode() ^ Objects.hashCode(getValue());
+            }
         }
     }
 }
@@ -0,0 +1,64 @@
+/*
+ * InvestBook
+ * Copyright (C) 2025  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.investbook.report;
+
+import org.spacious_team.broker.pojo.CashFlowType;
+import ru.investbook.entity.TransactionCashFlowEntity;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static java.util.Collections.emptyList;
+
+/**
+ * In-memory index of transaction cash flows, loaded in bulk by {@link TransactionCashFlowsFactory}
+ */
+public class TransactionCashFlows {
+
+    // transaction id -> cash flows
+    private final Map<Integer, List<TransactionCashFlowEntity>> cashFlows;
+
+    TransactionCashFlows(Collection<TransactionCashFlowEntity> entities) {
+        this.cashFlows = entities.stream()
+                .collect(Collectors.groupingBy(TransactionCashFlowEntity::getTransactionId));
+    }
+
+    public List<TransactionCashFlowEntity> get(int transactionId) {
+        return cashFlows.getOrDefault(transactionId, emptyList());
+    }
+
+    public Optional<TransactionCashFlowEntity> get(int transactionId, CashFlowType type) {
+        for (TransactionCashFlowEntity entity : get(transactionId)) {
+            if (entity.getCashFlowType().getId() == type.getId()) {
+                return Optional.of(entity);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * @return true if transaction has no cash flows (security deposit or withdrawal)
+     */
+    public boolean isDepositOrWithdrawal(int transactionId) {
+        return !cashFlows.containsKey(transactionId);
+    }
+}
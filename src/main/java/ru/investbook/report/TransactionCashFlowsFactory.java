@@ -0,0 +1,61 @@
+/*
+ * InvestBook
+ * Copyright (C) 2025  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.investbook.report;
+
+import lombok.RequiredArgsConstructor;
+import org.spacious_team.broker.pojo.Transaction;
+import org.springframework.stereotype.Component;
+import ru.investbook.entity.TransactionCashFlowEntity;
+import ru.investbook.repository.TransactionCashFlowRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+@Component
+@RequiredArgsConstructor
+public class TransactionCashFlowsFactory {
+
+    // keeps SQL IN-clause within DBMS limits
+    private static final int MAX_IDS_PER_QUERY = 1000;
+    private final TransactionCashFlowRepository transactionCashFlowRepository;
+
+    /**
+     * Loads cash flows of all transactions by one query per {@value MAX_IDS_PER_QUERY} transactions.
+     * Transactions without id (bond redemptions) are ignored.
+     */
+    public TransactionCashFlows get(Collection<Transaction> transactions) {
+        List<Integer> transactionIds = transactions.stream()
+                .map(Transaction::getId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        return getByIds(transactionIds);
+    }
+
+    public TransactionCashFlows getByIds(List<Integer> transactionIds) {
+        List<TransactionCashFlowEntity> cashFlows = new ArrayList<>();
+        for (int i = 0; i < transactionIds.size(); i += MAX_IDS_PER_QUERY) {
+            List<Integer> ids = transactionIds.subList(i, Math.min(i + MAX_IDS_PER_QUERY, transactionIds.size()));
+            cashFlows.addAll(transactionCashFlowRepository.findByTransactionIdIn(ids));
+        }
+        return new TransactionCashFlows(cashFlows);
+    }
+}
@@ -54,7 +54,7 @@ public class ViewFilter {
         }
         return ViewFilter.builder()
                 .fromDate(toInstant.apply(viewFilterModel.getFromDate()))
-                .toDate(toInstant.apply(viewFilterModel.getToDate()).plus(1, ChronoUnit.DAYS).minusSeconds(1))
+                .toDate(toEndOfDayInstant(viewFilterModel.getToDate()))
                 .portfolios(portfolios)
                 .showDetails(viewFilterModel.isShowDetails())
                 .build();
@@ -75,15 +75,44 @@ public class ViewFilter {
     @Builder.Default
     private final boolean showDetails = true;
 
-    public static void set(ViewFilter viewFilter) {
+    private static Instant toEndOfDayInstant(LocalDate date) {
+        return toInstant.apply(date).plus(1, ChronoUnit.DAYS).minusSeconds(1);
+    }
+
+    /**
+     * @return true if filter selects all data up to the end of today, for ex. default report filter
+     */
+    public boolean isAllTimeToToday() {
+        return !fromDate.isAfter(toInstant.apply(ViewFilterModel.DEFAULT_FROM_DATE)) &&
+                toDate.equals(toEndOfDayInstant(LocalDate.now()));
+    }
+
+    /**
+     * Binds filter to the current thread while action runs, previous binding is restored after.
+     * Use {@link ReportExecutor} to run action parts by other threads with the same filter.
+     */
+    public static <T> T callWith(ViewFilter viewFilter, Supplier<T> action) {
+        @Nullable ViewFilter previous = filters.get();
         filters.set(viewFilter);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                filters.remove();
+            } else {
+                filters.set(previous);
+            }
+        }
     }
 
     public static ViewFilter get() {
         return requireNonNull(filters.get(), "ViewFilter is not set");
     }
 
-    public static void remove() {
-        filters.remove();
+    /**
+     * @return filter bound to the current thread or null
+     */
+    static @Nullable ViewFilter getIfBound() {
+        return filters.get();
     }
 }
@@ -90,6 +90,11 @@ public class CashFlowExcelTableView extends ExcelTableView {
         sheet.setColumnWidth(EXCHANGE_RATE.ordinal(), 15 * 256);
     }
 
+    @Override
+    protected boolean isSecurityQuoteDependent() {
+        return true; // assets are estimated by quotes
+    }
+
     @Override
     protected Table.Record getTotalRow(Table table, Optional<Portfolio> portfolio) {
         Table.Record total = Table.newRecord();
@@ -138,20 +143,20 @@ public class CashFlowExcelTableView extends ExcelTableView {
     }
 
     @Override
-    protected void sheetPostCreate(Sheet sheet, Class<? extends TableHeader> headerType, CellStyles styles) {
-        super.sheetPostCreate(sheet, headerType, styles);
-        for (Row row : sheet) {
-            if (row.getRowNum() == 0) continue;
-            Cell cell = row.getCell(DAYS_COUNT.ordinal());
-            if (cell != null) {
-                cell.setCellStyle(styles.getIntStyle());
-            }
-            cell = row.getCell(DESCRIPTION.ordinal());
-            if (cell != null) {
-                cell.setCellStyle(styles.getLeftAlignedTextStyle());
-            }
+    protected void rowPostCreate(Row row, CellStyles styles) {
+        Cell cell = row.getCell(DAYS_COUNT.ordinal());
+        if (cell != null) {
+            cell.setCellStyle(styles.getIntStyle());
+        }
+        cell = row.getCell(DESCRIPTION.ordinal());
+        if (cell != null) {
+            cell.setCellStyle(styles.getLeftAlignedTextStyle());
         }
-        for (Cell cell : sheet.getRow(1)) {
+    }
+
+    @Override
+    protected void totalRowPostCreate(Row row, CellStyles styles) {
+        for (Cell cell : row) {
             if (cell == null) continue;
             if (cell.getColumnIndex() == DAYS_COUNT.ordinal()) {
                 cell.setCellStyle(styles.getIntStyle());
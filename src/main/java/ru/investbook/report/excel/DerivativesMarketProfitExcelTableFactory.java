@@ -31,6 +31,7 @@ import ru.investbook.converter.SecurityConverter;
 import ru.investbook.entity.SecurityEntity;
 import ru.investbook.report.DerivativeEvents;
 import ru.investbook.report.DerivativeEventsFactory;
+import ru.investbook.report.ReportExecutor;
 import ru.investbook.report.Table;
 import ru.investbook.report.TableFactory;
 import ru.investbook.report.ViewFilter;
@@ -58,19 +59,24 @@ public class DerivativesMarketProfitExcelTableFactory implements TableFactory {
     private final SecurityRepository securityRepository;
     private final SecurityConverter securityConverter;
     private final DerivativeEventsFactory derivativeEventsFactory;
+    private final ReportExecutor reportExecutor;
 
+    /**
+     * Rows of contracts are built in parallel
+     */
     public Table create(Portfolio portfolio) {
         Table profit = new Table();
-        for (SecurityEntity securityEntity : getDerivatives(portfolio)) {
+        reportExecutor.map(getDerivatives(portfolio), securityEntity -> {
             Security contract = securityConverter.fromEntity(securityEntity);
             DerivativeEvents derivativeEvents = derivativeEventsFactory.getDerivativeEvents(
                     portfolio,
                     contract,
                     ViewFilter.get());
-
+            return getContractProfit(contract, derivativeEvents);
+        }).forEach(contractProfit -> {
             profit.addEmptyRecord();
-            profit.addAll(getContractProfit(contract, derivativeEvents));
-        }
+            profit.addAll(contractProfit);
+        });
         return profit;
     }
 
@@ -34,6 +34,8 @@ import ru.investbook.report.FifoPositionsFactory;
 import ru.investbook.report.FifoPositionsFilter;
 import ru.investbook.report.Table;
 import ru.investbook.report.TableFactory;
+import ru.investbook.report.TransactionCashFlows;
+import ru.investbook.report.TransactionCashFlowsFactory;
 import ru.investbook.report.ViewFilter;
 import ru.investbook.repository.SecurityRepository;
 import ru.investbook.repository.TransactionRepository;
@@ -74,6 +76,7 @@ public class DerivativesMarketTotalProfitExcelTableFactory implements TableFacto
     private final Set<Integer> paymentEvents = Set.of(DERIVATIVE_PROFIT.getId());
     private final MoexDerivativeCodeService moexDerivativeCodeService;
     private final SecurityProfitService securityProfitService;
+    private final TransactionCashFlowsFactory transactionCashFlowsFactory;
 
     public Table create(Portfolio portfolio) {
         throw new UnsupportedOperationException();
@@ -168,9 +171,10 @@ public class DerivativesMarketTotalProfitExcelTableFactory implements TableFacto
             int openedPositions = contractToOpenedPositions.values().stream().mapToInt(Math::abs).sum();
 
             row.put(COUNT, openedPositions);
-            row.put(COMMISSION, securityProfitService.getTotal(transactions, CashFlowType.FEE, toCurrency).abs());
+            TransactionCashFlows cashFlows = transactionCashFlowsFactory.get(transactions);
+            row.put(COMMISSION, securityProfitService.getTotal(transactions, cashFlows, CashFlowType.FEE, toCurrency).abs());
             if (openedPositions == 0) {
-                row.put(GROSS_PROFIT_PNT, securityProfitService.getTotal(transactions, DERIVATIVE_QUOTE, QUOTE_CURRENCY));
+                row.put(GROSS_PROFIT_PNT, securityProfitService.getTotal(transactions, cashFlows, DERIVATIVE_QUOTE, QUOTE_CURRENCY));
             }
             row.put(GROSS_PROFIT, getGrossProfit(portfolios, contracts, toCurrency));
             row.put(PROFIT, PROFIT_FORMULA);
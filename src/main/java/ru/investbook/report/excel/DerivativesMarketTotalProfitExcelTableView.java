@@ -28,7 +28,6 @@ import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.xddf.usermodel.chart.LegendPosition;
 import org.apache.poi.xddf.usermodel.chart.XDDFChartData;
 import org.apache.poi.xddf.usermodel.chart.XDDFDataSource;
-import org.apache.poi.xddf.usermodel.chart.XDDFDataSourcesFactory;
 import org.apache.poi.xddf.usermodel.chart.XDDFNumericalDataSource;
 import org.apache.poi.xssf.usermodel.XSSFChart;
 import org.apache.poi.xssf.usermodel.XSSFSheet;
@@ -160,19 +159,19 @@ public class DerivativesMarketTotalProfitExcelTableView extends ExcelTableView {
     }
 
     @Override
-    protected void sheetPostCreate(Sheet sheet, Class<? extends TableHeader> headerType, CellStyles styles) {
-        super.sheetPostCreate(sheet, headerType, styles);
-        for (Row row : sheet) {
-            if (row.getRowNum() == 0) continue;
-            Cell cell;
-            if ((cell = row.getCell(CONTRACT_GROUP.ordinal())) != null) {
-                cell.setCellStyle(styles.getLeftAlignedTextStyle());
-            }
-            if ((cell = row.getCell(PROFIT_PROPORTION.ordinal())) != null) {
-                cell.setCellStyle(styles.getPercentStyle());
-            }
+    protected void rowPostCreate(Row row, CellStyles styles) {
+        Cell cell;
+        if ((cell = row.getCell(CONTRACT_GROUP.ordinal())) != null) {
+            cell.setCellStyle(styles.getLeftAlignedTextStyle());
         }
-        for (Cell cell : sheet.getRow(1)) {
+        if ((cell = row.getCell(PROFIT_PROPORTION.ordinal())) != null) {
+            cell.setCellStyle(styles.getPercentStyle());
+        }
+    }
+
+    @Override
+    protected void totalRowPostCreate(Row row, CellStyles styles) {
+        for (Cell cell : row) {
             if (cell == null) continue;
             if (cell.getColumnIndex() == CONTRACT_GROUP.ordinal()) {
                 cell.setCellStyle(styles.getTotalTextStyle());
@@ -188,19 +187,30 @@ public class DerivativesMarketTotalProfitExcelTableView extends ExcelTableView {
                 cell.setCellStyle(styles.getTotalRowStyle());
             }
         }
+    }
+
+    @Override
+    protected boolean isRowRandomAccessRequired() {
+        return true; // chart plotting reads all rows
+    }
+
+    @Override
+    protected void sheetPostCreate(Sheet sheet, Class<? extends TableHeader> headerType, CellStyles styles) {
+        super.sheetPostCreate(sheet, headerType, styles);
         highlightNegativeByRed(sheet, PROFIT);
         plotChart("Прибыль", sheet, DerivativesMarketTotalProfitExcelTableView::addPieChart);
     }
 
-    private static void addPieChart(String name, XSSFSheet sheet) {
+    private static void addPieChart(String name, Sheet sheet) {
         int rowCount = sheet.getLastRowNum();
+        XSSFSheet _sheet = getDrawingSheet(sheet);
 
-        XDDFDataSource<String> securities = XDDFDataSourcesFactory.fromStringCellRange(sheet,
+        XDDFDataSource<String> securities = fromStringCellRange(sheet,
                 nonEmptyCellRangeAddress(sheet,2, rowCount, CONTRACT_GROUP.ordinal(), CONTRACT_GROUP.ordinal()));
-        XDDFNumericalDataSource<Double> proportions = XDDFDataSourcesFactory.fromNumericCellRange(sheet,
+        XDDFNumericalDataSource<Double> proportions = fromNumericCellRange(sheet,
                 nonEmptyCellRangeAddress(sheet,2, rowCount, PROFIT_PROPORTION.ordinal(), PROFIT_PROPORTION.ordinal()));
 
-        XSSFChart chart = createChart(sheet, name, 0, rowCount + 2, PROFIT_PROPORTION.ordinal() + 1, 30);
+        XSSFChart chart = createChart(_sheet, name, 0, rowCount + 2, PROFIT_PROPORTION.ordinal() + 1, 30);
         XDDFChartData data = createPieChartData(chart);
         chart.getOrAddLegend().setPosition(LegendPosition.TOP);
 
@@ -19,9 +19,15 @@
 package ru.investbook.report.excel;
 
 import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.CellValue;
 import org.apache.poi.ss.usermodel.ClientAnchor;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.FormulaEvaluator;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellAddress;
 import org.apache.poi.ss.util.CellRangeAddress;
 import org.apache.poi.xddf.usermodel.PresetColor;
 import org.apache.poi.xddf.usermodel.XDDFColor;
@@ -36,10 +42,15 @@ import org.apache.poi.xddf.usermodel.chart.DisplayBlanks;
 import org.apache.poi.xddf.usermodel.chart.LegendPosition;
 import org.apache.poi.xddf.usermodel.chart.XDDFChartData;
 import org.apache.poi.xddf.usermodel.chart.XDDFChartLegend;
+import org.apache.poi.xddf.usermodel.chart.XDDFDataSource;
+import org.apache.poi.xddf.usermodel.chart.XDDFDataSourcesFactory;
+import org.apache.poi.xddf.usermodel.chart.XDDFNumericalDataSource;
 import org.apache.poi.xddf.usermodel.chart.XDDFValueAxis;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
 import org.apache.poi.xssf.usermodel.XSSFChart;
 import org.apache.poi.xssf.usermodel.XSSFDrawing;
 import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.util.Objects;
 import java.util.function.BiConsumer;
@@ -49,9 +60,12 @@ public class ExcelChartPlotHelper {
 
     private static String NO_VALUE_IN_CELL_RANGE = "No value in cell range";
 
-    static void plotChart(String name, Sheet sheet, BiConsumer<String, XSSFSheet> plotter) {
+    /**
+     * @param plotter should read cell values from the sheet and place chart on {@link #getDrawingSheet(Sheet)}
+     */
+    static void plotChart(String name, Sheet sheet, BiConsumer<String, Sheet> plotter) {
         try {
-            plotter.accept(name, (XSSFSheet) sheet);
+            plotter.accept(name, sheet);
         } catch (Exception e) {
             String message = "Не возможно построить график '{}' на вкладке '{}'";
             if (Objects.equals(e.getMessage(), NO_VALUE_IN_CELL_RANGE)) {
@@ -62,6 +76,79 @@ public class ExcelChartPlotHelper {
         }
     }
 
+    /**
+     * Returns sheet for chart drawing. Streaming sheet keeps only row window in memory and has no drawing support,
+     * so the chart is placed on the underlying XSSF sheet, which is merged with streamed rows on workbook writing.
+     */
+    static XSSFSheet getDrawingSheet(Sheet sheet) {
+        if (sheet instanceof SXSSFSheet streamingSheet) {
+            return streamingSheet.getWorkbook()
+                    .getXSSFWorkbook()
+                    .getSheet(sheet.getSheetName());
+        }
+        return (XSSFSheet) sheet;
+    }
+
+    /**
+     * Returns chart data source referencing the cell range. Unlike
+     * {@link XDDFDataSourcesFactory#fromStringCellRange(XSSFSheet, CellRangeAddress)} values are read from the sheet
+     * itself, because the drawing sheet of streaming sheet has no rows, and chart without cached values is empty
+     * until recalculation by spreadsheet application.
+     */
+    @SuppressWarnings("argument") // null value is skipped by chart
+    static XDDFDataSource<String> fromStringCellRange(Sheet sheet, CellRangeAddress range) {
+        FormulaEvaluator evaluator = sheet.getWorkbook().getCreationHelper().createFormulaEvaluator();
+        DataFormatter formatter = new DataFormatter();
+        @Nullable String[] values = new String[range.getNumberOfCells()];
+        int i = 0;
+        for (CellAddress address : range) {
+            @Nullable Cell cell = getCell(sheet, address);
+            values[i++] = (cell == null) ? null : getStringValue(cell, formatter, evaluator);
+        }
+        return XDDFDataSourcesFactory.fromArray(values, range.formatAsString(sheet.getSheetName(), true));
+    }
+
+    /**
+     * Returns chart data source referencing the cell range, see {@link #fromStringCellRange(Sheet, CellRangeAddress)}
+     */
+    @SuppressWarnings("argument") // null value is skipped by chart
+    static XDDFNumericalDataSource<Double> fromNumericCellRange(Sheet sheet, CellRangeAddress range) {
+        FormulaEvaluator evaluator = sheet.getWorkbook().getCreationHelper().createFormulaEvaluator();
+        @Nullable Double[] values = new Double[range.getNumberOfCells()];
+        int i = 0;
+        for (CellAddress address : range) {
+            @Nullable Cell cell = getCell(sheet, address);
+            values[i++] = (cell == null) ? null : getNumericValue(cell, evaluator);
+        }
+        return XDDFDataSourcesFactory.fromArray(values, range.formatAsString(sheet.getSheetName(), true));
+    }
+
+    private static @Nullable Cell getCell(Sheet sheet, CellAddress address) {
+        @Nullable Row row = sheet.getRow(address.getRow());
+        return (row == null) ? null : row.getCell(address.getColumn());
+    }
+
+    private static @Nullable String getStringValue(Cell cell, DataFormatter formatter, FormulaEvaluator evaluator) {
+        try {
+            return formatter.formatCellValue(cell, evaluator);
+        } catch (Exception e) {
+            log.debug("Не могу вычислить значение ячейки {} на вкладке '{}'",
+                    cell.getAddress(), cell.getSheet().getSheetName(), e);
+            return null;
+        }
+    }
+
+    private static @Nullable Double getNumericValue(Cell cell, FormulaEvaluator evaluator) {
+        try {
+            @Nullable CellValue value = evaluator.evaluate(cell);
+            return (value != null && value.getCellType() == CellType.NUMERIC) ? value.getNumberValue() : null;
+        } catch (Exception e) {
+            log.debug("Не могу вычислить значение ячейки {} на вкладке '{}'",
+                    cell.getAddress(), cell.getSheet().getSheetName(), e);
+            return null;
+        }
+    }
+
     static XSSFChart createChart(XSSFSheet sheet, String name, int positionX, int positionY, int width, int height) {
         XSSFDrawing drawing = sheet.createDrawingPatriarch();
         ClientAnchor anchor = drawing.createAnchor(0, 0, 0, 0,
@@ -148,7 +235,10 @@ public class ExcelChartPlotHelper {
     static CellRangeAddress nonEmptyCellRangeAddress(Sheet sheet, int firstRow, int lastRow, int firstCol, int lastCol) {
         int count = 0;
         for (int i = firstRow; i <= lastRow; i++) {
-            Row row = sheet.getRow(i);
+            @Nullable Row row = sheet.getRow(i);
+            if (row == null) {
+                continue;
+            }
             for (int j = firstCol; j <= lastCol; j++) {
                 if (row.getCell(j) != null) {
                     count++;
@@ -25,21 +25,26 @@ import org.apache.poi.ss.usermodel.PatternFormatting;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.SheetConditionalFormatting;
 import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.IndexedColorMap;
 import org.apache.poi.xssf.usermodel.XSSFColor;
-import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
 class ExcelConditionalFormatHelper {
     private static final byte[] backgroundRed = new byte[]{(byte) 255, (byte) 200, (byte) 200};
     private static final byte[] borderRed = new byte[]{(byte) 255, (byte) 175, (byte) 175};
 
     static void highlightNegativeByRed(Sheet sheet, ExcelTableHeader column) {
-        if (!(sheet instanceof XSSFSheet)) {
+        XSSFWorkbook book;
+        if (sheet.getWorkbook() instanceof XSSFWorkbook xssfBook) {
+            book = xssfBook;
+        } else if (sheet.getWorkbook() instanceof SXSSFWorkbook streamingBook) {
+            book = streamingBook.getXSSFWorkbook();
+        } else {
             return;
         }
         SheetConditionalFormatting sheetCF = sheet.getSheetConditionalFormatting();
-        IndexedColorMap indexedColors = ((XSSFSheet) sheet).getWorkbook()
-                .getStylesSource()
+        IndexedColorMap indexedColors = book.getStylesSource()
                 .getIndexedColors();
 
         CellRangeAddress range =
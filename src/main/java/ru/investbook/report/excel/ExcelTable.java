@@ -46,6 +46,17 @@ public class ExcelTable {
         return new ExcelTable(portfolio, sheetName, table, creator);
     }
 
+    /**
+     * @return copy of table, which could be modified by sheet writer without modification of this table
+     */
+    ExcelTable copy() {
+        Table tableCopy = new Table();
+        for (Table.Record record : table) {
+            tableCopy.add(new Table.Record(record));
+        }
+        return new ExcelTable(portfolio, sheetName, tableCopy, creator);
+    }
+
     void writeTo(Workbook book, CellStyles cellStyles) {
         creator.createSheet(portfolio, book, sheetName, table, cellStyles);
     }
@@ -30,6 +30,7 @@ import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.spacious_team.broker.pojo.Portfolio;
 import org.springframework.beans.factory.annotation.Value;
@@ -54,7 +55,6 @@ import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import static java.util.Objects.requireNonNull;
-import static org.springframework.util.CollectionUtils.isEmpty;
 import static ru.investbook.report.excel.StockMarketProfitExcelTableHeader.ROW_NUM_PLACE_HOLDER;
 
 @Slf4j
@@ -116,6 +116,9 @@ public abstract class ExcelTableView {
         synchronized (book) {
             long t0 = System.nanoTime();
             Sheet sheet = book.createSheet(validateExcelSheetName(sheetName));
+            if (isRowRandomAccessRequired() && sheet instanceof SXSSFSheet streamingSheet) {
+                streamingSheet.setRandomAccessWindowSize(-1);
+            }
             writeHeader(sheet, headerType, styles.getHeaderStyle());
             sheetPreCreate(sheet, table);
             Table.Record totalRow = getTotalRow(table, Optional.ofNullable(portfolio));
@@ -123,9 +126,9 @@ public abstract class ExcelTableView {
                 table.addFirst(totalRow);
             }
             int rowNum = 0;
+            TableHeader[] tableHeader = requireNonNull(headerType.getEnumConstants());
             for (Table.Record tableRow : table) {
                 Row row = sheet.createRow(++rowNum);
-                TableHeader[] tableHeader = requireNonNull(headerType.getEnumConstants());
                 for (TableHeader header : tableHeader) {
                     @Nullable Object value = tableRow.get(header);
                     if (value == null) {
@@ -168,6 +171,10 @@ public abstract class ExcelTableView {
                                 " на вкладке '" + sheet.getSheetName() + "'");
                     }
                 }
+                rowPostCreate(row, styles);
+                if (rowNum == 1) {
+                    totalRowPostCreate(row, styles);
+                }
             }
             sheetPostCreate(sheet, headerType, styles);
             log.debug("Вкладка '{}' сохранена за {}", sheetName, Duration.ofNanos(System.nanoTime() - t0));
@@ -176,14 +183,10 @@ public abstract class ExcelTableView {
 
     private <T extends Enum<T> & TableHeader> @Nullable Class<T> getHeaderType(Table table) {
         for (Table.Record record : table) {
-            if (!isEmpty(record)) {
+            @Nullable Class<? extends TableHeader> headerType = record.getHeaderType();
+            if (headerType != null) {
                 //noinspection unchecked
-                return (Class<T>) record.keySet()
-                        .stream()
-                        .map(TableHeader::getClass)
-                        .filter(Class::isEnum)
-                        .findAny()
-                        .orElseThrow();
+                return (Class<T>) headerType;
             }
         }
         return null;
@@ -231,6 +234,39 @@ public abstract class ExcelTableView {
         sheet.setZoom(93); // show all columns for 24-inch monitor for securities sheet
     }
 
+    /**
+     * Called after row cells are filled. In streaming mode (SXSSF) row can be flushed to disk after this call
+     * and becomes not available by {@link Sheet#getRow(int)}, so row styles should be set here.
+     */
+    protected void rowPostCreate(Row row, CellStyles styles) {
+    }
+
+    /**
+     * Called for first row after header (total row) after {@link #rowPostCreate(Row, CellStyles)}
+     */
+    protected void totalRowPostCreate(Row row, CellStyles styles) {
+    }
+
+    /**
+     * @return true if {@link #sheetPostCreate(Sheet, Class, CellStyles)} reads sheet rows, so all rows
+     * should be kept in memory also in streaming mode
+     */
+    protected boolean isRowRandomAccessRequired() {
+        return false;
+    }
+
+    /**
+     * @return true if tables show security quotes or values estimated by quotes, such tables are evicted
+     * from {@link ReportTableCache} by quote change
+     */
+    protected boolean isSecurityQuoteDependent() {
+        return false;
+    }
+
+    /**
+     * Called after all rows are created. Sheet rows can be read here only
+     * if {@link #isRowRandomAccessRequired()} returns true.
+     */
     protected void sheetPostCreate(Sheet sheet, Class<? extends TableHeader> headerType, CellStyles styles) {
         TableHeader[] tableHeader = requireNonNull(headerType.getEnumConstants());
         sheet.setAutoFilter(new CellRangeAddress(0, sheet.getLastRowNum(), 0, (tableHeader.length - 1)));
@@ -18,60 +18,123 @@
 
 package ru.investbook.report.excel;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import lombok.SneakyThrows;
 import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.investbook.InvestbookProperties;
 import ru.investbook.report.ViewFilter;
 
+import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayDeque;
 import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
-import static java.lang.Math.min;
 import static java.util.Comparator.comparing;
+import static java.util.Objects.requireNonNull;
 
 @Component
 public class ExcelView {
     private final List<ExcelTableView> excelTableViews;
+    private final InvestbookProperties properties;
+    private final ReportTableCache reportTableCache;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService executor;
+    private final int maxViewsInProgress;
+    // views built, but not written yet
+    private final DistributionSummary queueDepth;
 
-    public ExcelView(Collection<ExcelTableView> excelTableViews) {
+    public ExcelView(Collection<ExcelTableView> excelTableViews,
+                     InvestbookProperties properties,
+                     ReportTableCache reportTableCache,
+                     PlatformTransactionManager transactionManager,
+                     MeterRegistry meterRegistry) {
         this.excelTableViews = excelTableViews.stream()
                 .sorted(comparing(ExcelTableView::getSheetOrder))
                 .collect(Collectors.toList());
+        this.properties = properties;
+        this.reportTableCache = reportTableCache;
+        this.meterRegistry = meterRegistry;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        int threads = Math.max(1, properties.getReportBuilderThreads());
+        this.executor = Executors.newFixedThreadPool(threads, Thread.ofPlatform().name("report-builder-", 0).factory());
+        this.maxViewsInProgress = 2 * threads;
+        this.queueDepth = DistributionSummary.builder("report.queue.depth")
+                .description("Built report views waiting for write to workbook")
+                .register(meterRegistry);
     }
 
     @Transactional(readOnly = true)
-    @SneakyThrows
     public void create(OutputStream out, ViewFilter filter) {
-        try (XSSFWorkbook book = new XSSFWorkbook()) {
-            CellStyles styles = new CellStyles(book);
-            writeTo(book, filter, styles);
-            book.write(out);
+        create(filter, () -> out);
+    }
+
+    /**
+     * Builds report and writes it to output stream. Output stream is requested after the report is built,
+     * so an error can be reported to the client by other way, if report building failed.
+     * Tables of each view are built by report builder thread in its own read-only transaction.
+     */
+    @Transactional(readOnly = true)
+    @SneakyThrows
+    public void create(ViewFilter filter, OutputStreamSupplier out) {
+        if (properties.isReportStreaming()) {
+            SXSSFWorkbook book = new SXSSFWorkbook(properties.getReportStreamingWindowSize());
+            try (book) {
+                book.setCompressTempFiles(true);
+                CellStyles styles = new CellStyles(book);
+                writeTo(book, filter, styles);
+                book.write(out.get());
+            } finally {
+                book.dispose(); // removes temporary files
+            }
+        } else {
+            try (XSSFWorkbook book = new XSSFWorkbook()) {
+                CellStyles styles = new CellStyles(book);
+                writeTo(book, filter, styles);
+                book.write(out.get());
+            }
         }
     }
 
+    /**
+     * Builds tables of views by report builder threads and writes them to the book in sheet order by calling thread.
+     * Number of views built or waiting for write is limited to {@link #maxViewsInProgress},
+     * so memory used by built tables is bounded.
+     */
     @Transactional(readOnly = true)
-    public void writeTo(Workbook book, ViewFilter filter, CellStyles styles) {
-        try (ExecutorService tableWriterExecutor = Executors.newSingleThreadExecutor()) {
-            int cpuCnt = Runtime.getRuntime().availableProcessors();
-            List<ExcelTableView> usedExcelTableViews = getExcelTableViews(filter);
-            for (int idx = 0, delta = 1; idx < usedExcelTableViews.size(); ) {
-                int fromIndex = idx;
-                idx += delta;
-                delta = cpuCnt;
-                int toIndex = min(idx, usedExcelTableViews.size());
-                List<ExcelTable> tables = usedExcelTableViews.subList(fromIndex, toIndex)
-                        .parallelStream()
-                        .map(excelTableView -> getExcelTables(excelTableView, filter))
-                        .flatMap(Collection::stream)
-                        .toList();
-                tableWriterExecutor.submit(() -> writeExcelTables(tables, book, styles));
+    public void writeTo(Workbook book, ViewFilter filter, CellStyles styles) throws InterruptedException, ExecutionException {
+        Iterator<ExcelTableView> views = getExcelTableViews(filter).iterator();
+        Deque<Future<Collection<ExcelTable>>> inProgress = new ArrayDeque<>(maxViewsInProgress);
+        try {
+            while (views.hasNext() || !inProgress.isEmpty()) {
+                while (views.hasNext() && inProgress.size() < maxViewsInProgress) {
+                    ExcelTableView view = views.next();
+                    inProgress.addLast(executor.submit(() -> buildExcelTables(view, filter)));
+                }
+                Collection<ExcelTable> tables = requireNonNull(inProgress.pollFirst()).get(); // waits for the next sheets
+                queueDepth.record(inProgress.stream().filter(Future::isDone).count());
+                writeExcelTables(tables, book, styles);
             }
+        } finally {
+            inProgress.forEach(future -> future.cancel(true));
         }
 
         if (book.getNumberOfSheets() == 0) {
@@ -79,6 +142,16 @@ public class ExcelView {
         }
     }
 
+    private Collection<ExcelTable> buildExcelTables(ExcelTableView view, ViewFilter filter) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            return reportTableCache.get(view, filter, () -> requireNonNull(
+                    transactionTemplate.execute(_ -> getExcelTables(view, filter))));
+        } finally {
+            sample.stop(meterRegistry.timer("report.view.build", "view", view.getClass().getSimpleName()));
+        }
+    }
+
     private List<ExcelTableView> getExcelTableViews(ViewFilter filter) {
         if (filter.isShowDetails()) {
             return excelTableViews;
@@ -89,18 +162,25 @@ public class ExcelView {
         }
     }
 
-    private static Collection<ExcelTable> getExcelTables(ExcelTableView excelTableView, ViewFilter filter) {
-        try {
-            ViewFilter.set(filter);
-            return excelTableView.createExcelTables();
-        } finally {
-            ViewFilter.remove();
+    static Collection<ExcelTable> getExcelTables(ExcelTableView excelTableView, ViewFilter filter) {
+        return ViewFilter.callWith(filter, excelTableView::createExcelTables);
+    }
+
+    private void writeExcelTables(Collection<ExcelTable> tables, Workbook book, CellStyles styles) {
+        for (ExcelTable table : tables) {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            table.writeTo(book, styles);
+            sample.stop(meterRegistry.timer("report.sheet.write", "view", table.getCreator().getClass().getSimpleName()));
         }
     }
 
-    private static void writeExcelTables(List<ExcelTable> tables, Workbook book, CellStyles styles) {
-        tables.stream()
-                .sorted(comparing(t -> t.getCreator().getSheetOrder()))
-                .forEach(table -> table.writeTo(book, styles));
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @FunctionalInterface
+    public interface OutputStreamSupplier {
+        OutputStream get() throws IOException;
     }
 }
@@ -115,11 +115,12 @@ public class PortfolioAnalysisExcelTableFactory implements TableFactory {
                               LinkedHashMap<Instant, Map<String, BigDecimal>> cashBalances,
                               LinkedHashMap<Instant, BigDecimal> totalAssets,
                               Map<LocalDate, BigDecimal> sp500) {
-        Table table = new Table();
-        addInvestmentColumns(cashFlows, table);
-        addCashBalanceColumns(cashBalances, table);
-        addAssetsColumns(totalAssets, table);
+        DateIndexedTable indexedTable = new DateIndexedTable();
+        addInvestmentColumns(cashFlows, indexedTable);
+        addCashBalanceColumns(cashBalances, indexedTable);
+        addAssetsColumns(totalAssets, indexedTable);
 
+        Table table = indexedTable.getTable();
         table.sort(comparing(record -> ((LocalDate) record.get(DATE))));
 
         addAssetsGrowthColumn(table);
@@ -131,9 +132,9 @@ public class PortfolioAnalysisExcelTableFactory implements TableFactory {
         return table;
     }
 
-    private void addInvestmentColumns(List<EventCashFlow> cashFlows, Table table) {
+    private void addInvestmentColumns(List<EventCashFlow> cashFlows, DateIndexedTable table) {
         for (EventCashFlow cashFlow : cashFlows) {
-            Table.Record record = recordOf(table, cashFlow.getTimestamp(), cashFlow.getCurrency());
+            Table.Record record = table.recordOf(cashFlow.getTimestamp(), cashFlow.getCurrency());
             record.merge(INVESTMENT_AMOUNT, cashFlow.getValue(), (v1, v2) ->
                     requireNonNull((BigDecimal) v1)
                             .add(requireNonNull(((BigDecimal) v2))));
@@ -144,10 +145,10 @@ public class PortfolioAnalysisExcelTableFactory implements TableFactory {
         }
     }
 
-    private void addCashBalanceColumns(LinkedHashMap<Instant, Map<String, BigDecimal>> cashBalances, Table table) {
+    private void addCashBalanceColumns(LinkedHashMap<Instant, Map<String, BigDecimal>> cashBalances, DateIndexedTable table) {
         for (Map.Entry<Instant, Map<String, BigDecimal>> entry : cashBalances.entrySet()) {
             Instant instant = entry.getKey();
-            Table.Record record = recordOf(table, instant);
+            Table.Record record = table.recordOf(instant);
             Map<String, BigDecimal> currencyValue = entry.getValue();
             record.put(CASH_RUB, currencyValue.get("RUB"));
             record.put(CASH_USD, currencyValue.get("USD"));
@@ -163,11 +164,11 @@ public class PortfolioAnalysisExcelTableFactory implements TableFactory {
         }
     }
 
-    private void addAssetsColumns(LinkedHashMap<Instant, BigDecimal> totalAssets, Table table) {
+    private void addAssetsColumns(LinkedHashMap<Instant, BigDecimal> totalAssets, DateIndexedTable table) {
         for (Map.Entry<Instant, BigDecimal> entry : totalAssets.entrySet()) {
             Instant instant = entry.getKey();
             BigDecimal assets = entry.getValue();
-            Table.Record record = recordOf(table, instant);
+            Table.Record record = table.recordOf(instant);
             record.put(ASSETS_RUB, assets);
             record.put(ASSETS_USD, foreignExchangeRateTableFactory
                     .cashConvertToUsdExcelFormula("RUB", ASSETS_RUB, EXCHANGE_RATE));
@@ -267,29 +268,44 @@ public class PortfolioAnalysisExcelTableFactory implements TableFactory {
         }
     }
 
-    private static Table.Record recordOf(Table table, Instant instant, String investmentCurrency) {
-        LocalDate date = LocalDate.ofInstant(instant, ZoneId.systemDefault());
-        return table.stream()
-                .filter(record -> date.equals(record.get(DATE)) && investmentCurrency.equals(record.get(INVESTMENT_CURRENCY)))
-                .findAny()
-                .orElseGet(() -> {
-                    Table.Record record = table.addNewRecord();
-                    record.put(DATE, date);
-                    record.put(INVESTMENT_CURRENCY, investmentCurrency);
-                    return record;
-                });
-    }
-
-    private static Table.Record recordOf(Table table, Instant instant) {
-        LocalDate date = LocalDate.ofInstant(instant, ZoneId.systemDefault());
-        return table.stream()
-                .filter(record -> date.equals(record.get(DATE)))
-                .findAny()
-                .orElseGet(() -> {
-                    Table.Record record = table.addNewRecord();
-                    record.put(DATE, date);
-                    return record;
-                });
+    /**
+     * Table under construction with records indexed by date and investment currency,
+     * finds record in constant time instead of table scan
+     */
+    private static class DateIndexedTable {
+        private final Table table = new Table();
+        // date -> first added record of the date
+        private final Map<LocalDate, Table.Record> dateIndex = new HashMap<>();
+        private final Map<DateAndCurrency, Table.Record> dateAndCurrencyIndex = new HashMap<>();
+
+        Table getTable() {
+            return table;
+        }
+
+        Table.Record recordOf(Instant instant, String investmentCurrency) {
+            LocalDate date = LocalDate.ofInstant(instant, ZoneId.systemDefault());
+            return dateAndCurrencyIndex.computeIfAbsent(new DateAndCurrency(date, investmentCurrency), _ -> {
+                Table.Record record = addNewRecord(date);
+                record.put(INVESTMENT_CURRENCY, investmentCurrency);
+                return record;
+            });
+        }
+
+        Table.Record recordOf(Instant instant) {
+            LocalDate date = LocalDate.ofInstant(instant, ZoneId.systemDefault());
+            @Nullable Table.Record record = dateIndex.get(date);
+            return (record != null) ? record : addNewRecord(date);
+        }
+
+        private Table.Record addNewRecord(LocalDate date) {
+            Table.Record record = table.addNewRecord();
+            record.put(DATE, date);
+            dateIndex.putIfAbsent(date, record);
+            return record;
+        }
+
+        private record DateAndCurrency(LocalDate date, String currency) {
+        }
     }
 
     private List<EventCashFlow> getCashFlow(Collection<String> portfolios) {
@@ -23,10 +23,10 @@ import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.xddf.usermodel.chart.XDDFChartData;
 import org.apache.poi.xddf.usermodel.chart.XDDFDataSource;
-import org.apache.poi.xddf.usermodel.chart.XDDFDataSourcesFactory;
 import org.apache.poi.xddf.usermodel.chart.XDDFNumericalDataSource;
 import org.apache.poi.xssf.usermodel.XSSFChart;
 import org.apache.poi.xssf.usermodel.XSSFSheet;
@@ -132,12 +132,21 @@ public class PortfolioAnalysisExcelTableView extends ExcelTableView {
         sheet.setZoom(85); // show all columns for 24-inch monitor for securities sheet
     }
 
+    @Override
+    protected void totalRowPostCreate(Row row, CellStyles styles) {
+        for (Cell cell : row) {
+            cell.setCellStyle(styles.getTotalRowStyle());
+        }
+    }
+
+    @Override
+    protected boolean isRowRandomAccessRequired() {
+        return true; // chart plotting reads all rows
+    }
+
     @Override
     protected void sheetPostCreate(Sheet sheet, Class<? extends TableHeader> headerType, CellStyles styles) {
         super.sheetPostCreate(sheet, headerType, styles);
-        for (Cell cell : sheet.getRow(1)) {
-                cell.setCellStyle(styles.getTotalRowStyle());
-        }
         plotChart("Активы и инвестиции, USD", sheet, PortfolioAnalysisExcelTableView::addInvestmentAndAssetsGraph);
         plotChart("Роста активов, %", sheet, PortfolioAnalysisExcelTableView::addPortfolioGrowthGraph);
         plotChart("Остаток денежных средств, USD", sheet, PortfolioAnalysisExcelTableView::addCashBalanceGraph);
@@ -146,13 +155,13 @@ public class PortfolioAnalysisExcelTableView extends ExcelTableView {
     @SuppressWarnings("argument")
     private static void addInvestmentAndAssetsGraph(String name, Sheet sheet) {
         int rowCount = sheet.getLastRowNum();
-        XSSFSheet _sheet = (XSSFSheet) sheet;
+        XSSFSheet _sheet = getDrawingSheet(sheet);
 
-        XDDFDataSource<String> date = XDDFDataSourcesFactory.fromStringCellRange(_sheet,
+        XDDFDataSource<String> date = fromStringCellRange(sheet,
                 nonEmptyCellRangeAddress(sheet,2, rowCount, DATE.ordinal(), DATE.ordinal()));
-        XDDFNumericalDataSource<Double> assetsUsd = XDDFDataSourcesFactory.fromNumericCellRange(_sheet,
+        XDDFNumericalDataSource<Double> assetsUsd = fromNumericCellRange(sheet,
                 nonEmptyCellRangeAddress(sheet,2, rowCount, ASSETS_USD.ordinal(), ASSETS_USD.ordinal()));
-        XDDFNumericalDataSource<Double> investmentUsd = XDDFDataSourcesFactory.fromNumericCellRange(_sheet,
+        XDDFNumericalDataSource<Double> investmentUsd = fromNumericCellRange(sheet,
                 nonEmptyCellRangeAddress(sheet,2, rowCount, TOTAL_INVESTMENT_USD.ordinal(), TOTAL_INVESTMENT_USD.ordinal()));
 
         XSSFChart chart = createChart(_sheet, name, CURRENCY_NAME.ordinal(), 6, 8, 18);
@@ -170,13 +179,13 @@ public class PortfolioAnalysisExcelTableView extends ExcelTableView {
     @SuppressWarnings("argument")
     private static void addPortfolioGrowthGraph(String name, Sheet sheet) {
         int rowCount = sheet.getLastRowNum();
-        XSSFSheet _sheet = (XSSFSheet) sheet;
+        XSSFSheet _sheet = getDrawingSheet(sheet);
 
-        XDDFDataSource<String> date = XDDFDataSourcesFactory.fromStringCellRange(_sheet,
+        XDDFDataSource<String> date = fromStringCellRange(sheet,
                 nonEmptyCellRangeAddress(sheet,2, rowCount, DATE.ordinal(), DATE.ordinal()));
-        XDDFNumericalDataSource<Double> assetsGrowth = XDDFDataSourcesFactory.fromNumericCellRange(_sheet,
+        XDDFNumericalDataSource<Double> assetsGrowth = fromNumericCellRange(sheet,
                 nonEmptyCellRangeAddress(sheet,2, rowCount, ASSETS_GROWTH.ordinal(), ASSETS_GROWTH.ordinal()));
-        XDDFNumericalDataSource<Double> sp500Growth = XDDFDataSourcesFactory.fromNumericCellRange(_sheet,
+        XDDFNumericalDataSource<Double> sp500Growth = fromNumericCellRange(sheet,
                 nonEmptyCellRangeAddress(sheet,2, rowCount, SP500_GROWTH.ordinal(), SP500_GROWTH.ordinal()));
 
         XSSFChart chart = createChart(_sheet, name, CURRENCY_NAME.ordinal(), 24, 8, 18);
@@ -193,11 +202,11 @@ public class PortfolioAnalysisExcelTableView extends ExcelTableView {
 
     private static void addCashBalanceGraph(String name, Sheet sheet) {
         int rowCount = sheet.getLastRowNum();
-        XSSFSheet _sheet = (XSSFSheet) sheet;
+        XSSFSheet _sheet = getDrawingSheet(sheet);
 
-        XDDFDataSource<String> date = XDDFDataSourcesFactory.fromStringCellRange(_sheet,
+        XDDFDataSource<String> date = fromStringCellRange(sheet,
                 nonEmptyCellRangeAddress(sheet,2, rowCount, DATE.ordinal(), DATE.ordinal()));
-        XDDFNumericalDataSource<Double> cashBalance = XDDFDataSourcesFactory.fromNumericCellRange(_sheet,
+        XDDFNumericalDataSource<Double> cashBalance = fromNumericCellRange(sheet,
                 nonEmptyCellRangeAddress(sheet,2, rowCount, TOTAL_CASH_USD.ordinal(), TOTAL_CASH_USD.ordinal()));
 
         XSSFChart chart = createChart(_sheet, name, CURRENCY_NAME.ordinal(), 42, 8, 18);
@@ -37,8 +37,11 @@ import ru.investbook.report.FifoPositionsFactory;
 import ru.investbook.report.FifoPositionsFilter;
 import ru.investbook.report.InternalRateOfReturn;
 import ru.investbook.report.PositionHistory;
+import ru.investbook.report.ReportExecutor;
 import ru.investbook.report.Table;
 import ru.investbook.report.TableFactory;
+import ru.investbook.report.TransactionCashFlows;
+import ru.investbook.report.TransactionCashFlowsFactory;
 import ru.investbook.report.ViewFilter;
 import ru.investbook.repository.SecurityRepository;
 import ru.investbook.repository.TransactionRepository;
@@ -52,9 +55,11 @@ import java.time.LocalDate;
 import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import static java.util.Collections.singleton;
@@ -79,8 +84,10 @@ public class PortfolioStatusExcelTableFactory implements TableFactory {
     protected final PortfolioPropertyConverter portfolioPropertyConverter;
     private final FifoPositionsFactory positionsFactory;
     private final SecurityProfitService securityProfitService;
+    private final TransactionCashFlowsFactory transactionCashFlowsFactory;
     private final AssetsAndCashService assetsAndCashService;
     private final InternalRateOfReturn internalRateOfReturn;
+    private final ReportExecutor reportExecutor;
     private final Instant instantOf2000_01_01 = LocalDate.of(2000, 1, 1).atStartOfDay(ZoneOffset.UTC).toInstant();
     private final Set<Integer> paymentEvents = Set.of(
             CashFlowType.AMORTIZATION.getId(),
@@ -111,9 +118,19 @@ public class PortfolioStatusExcelTableFactory implements TableFactory {
     }
 
     private Table create(Collection<String> portfolios, Collection<Security> securities, String forCurrency) {
-        return securities.stream()
-                .map(security -> getSecurityStatus(portfolios, security, forCurrency))
-                .collect(Collectors.toCollection(Table::new));
+        Map<Integer, SecurityQuote> quotes = new ConcurrentHashMap<>();
+        Map<Integer, Table.Record> builtRows = new ConcurrentHashMap<>();
+        Table table = new Table();
+        table.addAll(reportExecutor.map(securities,
+                security -> getSecurityStatus(portfolios, security, forCurrency, quotes, builtRows)));
+        // IRR is calculated for all securities at once, cash flows are loaded by bulk queries
+        ViewFilter filter = ViewFilter.get();
+        Collection<Security> builtSecurities = securities.stream()
+                .filter(security -> builtRows.containsKey(security.getId()))
+                .toList();
+        internalRateOfReturn.calcAll(portfolios, builtSecurities, quotes, filter.getFromDate(), filter.getToDate())
+                .forEach((securityId, irr) -> requireNonNull(builtRows.get(securityId)).put(INTERNAL_RATE_OF_RETURN, irr));
+        return table;
     }
 
     private Collection<Security> getSecurities(Collection<String> portfolios, String currency) {
@@ -193,7 +210,15 @@ public class PortfolioStatusExcelTableFactory implements TableFactory {
         return row;
     }
 
-    private Table.Record getSecurityStatus(Collection<String> portfolios, Security security, String toCurrency) {
+    /**
+     * @param quotes    security quote is stored to this map, if exists
+     * @param builtRows row is stored to this map by security id, if row is built without error
+     */
+    private Table.Record getSecurityStatus(Collection<String> portfolios,
+                                           Security security,
+                                           String toCurrency,
+                                           Map<Integer, SecurityQuote> quotes,
+                                           Map<Integer, Table.Record> builtRows) {
         Table.Record row = new Table.Record();
         SecurityType securityType = security.getType();
         row.put(SECURITY,
@@ -207,6 +232,7 @@ public class PortfolioStatusExcelTableFactory implements TableFactory {
             ViewFilter filter = ViewFilter.get();
             FifoPositionsFilter pf = FifoPositionsFilter.of(portfolios, filter.getFromDate(), filter.getToDate());
             FifoPositions positions = positionsFactory.get(security, pf);
+            TransactionCashFlows cashFlows = transactionCashFlowsFactory.get(positions.getTransactions());
             row.put(FIRST_TRANSACTION_DATE, Optional.ofNullable(positions.getPositionHistories().peekFirst())
                     .map(PositionHistory::getInstant)
                     .orElse(null));
@@ -238,28 +264,29 @@ public class PortfolioStatusExcelTableFactory implements TableFactory {
             int count = positions.getCurrentOpenedPositionsCount();
             row.put(COUNT, count);
             if (count == 0) {
-                row.put(GROSS_PROFIT, "=" + securityProfitService.getGrossProfit(portfolios, security, positions, toCurrency) +
+                row.put(GROSS_PROFIT, "=" + securityProfitService.getGrossProfit(portfolios, security, positions, cashFlows, toCurrency) +
                         (securityType.isBond() ? ("+" + AMORTIZATION.getCellAddr()) : ""));
             } else {
-                row.put(AVERAGE_PRICE, securityProfitService.getPurchaseCost(security, positions, toCurrency)
+                row.put(AVERAGE_PRICE, securityProfitService.getPurchaseCost(security, positions, cashFlows, toCurrency)
                         .divide(BigDecimal.valueOf(-count), 6, RoundingMode.CEILING));
-                row.put(AVERAGE_ACCRUED_INTEREST, securityProfitService.getPurchaseAccruedInterest(security, positions, toCurrency)
+                row.put(AVERAGE_ACCRUED_INTEREST, securityProfitService.getPurchaseAccruedInterest(security, positions, cashFlows, toCurrency)
                         .divide(BigDecimal.valueOf(-count), 6, RoundingMode.CEILING));
 
                 quote = securityProfitService.getSecurityQuote(security, toCurrency, filter.getToDate());
 
                 if (quote != null) {
+                    quotes.put(requireNonNull(security.getId()), quote);
                     row.put(LAST_PRICE, quote.getCleanPriceInCurrency(securityType == DERIVATIVE));
                     row.put(LAST_ACCRUED_INTEREST, quote.getAccruedInterest());
                 }
 
                 if (securityType == DERIVATIVE) {
-                    row.put(GROSS_PROFIT, securityProfitService.getGrossProfit(portfolios, security, positions, toCurrency));
+                    row.put(GROSS_PROFIT, securityProfitService.getGrossProfit(portfolios, security, positions, cashFlows, toCurrency));
                 } else {
                     row.put(GROSS_PROFIT, STOCK_OR_BOND_GROSS_PROFIT_FORMULA);
                 }
             }
-            row.put(COMMISSION, securityProfitService.getTotal(positions.getTransactions(), CashFlowType.FEE, toCurrency).abs());
+            row.put(COMMISSION, securityProfitService.getTotal(positions.getTransactions(), cashFlows, CashFlowType.FEE, toCurrency).abs());
             if (securityType.isBond()) {
                 row.put(COUPON, securityProfitService.sumPaymentsForType(portfolios, security, CashFlowType.COUPON, toCurrency));
                 row.put(AMORTIZATION, securityProfitService.sumPaymentsForType(portfolios, security, CashFlowType.AMORTIZATION, toCurrency));
@@ -271,9 +298,8 @@ public class PortfolioStatusExcelTableFactory implements TableFactory {
                 row.put(TAX, securityProfitService.sumPaymentsForType(portfolios, security, CashFlowType.TAX, toCurrency).abs());
             }
             row.put(PROFIT, PROFIT_FORMULA);
-            row.put(INTERNAL_RATE_OF_RETURN, internalRateOfReturn.calc(
-                    portfolios, security, quote, filter.getFromDate(), filter.getToDate()));
             row.put(PROFIT_PROPORTION, PROFIT_PROPORTION_FORMULA);
+            builtRows.put(requireNonNull(security.getId()), row);
         } catch (Exception e) {
             log.error("Ошибка при формировании агрегированных данных по бумаге {}", security, e);
         }
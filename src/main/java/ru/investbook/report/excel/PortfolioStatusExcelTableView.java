@@ -27,7 +27,6 @@ import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.xddf.usermodel.chart.XDDFChartData;
 import org.apache.poi.xddf.usermodel.chart.XDDFDataSource;
-import org.apache.poi.xddf.usermodel.chart.XDDFDataSourcesFactory;
 import org.apache.poi.xddf.usermodel.chart.XDDFNumericalDataSource;
 import org.apache.poi.xssf.usermodel.XSSFChart;
 import org.apache.poi.xssf.usermodel.XSSFSheet;
@@ -183,28 +182,28 @@ public class PortfolioStatusExcelTableView extends ExcelTableView {
     }
 
     @Override
-    protected void sheetPostCreate(Sheet sheet, Class<? extends TableHeader> headerType, CellStyles styles) {
-        super.sheetPostCreate(sheet, headerType, styles);
-        for (Row row : sheet) {
-            if (row.getRowNum() == 0) continue;
-            Cell cell;
-            if ((cell = row.getCell(SECURITY.ordinal())) != null) {
-                cell.setCellStyle(styles.getLeftAlignedTextStyle());
-            }
-            if ((cell = row.getCell(INTERNAL_RATE_OF_RETURN.ordinal())) != null) {
-                cell.setCellStyle(styles.getPercentStyle());
-            }
-            if ((cell = row.getCell(PROFIT_PROPORTION.ordinal())) != null) {
-                cell.setCellStyle(styles.getPercentStyle());
-            }
-            if ((cell = row.getCell(INVESTMENT_PROPORTION.ordinal())) != null) {
-                cell.setCellStyle(styles.getPercentStyle());
-            }
-            if ((cell = row.getCell(PROPORTION.ordinal())) != null) {
-                cell.setCellStyle(styles.getPercentStyle());
-            }
+    protected void rowPostCreate(Row row, CellStyles styles) {
+        Cell cell;
+        if ((cell = row.getCell(SECURITY.ordinal())) != null) {
+            cell.setCellStyle(styles.getLeftAlignedTextStyle());
+        }
+        if ((cell = row.getCell(INTERNAL_RATE_OF_RETURN.ordinal())) != null) {
+            cell.setCellStyle(styles.getPercentStyle());
+        }
+        if ((cell = row.getCell(PROFIT_PROPORTION.ordinal())) != null) {
+            cell.setCellStyle(styles.getPercentStyle());
+        }
+        if ((cell = row.getCell(INVESTMENT_PROPORTION.ordinal())) != null) {
+            cell.setCellStyle(styles.getPercentStyle());
+        }
+        if ((cell = row.getCell(PROPORTION.ordinal())) != null) {
+            cell.setCellStyle(styles.getPercentStyle());
         }
-        for (Cell cell : sheet.getRow(1)) {
+    }
+
+    @Override
+    protected void totalRowPostCreate(Row row, CellStyles styles) {
+        for (Cell cell : row) {
             if (cell == null) continue;
             if (cell.getColumnIndex() == SECURITY.ordinal()) {
                 cell.setCellStyle(styles.getTotalTextStyle());
@@ -224,20 +223,36 @@ public class PortfolioStatusExcelTableView extends ExcelTableView {
                 cell.setCellStyle(styles.getTotalRowStyle());
             }
         }
+    }
+
+    @Override
+    protected boolean isRowRandomAccessRequired() {
+        return true; // chart plotting reads all rows
+    }
+
+    @Override
+    protected boolean isSecurityQuoteDependent() {
+        return true;
+    }
+
+    @Override
+    protected void sheetPostCreate(Sheet sheet, Class<? extends TableHeader> headerType, CellStyles styles) {
+        super.sheetPostCreate(sheet, headerType, styles);
         highlightNegativeByRed(sheet, PROFIT);
         highlightNegativeByRed(sheet, INTERNAL_RATE_OF_RETURN);
         plotChart("Состав портфеля", sheet, PortfolioStatusExcelTableView::addPieChart);
     }
 
-    private static void addPieChart(String name, XSSFSheet sheet) {
+    private static void addPieChart(String name, Sheet sheet) {
         int rowCount = sheet.getLastRowNum();
+        XSSFSheet _sheet = getDrawingSheet(sheet);
 
-        XDDFDataSource<String> securities = XDDFDataSourcesFactory.fromStringCellRange(sheet,
+        XDDFDataSource<String> securities = fromStringCellRange(sheet,
                 nonEmptyCellRangeAddress(sheet,2, rowCount, SECURITY.ordinal(), SECURITY.ordinal()));
-        XDDFNumericalDataSource<Double> proportions = XDDFDataSourcesFactory.fromNumericCellRange(sheet,
+        XDDFNumericalDataSource<Double> proportions = fromNumericCellRange(sheet,
                 nonEmptyCellRangeAddress(sheet,2, rowCount, PROPORTION.ordinal(), PROPORTION.ordinal()));
 
-        XSSFChart chart = createChart(sheet, name, 0, rowCount + 2, PROPORTION.ordinal() + 1, 36);
+        XSSFChart chart = createChart(_sheet, name, 0, rowCount + 2, PROPORTION.ordinal() + 1, 36);
         XDDFChartData data = createPieChartData(chart);
 
         data.addSeries(securities, proportions);
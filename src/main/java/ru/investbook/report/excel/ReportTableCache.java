@@ -0,0 +1,184 @@
+/*
+ * InvestBook
+ * Copyright (C) 2022  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.investbook.report.excel;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.investbook.InvestbookProperties;
+import ru.investbook.report.CacheMetrics;
+import ru.investbook.report.ViewFilter;
+import ru.investbook.repository.DataChangedEvent;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Caches report tables built for "all time to today" filter. Tables affected by data changes are evicted
+ * and rebuilt in background, so report request is assembled from precomputed tables. Tables for other filters
+ * are built by each request.
+ */
+@Component
+@Slf4j
+public class ReportTableCache {
+    private final InvestbookProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheMetrics metrics;
+    private final Map<CacheKey, CacheEntry> cache = new ConcurrentHashMap<>();
+    // keys of evicted tables to be rebuilt in background
+    private final Set<CacheKey> staleKeys = ConcurrentHashMap.newKeySet();
+    // incremented on each data change, tables built by outdated data are not cached
+    private final AtomicLong version = new AtomicLong();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    private volatile @Nullable ScheduledFuture<?> refreshTask;
+
+    public ReportTableCache(InvestbookProperties properties,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.metrics = new CacheMetrics(meterRegistry, "report-tables");
+    }
+
+    /**
+     * @param builder builds tables of view using {@link ViewFilter} of current thread
+     * @return tables of view, returned tables could be modified by caller
+     */
+    Collection<ExcelTable> get(ExcelTableView view, ViewFilter filter, Supplier<Collection<ExcelTable>> builder) {
+        if (!properties.isReportCache() || !filter.isAllTimeToToday()) {
+            return builder.get();
+        }
+        CacheKey key = new CacheKey(view, filter);
+        @Nullable CacheEntry entry = cache.get(key);
+        if (entry != null && !entry.isExpired(properties.getReportCacheMaxAge())) {
+            metrics.hit();
+            return copy(entry.tables());
+        }
+        metrics.miss();
+        cache.keySet().removeIf(k -> !k.filter().isAllTimeToToday()); // filters of previous days
+        long buildVersion = version.get();
+        Collection<ExcelTable> tables = builder.get();
+        put(key, tables, buildVersion);
+        return tables;
+    }
+
+    private void put(CacheKey key, Collection<ExcelTable> tables, long buildVersion) {
+        CacheEntry entry = new CacheEntry(copy(tables), Instant.now());
+        cache.put(key, entry);
+        if (version.get() != buildVersion) {
+            cache.remove(key, entry); // data changed while tables were built
+            staleKeys.add(key);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    void onDataChanged(DataChangedEvent event) {
+        version.incrementAndGet();
+        @Nullable String portfolio = event.portfolio();
+        boolean isQuoteChanged = (event.type() == DataChangedEvent.Type.SECURITY_QUOTE);
+        int evicted = 0;
+        for (CacheKey key : cache.keySet()) {
+            Set<String> portfolios = key.filter().getPortfolios();
+            if (isQuoteChanged && !key.view().isSecurityQuoteDependent()) {
+                continue;
+            }
+            if (portfolio == null || portfolios.isEmpty() || portfolios.contains(portfolio)) {
+                if (cache.remove(key) != null) {
+                    evicted++;
+                    staleKeys.add(key);
+                }
+            }
+        }
+        metrics.evicted(evicted);
+        if (!staleKeys.isEmpty()) {
+            scheduleRefresh();
+        }
+    }
+
+    /**
+     * Refresh is delayed to rebuild tables once after series of data changes, for ex. after report import
+     */
+    private synchronized void scheduleRefresh() {
+        @Nullable ScheduledFuture<?> task = refreshTask;
+        if (task != null) {
+            task.cancel(false);
+        }
+        refreshTask = executor.schedule(this::refresh,
+                properties.getReportCacheRefreshDelay().toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void refresh() {
+        for (CacheKey key : List.copyOf(staleKeys)) {
+            staleKeys.remove(key);
+            if (!key.filter().isAllTimeToToday()) {
+                continue; // filter of previous day
+            }
+            try {
+                long t0 = System.nanoTime();
+                long buildVersion = version.get();
+                Collection<ExcelTable> tables = transactionTemplate.execute(_ -> ExcelView.getExcelTables(key.view(), key.filter()));
+                if (tables != null) {
+                    put(key, tables, buildVersion);
+                }
+                log.debug("Таблицы {} отчета обновлены за {}",
+                        key.view().getClass().getSimpleName(), Duration.ofNanos(System.nanoTime() - t0));
+            } catch (Exception e) {
+                log.warn("Не могу обновить таблицы {} отчета", key.view().getClass().getSimpleName(), e);
+            }
+        }
+    }
+
+    private static Collection<ExcelTable> copy(Collection<ExcelTable> tables) {
+        return tables.stream()
+                .map(ExcelTable::copy)
+                .toList();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private record CacheKey(ExcelTableView view, ViewFilter filter) {
+    }
+
+    private record CacheEntry(Collection<ExcelTable> tables, Instant createdAt) {
+
+        boolean isExpired(Duration maxAge) {
+            return createdAt.plus(maxAge).isBefore(Instant.now());
+        }
+    }
+}
@@ -38,6 +38,7 @@ import ru.investbook.report.OpenedPosition;
 import ru.investbook.report.PaidInterest;
 import ru.investbook.report.PaidInterestFactory;
 import ru.investbook.report.Position;
+import ru.investbook.report.ReportExecutor;
 import ru.investbook.report.Table;
 import ru.investbook.report.TableFactory;
 import ru.investbook.report.ViewFilter;
@@ -73,6 +74,7 @@ public class StockMarketProfitExcelTableFactory implements TableFactory {
     private final SecurityEventCashFlowRepository securityEventCashFlowRepository;
     private final ForeignExchangeRateService foreignExchangeRateService;
     private final FifoPositionsFactory positionsFactory;
+    private final ReportExecutor reportExecutor;
 
     public Table create(Portfolio portfolio) {
         throw new UnsupportedOperationException();
@@ -96,29 +98,33 @@ public class StockMarketProfitExcelTableFactory implements TableFactory {
                 .toList();
     }
 
+    /**
+     * Rows of securities are built in parallel
+     */
     public Table create(Portfolio portfolio, Collection<Security> securities, String toCurrency) {
-        Table openPositionsProfit = new Table();
-        Table closedPositionsProfit = new Table();
-        securities.forEach(security ->
-                getRowsForSecurity(security, portfolio, openPositionsProfit, closedPositionsProfit, toCurrency));
+        List<SecurityRows> securitiesRows = reportExecutor.map(securities,
+                security -> getRowsForSecurity(security, portfolio, toCurrency));
         Table profit = new Table();
-        profit.addAll(openPositionsProfit);
-        profit.addAll(closedPositionsProfit);
+        securitiesRows.forEach(rows -> profit.addAll(rows.openPositionsProfit()));
+        securitiesRows.forEach(rows -> profit.addAll(rows.closedPositionsProfit()));
         return profit;
     }
 
-    private void getRowsForSecurity(Security security, Portfolio portfolio, Table openPositionsProfit,
-                                    Table closedPositionsProfit, String toCurrency) {
+    private SecurityRows getRowsForSecurity(Security security, Portfolio portfolio, String toCurrency) {
         ViewFilter filter = ViewFilter.get();
         FifoPositionsFilter pf = FifoPositionsFilter.of(portfolio, filter.getFromDate(), filter.getToDate());
         FifoPositions positions = positionsFactory.get(security, pf);
         PaidInterest paidInterest = paidInterestFactory.get(portfolio, security, filter.getFromDate(), filter.getToDate());
-        openPositionsProfit.addAll(getPositionProfit(security, positions.getOpenedPositions(),
-                paidInterest, this::getOpenedPositionProfit, toCurrency));
-        closedPositionsProfit.addAll(getPositionProfit(security, positions.getClosedPositions(),
-                paidInterest, this::getClosedPositionProfit, toCurrency));
+        Table openPositionsProfit = getPositionProfit(security, positions.getOpenedPositions(),
+                paidInterest, this::getOpenedPositionProfit, toCurrency);
+        Table closedPositionsProfit = getPositionProfit(security, positions.getClosedPositions(),
+                paidInterest, this::getClosedPositionProfit, toCurrency);
         openPositionsProfit.addAll(getPositionProfit(security, paidInterest.getFictitiousPositions(),
                 paidInterest, this::getOpenedPositionProfit, toCurrency));
+        return new SecurityRows(openPositionsProfit, closedPositionsProfit);
+    }
+
+    private record SecurityRows(Table openPositionsProfit, Table closedPositionsProfit) {
     }
 
     private <T extends OpenedPosition> Table getPositionProfit(Security security,
@@ -20,32 +20,14 @@ package ru.investbook.report.html;
 
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.hssf.usermodel.HSSFFormulaEvaluator;
-import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.ss.formula.eval.NotImplementedException;
 import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.CellType;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
 import org.springframework.util.Assert;
 
 @Slf4j
 class ExcelFormulaEvaluatorHelper {
 
-    static void evaluateFormulaCells(HSSFWorkbook workbook) {
-        HSSFFormulaEvaluator evaluator = new HSSFFormulaEvaluator(workbook);
-        for (int i = 0; i < workbook.getNumberOfSheets(); i++) {
-            Sheet sheet = workbook.getSheetAt(i);
-            for (Row r : sheet) {
-                for (Cell c : r) {
-                    if (c.getCellType() == CellType.FORMULA) {
-                        evaluate(c, evaluator);
-                    }
-                }
-            }
-        }
-    }
-
-    private static void evaluate(Cell c, HSSFFormulaEvaluator evaluator) {
+    static void evaluate(Cell c, HSSFFormulaEvaluator evaluator) {
         try {
             evaluator.evaluateFormulaCell(c);
         } catch (NotImplementedException e) {
@@ -20,29 +20,19 @@ package ru.investbook.report.html;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.hpsf.SummaryInformation;
-import org.apache.poi.hssf.converter.ExcelToHtmlConverter;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.springframework.stereotype.Component;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
 import ru.investbook.report.ViewFilter;
 import ru.investbook.report.excel.ExcelView;
 
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
+import java.io.BufferedWriter;
+import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.concurrent.ExecutionException;
 
-import static java.util.Objects.requireNonNull;
-import static ru.investbook.report.html.ExcelFormulaEvaluatorHelper.evaluateFormulaCells;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 @Component
 @RequiredArgsConstructor
@@ -55,103 +45,51 @@ public class HtmlView {
 
     public void create(OutputStream out, ViewFilter filter) throws Exception {
         try (HSSFWorkbook workbook = createWorkbook(filter)) {
-            Document htmlDocument = buildHtmlDocument(workbook);
-            addCssStyle(htmlDocument);
-            addReportFileDownloadLink(htmlDocument);
-            addHomeLink(htmlDocument);
-            write(htmlDocument, out);
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, UTF_8));
+            HtmlWorkbookWriter workbookWriter = new HtmlWorkbookWriter(workbook, writer);
+            writer.write("""
+                    <!DOCTYPE html>
+                    <html>
+                    <head>
+                    <meta charset="UTF-8">
+                    <title>Отчет</title>
+                    <style>
+                    """);
+            addCssStyle(writer);
+            workbookWriter.writeCellStyles();
+            writer.write("</style>\n</head>\n<body>\n");
+            addHomeLink(writer);
+            addReportFileDownloadLink(writer);
+            workbookWriter.writeSheets();
+            writer.write("</body>\n</html>\n");
+            writer.flush();
         }
     }
 
     private HSSFWorkbook createWorkbook(ViewFilter filter) throws InterruptedException, ExecutionException {
         HSSFWorkbook workbook = new HSSFWorkbook();
         excelView.writeTo(workbook, filter, new HtmlCellStyles(workbook));
-        evaluateFormulaCells(workbook);
-        setTitleAndAuthor(workbook);
         return workbook;
     }
 
-    private void setTitleAndAuthor(HSSFWorkbook workbook) {
-        workbook.createInformationProperties();
-        SummaryInformation info = workbook.getSummaryInformation();
-        info.setTitle("Отчет");
-        info.setLastAuthor("Investbook");
-    }
-
-    private Document buildHtmlDocument(HSSFWorkbook workbook) throws ParserConfigurationException {
-        Document doc = DocumentBuilderFactory.newInstance()
-                .newDocumentBuilder()
-                .newDocument();
-        ExcelToHtmlConverter excelToHtmlConverter = new ExcelToHtmlConverter(doc);
-        excelToHtmlConverter.setOutputColumnHeaders(false);
-        excelToHtmlConverter.setOutputRowNumbers(false);
-        excelToHtmlConverter.processWorkbook(workbook);
-        return excelToHtmlConverter.getDocument();
-    }
-
-    private void addCssStyle(Document htmlDocument) {
-        Element style = htmlDocument.createElement("style");
+    private void addCssStyle(Writer writer) throws IOException {
         // @page for A4 landscape proportion when printing by ctrl+P
-        style.setTextContent("""
+        writer.write("""
                 @page { size: 1980px 1400px landscape; }
                 tr { border-bottom: 1pt solid #eee; }
                 """);
-        @SuppressWarnings({"assignment", "dereference.of.nullable"})
-        Node head = htmlDocument.getFirstChild() // html
-                .getFirstChild(); // head
-        head.appendChild(style);
     }
 
-    private void addReportFileDownloadLink(Document htmlDocument) {
-        @SuppressWarnings("dereference.of.nullable")
-        Node body = requireNonNull(
-                htmlDocument.getFirstChild() // html
-                        .getLastChild()); // body
-
-        Element div = htmlDocument.createElement("div");
-        div.setAttribute("style", "float: right");
-        body.insertBefore(div, body.getFirstChild());
-
-        String linkStyle = "text-decoration: none; margin-right: 1em;";
-        Element link = htmlDocument.createElement("a");
-        link.setTextContent("Сохранить в xlsx \uD83D\uDCE5");
-        link.setAttribute("href", EXCEL_REPORT_LINK);
-        link.setAttribute("style", linkStyle);
-        div.appendChild(link);
-
-        link = htmlDocument.createElement("a");
-        link.setTextContent("Сохранить в pdf \uD83D\uDCE5");
-        link.setAttribute("href", "#");
-        link.setAttribute("onclick", PDF_REPORT_LINK);
-        link.setAttribute("style", linkStyle);
-        div.appendChild(link);
-    }
-
-    private void addHomeLink(Document htmlDocument) {
-        @SuppressWarnings("dereference.of.nullable")
-        Node body = requireNonNull(
-                htmlDocument.getFirstChild() // html
-                        .getLastChild()); // body
-
-        Element doc = htmlDocument.createElement("a");
-        doc.setTextContent("[Описание таблиц]");
-        doc.setAttribute("href", DOC_LINK);
-        body.insertBefore(doc, body.getFirstChild());
-
-        Element link = htmlDocument.createElement("a");
-        link.setTextContent("[На главную]");
-        link.setAttribute("href", "/");
-        link.setAttribute("style", "margin-right: 1em");
-        body.insertBefore(link, body.getFirstChild());
+    private void addHomeLink(Writer writer) throws IOException {
+        writer.write("<a href=\"/\" style=\"margin-right: 1em\">[На главную]</a>\n");
+        writer.write("<a href=\"" + DOC_LINK + "\">[Описание таблиц]</a>\n");
     }
 
-    private void write(Document htmlDocument, OutputStream out) throws TransformerException {
-        DOMSource domSource = new DOMSource(htmlDocument);
-        TransformerFactory tf = TransformerFactory.newInstance();
-        Transformer serializer = tf.newTransformer();
-        serializer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
-        serializer.setOutputProperty(OutputKeys.INDENT, "yes");
-        serializer.setOutputProperty(OutputKeys.METHOD, "html");
-        serializer.transform(domSource, new StreamResult(out));
+    private void addReportFileDownloadLink(Writer writer) throws IOException {
+        String linkStyle = "text-decoration: none; margin-right: 1em;";
+        writer.write("<div style=\"float: right\">\n");
+        writer.write("<a href=\"" + EXCEL_REPORT_LINK + "\" style=\"" + linkStyle + "\">Сохранить в xlsx \uD83D\uDCE5</a>\n");
+        writer.write("<a href=\"#\" onclick=\"" + PDF_REPORT_LINK + "\" style=\"" + linkStyle + "\">Сохранить в pdf \uD83D\uDCE5</a>\n");
+        writer.write("</div>\n");
     }
 }
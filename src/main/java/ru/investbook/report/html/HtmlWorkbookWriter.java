@@ -0,0 +1,166 @@
+/*
+ * InvestBook
+ * Copyright (C) 2022  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.investbook.report.html;
+
+import org.apache.poi.hssf.usermodel.HSSFCellStyle;
+import org.apache.poi.hssf.usermodel.HSSFDataFormatter;
+import org.apache.poi.hssf.usermodel.HSSFFont;
+import org.apache.poi.hssf.usermodel.HSSFFormulaEvaluator;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.FormulaError;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import static org.springframework.web.util.HtmlUtils.htmlEscape;
+import static ru.investbook.report.html.ExcelFormulaEvaluatorHelper.evaluate;
+
+/**
+ * Writes workbook sheets as html tables directly to output, formula cells are evaluated on demand
+ */
+class HtmlWorkbookWriter {
+    private static final float PIXELS_PER_WIDTH_UNIT = 7f / 256;
+    private final HSSFWorkbook workbook;
+    private final HSSFFormulaEvaluator evaluator;
+    private final HSSFDataFormatter formatter = new HSSFDataFormatter();
+    private final Writer out;
+
+    HtmlWorkbookWriter(HSSFWorkbook workbook, Writer out) {
+        this.workbook = workbook;
+        this.evaluator = new HSSFFormulaEvaluator(workbook);
+        this.out = out;
+    }
+
+    /**
+     * Writes css classes for all workbook cell styles
+     */
+    void writeCellStyles() throws IOException {
+        for (int i = 0; i < workbook.getNumCellStyles(); i++) {
+            HSSFCellStyle style = workbook.getCellStyleAt(i);
+            HSSFFont font = style.getFont(workbook);
+            out.write(".c" + i + " {");
+            switch (style.getAlignment()) {
+                case LEFT -> out.write(" text-align: left;");
+                case CENTER, CENTER_SELECTION -> out.write(" text-align: center;");
+                case RIGHT -> out.write(" text-align: right;");
+                default -> {
+                }
+            }
+            switch (style.getVerticalAlignment()) {
+                case TOP -> out.write(" vertical-align: top;");
+                case CENTER -> out.write(" vertical-align: middle;");
+                default -> out.write(" vertical-align: bottom;");
+            }
+            if (style.getIndention() > 0) {
+                out.write(" padding-right: " + style.getIndention() + "em;");
+            }
+            if (font.getBold()) {
+                out.write(" font-weight: bold;");
+            }
+            if (font.getItalic()) {
+                out.write(" font-style: italic;");
+            }
+            out.write(style.getWrapText() ? " white-space: pre-wrap;" : " white-space: pre;");
+            out.write(" }\n");
+        }
+    }
+
+    void writeSheets() throws IOException {
+        for (int i = 0; i < workbook.getNumberOfSheets(); i++) {
+            writeSheet(workbook.getSheetAt(i));
+        }
+    }
+
+    private void writeSheet(Sheet sheet) throws IOException {
+        int columnCount = getColumnCount(sheet);
+        out.write("<h2>" + htmlEscape(sheet.getSheetName()) + "</h2>\n");
+        out.write("<table style=\"border-collapse: collapse; table-layout: fixed;\">\n<colgroup>\n");
+        for (int col = 0; col < columnCount; col++) {
+            if (!sheet.isColumnHidden(col)) {
+                int width = Math.round(sheet.getColumnWidth(col) * PIXELS_PER_WIDTH_UNIT);
+                out.write("<col width=\"" + width + "\">\n");
+            }
+        }
+        out.write("</colgroup>\n<tbody>\n");
+        for (Row row : sheet) {
+            if (!row.getZeroHeight()) {
+                writeRow(sheet, row, columnCount);
+            }
+        }
+        out.write("</tbody>\n</table>\n");
+    }
+
+    private void writeRow(Sheet sheet, Row row, int columnCount) throws IOException {
+        out.write("<tr>");
+        for (int col = 0; col < columnCount; col++) {
+            if (sheet.isColumnHidden(col)) {
+                continue;
+            }
+            @Nullable Cell cell = row.getCell(col);
+            if (cell == null) {
+                out.write("<td></td>");
+            } else {
+                out.write("<td class=\"c" + cell.getCellStyle().getIndex() + "\">");
+                out.write(htmlEscape(getFormattedValue(cell)));
+                out.write("</td>");
+            }
+        }
+        out.write("</tr>\n");
+    }
+
+    private String getFormattedValue(Cell cell) {
+        CellType cellType = cell.getCellType();
+        if (cellType == CellType.FORMULA) {
+            evaluate(cell, evaluator);
+            cellType = cell.getCachedFormulaResultType();
+        }
+        return switch (cellType) {
+            case NUMERIC -> formatNumber(cell);
+            case STRING -> cell.getRichStringCellValue().getString();
+            case BOOLEAN -> String.valueOf(cell.getBooleanCellValue());
+            case ERROR -> FormulaError.forInt(cell.getErrorCellValue()).getString();
+            default -> "";
+        };
+    }
+
+    private String formatNumber(Cell cell) {
+        double value = cell.getNumericCellValue();
+        CellStyle style = cell.getCellStyle();
+        String format = style.getDataFormatString();
+        if (format == null || (DateUtil.isADateFormat(style.getDataFormat(), format) && !DateUtil.isValidExcelDate(value))) {
+            return String.valueOf(value);
+        }
+        return formatter.formatRawCellContents(value, style.getDataFormat(), format);
+    }
+
+    private static int getColumnCount(Sheet sheet) {
+        int columnCount = 0;
+        for (Row row : sheet) {
+            columnCount = Math.max(columnCount, row.getLastCellNum());
+        }
+        return columnCount;
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * InvestBook
+ * Copyright (C) 2022  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.investbook.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Inserts rows by multi-row INSERT ... ON DUPLICATE KEY UPDATE statements. Supported by MariaDB
+ * and H2 in MySQL compatibility mode.
+ */
+@Repository
+@RequiredArgsConstructor
+@Slf4j
+public class BatchInsertRepository {
+    private static final int MAX_PARAMETERS_PER_QUERY = 65_535; // MariaDB limit
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Inserts rows, rows with existing primary or unique key are skipped. Each statement is executed
+     * in its own transaction. Unlike INSERT IGNORE, MariaDB doesn't convert other errors (foreign key
+     * or not null constraint violation, data truncation) to warnings, so the batch with such a row fails
+     * and is returned to caller.
+     *
+     * @param columns   table columns
+     * @param toValues  converts row to column values, null value is inserted as column default value
+     * @param batchSize max rows inserted by one statement
+     * @return rows which are not inserted due to an error other than duplicate
+     */
+    public <T> List<T> insertIgnore(String table,
+                                    List<String> columns,
+                                    List<T> rows,
+                                    Function<T, @Nullable Object[]> toValues,
+                                    int batchSize) {
+        int rowsPerQuery = Math.max(1, Math.min(batchSize, MAX_PARAMETERS_PER_QUERY / columns.size()));
+        List<T> failedRows = new ArrayList<>(0);
+        for (int i = 0; i < rows.size(); i += rowsPerQuery) {
+            List<T> batch = rows.subList(i, Math.min(i + rowsPerQuery, rows.size()));
+            try {
+                transactionTemplate.executeWithoutResult(_ -> insertIgnore(table, columns, batch, toValues));
+            } catch (Exception e) {
+                log.debug("Не могу сохранить пакет из {} записей в таблицу {}", batch.size(), table, e);
+                failedRows.addAll(batch);
+            }
+        }
+        return failedRows;
+    }
+
+    private <T> void insertIgnore(String table,
+                                  List<String> columns,
+                                  List<T> batch,
+                                  Function<T, @Nullable Object[]> toValues) {
+        StringBuilder sql = new StringBuilder("INSERT INTO ")
+                .append(table)
+                .append(" (")
+                .append(String.join(", ", columns))
+                .append(") VALUES ");
+        List<Object> parameters = new ArrayList<>(batch.size() * columns.size());
+        for (int row = 0; row < batch.size(); row++) {
+            @Nullable Object[] values = toValues.apply(batch.get(row));
+            sql.append((row == 0) ? "(" : ", (");
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    sql.append(", ");
+                }
+                @Nullable Object value = values[i];
+                if (value == null) {
+                    sql.append("DEFAULT");
+                } else {
+                    parameters.add(value);
+                    sql.append('?').append(parameters.size());
+                }
+            }
+            sql.append(')');
+        }
+        String column = columns.getFirst();
+        sql.append(" ON DUPLICATE KEY UPDATE ") // no-op update, skips duplicate only
+                .append(column)
+                .append(" = ")
+                .append(column);
+        Query query = entityManager.createNativeQuery(sql.toString());
+        for (int i = 0; i < parameters.size(); i++) {
+            query.setParameter(i + 1, parameters.get(i));
+        }
+        query.executeUpdate();
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * InvestBook
+ * Copyright (C) 2022  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package ru.investbook.repository;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+import static java.time.ZoneOffset.UTC;
+
+/**
+ * Published when data used by reports is inserted, updated or deleted. Null field matches any value,
+ * for ex. event without timestamp affects all dates.
+ *
+ * @param currencyPair in USDRUB format, for foreign exchange rate only. For transaction and security event cash flow
+ *                     of foreign exchange contract consumer resolves currency pair by security id
+ * @param timestamp    event time, for foreign exchange rate - start of date in UTC
+ */
+public record DataChangedEvent(Type type,
+                               @Nullable String portfolio,
+                               @Nullable Integer security,
+                               @Nullable String currencyPair,
+                               @Nullable Instant timestamp) {
+
+    public static DataChangedEvent transaction(String portfolio, int security, Instant timestamp) {
+        return new DataChangedEvent(Type.TRANSACTION, portfolio, security, null, timestamp);
+    }
+
+    public static DataChangedEvent securityEventCashFlow(String portfolio, int security, Instant timestamp) {
+        return new DataChangedEvent(Type.SECURITY_EVENT_CASH_FLOW, portfolio, security, null, timestamp);
+    }
+
+    public static DataChangedEvent foreignExchangeRate(String currencyPair, LocalDate date) {
+        return new DataChangedEvent(Type.FOREIGN_EXCHANGE_RATE, null, null, currencyPair.toUpperCase(),
+                date.atStartOfDay(UTC).toInstant());
+    }
+
+    public static DataChangedEvent securityQuote(int security, Instant timestamp) {
+        return new DataChangedEvent(Type.SECURITY_QUOTE, null, security, null, timestamp);
+    }
+
+    /**
+     * Other data of portfolio or of all portfolios is changed, for ex. cash balance or security name
+     */
+    public static DataChangedEvent other(@Nullable String portfolio) {
+        return new DataChangedEvent(Type.OTHER, portfolio, null, null, null);
+    }
+
+    /**
+     * All data is changed, for ex. deleted
+     */
+    public static DataChangedEvent all() {
+        return new DataChangedEvent(Type.ALL, null, null, null, null);
+    }
+
+    public @Nullable LocalDate date() {
+        return (timestamp == null) ? null : LocalDate.ofInstant(timestamp, UTC);
+    }
+
+    public enum Type {
+        TRANSACTION, SECURITY_EVENT_CASH_FLOW, FOREIGN_EXCHANGE_RATE, SECURITY_QUOTE, OTHER, ALL
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * InvestBook
+ * Copyright (C) 2022  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package ru.investbook.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import ru.investbook.entity.EventCashFlowEntity;
+import ru.investbook.entity.ForeignExchangeRateEntity;
+import ru.investbook.entity.PortfolioCashEntity;
+import ru.investbook.entity.PortfolioEntity;
+import ru.investbook.entity.PortfolioPropertyEntity;
+import ru.investbook.entity.SecurityDescriptionEntity;
+import ru.investbook.entity.SecurityEntity;
+import ru.investbook.entity.SecurityEventCashFlowEntity;
+import ru.investbook.entity.SecurityQuoteEntity;
+import ru.investbook.entity.StockMarketIndexEntity;
+import ru.investbook.entity.TransactionCashFlowEntity;
+import ru.investbook.entity.TransactionEntity;
+
+import java.time.Instant;
+
+/**
+ * Publishes {@link DataChangedEvent} for entities read by reports and inserted, updated or deleted by Hibernate.
+ * Changes are passed by {@link EntityChangeListener}, rows inserted by native queries are published by caller.
+ * JPQL bulk updates and deletes also bypass Hibernate listeners, events for them are published by caller.
+ * Only ids of referenced entities are read, lazy references are not initialized during flush.
+ */
+@Component
+@RequiredArgsConstructor
+public class DataChangedEventPublisher {
+    private final ApplicationEventPublisher eventPublisher;
+
+    void publish(Object entity) {
+        @Nullable DataChangedEvent event = switch (entity) {
+            case TransactionEntity e -> DataChangedEvent.transaction(
+                    e.getPortfolio(), e.getSecurity().getId(), e.getTimestamp());
+            case SecurityEventCashFlowEntity e -> DataChangedEvent.securityEventCashFlow(
+                    e.getPortfolio().getId(), e.getSecurity().getId(), e.getTimestamp());
+            case ForeignExchangeRateEntity e -> DataChangedEvent.foreignExchangeRate(
+                    e.getPk().getCurrencyPair(), e.getPk().getDate());
+            case SecurityQuoteEntity e -> DataChangedEvent.securityQuote(e.getSecurity().getId(), e.getTimestamp());
+            case TransactionCashFlowEntity e -> DataChangedEvent.other(e.getTransaction().getPortfolio());
+            case EventCashFlowEntity e -> DataChangedEvent.other(e.getPortfolio().getId());
+            case PortfolioCashEntity e -> DataChangedEvent.other(e.getPortfolio());
+            case PortfolioPropertyEntity e -> DataChangedEvent.other(e.getPortfolio().getId());
+            case PortfolioEntity e -> DataChangedEvent.other(e.getId());
+            case SecurityEntity _, SecurityDescriptionEntity _, StockMarketIndexEntity _ -> DataChangedEvent.other(null);
+            default -> null; // not read by reports, for ex. open positions refreshed with transactions
+        };
+        if (event != null) {
+            eventPublisher.publishEvent(event);
+        }
+    }
+
+    /**
+     * Publishes event for previous portfolio, security or timestamp of updated entity
+     */
+    void publishOldState(Object entity, @Nullable Object portfolio, @Nullable Object security, @Nullable Object timestamp) {
+        if (security instanceof SecurityEntity s && timestamp instanceof Instant t) {
+            if (entity instanceof TransactionEntity && portfolio instanceof String p) {
+                eventPublisher.publishEvent(DataChangedEvent.transaction(p, s.getId(), t));
+            } else if (entity instanceof SecurityEventCashFlowEntity && portfolio instanceof PortfolioEntity p) {
+                eventPublisher.publishEvent(DataChangedEvent.securityEventCashFlow(p.getId(), s.getId(), t));
+            }
+        }
+    }
+}
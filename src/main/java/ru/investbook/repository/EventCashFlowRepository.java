@@ -18,8 +18,11 @@
 
 package ru.investbook.repository;
 
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.transaction.annotation.Transactional;
 import ru.investbook.entity.EventCashFlowEntity;
 
@@ -27,12 +30,25 @@ import java.time.Instant;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Transactional(readOnly = true)
 public interface EventCashFlowRepository extends JpaRepository<EventCashFlowEntity, Integer>, JpaSpecificationExecutor<EventCashFlowEntity> {
 
     Optional<EventCashFlowEntity> findFirstByOrderByTimestampDesc();
 
+    /**
+     * Returns all cash flows ordered by id. Rows are fetched by cursor, stream should be closed.
+     */
+    @Query("SELECT e FROM EventCashFlowEntity e ORDER BY e.id")
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    Stream<EventCashFlowEntity> streamAll();
+
     List<EventCashFlowEntity> findByPortfolioIdAndCashFlowTypeIdOrderByTimestamp(String portfolio,
                                                                                  int cashFlowType);
 
@@ -42,6 +42,8 @@ public interface ForeignExchangeRateRepository extends
 
     List<ForeignExchangeRateEntity> findByPkCurrencyPairOrderByPkDateDesc(String currencyPair);
 
+    List<ForeignExchangeRateEntity> findByPkCurrencyPairOrderByPkDateAsc(String currencyPair);
+
     @Query(value = """
         SELECT max(t.pk.date)
             FROM ForeignExchangeRateEntity t
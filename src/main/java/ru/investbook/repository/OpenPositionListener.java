@@ -0,0 +1,95 @@
+/*
+ * InvestBook
+ * Copyright (C) 2022  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package ru.investbook.repository;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.investbook.entity.OpenPositionEntityPk;
+import ru.investbook.entity.SecurityEntity;
+import ru.investbook.entity.TransactionEntity;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Collects portfolio and security of transactions inserted, updated or deleted by Hibernate and refreshes
+ * their open positions before commit in the same DB transaction. Changes are passed by {@link EntityChangeListener}.
+ * Rows inserted by native queries are refreshed by caller, see {@link OpenPositionRepository#refresh}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OpenPositionListener {
+    private final EntityManager entityManager;
+    private final OpenPositionRepository openPositionRepository;
+
+    void onChange(Object entity) {
+        if (entity instanceof TransactionEntity transaction) {
+            add(transaction.getPortfolio(), transaction.getSecurity());
+        }
+    }
+
+    /**
+     * Refreshes position of previous portfolio or security of updated transaction
+     */
+    void onOldStateChange(Object entity, @Nullable Object portfolio, @Nullable Object security) {
+        if (entity instanceof TransactionEntity && portfolio instanceof String p && security instanceof SecurityEntity s) {
+            add(p, s);
+        }
+    }
+
+    private void add(String portfolio, SecurityEntity security) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            log.warn("Сделка изменена вне транзакции, открытая позиция не обновлена: счет {}, инструмент {}",
+                    portfolio, security.getId());
+            return;
+        }
+        TransactionSynchronizationManager.getSynchronizations()
+                .stream()
+                .filter(OpenPositionRefresher.class::isInstance)
+                .map(OpenPositionRefresher.class::cast)
+                .findAny()
+                .orElseGet(this::registerOpenPositionRefresher)
+                .positions
+                .add(OpenPositionEntityPk.of(portfolio, security.getId()));
+    }
+
+    private OpenPositionRefresher registerOpenPositionRefresher() {
+        OpenPositionRefresher refresher = new OpenPositionRefresher();
+        TransactionSynchronizationManager.registerSynchronization(refresher);
+        return refresher;
+    }
+
+    private class OpenPositionRefresher implements TransactionSynchronization {
+        private final Set<OpenPositionEntityPk> positions = new LinkedHashSet<>();
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            entityManager.flush(); // pending updates and deletes fire events before refresh
+            openPositionRepository.refresh(List.copyOf(positions));
+        }
+    }
+}
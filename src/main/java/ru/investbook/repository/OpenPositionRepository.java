@@ -0,0 +1,64 @@
+/*
+ * InvestBook
+ * Copyright (C) 2022  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package ru.investbook.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+import ru.investbook.entity.OpenPositionEntity;
+import ru.investbook.entity.OpenPositionEntityPk;
+
+import java.util.Collection;
+
+@Transactional(readOnly = true)
+public interface OpenPositionRepository extends JpaRepository<OpenPositionEntity, OpenPositionEntityPk> {
+
+    /**
+     * Recalculates open positions by transactions
+     */
+    @Transactional
+    default void refresh(Collection<OpenPositionEntityPk> positions) {
+        for (OpenPositionEntityPk position : positions) {
+            deletePosition(position.getPortfolio(), position.getSecurity());
+            insertPositionFromTransactions(position.getPortfolio(), position.getSecurity());
+        }
+    }
+
+    @Transactional
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            DELETE FROM open_position
+            WHERE portfolio = :portfolio AND security = :security
+            """)
+    void deletePosition(String portfolio, int security);
+
+    @Transactional
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            INSERT INTO open_position (portfolio, security, count)
+            SELECT portfolio, security, SUM(count)
+            FROM transaction
+            WHERE portfolio = :portfolio AND security = :security
+            GROUP BY portfolio, security
+            HAVING SUM(count) <> 0
+            """)
+    void insertPositionFromTransactions(String portfolio, int security);
+}
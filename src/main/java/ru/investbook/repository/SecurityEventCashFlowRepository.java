@@ -18,8 +18,12 @@
 
 package ru.investbook.repository;
 
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 import ru.investbook.entity.SecurityEventCashFlowEntity;
 
@@ -28,6 +32,10 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Transactional(readOnly = true)
 public interface SecurityEventCashFlowRepository extends
@@ -38,6 +46,28 @@ public interface SecurityEventCashFlowRepository extends
 
     List<SecurityEventCashFlowEntity> findByCashFlowTypeId(int type);
 
+    /**
+     * Returns cash flows ordered by id except excluded types joined with tax of the same security event:
+     * {@code [SecurityEventCashFlowEntity, SecurityEventCashFlowEntity]}. Tax is null for event without tax.
+     * Rows are fetched by cursor, stream should be closed.
+     */
+    @Query("""
+            SELECT e, tax FROM SecurityEventCashFlowEntity e
+            LEFT JOIN SecurityEventCashFlowEntity tax
+                ON tax.portfolio = e.portfolio
+                AND tax.security = e.security
+                AND tax.timestamp = e.timestamp
+                AND tax.count = e.count
+                AND tax.cashFlowType.id = :taxType
+            WHERE e.cashFlowType.id NOT IN :excludedTypes
+            ORDER BY e.id
+            """)
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    Stream<Object[]> streamAllJoinTax(@Param("taxType") int taxType,
+                                      @Param("excludedTypes") Collection<Integer> excludedTypes);
+
     Optional<SecurityEventCashFlowEntity> findByPortfolioIdAndSecurityIdAndCashFlowTypeIdAndTimestampAndCount(
             String portfolio,
             Integer securityId,
@@ -71,6 +101,19 @@ public interface SecurityEventCashFlowRepository extends
             Instant fromDate,
             Instant toDate);
 
+    List<SecurityEventCashFlowEntity> findByPortfolioIdInAndSecurityIdInAndCashFlowTypeIdInAndTimestampBetweenOrderByTimestampAsc(
+            Collection<String> portfolios,
+            Collection<Integer> securityIds,
+            Set<Integer> cashFlowType,
+            Instant fromDate,
+            Instant toDate);
+
+    List<SecurityEventCashFlowEntity> findBySecurityIdInAndCashFlowTypeIdInAndTimestampBetweenOrderByTimestampAsc(
+            Collection<Integer> securityIds,
+            Set<Integer> cashFlowType,
+            Instant fromDate,
+            Instant toDate);
+
     /**
      * Return all portfolio payments, between date-time interval
      */
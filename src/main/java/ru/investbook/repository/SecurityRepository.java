@@ -42,6 +42,32 @@ public interface SecurityRepository extends JpaRepository<SecurityEntity, Intege
 
     Collection<SecurityEntity> findByTypeIn(Collection<SecurityType> securityType);
 
+    /**
+     * @param portfolios all portfolios if empty
+     * @return securities with non-zero sum of transaction counts in any of portfolios
+     */
+    default Collection<SecurityEntity> findOpenedByPortfolioInAndTypeIn(Collection<String> portfolios,
+                                                                        Collection<SecurityType> securityType) {
+        return portfolios.isEmpty() ?
+                findOpenedByTypeIn(securityType) :
+                findOpenedByNonEmptyPortfolioInAndTypeIn(portfolios, securityType);
+    }
+
+    @Query("""
+            SELECT s FROM SecurityEntity s
+            WHERE s.type IN :securityType
+            AND EXISTS (SELECT p FROM OpenPositionEntity p WHERE p.pk.security = s.id)
+            """)
+    Collection<SecurityEntity> findOpenedByTypeIn(Collection<SecurityType> securityType);
+
+    @Query("""
+            SELECT s FROM SecurityEntity s
+            WHERE s.type IN :securityType
+            AND EXISTS (SELECT p FROM OpenPositionEntity p WHERE p.pk.security = s.id AND p.pk.portfolio IN :portfolios)
+            """)
+    Collection<SecurityEntity> findOpenedByNonEmptyPortfolioInAndTypeIn(Collection<String> portfolios,
+                                                                        Collection<SecurityType> securityType);
+
     /**
      * @return in USDRUB format
      */
@@ -40,6 +40,8 @@ public interface TransactionCashFlowRepository extends JpaRepository<Transaction
 
     List<TransactionCashFlowEntity> findByTransactionId(int transactionId);
 
+    List<TransactionCashFlowEntity> findByTransactionIdIn(Collection<Integer> transactionIds);
+
     @Query(nativeQuery = true, value = """
             SELECT * FROM transaction_cash_flow
             WHERE transaction_id = :transactionId AND type = :#{#cashFlowType.id}
@@ -18,13 +18,16 @@
 
 package ru.investbook.repository;
 
+import jakarta.persistence.QueryHint;
 import org.spacious_team.broker.pojo.Portfolio;
 import org.spacious_team.broker.pojo.Security;
+import org.spacious_team.broker.pojo.SecurityType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 import ru.investbook.entity.TransactionEntity;
@@ -34,6 +37,10 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Transactional(readOnly = true)
 public interface TransactionRepository extends
@@ -53,6 +60,43 @@ public interface TransactionRepository extends
 
     Optional<TransactionEntity> findByPortfolioAndTradeId(String portfolio, String tradeId);
 
+    List<TransactionEntity> findByPortfolioInAndTradeIdIn(Collection<String> portfolios, Collection<String> tradeIds);
+
+    /**
+     * Returns all transactions ordered by id joined with their cash flows, one row per cash flow:
+     * {@code [TransactionEntity, TransactionCashFlowEntity]}. Cash flow is null for transaction without cash flows.
+     * Rows are fetched by cursor, stream should be closed.
+     */
+    @Query("""
+            SELECT t, c FROM TransactionEntity t
+            JOIN FETCH t.security
+            LEFT JOIN TransactionCashFlowEntity c ON c.transactionId = t.id
+            ORDER BY t.id
+            """)
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    Stream<Object[]> streamAllJoinTransactionCashFlows();
+
+    /**
+     * Returns transactions ordered by id which security type is not in excluded types and which has
+     * no cash flows of given types. Rows are fetched by cursor, stream should be closed.
+     */
+    @Query("""
+            SELECT t FROM TransactionEntity t
+            JOIN FETCH t.security s
+            WHERE s.type NOT IN :excludedSecurityTypes
+                AND NOT EXISTS (SELECT c.id FROM TransactionCashFlowEntity c
+                                WHERE c.transactionId = t.id AND c.cashFlowType.id IN :cashFlowTypes)
+            ORDER BY t.id
+            """)
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    Stream<TransactionEntity> streamAllWithoutCashFlowTypes(
+            @Param("cashFlowTypes") Collection<Integer> cashFlowTypes,
+            @Param("excludedSecurityTypes") Collection<SecurityType> excludedSecurityTypes);
+
     /**
      * Returns stock market share, bonds ISINs and assets
      */
@@ -135,7 +135,8 @@ public class AssetsAndCashServiceImpl implements AssetsAndCashService {
         try {
             long t0 = nanoTime();
             FifoPositionsFilter filter = FifoPositionsFilter.of(portfolio);
-            @Nullable BigDecimal assetsInRub = securityRepository.findByTypeIn(stockBondAndAssetTypes)
+            @Nullable BigDecimal assetsInRub = securityRepository
+                    .findOpenedByPortfolioInAndTypeIn(Set.of(portfolio), stockBondAndAssetTypes)
                     .stream()
                     .map(securityConverter::fromEntity)
                     .map(security -> investmentProportionService
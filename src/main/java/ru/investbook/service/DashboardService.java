@@ -0,0 +1,141 @@
+/*
+ * InvestBook
+ * Copyright (C) 2022  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.investbook.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.investbook.InvestbookProperties;
+import ru.investbook.repository.DataChangedEvent;
+import ru.investbook.repository.TransactionRepository;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Computes home page data in background after data changes, so home page is rendered without waiting for
+ * assets estimation by securities quotes of portfolios without broker's assets value.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class DashboardService {
+    private final AssetsAndCashService assetsAndCashService;
+    private final TransactionRepository transactionRepository;
+    private final InvestbookProperties properties;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("dashboard-refresh").daemon().factory());
+    private final Object computeLock = new Object();
+    private volatile @Nullable DashboardSnapshot snapshot;
+    private volatile @Nullable ScheduledFuture<?> refreshTask;
+
+    /**
+     * @return last computed snapshot, snapshot is computed by calling thread only if it was never computed.
+     * Outdated snapshot is returned, while new one is computed in background.
+     */
+    public DashboardSnapshot getSnapshot() {
+        @Nullable DashboardSnapshot current = snapshot;
+        if (current == null) {
+            synchronized (computeLock) {
+                current = snapshot;
+                return (current == null) ? compute() : current;
+            }
+        } else if (current.isOlderThan(properties.getDashboardMaxAge()) && !isRefreshing()) {
+            scheduleRefresh(Duration.ZERO);
+        }
+        return current;
+    }
+
+    /**
+     * @return true if snapshot is outdated and new one is going to be computed
+     */
+    public boolean isRefreshing() {
+        @Nullable ScheduledFuture<?> task = refreshTask;
+        return task != null && !task.isDone();
+    }
+
+    /**
+     * Computes snapshot by calling thread
+     */
+    public DashboardSnapshot refresh() {
+        synchronized (computeLock) {
+            return compute();
+        }
+    }
+
+    private DashboardSnapshot compute() {
+        Set<String> portfolios = assetsAndCashService.getActivePortfolios();
+        Optional<BigDecimal> assets = assetsAndCashService.getTotalAssetsInRub(portfolios);
+        Optional<BigDecimal> cashBalance = assetsAndCashService.getTotalCashInRub(portfolios);
+        int transactionsCount = transactionRepository.countByPortfolioIn(portfolios);
+        DashboardSnapshot computed = new DashboardSnapshot(portfolios, transactionsCount, assets, cashBalance, Instant.now());
+        snapshot = computed;
+        return computed;
+    }
+
+    /**
+     * In fast start mode computation is delayed to not compete with the first requests
+     * for initialization of lazy subsystems
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    void onApplicationReady() {
+        scheduleRefresh(properties.isFastStart() ? properties.getDashboardStartDelay() : Duration.ZERO);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    void onDataChanged(DataChangedEvent event) {
+        scheduleRefresh(properties.getDashboardRefreshDelay());
+    }
+
+    /**
+     * Refresh is delayed to compute snapshot once after series of data changes, for ex. after report import
+     */
+    private synchronized void scheduleRefresh(Duration delay) {
+        @Nullable ScheduledFuture<?> task = refreshTask;
+        if (task != null) {
+            task.cancel(false);
+        }
+        refreshTask = executor.schedule(this::refreshInBackground, delay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void refreshInBackground() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            log.warn("Не удалось обновить данные главной страницы", e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
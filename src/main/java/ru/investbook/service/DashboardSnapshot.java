@@ -0,0 +1,41 @@
+/*
+ * InvestBook
+ * Copyright (C) 2022  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.investbook.service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Home page data of active portfolios
+ *
+ * @param createdAt time of computation
+ */
+public record DashboardSnapshot(Set<String> portfolios,
+                                int transactionsCount,
+                                Optional<BigDecimal> assets,
+                                Optional<BigDecimal> cashBalance,
+                                Instant createdAt) {
+
+    boolean isOlderThan(Duration maxAge) {
+        return createdAt.plus(maxAge).isBefore(Instant.now());
+    }
+}
@@ -94,7 +94,7 @@ public class InvestmentProportionService {
     }
 
     private Stream<SecurityInvestment> getSecurityInvestmentStream(FifoPositionsFilter filter) {
-        return securityRepository.findByTypeIn(stockAndBondTypes)
+        return securityRepository.findOpenedByPortfolioInAndTypeIn(filter.getPortfolios(), stockAndBondTypes)
                 .stream()
                 .map(securityConverter::fromEntity)
                 .map(security -> getCurrentAmount(security, filter))
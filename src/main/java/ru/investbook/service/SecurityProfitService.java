@@ -24,6 +24,7 @@ import org.spacious_team.broker.pojo.Security;
 import org.spacious_team.broker.pojo.SecurityQuote;
 import org.spacious_team.broker.pojo.Transaction;
 import ru.investbook.report.FifoPositions;
+import ru.investbook.report.TransactionCashFlows;
 
 import java.math.BigDecimal;
 import java.time.Instant;
@@ -43,18 +44,37 @@ public interface SecurityProfitService {
     BigDecimal getGrossProfit(
             Collection<String> portfolios, Security security, FifoPositions positions, String toCurrency);
 
+    /**
+     * @param cashFlows cash flows of positions transactions, loaded once for several calculations by positions
+     * @see ru.investbook.report.TransactionCashFlowsFactory
+     */
+    BigDecimal getGrossProfit(Collection<String> portfolios,
+                              Security security,
+                              FifoPositions positions,
+                              TransactionCashFlows cashFlows,
+                              String toCurrency);
+
     /**
      * Разница доходов с продажи и расходов на покупку
      */
     BigDecimal getPurchaseCost(Security security, FifoPositions positions, String toCurrency);
 
+    BigDecimal getPurchaseCost(Security security, FifoPositions positions, TransactionCashFlows cashFlows, String toCurrency);
+
     /**
      * Разница проданного и купленного НКД
      */
     BigDecimal getPurchaseAccruedInterest(Security security, FifoPositions positions, String toCurrency);
 
+    BigDecimal getPurchaseAccruedInterest(Security security,
+                                          FifoPositions positions,
+                                          TransactionCashFlows cashFlows,
+                                          String toCurrency);
+
     BigDecimal getTotal(Deque<Transaction> transactions, CashFlowType type, String toCurrency);
 
+    BigDecimal getTotal(Deque<Transaction> transactions, TransactionCashFlows cashFlows, CashFlowType type, String toCurrency);
+
     BigDecimal sumPaymentsForType(
             Collection<String> portfolios, Security security, CashFlowType cashFlowType, String toCurrency);
 
@@ -32,6 +32,8 @@ import ru.investbook.report.ClosedPosition;
 import ru.investbook.report.FifoPositions;
 import ru.investbook.report.ForeignExchangeRateService;
 import ru.investbook.report.OpenedPosition;
+import ru.investbook.report.TransactionCashFlows;
+import ru.investbook.report.TransactionCashFlowsFactory;
 import ru.investbook.report.ViewFilter;
 import ru.investbook.repository.SecurityEventCashFlowRepository;
 import ru.investbook.repository.SecurityQuoteRepository;
@@ -66,6 +68,7 @@ public class SecurityProfitServiceImpl implements SecurityProfitService {
     private final SecurityRepository securityRepository;
     private final TransactionRepository transactionRepository;
     private final TransactionCashFlowRepository transactionCashFlowRepository;
+    private final TransactionCashFlowsFactory transactionCashFlowsFactory;
     private final SecurityEventCashFlowRepository securityEventCashFlowRepository;
     private final SecurityQuoteRepository securityQuoteRepository;
     private final SecurityQuoteConverter securityQuoteConverter;
@@ -89,19 +92,43 @@ public class SecurityProfitServiceImpl implements SecurityProfitService {
     @Override
     public BigDecimal getGrossProfit(Collection<String> portfolios, Security security, FifoPositions positions, String toCurrency) {
         return switch (security.getType()) {
-            case STOCK, BOND, STOCK_OR_BOND, ASSET -> getPurchaseCost(security, positions, toCurrency)
-                    .add(getPurchaseAccruedInterest(security, positions, toCurrency));
+            case STOCK, BOND, STOCK_OR_BOND, ASSET, CURRENCY_PAIR -> {
+                TransactionCashFlows cashFlows = transactionCashFlowsFactory.get(positions.getTransactions());
+                yield getGrossProfit(portfolios, security, positions, cashFlows, toCurrency);
+            }
+            case DERIVATIVE -> sumPaymentsForType(portfolios, security, CashFlowType.DERIVATIVE_PROFIT, toCurrency);
+        };
+    }
+
+    @Override
+    public BigDecimal getGrossProfit(Collection<String> portfolios,
+                                     Security security,
+                                     FifoPositions positions,
+                                     TransactionCashFlows cashFlows,
+                                     String toCurrency) {
+        return switch (security.getType()) {
+            case STOCK, BOND, STOCK_OR_BOND, ASSET -> getPurchaseCost(security, positions, cashFlows, toCurrency)
+                    .add(getPurchaseAccruedInterest(security, positions, cashFlows, toCurrency));
             case DERIVATIVE -> sumPaymentsForType(portfolios, security, CashFlowType.DERIVATIVE_PROFIT, toCurrency);
-            case CURRENCY_PAIR -> getPurchaseCost(security, positions, toCurrency);
+            case CURRENCY_PAIR -> getPurchaseCost(security, positions, cashFlows, toCurrency);
         };
     }
 
     @Override
     public BigDecimal getPurchaseCost(Security security, FifoPositions positions, String toCurrency) {
+        TransactionCashFlows cashFlows = transactionCashFlowsFactory.get(positions.getTransactions());
+        return getPurchaseCost(security, positions, cashFlows, toCurrency);
+    }
+
+    @Override
+    public BigDecimal getPurchaseCost(Security security,
+                                      FifoPositions positions,
+                                      TransactionCashFlows cashFlows,
+                                      String toCurrency) {
         return switch (security.getType()) {
-            case STOCK, BOND, STOCK_OR_BOND, ASSET -> getStockOrBondPurchaseCost(positions, toCurrency);
-            case DERIVATIVE -> getTotal(positions.getTransactions(), CashFlowType.DERIVATIVE_PRICE, toCurrency);
-            case CURRENCY_PAIR -> getTotal(positions.getTransactions(), CashFlowType.PRICE, toCurrency);
+            case STOCK, BOND, STOCK_OR_BOND, ASSET -> getStockOrBondPurchaseCost(positions, cashFlows, toCurrency);
+            case DERIVATIVE -> getTotal(positions.getTransactions(), cashFlows, CashFlowType.DERIVATIVE_PRICE, toCurrency);
+            case CURRENCY_PAIR -> getTotal(positions.getTransactions(), cashFlows, CashFlowType.PRICE, toCurrency);
         };
     }
 
@@ -110,18 +137,20 @@ public class SecurityProfitServiceImpl implements SecurityProfitService {
      * продажи, если ЦБ введена на счет (исключение - ввод/вывод бумаг в рамках сплита акции,
      * в этом случае цены открытия позиции учитываются).
      */
-    private BigDecimal getStockOrBondPurchaseCost(FifoPositions positions, String toCurrency) {
+    private BigDecimal getStockOrBondPurchaseCost(FifoPositions positions,
+                                                  TransactionCashFlows cashFlows,
+                                                  String toCurrency) {
         BigDecimal purchaseCost = positions.getOpenedPositions()
                 .stream()
-                .map(openPosition -> getTransactionValue(openPosition.getOpenTransaction(), CashFlowType.PRICE, toCurrency)
+                .map(openPosition -> getTransactionValue(openPosition.getOpenTransaction(), cashFlows, CashFlowType.PRICE, toCurrency)
                         .map(value -> getOpenAmount(value, openPosition)))
                 .flatMap(Optional::stream)
                 .reduce(BigDecimal.ZERO, BigDecimal::add); // если ценная бумага не вводилась на счет, а была куплена (есть цена покупки)
         for (ClosedPosition closedPosition : positions.getClosedPositions()) {
-            @Nullable BigDecimal openAmount = getTransactionValue(closedPosition.getOpenTransaction(), CashFlowType.PRICE, toCurrency)
+            @Nullable BigDecimal openAmount = getTransactionValue(closedPosition.getOpenTransaction(), cashFlows, CashFlowType.PRICE, toCurrency)
                     .map(value -> getOpenAmount(value, closedPosition))
                     .orElse(null);
-            @Nullable BigDecimal closeAmount = getTransactionValue(closedPosition.getCloseTransaction(), CashFlowType.PRICE, toCurrency)
+            @Nullable BigDecimal closeAmount = getTransactionValue(closedPosition.getCloseTransaction(), cashFlows, CashFlowType.PRICE, toCurrency)
                     .map(value -> getClosedAmount(value, closedPosition))
                     .orElse(null);
             if (openAmount != null && closeAmount != null) {
@@ -132,7 +161,7 @@ public class SecurityProfitServiceImpl implements SecurityProfitService {
                 // Событие погашения не имеет цену закрытия (нет события CashFlowType.PRICE), учитываем цену открытия,
                 // цена закрытия будет учтена ниже из объектов 'SecurityEventCashFlow'
                 purchaseCost = purchaseCost.add(openAmount);
-            } else if (openAmount != null && isStockSplit(closedPosition.getCloseTransaction())) {
+            } else if (openAmount != null && isStockSplit(closedPosition.getCloseTransaction(), cashFlows)) {
                 // Сплит акций, акции не выводятся, нужно учитывать цену покупки
                 purchaseCost = purchaseCost.add(openAmount);
             }
@@ -144,8 +173,8 @@ public class SecurityProfitServiceImpl implements SecurityProfitService {
                 .reduce(purchaseCost, BigDecimal::add);
     }
 
-    private boolean isStockSplit(Transaction transaction) {
-        if (!transactionCashFlowRepository.isDepositOrWithdrawal(requireNonNull(transaction.getId()))) {
+    private boolean isStockSplit(Transaction transaction, TransactionCashFlows cashFlows) {
+        if (!cashFlows.isDepositOrWithdrawal(requireNonNull(transaction.getId()))) {
             return false;
         }
         LocalDate transactionDay = LocalDate.ofInstant(transaction.getTimestamp(), zoneId);
@@ -164,27 +193,50 @@ public class SecurityProfitServiceImpl implements SecurityProfitService {
     @Override
     public BigDecimal getPurchaseAccruedInterest(Security security, FifoPositions positions, String toCurrency) {
         if (security.getType().isBond()) {
-            return getTotal(positions.getTransactions(), CashFlowType.ACCRUED_INTEREST, toCurrency);
+            TransactionCashFlows cashFlows = transactionCashFlowsFactory.get(positions.getTransactions());
+            return getPurchaseAccruedInterest(security, positions, cashFlows, toCurrency);
+        }
+        return BigDecimal.ZERO;
+    }
+
+    @Override
+    public BigDecimal getPurchaseAccruedInterest(Security security,
+                                                 FifoPositions positions,
+                                                 TransactionCashFlows cashFlows,
+                                                 String toCurrency) {
+        if (security.getType().isBond()) {
+            return getTotal(positions.getTransactions(), cashFlows, CashFlowType.ACCRUED_INTEREST, toCurrency);
         }
         return BigDecimal.ZERO;
     }
 
     @Override
     public BigDecimal getTotal(Deque<Transaction> transactions, CashFlowType type, String toCurrency) {
+        TransactionCashFlows cashFlows = transactionCashFlowsFactory.get(transactions);
+        return getTotal(transactions, cashFlows, type, toCurrency);
+    }
+
+    @Override
+    public BigDecimal getTotal(Deque<Transaction> transactions,
+                               TransactionCashFlows cashFlows,
+                               CashFlowType type,
+                               String toCurrency) {
         return transactions.stream()
                 .filter(t -> t.getId() != null && t.getCount() != 0)
-                .map(t -> getTransactionValue(t, type, toCurrency))
+                .map(t -> getTransactionValue(t, cashFlows, type, toCurrency))
                 .filter(Optional::isPresent)
                 .map(Optional::get)
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
     }
 
-    private Optional<BigDecimal> getTransactionValue(Transaction t, CashFlowType type, String toCurrency) {
+    private Optional<BigDecimal> getTransactionValue(Transaction t,
+                                                     TransactionCashFlows cashFlows,
+                                                     CashFlowType type,
+                                                     String toCurrency) {
         if (t.getId() == null) { // redemption
             return Optional.empty();
         }
-        return transactionCashFlowRepository
-                .findByTransactionIdAndCashFlowType(requireNonNull(t.getId()), type)
+        return cashFlows.get(requireNonNull(t.getId()), type)
                 .map(entity -> convertToCurrency(entity.getValue(), entity.getCurrency(), toCurrency));
     }
 
@@ -22,10 +22,13 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.spacious_team.broker.pojo.SecurityDescription;
 import org.spacious_team.broker.pojo.SecurityType;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.investbook.converter.SecurityDescriptionConverter;
+import ru.investbook.entity.SecurityDescriptionEntity;
 import ru.investbook.entity.SecurityEntity;
+import ru.investbook.repository.DataChangedEvent;
 import ru.investbook.repository.SecurityDescriptionRepository;
 import ru.investbook.repository.SecurityRepository;
 import ru.investbook.service.moex.MoexIssClient;
@@ -58,6 +61,7 @@ public class SecuritySectorService {
     private final SecurityDescriptionConverter securityDescriptionConverter;
     private final SmartlabShareSectors smartlabShareSectors;
     private final MoexIssClient moexIssClient;
+    private final ApplicationEventPublisher eventPublisher;
     private final Set<SecurityType> stockAndBonds = Set.of(STOCK, BOND, STOCK_OR_BOND);
 
     @Transactional
@@ -107,13 +111,17 @@ public class SecuritySectorService {
     private void updateSecuritySectors(Collection<SecurityEntity> securityEntities,
                                        boolean forceUpdate,
                                        Supplier<Map<String, String>> tickerToSector) {
-        securityEntities.stream()
+        List<SecurityDescriptionEntity> descriptions = securityEntities.stream()
                 .filter(entity -> forceUpdate || !securityDescriptionRepository.existsById(entity.getId()))
                 .map(entity -> getSecuritySector(tickerToSector.get(), entity))
                 .flatMap(Optional::stream)
                 .map(securityDescriptionConverter::toEntity)
-                .forEach(desc -> securityDescriptionRepository
-                        .createOrUpdateSector(desc.getSecurity(), desc.getSector()));
+                .toList();
+        descriptions.forEach(desc -> securityDescriptionRepository
+                .createOrUpdateSector(desc.getSecurity(), desc.getSector()));
+        if (!descriptions.isEmpty()) {
+            eventPublisher.publishEvent(DataChangedEvent.other(null)); // sector is updated by JPQL, not tracked by Hibernate listener
+        }
     }
 
     private Map<String, String> getTickerToSectorIndex() {
@@ -0,0 +1,30 @@
+/*
+ * InvestBook
+ * Copyright (C) 2022  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.investbook.service.moex;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.spacious_team.broker.pojo.SecurityQuote;
+
+/**
+ * Security quote from Moex board securities table
+ *
+ * @param quote quote without security identifier
+ */
+record MoexBoardQuote(String secId, @Nullable String shortname, @Nullable String isin, SecurityQuote quote) {
+}
@@ -419,6 +419,20 @@ public class MoexDerivativeCodeService {
         return empty();
     }
 
+    /**
+     * @return {@code Si-6.21} for option contract in {@code Si-6.21M270521CA75000} format,
+     * empty optional for options on stocks and option codes
+     */
+    public Optional<String> getOptionUnderlyingFuturesShortname(@Nullable String contract) {
+        if (contract == null || !isOptionShortname(contract)) {
+            return empty();
+        }
+        int EIdx = getOptionExpirationTypeCharPosition(contract);
+        int AIdx = getOptionAccountTypeCharPosition(contract, EIdx);
+        String underlying = contract.substring(0, AIdx);
+        return isFuturesShortname(underlying) ? Optional.of(underlying) : empty();
+    }
+
     /**
      * Convert derivative codes before storing to DB if you need
      */
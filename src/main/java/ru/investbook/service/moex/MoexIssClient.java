@@ -23,6 +23,7 @@ import org.spacious_team.broker.pojo.SecurityQuote;
 import org.spacious_team.broker.pojo.SecurityType;
 
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface MoexIssClient {
 
@@ -34,6 +35,13 @@ public interface MoexIssClient {
 
     Optional<SecurityQuote> getQuote(String moexSecId, MoexMarketDescription market);
 
+    /**
+     * Downloads board securities table by one request and streams its rows to consumer
+     *
+     * @param consumer receives quotes of securities traded on the board, not traded securities are skipped
+     */
+    void getBoardQuotes(MoexMarketDescription board, Consumer<MoexBoardQuote> consumer);
+
     /**
      * May be false negative (return false in case of no quotes on moex iss)
      *
@@ -18,16 +18,16 @@
 
 package ru.investbook.service.moex;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.spacious_team.broker.pojo.SecurityQuote;
 import org.spacious_team.broker.pojo.SecurityQuote.SecurityQuoteBuilder;
 import org.spacious_team.broker.pojo.SecurityType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpMethod;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
 
-import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.util.Collection;
 import java.util.HashMap;
@@ -35,9 +35,10 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static java.lang.String.valueOf;
-import static java.util.Objects.requireNonNull;
 import static java.util.Optional.empty;
 import static org.spacious_team.broker.pojo.SecurityType.*;
 
@@ -67,37 +68,69 @@ import static org.spacious_team.broker.pojo.SecurityType.*;
  * </pre>
  */
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class MoexIssClientImpl implements MoexIssClient {
 
-    private static final String securitiesUri = "http://iss.moex.com/iss/securities.json?" +
-            "iss.meta=off&" +
-            "securities.columns=secid,shortname,isin&" +
-            "start=0&" +
-            "limit=10&" +
-            "q={query}";
-    private static final String securityBoardsUri = "http://iss.moex.com/iss/securities/{secId}.json?" +
-            "iss.only=boards&" +
-            "boards.columns=is_primary,engine,market,boardid,currencyid";
-    private static final String securityDescriptionUri = "http://iss.moex.com/iss/securities/{secId}.json?" +
-            "iss.only=description&" +
-            "iss.meta=off";
-    private static final String quoteUri = "http://iss.moex.com/iss/engines/{engine}/markets/{market}/boards/{board}/securities/{secId}.json?" +
-            "iss.meta=off&" +
-            "iss.only=securities&" +
-            "securities.columns=SECID,PREVDATE,PREVADMITTEDQUOTE,PREVSETTLEPRICE,PREVPRICE,ACCRUEDINT,LOTSIZE,LOTVALUE,MINSTEP,STEPPRICE";
-    private static final String contractDescription = "http://iss.moex.com/iss/securities/{secId}.json?" +
-            "iss.meta=off&iss.only=description&description.columns=name,value";
+    private static final String DEFAULT_ISS_URL = "http://iss.moex.com";
     private static volatile int currentYear = getCurrentYear();
     private static volatile long fastCoarseDayCounter = getFastCoarseDayCounter();
+    private final String securitiesUri;
+    private final String securityBoardsUri;
+    private final String securityDescriptionUri;
+    private final String quoteUri;
+    private final String contractDescription;
+    private final String boardQuotesUri;
     private final MoexDerivativeCodeService moexDerivativeCodeService;
     private final RestTemplate restTemplate;
     private final Map<String, Optional<String>> optionCodeToShortNames = new ConcurrentHashMap<>();
     private final Map<String, Optional<String>> optionUnderlingFutures = new ConcurrentHashMap<>();
+    // secid and primary board are not changed for security, they are kept for application lifetime
+    private final RequestCoalescer<SecIdRequest, String> secIdRequests = RequestCoalescer.caching();
+    private final RequestCoalescer<String, MoexMarketDescription> marketRequests = RequestCoalescer.caching();
+    private final RequestCoalescer<QuoteRequest, SecurityQuote> quoteRequests = RequestCoalescer.coalescing();
+
+    @Autowired
+    public MoexIssClientImpl(MoexDerivativeCodeService moexDerivativeCodeService, RestTemplate restTemplate) {
+        this(moexDerivativeCodeService, restTemplate, DEFAULT_ISS_URL);
+    }
+
+    /**
+     * @param issUrl Moex ISS base url, for ex. {@code http://iss.moex.com}
+     */
+    MoexIssClientImpl(MoexDerivativeCodeService moexDerivativeCodeService, RestTemplate restTemplate, String issUrl) {
+        this.moexDerivativeCodeService = moexDerivativeCodeService;
+        this.restTemplate = restTemplate;
+        this.securitiesUri = issUrl + "/iss/securities.json?" +
+                "iss.meta=off&" +
+                "securities.columns=secid,shortname,isin&" +
+                "start=0&" +
+                "limit=10&" +
+                "q={query}";
+        this.securityBoardsUri = issUrl + "/iss/securities/{secId}.json?" +
+                "iss.only=boards&" +
+                "boards.columns=is_primary,engine,market,boardid,currencyid";
+        this.securityDescriptionUri = issUrl + "/iss/securities/{secId}.json?" +
+                "iss.only=description&" +
+                "iss.meta=off";
+        this.quoteUri = issUrl + "/iss/engines/{engine}/markets/{market}/boards/{board}/securities/{secId}.json?" +
+                "iss.meta=off&" +
+                "iss.only=securities&" +
+                "securities.columns=SECID,PREVDATE,PREVADMITTEDQUOTE,PREVSETTLEPRICE,PREVPRICE,ACCRUEDINT,LOTSIZE,LOTVALUE,MINSTEP,STEPPRICE";
+        this.contractDescription = issUrl + "/iss/securities/{secId}.json?" +
+                "iss.meta=off&iss.only=description&description.columns=name,value";
+        this.boardQuotesUri = issUrl + "/iss/engines/{engine}/markets/{market}/boards/{board}/securities.json?" +
+                "iss.meta=off&" +
+                "iss.only=securities&" +
+                "securities.columns=SECID,SHORTNAME,ISIN,CURRENCYID,PREVDATE,PREVADMITTEDQUOTE,PREVSETTLEPRICE,PREVPRICE,ACCRUEDINT,LOTSIZE,LOTVALUE,MINSTEP,STEPPRICE";
+    }
 
     @Override
     public Optional<String> getSecId(String isinOrContractName, SecurityType securityType) {
+        return secIdRequests.get(new SecIdRequest(isinOrContractName, securityType),
+                request -> getSecIdFromMoex(request.isinOrContractName(), request.securityType()));
+    }
+
+    private Optional<String> getSecIdFromMoex(String isinOrContractName, SecurityType securityType) {
         if (securityType == DERIVATIVE) {
             // Try to check futures:
             // Moex couldn't find futures contract (too many records). Try to evaluate contract name
@@ -136,6 +169,10 @@ public class MoexIssClientImpl implements MoexIssClient {
 
     @Override
     public Optional<MoexMarketDescription> getMarket(String moexSecId) {
+        return marketRequests.get(moexSecId, this::getMarketFromMoex);
+    }
+
+    private Optional<MoexMarketDescription> getMarketFromMoex(String moexSecId) {
         return Optional.ofNullable(restTemplate.getForObject(securityBoardsUri, Map.class, moexSecId))
                 .map(MoexJsonResponseParser::convertFromIntObjectMap)
                 .stream()
@@ -146,6 +183,11 @@ public class MoexIssClientImpl implements MoexIssClient {
     }
 
     public Optional<SecurityQuote> getQuote(String moexSecId, MoexMarketDescription market) {
+        return quoteRequests.get(new QuoteRequest(moexSecId, market),
+                request -> getQuoteFromMoex(request.moexSecId(), request.market()));
+    }
+
+    private Optional<SecurityQuote> getQuoteFromMoex(String moexSecId, MoexMarketDescription market) {
         Map<String, String> variables = new HashMap<>(market.toMap());
         variables.put("secId", moexSecId);
         Optional<SecurityQuote> quote = Optional.ofNullable(restTemplate.getForObject(quoteUri, Map.class, variables))
@@ -157,24 +199,47 @@ public class MoexIssClientImpl implements MoexIssClient {
                 .map(quoteBuilder -> quoteBuilder.currency(market.getCurrency()))
                 .map(SecurityQuoteBuilder::build);
         if (quote.isPresent()) {
-            // Котировка опциона не содержит цену SecurityQuote.price,
-            // т.к. ИСС МосБиржи, определяя MINSTEP, не сообщает STEPPRICE.
-            // STEPPRICE нужно получить из базового актива (фьючерса)
+            // STEPPRICE опциона нужно получить из базового актива (фьючерса)
             return getOptionUnderlingFutures(moexSecId)
                     .filter(moexDerivativeCodeService::isFutures)
                     .flatMap(underlyingSecid -> getMarket(underlyingSecid)
                             .flatMap(underlyingMarket -> getQuote(underlyingSecid, underlyingMarket)))
-                    .map(futuresContract -> requireNonNull(futuresContract.getPrice())
-                            .divide(futuresContract.getQuote(), 6, RoundingMode.HALF_UP))
-                    .map(oneUnitPrice -> quote.get().getQuote().multiply(oneUnitPrice))
-                    .map(optionalPrice -> quote.get().toBuilder()
-                                .price(optionalPrice)
-                                .build())
+                    .map(futuresContract -> MoexSecurityQuoteHelper.withOptionPrice(quote.get(), futuresContract))
                     .or(() -> quote); // не удалось вычислить, возвращаем без SecurityQuote.price
         }
         return quote;
     }
 
+    @Override
+    public void getBoardQuotes(MoexMarketDescription board, Consumer<MoexBoardQuote> consumer) {
+        try {
+            restTemplate.execute(boardQuotesUri, HttpMethod.GET, null, response -> {
+                MoexJsonResponseParser.parse(response.getBody(), row -> parseBoardQuote(row, board).ifPresent(consumer));
+                return null;
+            }, board.toMap());
+        } catch (Exception e) {
+            log.warn("Не могу получить котировки режима торгов {} МосБиржи", board.toMap(), e);
+        }
+    }
+
+    private static Optional<MoexBoardQuote> parseBoardQuote(Map<String, Object> row, MoexMarketDescription board) {
+        @Nullable Object secId = row.get("SECID");
+        if (secId == null || Stream.of("PREVADMITTEDQUOTE", "PREVSETTLEPRICE", "PREVPRICE").allMatch(c -> row.get(c) == null)) {
+            return empty(); // security is not traded, don't log warning for each of them
+        }
+        @Nullable String currency = Optional.ofNullable(row.get("CURRENCYID"))
+                .map(String::valueOf)
+                .orElse(board.getCurrency());
+        return MoexSecurityQuoteHelper.parse(row)
+                .map(quoteBuilder -> quoteBuilder.currency(currency))
+                .map(SecurityQuoteBuilder::build)
+                .map(quote -> new MoexBoardQuote(
+                        valueOf(secId),
+                        Optional.ofNullable(row.get("SHORTNAME")).map(String::valueOf).orElse(null),
+                        Optional.ofNullable(row.get("ISIN")).map(String::valueOf).orElse(null),
+                        quote));
+    }
+
     public boolean isDerivativeAndExpired(@Nullable String shortnameOrSecid, SecurityType securityType) {
         try {
             if (securityType == DERIVATIVE && shortnameOrSecid != null) {
@@ -256,4 +321,10 @@ public class MoexIssClientImpl implements MoexIssClient {
             return empty();
         }
     }
+
+    private record SecIdRequest(String isinOrContractName, SecurityType securityType) {
+    }
+
+    private record QuoteRequest(String moexSecId, MoexMarketDescription market) {
+    }
 }
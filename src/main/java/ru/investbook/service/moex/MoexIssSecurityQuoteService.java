@@ -20,17 +20,34 @@ package ru.investbook.service.moex;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.spacious_team.broker.pojo.SecurityQuote;
 import org.spacious_team.broker.pojo.SecurityType;
 import org.springframework.stereotype.Service;
+import ru.investbook.InvestbookProperties;
 import ru.investbook.converter.SecurityQuoteConverter;
 import ru.investbook.entity.SecurityEntity;
 import ru.investbook.repository.SecurityQuoteRepository;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 
 import static org.spacious_team.broker.pojo.SecurityType.ASSET;
+import static org.spacious_team.broker.pojo.SecurityType.BOND;
 import static org.spacious_team.broker.pojo.SecurityType.CURRENCY_PAIR;
+import static org.spacious_team.broker.pojo.SecurityType.DERIVATIVE;
+import static org.spacious_team.broker.pojo.SecurityType.STOCK;
+import static org.spacious_team.broker.pojo.SecurityType.STOCK_OR_BOND;
 import static ru.investbook.repository.RepositoryHelper.isUniqIndexViolationException;
 
 @Service
@@ -38,9 +55,93 @@ import static ru.investbook.repository.RepositoryHelper.isUniqIndexViolationExce
 @RequiredArgsConstructor
 public class MoexIssSecurityQuoteService {
 
+    private static final List<MoexMarketDescription> sharesBoards = List.of(
+            new MoexMarketDescription("stock", "shares", "TQBR", null),
+            new MoexMarketDescription("stock", "shares", "TQTF", null));
+    private static final List<MoexMarketDescription> bondsBoards = List.of(
+            new MoexMarketDescription("stock", "bonds", "TQCB", null),
+            new MoexMarketDescription("stock", "bonds", "TQOB", null));
+    private static final MoexMarketDescription futuresBoard = new MoexMarketDescription("futures", "forts", "RFUD", null);
+    private static final MoexMarketDescription optionsBoard = new MoexMarketDescription("futures", "options", "ROPD", null);
     private final MoexIssClient moexClient;
+    private final MoexDerivativeCodeService moexDerivativeCodeService;
     private final SecurityQuoteConverter securityQuoteConverter;
     private final SecurityQuoteRepository securityQuoteRepository;
+    private final InvestbookProperties properties;
+
+    /**
+     * Updates quotes from main Moex boards securities tables if
+     * {@link InvestbookProperties#isMoexIssBulkQuotes()} is enabled. Other quotes are updated
+     * security by security by virtual threads, number of concurrently updated securities is limited
+     * by {@link InvestbookProperties#getMoexIssMaxConcurrentRequests()}
+     */
+    public void updateQuotes(Collection<SecurityEntity> securities) throws InterruptedException {
+        Collection<SecurityEntity> notUpdated = properties.isMoexIssBulkQuotes() ?
+                updateQuotesFromBoards(securities) :
+                securities;
+        Semaphore permits = new Semaphore(Math.max(1, properties.getMoexIssMaxConcurrentRequests()));
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (SecurityEntity security : notUpdated) {
+                permits.acquire();
+                executor.execute(() -> {
+                    try {
+                        updateQuote(security);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Downloads only boards trading held security types. Options board is downloaded before futures board
+     * to collect underlying futures of held options.
+     *
+     * @return securities not found on main boards
+     */
+    private Collection<SecurityEntity> updateQuotesFromBoards(Collection<SecurityEntity> securities) {
+        HeldSecuritiesQuotes heldQuotes = new HeldSecuritiesQuotes();
+        Set<SecurityType> types = EnumSet.noneOf(SecurityType.class);
+        boolean hasOptions = false;
+        for (SecurityEntity security : securities) {
+            SecurityType type = security.getType();
+            @Nullable String ticker = security.getTicker();
+            if (type == CURRENCY_PAIR || type == ASSET || moexClient.isDerivativeAndExpired(ticker, type)) {
+                continue;
+            }
+            heldQuotes.add(security);
+            types.add(type);
+            hasOptions |= (type == DERIVATIVE && ticker != null && moexDerivativeCodeService.isOption(ticker));
+        }
+        Collection<MoexMarketDescription> boards = new ArrayList<>();
+        if (types.contains(STOCK) || types.contains(STOCK_OR_BOND)) {
+            boards.addAll(sharesBoards);
+        }
+        if (types.contains(BOND) || types.contains(STOCK_OR_BOND)) {
+            boards.addAll(bondsBoards);
+        }
+        if (hasOptions) {
+            boards.add(optionsBoard);
+        }
+        if (types.contains(DERIVATIVE)) {
+            boards.add(futuresBoard);
+        }
+        for (MoexMarketDescription board : boards) {
+            moexClient.getBoardQuotes(board, heldQuotes::accept);
+        }
+        Collection<SecurityEntity> notUpdated = new ArrayList<>();
+        for (SecurityEntity security : securities) {
+            if (security.getType() == CURRENCY_PAIR || security.getType() == ASSET) {
+                continue;
+            }
+            heldQuotes.get(security)
+                    .ifPresentOrElse(
+                            boardQuote -> saveQuote(security.getId(), heldQuotes.withOptionPrice(boardQuote)),
+                            () -> notUpdated.add(security));
+        }
+        return notUpdated;
+    }
 
     public void updateQuote(SecurityEntity security) {
         try {
@@ -86,4 +187,73 @@ public class MoexIssSecurityQuoteService {
             }
         }
     }
+
+    /**
+     * Keeps board quotes of held securities only. Security with ISIN is matched by ISIN only,
+     * security without ISIN is matched by ticker with board SECID, then with board SHORTNAME.
+     */
+    private class HeldSecuritiesQuotes {
+        private final Set<String> isins = new HashSet<>();
+        private final Set<String> tickers = new HashSet<>();
+        private final Set<String> underlyingFutures = new HashSet<>();
+        private final Map<String, MoexBoardQuote> quotesByIsin = new HashMap<>();
+        private final Map<String, MoexBoardQuote> quotesBySecId = new HashMap<>();
+        private final Map<String, MoexBoardQuote> quotesByShortname = new HashMap<>();
+
+        void add(SecurityEntity security) {
+            if (security.getIsin() != null) {
+                isins.add(security.getIsin());
+            } else if (security.getTicker() != null) {
+                tickers.add(security.getTicker());
+            }
+        }
+
+        void accept(MoexBoardQuote boardQuote) {
+            @Nullable String isin = boardQuote.isin();
+            @Nullable String shortname = boardQuote.shortname();
+            boolean isHeld = false;
+            if (isin != null && isins.contains(isin)) {
+                quotesByIsin.putIfAbsent(isin, boardQuote);
+                isHeld = true;
+            }
+            if (tickers.contains(boardQuote.secId())) {
+                quotesBySecId.putIfAbsent(boardQuote.secId(), boardQuote);
+                isHeld = true;
+            }
+            if (shortname != null && (tickers.contains(shortname) || underlyingFutures.contains(shortname))) {
+                quotesByShortname.putIfAbsent(shortname, boardQuote);
+                isHeld = true;
+            }
+            if (isHeld && boardQuote.quote().getPrice() == null) {
+                moexDerivativeCodeService.getOptionUnderlyingFuturesShortname(shortname)
+                        .ifPresent(underlyingFutures::add);
+            }
+        }
+
+        Optional<MoexBoardQuote> get(SecurityEntity security) {
+            @Nullable String isin = security.getIsin();
+            if (isin != null) {
+                return Optional.ofNullable(quotesByIsin.get(isin));
+            }
+            return Optional.ofNullable(security.getTicker())
+                    .flatMap(ticker -> Optional.ofNullable(quotesBySecId.get(ticker))
+                            .or(() -> Optional.ofNullable(quotesByShortname.get(ticker))));
+        }
+
+        /**
+         * Option price is evaluated by underlying futures quote from futures board without additional requests
+         */
+        SecurityQuote withOptionPrice(MoexBoardQuote boardQuote) {
+            SecurityQuote quote = boardQuote.quote();
+            if (quote.getPrice() != null) {
+                return quote;
+            }
+            return moexDerivativeCodeService.getOptionUnderlyingFuturesShortname(boardQuote.shortname())
+                    .map(quotesByShortname::get)
+                    .map(MoexBoardQuote::quote)
+                    .filter(futuresQuote -> futuresQuote.getPrice() != null)
+                    .map(futuresQuote -> MoexSecurityQuoteHelper.withOptionPrice(quote, futuresQuote))
+                    .orElse(quote);
+        }
+    }
 }
@@ -18,15 +18,21 @@
 
 package ru.investbook.service.moex;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import lombok.extern.slf4j.Slf4j;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static java.util.Collections.unmodifiableList;
 import static java.util.Collections.unmodifiableMap;
@@ -34,6 +40,7 @@ import static java.util.Objects.requireNonNull;
 
 @Slf4j
 public class MoexJsonResponseParser {
+    private static final JsonFactory jsonFactory = new JsonFactory();
 
     @SuppressWarnings("unchecked")
     public static List<Map<String, Object>> convertFromIntObjectMap(Map<?, ?> indicesResponse) {
@@ -57,4 +64,59 @@ public class MoexJsonResponseParser {
             return List.of();
         }
     }
+
+    /**
+     * Reads first table of Moex ISS response row by row without loading whole response to memory.
+     * Response is expected in {@code iss.meta=off} format, where table columns precede table data.
+     *
+     * @param rowConsumer consumes table row as column name to value map
+     */
+    public static void parse(InputStream indicesResponse, Consumer<Map<String, Object>> rowConsumer)
+            throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(indicesResponse)) {
+            expect(parser.nextToken(), JsonToken.START_OBJECT);
+            expect(parser.nextToken(), JsonToken.FIELD_NAME); // table name
+            expect(parser.nextToken(), JsonToken.START_OBJECT);
+            List<String> columnNames = List.of();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken token = parser.nextToken();
+                if ("columns".equals(field)) {
+                    expect(token, JsonToken.START_ARRAY);
+                    columnNames = new ArrayList<>();
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        columnNames.add(parser.getText());
+                    }
+                } else if ("data".equals(field)) {
+                    expect(token, JsonToken.START_ARRAY);
+                    while (parser.nextToken() == JsonToken.START_ARRAY) {
+                        Map<String, Object> row = new HashMap<>();
+                        for (int i = 0; parser.nextToken() != JsonToken.END_ARRAY; i++) {
+                            row.put(columnNames.get(i), getValue(parser));
+                        }
+                        rowConsumer.accept(row);
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+    }
+
+    private static @Nullable Object getValue(JsonParser parser) throws IOException {
+        return switch (parser.currentToken()) {
+            case VALUE_STRING -> parser.getText();
+            case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> parser.getNumberValue();
+            case VALUE_TRUE -> true;
+            case VALUE_FALSE -> false;
+            case VALUE_NULL -> null;
+            default -> throw new IOException("Unexpected Moex ISS response value " + parser.currentToken());
+        };
+    }
+
+    private static void expect(@Nullable JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new IOException("Unexpected Moex ISS response format, expected " + expected + ", found " + actual);
+        }
+    }
 }
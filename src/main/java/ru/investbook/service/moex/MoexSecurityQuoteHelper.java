@@ -92,6 +92,21 @@ public class MoexSecurityQuoteHelper {
         }
     }
 
+    /**
+     * Котировка опциона не содержит цену SecurityQuote.price,
+     * т.к. ИСС МосБиржи, определяя MINSTEP, не сообщает STEPPRICE.
+     * STEPPRICE нужно получить из базового актива (фьючерса)
+     *
+     * @return option quote with price evaluated by underlying futures contract quote
+     */
+    static SecurityQuote withOptionPrice(SecurityQuote optionQuote, SecurityQuote futuresQuote) {
+        BigDecimal oneUnitPrice = requireNonNull(futuresQuote.getPrice())
+                .divide(futuresQuote.getQuote(), 6, RoundingMode.HALF_UP);
+        return optionQuote.toBuilder()
+                .price(optionQuote.getQuote().multiply(oneUnitPrice))
+                .build();
+    }
+
     private static BigDecimal toBigDecimal(@Nullable Object value) {
         return BigDecimal.valueOf(
                 Double.parseDouble(
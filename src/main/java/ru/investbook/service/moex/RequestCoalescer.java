@@ -0,0 +1,88 @@
+/*
+ * InvestBook
+ * Copyright (C) 2022  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.investbook.service.moex;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Shares result of in-flight request between concurrent callers of the same key.
+ * Caching coalescer also keeps found (non-empty) results for subsequent calls.
+ */
+class RequestCoalescer<K, V> {
+    private final Map<K, CompletableFuture<Optional<V>>> inFlight = new ConcurrentHashMap<>();
+    private final @Nullable Map<K, V> cache;
+
+    private RequestCoalescer(boolean caching) {
+        this.cache = caching ? new ConcurrentHashMap<>() : null;
+    }
+
+    static <K, V> RequestCoalescer<K, V> coalescing() {
+        return new RequestCoalescer<>(false);
+    }
+
+    static <K, V> RequestCoalescer<K, V> caching() {
+        return new RequestCoalescer<>(true);
+    }
+
+    Optional<V> get(K key, Function<K, Optional<V>> request) {
+        @Nullable Optional<V> cached = getCached(key);
+        if (cached != null) {
+            return cached;
+        }
+        CompletableFuture<Optional<V>> future = new CompletableFuture<>();
+        @Nullable CompletableFuture<Optional<V>> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            return join(existing);
+        }
+        try {
+            cached = getCached(key); // may be cached by completed concurrent request
+            Optional<V> result = (cached != null) ? cached : request.apply(key);
+            if (cache != null) {
+                result.ifPresent(value -> cache.put(key, value));
+            }
+            future.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    private @Nullable Optional<V> getCached(K key) {
+        @Nullable V value = (cache == null) ? null : cache.get(key);
+        return (value == null) ? null : Optional.of(value);
+    }
+
+    private static <V> Optional<V> join(CompletableFuture<Optional<V>> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw (e.getCause() instanceof RuntimeException cause) ? cause : e;
+        }
+    }
+}
@@ -24,12 +24,15 @@ import org.springframework.boot.info.BuildProperties;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import ru.investbook.InvestbookProperties;
-import ru.investbook.repository.TransactionRepository;
-import ru.investbook.service.AssetsAndCashService;
+import ru.investbook.service.DashboardService;
+import ru.investbook.service.DashboardSnapshot;
 
-import java.util.Set;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -39,18 +42,21 @@ import java.util.concurrent.TimeUnit;
 @RequestMapping("/")
 @RequiredArgsConstructor
 public class HomePageController {
-    private final AssetsAndCashService assetsAndCashService;
+    private final DashboardService dashboardService;
     private final BuildProperties buildProperties;
-    private final TransactionRepository transactionRepository;
     private final InvestbookProperties properties;
+    private final DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
 
     @GetMapping
     public String index(Model model) {
-        Set<String> portfolios = assetsAndCashService.getActivePortfolios();
-        model.addAttribute("transactionsCount", transactionRepository.countByPortfolioIn(portfolios));
-        model.addAttribute("portfolios", portfolios);
-        model.addAttribute("assets", assetsAndCashService.getTotalAssetsInRub(portfolios));
-        model.addAttribute("cashBalance", assetsAndCashService.getTotalCashInRub(portfolios));
+        DashboardSnapshot snapshot = dashboardService.getSnapshot();
+        model.addAttribute("transactionsCount", snapshot.transactionsCount());
+        model.addAttribute("portfolios", snapshot.portfolios());
+        model.addAttribute("assets", snapshot.assets());
+        model.addAttribute("cashBalance", snapshot.cashBalance());
+        model.addAttribute("dashboardUpdatedAt", LocalDateTime.ofInstant(snapshot.createdAt(), ZoneId.systemDefault())
+                .format(dateTimeFormatter));
+        model.addAttribute("dashboardRefreshing", dashboardService.isRefreshing());
         model.addAttribute("buildProperties", buildProperties);
         model.addAttribute("logoUrl",
                 "https://github.com/spacious-team/investbook/assets/11336712/97828ac2-c52f-4c6e-8c3a-8a16f2c3fa3a");
@@ -60,6 +66,15 @@ public class HomePageController {
         return "index";
     }
 
+    /**
+     * Recomputes home page data
+     */
+    @PostMapping("dashboard/refresh")
+    public String refreshDashboard() {
+        dashboardService.refresh();
+        return "redirect:/";
+    }
+
     @GetMapping("shutdown")
     public String shutdown() {
         @SuppressWarnings("resource")
@@ -34,13 +34,10 @@ import ru.investbook.report.html.HtmlView;
 import ru.investbook.repository.PortfolioRepository;
 import ru.investbook.web.model.ViewFilterModel;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.util.function.Consumer;
 
 import static java.time.ZoneId.systemDefault;
 import static ru.investbook.web.ControllerHelper.getActivePortfolios;
@@ -87,16 +84,16 @@ public class InvestbookReportController {
             htmlView.create(response.getOutputStream(), filter);
         } else {
             String fileName = getReportName(filter, "xlsx");
-            sendFileOrShowErrorPage(fileName, out -> excelView.create(out, filter), response);
+            sendFileOrShowErrorPage(fileName, filter, response);
         }
     }
 
     private void sendFileOrShowErrorPage(String fileName,
-                                         Consumer<OutputStream> fileWriter,
+                                         ViewFilter filter,
                                          HttpServletResponse response) throws IOException {
         try {
             long t0 = System.nanoTime();
-            sendFile(fileName, fileWriter, response);
+            sendFile(fileName, filter, response);
             log.info("Отчет '{}' сформирован за {}", fileName, Duration.ofNanos(System.nanoTime() - t0));
         } catch (Exception e) {
             log.error("Ошибка сборки отчета", e);
@@ -105,12 +102,14 @@ public class InvestbookReportController {
         response.flushBuffer();
     }
 
-    private void sendFile(String fileName, Consumer<OutputStream> fileWriter, HttpServletResponse response)
-            throws IOException {
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        fileWriter.accept(outputStream);
-        sendSuccessHeader(response, fileName, "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
-        outputStream.writeTo(response.getOutputStream());
+    /**
+     * Writes the report directly to the response, headers are sent after the report is built
+     */
+    private void sendFile(String fileName, ViewFilter filter, HttpServletResponse response) {
+        excelView.create(filter, () -> {
+            sendSuccessHeader(response, fileName, "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+            return response.getOutputStream();
+        });
     }
 
     private String getReportName(ViewFilter filter, String extention) {
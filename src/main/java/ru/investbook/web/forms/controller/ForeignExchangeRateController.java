@@ -30,7 +30,6 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
-import ru.investbook.report.ForeignExchangeRateService;
 import ru.investbook.repository.ForeignExchangeRateRepository;
 import ru.investbook.repository.TransactionRepository;
 import ru.investbook.service.cbr.CbrForeignExchangeRateService;
@@ -47,7 +46,6 @@ import java.time.ZoneId;
 @RequiredArgsConstructor
 public class ForeignExchangeRateController {
     private final ForeignExchangeRateFormsService foreignExchangeRateFormsService;
-    private final ForeignExchangeRateService foreignExchangeRateService;
     private final CbrForeignExchangeRateService cbrForeignExchangeRateService;
     private final ForeignExchangeRateRepository foreignExchangeRateRepository;
     private final TransactionRepository transactionRepository;
@@ -92,7 +90,6 @@ public class ForeignExchangeRateController {
     @PostMapping
     public String postForeignExchangeRate(@ModelAttribute("rate") @Valid ForeignExchangeRateModel rate) {
         foreignExchangeRateFormsService.save(rate);
-        foreignExchangeRateService.invalidateCache();
         return "foreign-exchange-rates/view-single";
     }
 
@@ -105,7 +102,6 @@ public class ForeignExchangeRateController {
 
     public String updateForeignExchangeRateFromCbr() {
         cbrForeignExchangeRateService.updateFrom(getFirstTransactionDate());
-        foreignExchangeRateService.invalidateCache();
         return "Официальные курсы обновлены по " + getLatestDateOfAllFxRateKnown() + " включительно";
     }
 
@@ -132,7 +128,6 @@ public class ForeignExchangeRateController {
                                       String quoteCurrency,
                               Model model) {
         foreignExchangeRateFormsService.delete(date, baseCurrency, quoteCurrency);
-        foreignExchangeRateService.invalidateCache();
         model.addAttribute("message", "Обменный курс удален");
         model.addAttribute("backLink", "/foreign-exchange-rates");
         return "success";
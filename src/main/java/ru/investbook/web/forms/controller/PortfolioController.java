@@ -20,14 +20,14 @@ package ru.investbook.web.forms.controller;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
-import ru.investbook.report.FifoPositionsFactory;
-import ru.investbook.report.ForeignExchangeRateService;
+import ru.investbook.repository.DataChangedEvent;
 import ru.investbook.repository.PortfolioRepository;
 import ru.investbook.repository.SecurityRepository;
 import ru.investbook.web.forms.model.ArchivedPortfolioModel;
@@ -43,8 +43,7 @@ import static ru.investbook.web.ControllerHelper.getPortfolios;
 public class PortfolioController {
     private final PortfolioRepository portfolioRepository;
     private final SecurityRepository securityRepository;
-    private final FifoPositionsFactory fifoPositionsFactory;
-    private final ForeignExchangeRateService foreignExchangeRateService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @GetMapping("/archive")
     public String get(Model model, @ModelAttribute("archive") ArchivedPortfolioModel archive) {
@@ -61,6 +60,7 @@ public class PortfolioController {
                     boolean isEnabled = !archive.getPortfolios().contains(portfolio);
                     portfolioRepository.setEnabledForPortfolio(portfolio, isEnabled);
                 });
+        eventPublisher.publishEvent(DataChangedEvent.all()); // updated by JPQL, not tracked by Hibernate listener
         return "success";
     }
 
@@ -82,8 +82,7 @@ public class PortfolioController {
     public String deleteAllAccepted(Model model) {
         portfolioRepository.deleteAll();
         securityRepository.deleteAll();
-        fifoPositionsFactory.invalidateCache();
-        foreignExchangeRateService.invalidateCache();
+        eventPublisher.publishEvent(DataChangedEvent.all()); // deleted by database cascade, not by Hibernate
         model.addAttribute("message", "Информация по всем счетам удалена");
         model.addAttribute("backLink", "/forms.html");
         return "success";
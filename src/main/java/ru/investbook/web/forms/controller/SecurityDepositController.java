@@ -28,7 +28,6 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
-import ru.investbook.report.FifoPositionsFactory;
 import ru.investbook.repository.PortfolioRepository;
 import ru.investbook.repository.SecurityRepository;
 import ru.investbook.web.ControllerHelper;
@@ -43,9 +42,8 @@ import ru.investbook.web.forms.service.TransactionFormsService;
 public class SecurityDepositController extends TransactionController {
 
     public SecurityDepositController(TransactionFormsService transactionFormsService,
-                                     PortfolioRepository portfolioRepository, SecurityRepository securityRepository,
-                                     FifoPositionsFactory fifoPositionsFactory) {
-        super(transactionFormsService, portfolioRepository, securityRepository, fifoPositionsFactory);
+                                     PortfolioRepository portfolioRepository, SecurityRepository securityRepository) {
+        super(transactionFormsService, portfolioRepository, securityRepository);
     }
 
     @GetMapping
@@ -95,7 +93,6 @@ public class SecurityDepositController extends TransactionController {
     public String postSplit(@ModelAttribute("split") @Valid SplitModel splitModel) {
         selectedPortfolio = splitModel.getPortfolio();
         transactionFormsService.save(splitModel);
-        fifoPositionsFactory.invalidateCache();
         return "security-deposit/view-split";
     }
 
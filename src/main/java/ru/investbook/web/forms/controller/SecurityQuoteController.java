@@ -45,8 +45,6 @@ import java.time.Duration;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.util.Collection;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ForkJoinPool;
 
 @Controller
 @RequestMapping("/security-quotes")
@@ -102,20 +100,15 @@ public class SecurityQuoteController {
     }
 
     @GetMapping("update")
-    public String updateFromMoexIssApi(Model model) throws ExecutionException, InterruptedException {
+    public String updateFromMoexIssApi(Model model) throws InterruptedException {
         String message = updateQuoteFromMoexIssApi();
         model.addAttribute("message", message);
         return "success";
     }
 
-    public String updateQuoteFromMoexIssApi() throws InterruptedException, ExecutionException {
+    public String updateQuoteFromMoexIssApi() throws InterruptedException {
         long t0 = System.nanoTime();
-        try (ForkJoinPool pool = new ForkJoinPool(4 * Runtime.getRuntime().availableProcessors())) {
-            pool.submit(() -> securityRepository.findAll()
-                            .parallelStream()
-                            .forEach(moexIssSecurityQuoteService::updateQuote))
-                    .get();
-        }
+        moexIssSecurityQuoteService.updateQuotes(securityRepository.findAll());
         String message = securityQuoteRepository.findFirstByOrderByTimestampDesc()
                 .map(SecurityQuoteEntity::getTimestamp)
                 .map(instant -> LocalDate.ofInstant(instant, ZoneId.systemDefault()))
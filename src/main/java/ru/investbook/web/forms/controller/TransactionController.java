@@ -30,7 +30,6 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
-import ru.investbook.report.FifoPositionsFactory;
 import ru.investbook.repository.PortfolioRepository;
 import ru.investbook.repository.SecurityRepository;
 import ru.investbook.web.ControllerHelper;
@@ -48,7 +47,6 @@ public class TransactionController {
     protected final TransactionFormsService transactionFormsService;
     protected final PortfolioRepository portfolioRepository;
     private final SecurityRepository securityRepository;
-    protected final FifoPositionsFactory fifoPositionsFactory;
     protected volatile Collection<String> securities;
     protected volatile Collection<String> portfolios;
     protected volatile String selectedPortfolio;
@@ -103,7 +101,6 @@ public class TransactionController {
     public String postTransaction(@ModelAttribute("transaction") @Valid TransactionModel transaction) {
         selectedPortfolio = transaction.getPortfolio();
         transactionFormsService.save(transaction);
-        fifoPositionsFactory.invalidateCache();
         return "transactions/view-single";
     }
 
@@ -117,6 +114,5 @@ public class TransactionController {
 
     protected void doDelete(int id) {
         transactionFormsService.delete(id);
-        fifoPositionsFactory.invalidateCache();
     }
 }
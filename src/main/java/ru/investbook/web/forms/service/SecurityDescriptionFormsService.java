@@ -19,6 +19,7 @@
 package ru.investbook.web.forms.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
@@ -27,6 +28,7 @@ import org.springframework.transaction.annotation.Transactional;
 import ru.investbook.entity.SecurityDescriptionEntity;
 import ru.investbook.entity.SecurityDescriptionEntity_;
 import ru.investbook.entity.SecurityEntity;
+import ru.investbook.repository.DataChangedEvent;
 import ru.investbook.repository.SecurityDescriptionRepository;
 import ru.investbook.repository.SecurityRepository;
 import ru.investbook.repository.specs.SecurityDescriptionSearchSpecification;
@@ -46,6 +48,7 @@ public class SecurityDescriptionFormsService {
     private final SecurityDescriptionRepository securityDescriptionRepository;
     private final SecurityRepository securityRepository;
     private final SecurityRepositoryHelper securityRepositoryHelper;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional(readOnly = true)
     public Optional<SecurityDescriptionModel> getById(Integer security) {
@@ -69,6 +72,7 @@ public class SecurityDescriptionFormsService {
     public void save(SecurityDescriptionModel m) {
         int savedSecurityId = securityRepositoryHelper.saveSecurity(m);
         securityDescriptionRepository.createOrUpdateSector(savedSecurityId, m.getSector());
+        eventPublisher.publishEvent(DataChangedEvent.other(null)); // sector is updated by JPQL, not tracked by Hibernate listener
     }
 
     private SecurityDescriptionModel toModel(SecurityDescriptionEntity e) {
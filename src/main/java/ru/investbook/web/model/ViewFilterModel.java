@@ -27,9 +27,10 @@ import java.util.Set;
 
 @Data
 public class ViewFilterModel {
+    public static final LocalDate DEFAULT_FROM_DATE = LocalDate.of(1997, 9, 22);
 
     @DateTimeFormat(pattern = "yyyy-MM-dd")
-    private LocalDate fromDate = LocalDate.of(1997, 9, 22);
+    private LocalDate fromDate = DEFAULT_FROM_DATE;
 
     @DateTimeFormat(pattern = "yyyy-MM-dd")
     private LocalDate toDate = LocalDate.now();
@@ -0,0 +1,39 @@
+/*
+ * InvestBook
+ * Copyright (C) 2024  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+-- Composite indexes for report queries, which filter by security or portfolio, cash flow type and time range.
+-- Queries by (security, type, timestamp) of `security_event_cash_flow` and by (type, timestamp) of `event_cash_flow`
+-- use existing unique keys starting with the same columns
+
+CREATE INDEX IF NOT EXISTS `transaction_security_portfolio_timestamp_ix`
+    ON `transaction` (`security`, `portfolio`, `timestamp`);
+CREATE INDEX IF NOT EXISTS `transaction_security_timestamp_ix`
+    ON `transaction` (`security`, `timestamp`);
+CREATE INDEX IF NOT EXISTS `transaction_portfolio_timestamp_ix`
+    ON `transaction` (`portfolio`, `timestamp`);
+CREATE INDEX IF NOT EXISTS `transaction_timestamp_ix`
+    ON `transaction` (`timestamp`);
+
+CREATE INDEX IF NOT EXISTS `transaction_cash_flow_type_currency_ix`
+    ON `transaction_cash_flow` (`type`, `currency`);
+
+CREATE INDEX IF NOT EXISTS `security_event_cash_flow_portfolio_type_timestamp_ix`
+    ON `security_event_cash_flow` (`portfolio`, `type`, `timestamp`);
+
+CREATE INDEX IF NOT EXISTS `event_cash_flow_portfolio_type_timestamp_ix`
+    ON `event_cash_flow` (`portfolio`, `type`, `timestamp`);
@@ -0,0 +1,33 @@
+/*
+ * InvestBook
+ * Copyright (C) 2024  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+CREATE TABLE IF NOT EXISTS `open_position` (
+    `portfolio` VARCHAR(32)      NOT NULL COMMENT 'Идентификатор портфеля',
+    `security`  INT(10) UNSIGNED NOT NULL COMMENT 'Инструмент (акция, облигация, контракт)',
+    `count`     INT(1)           NOT NULL COMMENT 'Сумма количеств по всем сделкам',
+    PRIMARY KEY (`portfolio`, `security`),
+    KEY `open_position_security_ix` (`security`),
+    CONSTRAINT `open_position_portfolio_fkey` FOREIGN KEY (`portfolio`) REFERENCES `portfolio` (`id`) ON UPDATE CASCADE ON DELETE CASCADE,
+    CONSTRAINT `open_position_security_fkey` FOREIGN KEY (`security`) REFERENCES `security` (`id`) ON UPDATE CASCADE ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8 COMMENT='Открытые позиции, обновляются при изменении сделок';
+
+INSERT INTO `open_position` (`portfolio`, `security`, `count`)
+    SELECT `portfolio`, `security`, SUM(`count`)
+    FROM `transaction`
+    GROUP BY `portfolio`, `security`
+    HAVING SUM(`count`) <> 0;
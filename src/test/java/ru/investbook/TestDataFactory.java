@@ -0,0 +1,118 @@
+/*
+ * InvestBook
+ * Copyright (C) 2021  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.investbook;
+
+import lombok.RequiredArgsConstructor;
+import org.spacious_team.broker.pojo.CashFlowType;
+import org.spacious_team.broker.pojo.EventCashFlow;
+import org.spacious_team.broker.pojo.Portfolio;
+import org.spacious_team.broker.pojo.Security;
+import org.spacious_team.broker.pojo.SecurityEventCashFlow;
+import org.spacious_team.broker.pojo.SecurityType;
+import org.spacious_team.broker.pojo.Transaction;
+import org.spacious_team.broker.pojo.TransactionCashFlow;
+import org.springframework.stereotype.Component;
+import ru.investbook.api.EventCashFlowRestController;
+import ru.investbook.api.PortfolioRestController;
+import ru.investbook.api.SecurityEventCashFlowRestController;
+import ru.investbook.api.SecurityRestController;
+import ru.investbook.api.TransactionCashFlowRestController;
+import ru.investbook.api.TransactionRestController;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Creates test data by REST controllers, values are in RUB
+ */
+@Component
+@RequiredArgsConstructor
+public class TestDataFactory {
+
+    private final PortfolioRestController portfolioRestController;
+    private final SecurityRestController securityRestController;
+    private final TransactionRestController transactionRestController;
+    private final TransactionCashFlowRestController transactionCashFlowRestController;
+    private final SecurityEventCashFlowRestController securityEventCashFlowRestController;
+    private final EventCashFlowRestController eventCashFlowRestController;
+
+    public void createPortfolio(String portfolio) {
+        portfolioRestController.createIfAbsent(Portfolio.builder().id(portfolio).build());
+    }
+
+    public int createSecurity(SecurityType type, String ticker) {
+        return requireNonNull(securityRestController.createIfAbsentAndGet(Security.builder()
+                        .type(type)
+                        .ticker(ticker)
+                        .build())
+                .object()
+                .getId());
+    }
+
+    /**
+     * @return transaction id
+     */
+    public int createTransaction(String portfolio, int security, String tradeId, String timestamp, int count) {
+        return requireNonNull(transactionRestController.createIfAbsentAndGet(Transaction.builder()
+                        .tradeId(tradeId)
+                        .portfolio(portfolio)
+                        .security(security)
+                        .timestamp(Instant.parse(timestamp))
+                        .count(count)
+                        .build())
+                .object()
+                .getId());
+    }
+
+    public void createTransactionCashFlow(int transactionId, CashFlowType type, String value) {
+        transactionCashFlowRestController.createIfAbsent(TransactionCashFlow.builder()
+                .transactionId(transactionId)
+                .eventType(type)
+                .value(new BigDecimal(value))
+                .currency("RUB")
+                .build());
+    }
+
+    public void createSecurityEventCashFlow(String portfolio, int security, String timestamp, int count,
+                                           CashFlowType type, String value) {
+        securityEventCashFlowRestController.createIfAbsent(SecurityEventCashFlow.builder()
+                .portfolio(portfolio)
+                .security(security)
+                .timestamp(Instant.parse(timestamp))
+                .count(count)
+                .eventType(type)
+                .value(new BigDecimal(value))
+                .currency("RUB")
+                .build());
+    }
+
+    public void createEventCashFlow(String portfolio, String timestamp, CashFlowType type, String value,
+                                    String description) {
+        eventCashFlowRestController.createIfAbsent(EventCashFlow.builder()
+                .portfolio(portfolio)
+                .timestamp(Instant.parse(timestamp))
+                .eventType(type)
+                .value(new BigDecimal(value))
+                .currency("RUB")
+                .description(description)
+                .build());
+    }
+}
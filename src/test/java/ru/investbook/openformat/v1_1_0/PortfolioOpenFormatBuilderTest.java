@@ -0,0 +1,175 @@
+/*
+ * InvestBook
+ * Copyright (C) 2022  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package ru.investbook.openformat.v1_1_0;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.investbook.TestDataFactory;
+
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.spacious_team.broker.pojo.CashFlowType.CASH;
+import static org.spacious_team.broker.pojo.CashFlowType.DIVIDEND;
+import static org.spacious_team.broker.pojo.CashFlowType.FEE;
+import static org.spacious_team.broker.pojo.CashFlowType.PRICE;
+import static org.spacious_team.broker.pojo.CashFlowType.REDEMPTION;
+import static org.spacious_team.broker.pojo.CashFlowType.TAX;
+import static org.spacious_team.broker.pojo.SecurityType.BOND;
+import static org.spacious_team.broker.pojo.SecurityType.STOCK;
+
+@SpringBootTest
+class PortfolioOpenFormatBuilderTest {
+
+    private static final String PORTFOLIO = "open-format-test";
+
+    @Autowired
+    ObjectMapper objectMapper;
+    @Autowired
+    PortfolioOpenFormatBuilder portfolioOpenFormatBuilder;
+    @Autowired
+    TestDataFactory testData;
+
+    @Test
+    void streamedFileContainsPortfolioData() throws Exception {
+        testData.createPortfolio(PORTFOLIO);
+        int stock = testData.createSecurity(STOCK, "OPEN_FORMAT_STOCK");
+        int bond = testData.createSecurity(BOND, "OPEN_FORMAT_BOND");
+
+        int trade = testData.createTransaction(PORTFOLIO, stock, "1", "2024-01-10T10:00:00Z", 10);
+        testData.createTransactionCashFlow(trade, PRICE, "-100");
+        testData.createTransactionCashFlow(trade, FEE, "-1");
+        testData.createTransaction(PORTFOLIO, stock, "2", "2024-01-11T10:00:00Z", 5); // transfer
+        int feeOnly = testData.createTransaction(PORTFOLIO, stock, "3", "2024-01-12T10:00:00Z", -3); // transfer
+        testData.createTransactionCashFlow(feeOnly, FEE, "-1");
+        int bondTrade = testData.createTransaction(PORTFOLIO, bond, "4", "2024-01-13T10:00:00Z", 2);
+        testData.createTransactionCashFlow(bondTrade, PRICE, "-1000");
+
+        testData.createSecurityEventCashFlow(PORTFOLIO, stock, "2024-02-01T10:00:00Z", 12, DIVIDEND, "12");
+        testData.createSecurityEventCashFlow(PORTFOLIO, stock, "2024-02-01T10:00:00Z", 12, TAX, "-1.56");
+        testData.createSecurityEventCashFlow(PORTFOLIO, stock, "2024-03-01T10:00:00Z", 12, DIVIDEND, "6");
+        testData.createSecurityEventCashFlow(PORTFOLIO, bond, "2024-04-01T10:00:00Z", 2, REDEMPTION, "2000");
+        testData.createEventCashFlow(PORTFOLIO, "2024-01-01T10:00:00Z", CASH, "10000", "Пополнение");
+
+        StringWriter streamed = new StringWriter();
+        try (JsonGenerator json = objectMapper.createGenerator(streamed)) {
+            portfolioOpenFormatBuilder.write(json);
+        }
+        JsonNode file = objectMapper.readTree(streamed.toString());
+        int account = getAccountId(file);
+
+        List<JsonNode> trades = getAccountItems(file, "trades", account);
+        assertEquals(3, trades.size());
+        JsonNode stockTrade = getByField(trades, "trade-id", "1");
+        assertEquals(stock, stockTrade.get("asset").asInt());
+        assertEquals(epochSecond("2024-01-10T10:00:00Z"), stockTrade.get("settlement").asLong());
+        assertEqualsNumber("10", stockTrade.get("count"));
+        assertEqualsNumber("10", stockTrade.get("price"));
+        assertEquals("RUB", stockTrade.get("currency").asText());
+        assertEqualsNumber("1", stockTrade.get("fee"));
+        assertEquals("RUB", stockTrade.get("fee-currency").asText());
+        JsonNode bondBuy = getByField(trades, "trade-id", "4");
+        assertEquals(bond, bondBuy.get("asset").asInt());
+        assertEqualsNumber("2", bondBuy.get("count"));
+        assertEqualsNumber("500", bondBuy.get("price"));
+        assertEqualsNumber("0", bondBuy.get("fee"));
+        long redemptionTimestamp = epochSecond("2024-04-01T10:00:00Z");
+        JsonNode redemption = getByField(trades, "trade-id", redemptionTimestamp + ":" + bond + ":" + account);
+        assertEquals(redemptionTimestamp, redemption.get("settlement").asLong());
+        assertEqualsNumber("-2", redemption.get("count"));
+        assertEqualsNumber("1000", redemption.get("price"));
+        assertEqualsNumber("0", redemption.get("fee"));
+
+        List<JsonNode> transfers = getAccountItems(file, "transfers", account);
+        assertEquals(2, transfers.size());
+        JsonNode deposit = getByField(transfers, "transfer-id", "2");
+        assertEquals(stock, deposit.get("asset").asInt());
+        assertEquals(epochSecond("2024-01-11T10:00:00Z"), deposit.get("timestamp").asLong());
+        assertEqualsNumber("5", deposit.get("count"));
+        JsonNode withdrawal = getByField(transfers, "transfer-id", "3");
+        assertEquals(epochSecond("2024-01-12T10:00:00Z"), withdrawal.get("timestamp").asLong());
+        assertEqualsNumber("-3", withdrawal.get("count"));
+
+        List<JsonNode> payments = getAccountItems(file, "payments", account);
+        assertEquals(2, payments.size());
+        JsonNode taxedDividend = getByField(payments, "timestamp", String.valueOf(epochSecond("2024-02-01T10:00:00Z")));
+        assertEquals(stock, taxedDividend.get("asset").asInt());
+        assertEquals("dividend", taxedDividend.get("type").asText());
+        assertEqualsNumber("12", taxedDividend.get("count"));
+        assertEqualsNumber("12", taxedDividend.get("amount"));
+        assertEqualsNumber("1.56", taxedDividend.get("tax"));
+        assertEquals("RUB", taxedDividend.get("tax-currency").asText());
+        JsonNode dividend = getByField(payments, "timestamp", String.valueOf(epochSecond("2024-03-01T10:00:00Z")));
+        assertEqualsNumber("6", dividend.get("amount"));
+        assertFalse(dividend.has("tax"));
+
+        List<JsonNode> cashFlows = getAccountItems(file, "cash-flows", account);
+        assertEquals(1, cashFlows.size());
+        JsonNode cashFlow = cashFlows.getFirst();
+        assertEquals(epochSecond("2024-01-01T10:00:00Z"), cashFlow.get("timestamp").asLong());
+        assertEqualsNumber("10000", cashFlow.get("amount"));
+        assertEquals("RUB", cashFlow.get("currency").asText());
+        assertEquals("cash", cashFlow.get("type").asText());
+        assertEquals("Пополнение", cashFlow.get("description").asText());
+    }
+
+    private static int getAccountId(JsonNode file) {
+        return getByField(stream(file.get("accounts")).toList(), "account-number", PORTFOLIO)
+                .get("id")
+                .asInt();
+    }
+
+    private static List<JsonNode> getAccountItems(JsonNode file, String field, int account) {
+        return stream(file.get(field))
+                .filter(e -> e.get("account").asInt() == account)
+                .toList();
+    }
+
+    private static JsonNode getByField(List<JsonNode> nodes, String field, String value) {
+        List<JsonNode> found = nodes.stream()
+                .filter(e -> e.has(field) && e.get(field).asText().equals(value))
+                .toList();
+        assertEquals(1, found.size(), () -> "expected one item with " + field + " = " + value + " in " + nodes);
+        return found.getFirst();
+    }
+
+    private static Stream<JsonNode> stream(JsonNode array) {
+        return StreamSupport.stream(array.spliterator(), false);
+    }
+
+    private static long epochSecond(String instant) {
+        return Instant.parse(instant).getEpochSecond();
+    }
+
+    private static void assertEqualsNumber(String expected, JsonNode actual) {
+        BigDecimal value = actual.decimalValue();
+        assertEquals(0, new BigDecimal(expected).compareTo(value), () -> "expected " + expected + ", but was " + value);
+    }
+}
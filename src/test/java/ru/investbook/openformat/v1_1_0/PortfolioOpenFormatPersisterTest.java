@@ -0,0 +1,141 @@
+/*
+ * InvestBook
+ * Copyright (C) 2022  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package ru.investbook.openformat.v1_1_0;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.transaction.annotation.Transactional;
+import ru.investbook.InvestbookProperties;
+import ru.investbook.entity.EventCashFlowEntity;
+import ru.investbook.entity.SecurityEventCashFlowEntity;
+import ru.investbook.entity.TransactionEntity;
+import ru.investbook.repository.EventCashFlowRepository;
+import ru.investbook.repository.SecurityEventCashFlowRepository;
+import ru.investbook.repository.TransactionCashFlowRepository;
+import ru.investbook.repository.TransactionRepository;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.spacious_team.broker.pojo.CashFlowType.CASH;
+import static org.spacious_team.broker.pojo.CashFlowType.DIVIDEND;
+import static org.spacious_team.broker.pojo.CashFlowType.FEE;
+import static org.spacious_team.broker.pojo.CashFlowType.PRICE;
+import static org.spacious_team.broker.pojo.CashFlowType.TAX;
+
+@SpringBootTest
+@Transactional
+class PortfolioOpenFormatPersisterTest {
+
+    private static final long TRADE_TIMESTAMP = Instant.parse("2024-01-10T10:00:00Z").getEpochSecond();
+    private static final long TRANSFER_TIMESTAMP = Instant.parse("2024-01-11T10:00:00Z").getEpochSecond();
+    private static final long PAYMENT_TIMESTAMP = Instant.parse("2024-02-01T10:00:00Z").getEpochSecond();
+    private static final long CASH_FLOW_TIMESTAMP = Instant.parse("2024-01-01T10:00:00Z").getEpochSecond();
+
+    @Autowired
+    PortfolioOpenFormatPersister persister;
+    @Autowired
+    InvestbookProperties properties;
+    @Autowired
+    TransactionRepository transactionRepository;
+    @Autowired
+    TransactionCashFlowRepository transactionCashFlowRepository;
+    @Autowired
+    SecurityEventCashFlowRepository securityEventCashFlowRepository;
+    @Autowired
+    EventCashFlowRepository eventCashFlowRepository;
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void persist(boolean reportImportBatch) throws Exception {
+        String portfolio = "restore-batch-" + reportImportBatch;
+        boolean defaultReportImportBatch = properties.isReportImportBatch();
+        try {
+            properties.setReportImportBatch(reportImportBatch);
+            persister.persist(new ByteArrayResource(getFile(portfolio, "RESTORE_" + reportImportBatch)
+                    .getBytes(StandardCharsets.UTF_8)));
+        } finally {
+            properties.setReportImportBatch(defaultReportImportBatch);
+        }
+
+        TransactionEntity trade = transactionRepository.findByPortfolioAndTradeId(portfolio, "1").orElseThrow();
+        int security = trade.getSecurity().getId();
+        assertEquals(Instant.ofEpochSecond(TRADE_TIMESTAMP), trade.getTimestamp());
+        assertEquals(10, trade.getCount());
+        assertEqualsNumber("-1000", transactionCashFlowRepository
+                .findByTransactionIdAndCashFlowType(trade.getId(), PRICE).orElseThrow().getValue());
+        assertEqualsNumber("-1", transactionCashFlowRepository
+                .findByTransactionIdAndCashFlowType(trade.getId(), FEE).orElseThrow().getValue());
+
+        TransactionEntity transfer = transactionRepository.findByPortfolioAndTradeId(portfolio, "2").orElseThrow();
+        assertEquals(security, transfer.getSecurity().getId());
+        assertEquals(Instant.ofEpochSecond(TRANSFER_TIMESTAMP), transfer.getTimestamp());
+        assertEquals(5, transfer.getCount());
+        assertEquals(List.of(), transactionCashFlowRepository.findByTransactionId(transfer.getId()));
+
+        SecurityEventCashFlowEntity dividend = securityEventCashFlowRepository
+                .findByPortfolioIdAndSecurityIdAndCashFlowTypeIdAndTimestampAndCount(
+                        portfolio, security, DIVIDEND.getId(), Instant.ofEpochSecond(PAYMENT_TIMESTAMP), 15)
+                .orElseThrow();
+        assertEqualsNumber("12", dividend.getValue());
+        SecurityEventCashFlowEntity tax = securityEventCashFlowRepository
+                .findByPortfolioIdAndSecurityIdAndCashFlowTypeIdAndTimestampAndCount(
+                        portfolio, security, TAX.getId(), Instant.ofEpochSecond(PAYMENT_TIMESTAMP), 15)
+                .orElseThrow();
+        assertEqualsNumber("-1.56", tax.getValue());
+
+        List<EventCashFlowEntity> cashFlows =
+                eventCashFlowRepository.findByPortfolioIdAndCashFlowTypeIdOrderByTimestamp(portfolio, CASH.getId());
+        assertEquals(1, cashFlows.size());
+        assertEquals(Instant.ofEpochSecond(CASH_FLOW_TIMESTAMP), cashFlows.getFirst().getTimestamp());
+        assertEqualsNumber("10000", cashFlows.getFirst().getValue());
+    }
+
+    private static String getFile(String portfolio, String ticker) {
+        return """
+                {
+                    "version": "1.1.0",
+                    "generated-by": "investbook",
+                    "end": %5$d,
+                    "accounts": [{"id": 1, "account-number": "%1$s", "type": "investment"}],
+                    "assets": [{"id": 1, "type": "stock", "symbol": "%2$s"}],
+                    "trades": [{"id": 1, "trade-id": "1", "settlement": %3$d, "account": 1, "asset": 1,
+                            "count": 10, "price": 100, "currency": "RUB", "fee": 1, "fee-currency": "RUB"}],
+                    "transfers": [{"id": 2, "transfer-id": "2", "account": 1, "timestamp": %4$d, "asset": 1,
+                            "count": 5}],
+                    "payments": [{"id": 1, "account": 1, "asset": 1, "type": "dividend", "count": 15,
+                            "timestamp": %5$d, "amount": 12, "currency": "RUB", "tax": 1.56, "tax-currency": "RUB"}],
+                    "cash-flows": [{"id": 1, "account": 1, "timestamp": %6$d, "amount": 10000, "currency": "RUB",
+                            "type": "cash"}]
+                }
+                """.formatted(portfolio, ticker, TRADE_TIMESTAMP, TRANSFER_TIMESTAMP, PAYMENT_TIMESTAMP,
+                CASH_FLOW_TIMESTAMP);
+    }
+
+    private static void assertEqualsNumber(String expected, BigDecimal actual) {
+        assertEquals(0, new BigDecimal(expected).compareTo(actual), () -> "expected " + expected + ", but was " + actual);
+    }
+}
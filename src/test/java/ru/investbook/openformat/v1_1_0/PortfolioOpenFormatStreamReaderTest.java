@@ -0,0 +1,71 @@
+/*
+ * InvestBook
+ * Copyright (C) 2022  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.investbook.openformat.v1_1_0;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PortfolioOpenFormatStreamReaderTest {
+
+    private static final String json = """
+            {
+                "trades": [{"id": 1}, {"id": 2}, {"id": 3}],
+                "end": 100,
+                "unknown": {"field": [1, 2]},
+                "payments": []
+            }
+            """;
+    private final PortfolioOpenFormatStreamReader reader = new PortfolioOpenFormatStreamReader(new ObjectMapper());
+
+    @Test
+    void readSkipping() throws IOException {
+        PortfolioOpenFormatV1_1_0 object = reader.readSkipping(getInputStream(), Set.of("trades", "payments"));
+
+        assertEquals(100, object.getEnd());
+        assertTrue(object.getTrades().isEmpty());
+    }
+
+    @Test
+    @SuppressWarnings("rawtypes")
+    void readArrayByChunks() throws IOException {
+        List<List<Map>> chunks = new ArrayList<>();
+
+        reader.read(getInputStream(), Map.of("trades", reader.arrayByChunks(Map.class, 2, chunks::add)));
+
+        assertEquals(2, chunks.size());
+        assertEquals(List.of(Map.of("id", 1), Map.of("id", 2)), chunks.get(0));
+        assertEquals(List.of(Map.of("id", 3)), chunks.get(1));
+    }
+
+    private static InputStream getInputStream() {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
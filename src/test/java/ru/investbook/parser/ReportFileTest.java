@@ -0,0 +1,79 @@
+/*
+ * InvestBook
+ * Copyright (C) 2022  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package ru.investbook.parser;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static ru.investbook.parser.ReportFile.ContainerType.JSON;
+import static ru.investbook.parser.ReportFile.ContainerType.OTHER;
+import static ru.investbook.parser.ReportFile.ContainerType.XLS;
+import static ru.investbook.parser.ReportFile.ContainerType.XML;
+
+class ReportFileTest {
+
+    @Test
+    void workbookIsParsedOnce() throws IOException {
+        try (ReportFile file = new ReportFile("report.xlsx", createXls())) {
+            assertEquals(XLS, file.getContainerType()); // by content, not by file name
+            Workbook workbook = file.getWorkbook();
+            assertSame(workbook, file.getWorkbook());
+            assertTrue(file.hasSheet("Сделки"));
+            assertFalse(file.hasSheet("Движение ДС"));
+            assertTrue(file.isHeaderContains("Брокер: ПАО"));
+            assertFalse(file.isHeaderContains("ВТБ"));
+        }
+    }
+
+    @Test
+    void textContainerType() throws IOException {
+        try (ReportFile xml = new ReportFile("report.xml", "\uFEFF  <?xml version=\"1.0\"?><a/>".getBytes(UTF_8));
+             ReportFile json = new ReportFile("report.json", "\n{\"version\": \"1.1.0\"}".getBytes(UTF_8));
+             ReportFile csv = new ReportFile("report.csv", "Событие;Дата".getBytes(UTF_8))) {
+            assertEquals(XML, xml.getContainerType());
+            assertEquals(JSON, json.getContainerType());
+            assertEquals(OTHER, csv.getContainerType());
+            assertNull(csv.getWorkbook());
+            assertFalse(csv.isHeaderContains("Событие"));
+        }
+    }
+
+    private static byte[] createXls() throws IOException {
+        try (HSSFWorkbook workbook = new HSSFWorkbook()) {
+            workbook.createSheet("Сделки")
+                    .createRow(1)
+                    .createCell(2)
+                    .setCellValue("Брокер: ПАО \"Промсвязьбанк\"");
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            workbook.write(out);
+            return out.toByteArray();
+        }
+    }
+}
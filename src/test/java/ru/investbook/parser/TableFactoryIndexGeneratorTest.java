@@ -0,0 +1,84 @@
+/*
+ * InvestBook
+ * Copyright (C) 2022  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.investbook.parser;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TableFactoryIndexGeneratorTest {
+
+    @TempDir
+    Path classesDirectory;
+
+    @Test
+    void indexContainsInstantiableImplementations() throws IOException {
+        copyClass(Service.class);
+        copyClass(ServiceImpl.class);
+        copyClass(AbstractServiceImpl.class);
+        copyClass(ServiceImplWithoutDefaultConstructor.class);
+
+        List<String> implementations = TableFactoryIndexGenerator.generateIndex(classesDirectory, Service.class);
+
+        assertEquals(List.of(ServiceImpl.class.getName()), implementations);
+        Path index = classesDirectory.resolve("META-INF/services/" + Service.class.getName());
+        assertEquals(implementations, Files.readAllLines(index));
+    }
+
+    @Test
+    void indexIsNotCreatedWithoutImplementations() throws IOException {
+        copyClass(Service.class);
+
+        assertTrue(TableFactoryIndexGenerator.generateIndex(classesDirectory, Service.class).isEmpty());
+        assertFalse(Files.exists(classesDirectory.resolve("META-INF")));
+    }
+
+    private void copyClass(Class<?> clazz) throws IOException {
+        String file = clazz.getName().replace('.', '/') + ".class";
+        Path target = classesDirectory.resolve(file);
+        Files.createDirectories(Objects.requireNonNull(target.getParent()));
+        try (InputStream in = Objects.requireNonNull(clazz.getClassLoader().getResourceAsStream(file))) {
+            Files.copy(in, target);
+        }
+    }
+
+    public interface Service {
+    }
+
+    public static class ServiceImpl implements Service {
+    }
+
+    public abstract static class AbstractServiceImpl implements Service {
+    }
+
+    public static class ServiceImplWithoutDefaultConstructor implements Service {
+        public ServiceImplWithoutDefaultConstructor(int value) {
+        }
+    }
+}
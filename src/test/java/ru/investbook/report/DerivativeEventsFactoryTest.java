@@ -0,0 +1,118 @@
+/*
+ * InvestBook
+ * Copyright (C) 2022  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.investbook.report;
+
+import org.junit.jupiter.api.Test;
+import org.spacious_team.broker.pojo.CashFlowType;
+import org.spacious_team.broker.pojo.Portfolio;
+import org.spacious_team.broker.pojo.Security;
+import org.spacious_team.broker.pojo.SecurityType;
+import org.spacious_team.broker.pojo.Transaction;
+import org.spacious_team.broker.pojo.TransactionCashFlow;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import ru.investbook.TestDataFactory;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.spacious_team.broker.pojo.CashFlowType.COMMISSION;
+import static org.spacious_team.broker.pojo.CashFlowType.DERIVATIVE_PRICE;
+import static org.spacious_team.broker.pojo.CashFlowType.DERIVATIVE_PROFIT;
+import static org.spacious_team.broker.pojo.CashFlowType.DERIVATIVE_QUOTE;
+
+@SpringBootTest
+@Transactional
+class DerivativeEventsFactoryTest {
+
+    private static final String PORTFOLIO = "derivative-events-test";
+
+    @Autowired
+    DerivativeEventsFactory derivativeEventsFactory;
+    @Autowired
+    TestDataFactory testDataFactory;
+
+    @Test
+    void eventsAreGroupedByTradeDays() {
+        testDataFactory.createPortfolio(PORTFOLIO);
+        int security = testDataFactory.createSecurity(SecurityType.DERIVATIVE, "Si-6.24");
+        // several trades of one day, Moscow time is UTC+3
+        createTrade(security, "1", "2024-06-03T07:00:00Z", 2, "-180000", "-90000");
+        createTrade(security, "2", "2024-06-03T09:30:00Z", 1, "-90500", "-90500");
+        createVariationMargin(security, "2024-06-03T15:00:00Z", "1200");
+        // evening session trade belongs to the next trade day
+        createTrade(security, "3", "2024-06-03T16:30:00Z", -1, "90700", "90700");
+        createVariationMargin(security, "2024-06-04T15:00:00Z", "-300");
+        // days with variation margin only
+        createVariationMargin(security, "2024-06-05T15:00:00Z", "450");
+        createVariationMargin(security, "2024-06-10T15:00:00Z", "-150");
+        createTrade(security, "4", "2024-06-07T08:00:00Z", -2, "182000", "91000");
+        createVariationMargin(security, "2024-06-07T15:00:00Z", "600");
+
+        Security contract = Security.builder().id(security).type(SecurityType.DERIVATIVE).ticker("Si-6.24").build();
+        List<DerivativeEvents.DerivativeDailyEvents> events = derivativeEventsFactory
+                .getDerivativeEvents(Portfolio.builder().id(PORTFOLIO).build(), contract, ViewFilter.builder().build())
+                .getDerivativeDailyEvents();
+
+        assertEquals(5, events.size());
+        assertDay(events.get(0), "1200", "1200", 3, List.of("1", "2"));
+        assertDay(events.get(1), "-300", "900", 2, List.of("3"));
+        assertDay(events.get(2), "450", "1350", 2, List.of());
+        assertDay(events.get(3), "600", "1950", 0, List.of("4"));
+        assertDay(events.get(4), "-150", "1800", 0, List.of());
+        Map<CashFlowType, TransactionCashFlow> cashFlows = events.get(0).getDailyTransactions().firstEntry().getValue();
+        assertEqualsNumber("-180000", requireNonNull(cashFlows.get(DERIVATIVE_PRICE)).getValue());
+        assertEqualsNumber("-90000", requireNonNull(cashFlows.get(DERIVATIVE_QUOTE)).getValue());
+        assertEqualsNumber("-2", requireNonNull(cashFlows.get(COMMISSION)).getValue());
+    }
+
+    private static void assertDay(DerivativeEvents.DerivativeDailyEvents day,
+                                  String dailyProfit,
+                                  String totalProfit,
+                                  int position,
+                                  List<String> tradeIds) {
+        assertEqualsNumber(dailyProfit, requireNonNull(day.getDailyProfit()).getValue());
+        assertEqualsNumber(totalProfit, day.getTotalProfit());
+        assertEquals(position, day.getPosition());
+        assertEquals(tradeIds, day.getDailyTransactions()
+                .keySet()
+                .stream()
+                .map(Transaction::getTradeId)
+                .toList());
+    }
+
+    private static void assertEqualsNumber(String expected, BigDecimal actual) {
+        assertEquals(0, new BigDecimal(expected).compareTo(actual), () -> "expected " + expected + ", but was " + actual);
+    }
+
+    private void createTrade(int security, String tradeId, String timestamp, int count, String price, String quote) {
+        int transactionId = testDataFactory.createTransaction(PORTFOLIO, security, tradeId, timestamp, count);
+        testDataFactory.createTransactionCashFlow(transactionId, DERIVATIVE_PRICE, price);
+        testDataFactory.createTransactionCashFlow(transactionId, DERIVATIVE_QUOTE, quote);
+        testDataFactory.createTransactionCashFlow(transactionId, COMMISSION, "-2");
+    }
+
+    private void createVariationMargin(int security, String timestamp, String value) {
+        testDataFactory.createSecurityEventCashFlow(PORTFOLIO, security, timestamp, 1, DERIVATIVE_PROFIT, value);
+    }
+}
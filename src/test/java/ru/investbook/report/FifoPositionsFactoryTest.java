@@ -0,0 +1,113 @@
+/*
+ * InvestBook
+ * Copyright (C) 2022  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.investbook.report;
+
+import org.junit.jupiter.api.Test;
+import org.spacious_team.broker.pojo.Portfolio;
+import org.spacious_team.broker.pojo.Security;
+import org.spacious_team.broker.pojo.SecurityType;
+import org.spacious_team.broker.pojo.Transaction;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.investbook.api.PortfolioRestController;
+import ru.investbook.api.SecurityRestController;
+import ru.investbook.api.TransactionRestController;
+import ru.investbook.parser.InvestbookBatchApiClient;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class FifoPositionsFactoryTest {
+
+    private static final String PORTFOLIO = "fifo-positions-test";
+
+    @Autowired
+    PortfolioRestController portfolioRestController;
+    @Autowired
+    SecurityRestController securityRestController;
+    @Autowired
+    TransactionRestController transactionRestController;
+    @Autowired
+    InvestbookBatchApiClient batchApiClient;
+    @Autowired
+    FifoPositionsFactory fifoPositionsFactory;
+
+    @Test
+    void backdatedTransactionsAreIncludedInCachedPositions() {
+        portfolioRestController.createIfAbsent(Portfolio.builder().id(PORTFOLIO).build());
+        int security = securityRestController.createIfAbsentAndGet(Security.builder()
+                        .type(SecurityType.STOCK)
+                        .ticker("FIFO_POSITIONS_TEST")
+                        .build())
+                .object()
+                .getId();
+        transactionRestController.createIfAbsentAndGet(transaction(security, "1", "2024-01-10T10:00:00Z", 10));
+        assertEquals(10, getCount(security, "2024-02-01T00:00:00Z"));
+        assertEquals(10, getCount(security, "2024-03-01T00:00:00Z")); // extends checkpoint
+
+        // saved by Hibernate and by native batch insert
+        transactionRestController.createIfAbsentAndGet(transaction(security, "2", "2024-01-05T10:00:00Z", 5));
+        batchApiClient.addTransfers(List.of(transaction(security, "3", "2024-01-07T10:00:00Z", 3)));
+
+        assertEquals(18, getCount(security, "2024-02-01T00:00:00Z"));
+        assertEquals(18, getCount(security, "2024-03-01T00:00:00Z"));
+    }
+
+    @Test
+    void backdatedFxContractTransactionsAreIncludedInCachedCurrencyPairPositions() {
+        portfolioRestController.createIfAbsent(Portfolio.builder().id(PORTFOLIO).build());
+        int contract = securityRestController.createIfAbsentAndGet(Security.builder()
+                        .type(SecurityType.CURRENCY_PAIR)
+                        .ticker("CNYRUB_TOM")
+                        .build())
+                .object()
+                .getId();
+        transactionRestController.createIfAbsentAndGet(transaction(contract, "fx-1", "2024-01-10T10:00:00Z", 100));
+        assertEquals(100, getCurrencyPairCount("2024-02-01T00:00:00Z"));
+
+        // saved by Hibernate and by native batch insert
+        transactionRestController.createIfAbsentAndGet(transaction(contract, "fx-2", "2024-01-05T10:00:00Z", 50));
+        batchApiClient.addTransfers(List.of(transaction(contract, "fx-3", "2024-01-07T10:00:00Z", 30)));
+
+        assertEquals(180, getCurrencyPairCount("2024-02-01T00:00:00Z"));
+    }
+
+    private int getCurrencyPairCount(String toDate) {
+        FifoPositionsFilter filter = FifoPositionsFilter.of(PORTFOLIO, ViewFilter.defaultFromDate, Instant.parse(toDate));
+        return fifoPositionsFactory.getForCurrencyPair("CNYRUB", filter).getCurrentOpenedPositionsCount();
+    }
+
+    private int getCount(int security, String toDate) {
+        FifoPositionsFilter filter = FifoPositionsFilter.of(PORTFOLIO, ViewFilter.defaultFromDate, Instant.parse(toDate));
+        return fifoPositionsFactory.get(security, SecurityType.STOCK, filter).getCurrentOpenedPositionsCount();
+    }
+
+    private static Transaction transaction(int security, String tradeId, String timestamp, int count) {
+        return Transaction.builder()
+                .tradeId(tradeId)
+                .portfolio(PORTFOLIO)
+                .security(security)
+                .timestamp(Instant.parse(timestamp))
+                .count(count)
+                .build();
+    }
+}
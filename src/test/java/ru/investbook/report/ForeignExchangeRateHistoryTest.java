@@ -0,0 +1,76 @@
+/*
+ * InvestBook
+ * Copyright (C) 2022  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.investbook.report;
+
+import org.junit.jupiter.api.Test;
+import ru.investbook.entity.ForeignExchangeRateEntity;
+import ru.investbook.entity.ForeignExchangeRateEntityPk;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ForeignExchangeRateHistoryTest {
+
+    private final ForeignExchangeRateHistory history = new ForeignExchangeRateHistory(List.of(
+            rate(LocalDate.of(2021, 1, 1), "70"),
+            rate(LocalDate.of(2021, 1, 5), "0"),
+            rate(LocalDate.of(2021, 1, 10), "75")));
+
+    @Test
+    void get() {
+        assertEquals(new BigDecimal("70"), history.get(LocalDate.of(2021, 1, 1)));
+        assertEquals(new BigDecimal("75"), history.get(LocalDate.of(2021, 1, 10)));
+        assertNull(history.get(LocalDate.of(2021, 1, 5)));
+        assertNull(history.get(LocalDate.of(2021, 1, 6)));
+    }
+
+    @Test
+    void getAtOrBefore() {
+        assertNull(history.getAtOrBefore(LocalDate.of(2020, 12, 31)));
+        assertEquals(new BigDecimal("70"), history.getAtOrBefore(LocalDate.of(2021, 1, 1)));
+        assertEquals(new BigDecimal("70"), history.getAtOrBefore(LocalDate.of(2021, 1, 9)));
+        assertEquals(new BigDecimal("75"), history.getAtOrBefore(LocalDate.of(2021, 2, 1)));
+    }
+
+    @Test
+    void getLatest() {
+        assertEquals(new BigDecimal("75"), history.getLatest());
+        assertNull(new ForeignExchangeRateHistory(List.of()).getLatest());
+    }
+
+    @Test
+    void getLatestDate() {
+        assertEquals(LocalDate.of(2021, 1, 10), history.getLatestDate());
+        assertNull(new ForeignExchangeRateHistory(List.of(rate(LocalDate.of(2021, 1, 1), "0"))).getLatestDate());
+    }
+
+    private static ForeignExchangeRateEntity rate(LocalDate date, String rate) {
+        ForeignExchangeRateEntityPk pk = new ForeignExchangeRateEntityPk();
+        pk.setDate(date);
+        pk.setCurrencyPair("USDRUB");
+        ForeignExchangeRateEntity entity = new ForeignExchangeRateEntity();
+        entity.setPk(pk);
+        entity.setRate(new BigDecimal(rate));
+        return entity;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * InvestBook
+ * Copyright (C) 2022  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.investbook.report;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.investbook.entity.ForeignExchangeRateEntity;
+import ru.investbook.entity.ForeignExchangeRateEntityPk;
+import ru.investbook.repository.DataChangedEvent;
+import ru.investbook.repository.ForeignExchangeRateRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ForeignExchangeRateServiceTest {
+
+    private final ForeignExchangeRateRepository repository = mock(ForeignExchangeRateRepository.class);
+    private final ForeignExchangeRateService service = new ForeignExchangeRateService(repository, new SimpleMeterRegistry());
+
+    @Test
+    void historyIsCached() {
+        when(repository.findByPkCurrencyPairOrderByPkDateAsc("USDRUB"))
+                .thenReturn(List.of(rate(LocalDate.of(2021, 1, 1), "70")));
+
+        assertEquals(new BigDecimal("70"), service.getExchangeRateToRub("USD", LocalDate.of(2021, 1, 1)));
+        assertEquals(new BigDecimal("70"), service.getExchangeRateToRub("usd", LocalDate.of(2021, 1, 1)));
+        verify(repository, times(1)).findByPkCurrencyPairOrderByPkDateAsc("USDRUB");
+    }
+
+    @Test
+    void historyIsReloadedAfterRateChange() {
+        LocalDate date = LocalDate.of(2021, 1, 10);
+        when(repository.findByPkCurrencyPairOrderByPkDateAsc("USDRUB"))
+                .thenReturn(List.of(rate(LocalDate.of(2021, 1, 1), "70")))
+                .thenReturn(List.of(rate(LocalDate.of(2021, 1, 1), "70"), rate(date, "75")));
+
+        assertThrows(NoSuchElementException.class, () -> service.getExchangeRateToRub("USD", date));
+        service.onDataChanged(DataChangedEvent.foreignExchangeRate("USDRUB", date));
+        assertEquals(new BigDecimal("75"), service.getExchangeRateToRub("USD", date));
+    }
+
+    @Test
+    void historyLoadedBeforeRateChangeIsNotCached() {
+        LocalDate date = LocalDate.of(2021, 1, 10);
+        when(repository.findByPkCurrencyPairOrderByPkDateAsc("USDRUB"))
+                .thenAnswer(_ -> {
+                    // rate is saved by other thread while history is loaded
+                    service.onDataChanged(DataChangedEvent.foreignExchangeRate("USDRUB", date));
+                    return List.of(rate(LocalDate.of(2021, 1, 1), "70"));
+                })
+                .thenReturn(List.of(rate(LocalDate.of(2021, 1, 1), "70"), rate(date, "75")));
+
+        assertThrows(NoSuchElementException.class, () -> service.getExchangeRateToRub("USD", date));
+        assertEquals(new BigDecimal("75"), service.getExchangeRateToRub("USD", date));
+    }
+
+    private static ForeignExchangeRateEntity rate(LocalDate date, String rate) {
+        ForeignExchangeRateEntityPk pk = new ForeignExchangeRateEntityPk();
+        pk.setDate(date);
+        pk.setCurrencyPair("USDRUB");
+        ForeignExchangeRateEntity entity = new ForeignExchangeRateEntity();
+        entity.setPk(pk);
+        entity.setRate(new BigDecimal(rate));
+        return entity;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * InvestBook
+ * Copyright (C) 2021  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.investbook.report;
+
+import org.junit.jupiter.api.Test;
+import org.spacious_team.broker.pojo.CashFlowType;
+import org.spacious_team.broker.pojo.Security;
+import org.spacious_team.broker.pojo.SecurityQuote;
+import org.spacious_team.broker.pojo.SecurityType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import ru.investbook.TestDataFactory;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static java.util.Objects.requireNonNull;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.spacious_team.broker.pojo.CashFlowType.DERIVATIVE_PRICE;
+import static org.spacious_team.broker.pojo.CashFlowType.PRICE;
+
+@SpringBootTest
+@Transactional
+class InternalRateOfReturnTest {
+
+    private static final String PORTFOLIO = "internal-rate-of-return-test";
+    private static final Instant TO_DATE = Instant.parse("2024-07-01T00:00:00Z");
+
+    @Autowired
+    TestDataFactory testDataFactory;
+    @Autowired
+    InternalRateOfReturn internalRateOfReturn;
+
+    @Test
+    void calcAllIsSameAsCalcOfEachSecurity() {
+        testDataFactory.createPortfolio(PORTFOLIO);
+        Security closed = createSecurity(SecurityType.STOCK, "IRR_CLOSED_STOCK");
+        createTrade(closed, "1", "2023-01-10T10:00:00Z", 10, PRICE, "-1000");
+        createTrade(closed, "2", "2024-01-10T10:00:00Z", -10, PRICE, "1100");
+        Security opened = createSecurity(SecurityType.STOCK, "IRR_OPENED_STOCK");
+        createTrade(opened, "3", "2023-06-01T10:00:00Z", 5, PRICE, "-500");
+        Security withoutQuote = createSecurity(SecurityType.STOCK, "IRR_STOCK_WITHOUT_QUOTE");
+        createTrade(withoutQuote, "4", "2023-06-01T10:00:00Z", 5, PRICE, "-500");
+        Security derivative = createSecurity(SecurityType.DERIVATIVE, "IRR-6.24");
+        createTrade(derivative, "5", "2024-06-03T10:00:00Z", 1, DERIVATIVE_PRICE, "-90000");
+        SecurityQuote quote = SecurityQuote.builder()
+                .security(requireNonNull(opened.getId()))
+                .timestamp(Instant.parse("2024-06-01T10:00:00Z"))
+                .quote(new BigDecimal("110"))
+                .price(new BigDecimal("110"))
+                .currency("RUB")
+                .build();
+        Map<Integer, SecurityQuote> quotes = Map.of(requireNonNull(opened.getId()), quote);
+        List<Security> securities = List.of(closed, opened, withoutQuote, derivative);
+
+        Map<Integer, Double> result = internalRateOfReturn.calcAll(
+                Set.of(PORTFOLIO), securities, quotes, ViewFilter.defaultFromDate, TO_DATE);
+
+        assertEquals(0.1, requireNonNull(result.get(closed.getId())), 1e-3); // 10% for 365 days
+        for (Security security : securities) {
+            assertEquals(
+                    internalRateOfReturn.calc(Set.of(PORTFOLIO), security, quotes.get(security.getId()),
+                            ViewFilter.defaultFromDate, TO_DATE),
+                    result.get(security.getId()));
+        }
+        assertFalse(result.containsKey(withoutQuote.getId()));
+        assertFalse(result.containsKey(derivative.getId()));
+    }
+
+    private Security createSecurity(SecurityType type, String ticker) {
+        int id = testDataFactory.createSecurity(type, ticker);
+        return Security.builder().id(id).type(type).ticker(ticker).build();
+    }
+
+    private void createTrade(Security security, String tradeId, String timestamp, int count,
+                             CashFlowType priceType, String price) {
+        int transactionId = testDataFactory.createTransaction(
+                PORTFOLIO, requireNonNull(security.getId()), tradeId, timestamp, count);
+        testDataFactory.createTransactionCashFlow(transactionId, priceType, price);
+    }
+}
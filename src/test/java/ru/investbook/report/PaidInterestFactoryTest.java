@@ -0,0 +1,103 @@
+/*
+ * InvestBook
+ * Copyright (C) 2022  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.investbook.report;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.junit.jupiter.api.Test;
+import org.spacious_team.broker.pojo.Transaction;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class PaidInterestFactoryTest {
+
+    @Test
+    void sweptPositionsAreSameAsScannedPositions() {
+        LinkedList<Transaction> transactions = new LinkedList<>(List.of(
+                transaction(1, "2024-01-10T10:00:00Z", 10),
+                // closed and reopened at the record date
+                transaction(2, "2024-05-10T10:00:00Z", -10),
+                transaction(3, "2024-05-10T10:00:00Z", 5),
+                transaction(4, "2024-05-10T12:00:00Z", 5),
+                transaction(5, "2024-06-01T10:00:00Z", -3),
+                transaction(6, "2024-07-01T10:00:00Z", 2)));
+        FifoPositions positions = new FifoPositions(transactions, new LinkedList<>());
+        List<@Nullable Instant> bookClosureDates = Arrays.asList(
+                instant("2024-05-10T10:00:00Z"),
+                instant("2024-05-10T10:00:00.000000001Z"),
+                instant("2024-12-31T00:00:00Z"),
+                instant("2024-05-10T12:00:00Z"),
+                null,
+                instant("2024-05-10T09:59:59.999999999Z"),
+                instant("2024-01-10T10:00:00Z"),
+                instant("2024-01-01T00:00:00Z"),
+                instant("2024-06-01T10:00:00Z"),
+                instant("2024-06-01T10:00:00.000000001Z"),
+                instant("2024-05-10T10:00:00.000000001Z"));
+
+        List<@Nullable List<Position>> paidPositions = PaidInterestFactory.getPayedPositions(positions, bookClosureDates);
+
+        assertEquals(bookClosureDates.size(), paidPositions.size());
+        for (int i = 0; i < bookClosureDates.size(); i++) {
+            @Nullable Instant bookClosureDate = bookClosureDates.get(i);
+            assertEquals((bookClosureDate == null) ? null : getPayedPositionsByScan(positions, bookClosureDate),
+                    paidPositions.get(i), "book closure date " + bookClosureDate);
+        }
+        assertFalse(positions.getClosedPositions().isEmpty());
+    }
+
+    /**
+     * Previous implementation: all closed and opened positions are checked for each payment
+     */
+    private static List<Position> getPayedPositionsByScan(FifoPositions positions, Instant bookClosureDate) {
+        List<Position> paidPositions = new ArrayList<>();
+        for (Position position : positions.getClosedPositions()) {
+            if (position.wasOpenedAtTheInstant(bookClosureDate)) {
+                paidPositions.add(position);
+            }
+        }
+        for (Position position : positions.getOpenedPositions()) {
+            if (position.wasOpenedAtTheInstant(bookClosureDate)) {
+                paidPositions.add(position);
+            }
+        }
+        return paidPositions;
+    }
+
+    private static Transaction transaction(int id, String timestamp, int count) {
+        return Transaction.builder()
+                .id(id)
+                .tradeId(String.valueOf(id))
+                .portfolio("1")
+                .security(1)
+                .timestamp(instant(timestamp))
+                .count(count)
+                .build();
+    }
+
+    private static Instant instant(String instant) {
+        return Instant.parse(instant);
+    }
+}
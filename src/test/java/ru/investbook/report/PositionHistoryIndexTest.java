@@ -0,0 +1,70 @@
+/*
+ * InvestBook
+ * Copyright (C) 2022  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.investbook.report;
+
+import org.junit.jupiter.api.Test;
+import org.spacious_team.broker.pojo.Transaction;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PositionHistoryIndexTest {
+
+    private final PositionHistoryIndex index = new PositionHistoryIndex(List.of(
+            history(10, 10),
+            history(20, 5),
+            history(30, 10),
+            history(40, 0)));
+
+    @Test
+    void getBookClosureDate() {
+        assertEquals(instant(10).plusNanos(1), index.getBookClosureDate(instant(15), 10));
+        assertEquals(instant(30).plusNanos(1), index.getBookClosureDate(instant(50), 10));
+        assertEquals(instant(20).plusNanos(1), index.getBookClosureDate(instant(50), 5));
+        assertNull(index.getBookClosureDate(instant(10), 10));
+        assertNull(index.getBookClosureDate(instant(50), 7));
+    }
+
+    @Test
+    void getBookClosureDateOfLatestHistory() {
+        // redemption history may precede transaction history, the latest history wins as before
+        PositionHistoryIndex unordered = new PositionHistoryIndex(List.of(
+                history(30, 10),
+                history(10, 10)));
+        assertEquals(instant(10).plusNanos(1), unordered.getBookClosureDate(instant(50), 10));
+        assertEquals(instant(10).plusNanos(1), unordered.getBookClosureDate(instant(20), 10));
+    }
+
+    private static PositionHistory history(long epochSecond, int openedPositions) {
+        Transaction transaction = Transaction.builder()
+                .timestamp(instant(epochSecond))
+                .portfolio("1")
+                .security(1)
+                .count(1)
+                .build();
+        return new PositionHistory(transaction, openedPositions);
+    }
+
+    private static Instant instant(long epochSecond) {
+        return Instant.ofEpochSecond(epochSecond);
+    }
+}
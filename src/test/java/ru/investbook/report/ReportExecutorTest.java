@@ -0,0 +1,74 @@
+/*
+ * InvestBook
+ * Copyright (C) 2022  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.investbook.report;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.investbook.InvestbookProperties;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ReportExecutorTest {
+
+    private final ReportExecutor executor = new ReportExecutor(properties(4));
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void mapInOrderWithViewFilter() {
+        ViewFilter filter = ViewFilter.builder().build();
+        List<Integer> items = IntStream.range(0, 100).boxed().toList();
+        List<Integer> result = ViewFilter.callWith(filter, () -> executor.map(items, i -> {
+            assertEquals(filter, ViewFilter.get());
+            return i * 2;
+        }));
+        assertEquals(IntStream.range(0, 100).map(i -> i * 2).boxed().toList(), result);
+    }
+
+    @Test
+    void mapNested() {
+        List<Integer> items = IntStream.range(0, 10).boxed().toList();
+        List<Integer> result = executor.map(items, i -> executor.map(items, j -> j).size() + i);
+        assertEquals(IntStream.range(10, 20).boxed().toList(), result);
+    }
+
+    @Test
+    void mapThrows() {
+        List<Integer> items = IntStream.range(0, 10).boxed().toList();
+        assertThrows(IllegalStateException.class, () -> executor.map(items, i -> {
+            if (i == 5) {
+                throw new IllegalStateException();
+            }
+            return i;
+        }));
+    }
+
+    private static InvestbookProperties properties(int threads) {
+        InvestbookProperties properties = new InvestbookProperties();
+        properties.setReportBuilderThreads(threads);
+        return properties;
+    }
+}
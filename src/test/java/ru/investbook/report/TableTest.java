@@ -0,0 +1,86 @@
+/*
+ * InvestBook
+ * Copyright (C) 2022  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.investbook.report;
+
+import org.junit.jupiter.api.Test;
+import ru.investbook.report.excel.CommissionExcelTableHeader;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static ru.investbook.report.excel.CommissionExcelTableHeader.COMMISSION;
+import static ru.investbook.report.excel.CommissionExcelTableHeader.CURRENCY;
+import static ru.investbook.report.excel.CommissionExcelTableHeader.DATE;
+import static ru.investbook.report.excel.StockMarketProfitExcelTableHeader.SECURITY;
+
+class TableTest {
+
+    @Test
+    void record() {
+        Table.Record record = new Table.Record();
+        assertNull(record.getHeaderType());
+        assertNull(record.put(COMMISSION, 1));
+        assertNull(record.put(CURRENCY, null));
+        assertEquals(1, record.put(COMMISSION, 2));
+
+        assertEquals(2, record.get(COMMISSION));
+        assertNull(record.get(CURRENCY));
+        assertTrue(record.containsKey(CURRENCY));
+        assertFalse(record.containsKey(DATE));
+        assertFalse(record.containsKey(SECURITY));
+        assertNull(record.get(SECURITY));
+        assertEquals(2, record.size());
+        assertEquals(CommissionExcelTableHeader.class, record.getHeaderType());
+
+        assertEquals(2, record.remove(COMMISSION));
+        assertEquals(1, record.size());
+        assertThrows(IllegalArgumentException.class, () -> record.put(SECURITY, "a"));
+    }
+
+    @Test
+    void recordCopy() {
+        Table.Record record = new Table.Record();
+        record.put(DATE, "2021-01-01");
+        record.put(COMMISSION, 1);
+        Table.Record copy = new Table.Record(record);
+        copy.remove(DATE);
+        copy.merge(COMMISSION, 2, (v1, v2) -> (int) v1 + (int) v2);
+
+        assertEquals(2, record.size());
+        assertEquals(1, record.get(COMMISSION));
+        assertEquals(Map.of(COMMISSION, 3), copy);
+    }
+
+    @Test
+    void recordEntrySet() {
+        Table.Record record = new Table.Record();
+        record.put(CURRENCY, "RUB");
+        record.put(DATE, "2021-01-01");
+        record.put(COMMISSION, 1);
+        record.entrySet().removeIf(e -> e.getKey() == COMMISSION);
+        record.entrySet().forEach(e -> e.setValue(e.getValue() + "!"));
+
+        assertEquals(Map.of(DATE, "2021-01-01!", CURRENCY, "RUB!"), record);
+        assertEquals(Map.of(DATE, "2021-01-01!", CURRENCY, "RUB!").hashCode(), record.hashCode());
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * InvestBook
+ * Copyright (C) 2022  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.investbook.report;
+
+import org.junit.jupiter.api.Test;
+import ru.investbook.web.model.ViewFilterModel;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ViewFilterTest {
+
+    @Test
+    void isAllTimeToToday() {
+        assertTrue(of(new ViewFilterModel()).isAllTimeToToday());
+        assertTrue(ViewFilter.of(new ViewFilterModel(), Set::of).toBuilder()
+                .fromDate(ViewFilter.defaultFromDate)
+                .build()
+                .isAllTimeToToday());
+
+        ViewFilterModel model = new ViewFilterModel();
+        model.setFromDate(LocalDate.of(2020, 1, 1));
+        assertFalse(of(model).isAllTimeToToday());
+
+        model = new ViewFilterModel();
+        model.setToDate(LocalDate.now().minusDays(1));
+        assertFalse(of(model).isAllTimeToToday());
+    }
+
+    @Test
+    void callWith() {
+        ViewFilter outer = ViewFilter.builder().build();
+        ViewFilter inner = outer.toBuilder().showDetails(false).build();
+        ViewFilter.callWith(outer, () -> {
+            assertSame(outer, ViewFilter.get());
+            assertSame(inner, ViewFilter.callWith(inner, ViewFilter::get));
+            assertSame(outer, ViewFilter.get());
+            return null;
+        });
+        assertNull(ViewFilter.getIfBound());
+    }
+
+    private static ViewFilter of(ViewFilterModel model) {
+        return ViewFilter.of(model, Set::of);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * InvestBook
+ * Copyright (C) 2022  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.investbook.report.excel;
+
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xddf.usermodel.chart.XDDFChartData;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFChart;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import ru.investbook.converter.PortfolioConverter;
+import ru.investbook.report.Table;
+import ru.investbook.repository.PortfolioRepository;
+import ru.investbook.repository.TransactionCashFlowRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static ru.investbook.report.excel.PortfolioStatusExcelTableHeader.PROPORTION;
+import static ru.investbook.report.excel.PortfolioStatusExcelTableHeader.SECURITY;
+
+class PortfolioStatusExcelTableViewTest {
+
+    private final PortfolioStatusExcelTableView view = new PortfolioStatusExcelTableView(
+            mock(PortfolioRepository.class),
+            mock(PortfolioStatusExcelTableFactory.class),
+            mock(PortfolioConverter.class),
+            mock(TransactionCashFlowRepository.class));
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void pieChartHasData(boolean streaming) throws IOException {
+        Table table = new Table();
+        table.add(record("Stock A", 0.25));
+        table.add(record("Stock B", 0.75));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (Workbook book = streaming ? new SXSSFWorkbook(1) : new XSSFWorkbook()) {
+            view.createSheet(null, book, "Портфель", table, new CellStyles(book));
+            book.write(out);
+        }
+
+        try (XSSFWorkbook book = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            XSSFChart chart = book.getSheet("Портфель").getDrawingPatriarch().getCharts().getFirst();
+            XDDFChartData.Series series = chart.getChartSeries().getFirst().getSeries(0);
+            assertEquals(2, series.getValuesData().getPointCount());
+            assertEquals(0.25, series.getValuesData().getPointAt(0));
+            assertEquals(0.75, series.getValuesData().getPointAt(1));
+            assertEquals("Stock B", series.getCategoryData().getPointAt(1));
+        }
+    }
+
+    private static Table.Record record(String security, double proportion) {
+        Table.Record record = Table.newRecord();
+        record.put(SECURITY, security);
+        record.put(PROPORTION, proportion);
+        return record;
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * InvestBook
+ * Copyright (C) 2022  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.investbook.report.excel;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.investbook.InvestbookProperties;
+import ru.investbook.report.Table;
+import ru.investbook.report.ViewFilter;
+import ru.investbook.repository.DataChangedEvent;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.time.ZoneId.systemDefault;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReportTableCacheTest {
+
+    private final InvestbookProperties properties = new InvestbookProperties();
+    private final ReportTableCache cache;
+    private final ViewFilter filter = ViewFilter.builder()
+            .toDate(getEndOfToday())
+            .build();
+    private final ExcelTableView view = mock(ExcelTableView.class);
+    private final AtomicInteger builds = new AtomicInteger();
+
+    ReportTableCacheTest() {
+        properties.setReportCache(true);
+        properties.setReportCacheRefreshDelay(Duration.ofHours(1)); // no background refresh
+        cache = new ReportTableCache(properties, mock(PlatformTransactionManager.class), new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void shutdown() {
+        cache.shutdown();
+    }
+
+    @Test
+    void tablesAreEvictedOnDataChange() {
+        get(view);
+        get(view);
+        assertEquals(1, builds.get());
+
+        cache.onDataChanged(DataChangedEvent.other("portfolio"));
+        get(view);
+        assertEquals(2, builds.get());
+    }
+
+    @Test
+    void quoteChangeEvictsOnlyQuoteDependentTables() {
+        ExcelTableView quoteDependentView = mock(ExcelTableView.class);
+        when(quoteDependentView.isSecurityQuoteDependent()).thenReturn(true);
+        get(view);
+        get(quoteDependentView);
+        assertEquals(2, builds.get());
+
+        cache.onDataChanged(DataChangedEvent.securityQuote(1, Instant.now()));
+        get(view);
+        assertEquals(2, builds.get());
+        get(quoteDependentView);
+        assertEquals(3, builds.get());
+    }
+
+    @Test
+    void expiredTablesAreRebuilt() throws InterruptedException {
+        properties.setReportCacheMaxAge(Duration.ofMillis(10));
+        get(view);
+        Thread.sleep(20);
+        get(view);
+        assertEquals(2, builds.get());
+    }
+
+    @Test
+    void tablesBuiltBeforeDataChangeAreNotCached() {
+        cache.get(view, filter, () -> {
+            builds.incrementAndGet();
+            cache.onDataChanged(DataChangedEvent.all()); // data is changed by other thread while tables are built
+            return tables(view);
+        });
+        get(view);
+        get(view);
+        assertEquals(2, builds.get());
+    }
+
+    private Collection<ExcelTable> get(ExcelTableView view) {
+        return cache.get(view, filter, () -> {
+            builds.incrementAndGet();
+            return tables(view);
+        });
+    }
+
+    private static Collection<ExcelTable> tables(ExcelTableView view) {
+        return List.of(ExcelTable.of("Портфель", new Table(), view));
+    }
+
+    private static Instant getEndOfToday() {
+        return LocalDate.now().plusDays(1).atStartOfDay(systemDefault()).toInstant().minusSeconds(1);
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * InvestBook
+ * Copyright (C) 2022  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.investbook.report.excel;
+
+import org.junit.jupiter.api.Test;
+import org.spacious_team.broker.pojo.Portfolio;
+import org.spacious_team.broker.pojo.SecurityType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.investbook.InvestbookProperties;
+import ru.investbook.TestDataFactory;
+import ru.investbook.report.ReportExecutor;
+import ru.investbook.report.Table;
+import ru.investbook.report.ViewFilter;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static java.util.Objects.requireNonNull;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.spacious_team.broker.pojo.CashFlowType.COMMISSION;
+import static org.spacious_team.broker.pojo.CashFlowType.DERIVATIVE_PRICE;
+import static org.spacious_team.broker.pojo.CashFlowType.DERIVATIVE_PROFIT;
+import static org.spacious_team.broker.pojo.CashFlowType.DERIVATIVE_QUOTE;
+import static org.spacious_team.broker.pojo.CashFlowType.DIVIDEND;
+import static org.spacious_team.broker.pojo.CashFlowType.PRICE;
+
+/**
+ * Compares tables built by one thread and by several threads of {@link ReportExecutor}
+ */
+@SpringBootTest(properties = "investbook.report-builder-threads=4")
+class ReportTablesParallelBuildTest {
+
+    private static final String PORTFOLIO = "parallel-build-test";
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    PortfolioStatusExcelTableFactory portfolioStatusExcelTableFactory;
+    @Autowired
+    StockMarketProfitExcelTableFactory stockMarketProfitExcelTableFactory;
+    @Autowired
+    DerivativesMarketProfitExcelTableFactory derivativesMarketProfitExcelTableFactory;
+    @Autowired
+    TestDataFactory testData;
+
+    @Test
+    void tablesBuiltByOneThreadAndBySeveralThreadsAreEqual() {
+        createPortfolio();
+        Portfolio portfolio = Portfolio.builder().id(PORTFOLIO).build();
+        ViewFilter filter = ViewFilter.builder().build();
+
+        List<Supplier<Table>> builders = List.of(
+                () -> portfolioStatusExcelTableFactory.create(Set.of(PORTFOLIO), "RUB"),
+                () -> stockMarketProfitExcelTableFactory.create(portfolio, "RUB"),
+                () -> derivativesMarketProfitExcelTableFactory.create(portfolio));
+        List<Table> parallel = build(builders, filter);
+        List<Table> sequential;
+        InvestbookProperties properties = new InvestbookProperties();
+        properties.setReportBuilderThreads(1);
+        ReportExecutor singleThreadExecutor = new ReportExecutor(properties);
+        List<Object> factories = List.of(
+                portfolioStatusExcelTableFactory, stockMarketProfitExcelTableFactory, derivativesMarketProfitExcelTableFactory);
+        List<Object> executors = factories.stream()
+                .map(factory -> requireNonNull(ReflectionTestUtils.getField(AopTestUtils.getUltimateTargetObject(factory), "reportExecutor")))
+                .toList();
+        try {
+            factories.forEach(factory -> setReportExecutor(factory, singleThreadExecutor));
+            sequential = build(builders, filter);
+        } finally {
+            for (int i = 0; i < factories.size(); i++) {
+                setReportExecutor(factories.get(i), executors.get(i));
+            }
+        }
+
+        assertEquals(sequential, parallel);
+        parallel.forEach(table -> assertFalse(table.isEmpty()));
+    }
+
+    private List<Table> build(List<Supplier<Table>> builders, ViewFilter filter) {
+        return builders.stream()
+                .map(builder -> requireNonNull(new TransactionTemplate(transactionManager)
+                        .execute(_ -> ViewFilter.callWith(filter, builder))))
+                .toList();
+    }
+
+    private static void setReportExecutor(Object factory, Object executor) {
+        ReflectionTestUtils.setField(AopTestUtils.getUltimateTargetObject(factory), "reportExecutor", executor);
+    }
+
+    private void createPortfolio() {
+        testData.createPortfolio(PORTFOLIO);
+        for (int i = 0; i < 8; i++) {
+            int stock = testData.createSecurity(SecurityType.STOCK, "PARALLEL_STOCK_" + i);
+            int buy = testData.createTransaction(PORTFOLIO, stock, "s" + i + "-1", "2024-01-1" + i + "T10:00:00Z", 10 + i);
+            testData.createTransactionCashFlow(buy, PRICE, String.valueOf(-100 * (10 + i)));
+            testData.createTransactionCashFlow(buy, COMMISSION, "-1.5");
+            int sell = testData.createTransaction(PORTFOLIO, stock, "s" + i + "-2", "2024-03-1" + i + "T10:00:00Z", -5);
+            testData.createTransactionCashFlow(sell, PRICE, String.valueOf(110 * 5 + i));
+            testData.createTransactionCashFlow(sell, COMMISSION, "-0.7");
+            testData.createSecurityEventCashFlow(PORTFOLIO, stock, "2024-02-1" + i + "T10:00:00Z", 10 + i, DIVIDEND, String.valueOf(10 + i));
+        }
+        for (int i = 0; i < 4; i++) {
+            int contract = testData.createSecurity(SecurityType.DERIVATIVE, "Si-" + (6 + i) + ".24");
+            int buy = testData.createTransaction(PORTFOLIO, contract, "d" + i + "-1", "2024-04-0" + (i + 1) + "T08:00:00Z", 2);
+            testData.createTransactionCashFlow(buy, DERIVATIVE_PRICE, "-180000");
+            testData.createTransactionCashFlow(buy, DERIVATIVE_QUOTE, "-180000");
+            testData.createTransactionCashFlow(buy, COMMISSION, "-2");
+            testData.createSecurityEventCashFlow(PORTFOLIO, contract, "2024-04-0" + (i + 1) + "T15:00:00Z", 2, DERIVATIVE_PROFIT, "120." + i);
+            testData.createSecurityEventCashFlow(PORTFOLIO, contract, "2024-04-0" + (i + 2) + "T15:00:00Z", 2, DERIVATIVE_PROFIT, "-35");
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * InvestBook
+ * Copyright (C) 2022  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.investbook.repository;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class BatchInsertRepositoryTest {
+
+    private static final String CURRENCY_PAIR = "BITRUB";
+    private static final List<String> RATE_COLUMNS = List.of("date", "currency_pair", "rate");
+    private static final List<String> TRANSACTION_COLUMNS =
+            List.of("id", "trade_id", "portfolio", "security", "timestamp", "count");
+
+    @Autowired
+    BatchInsertRepository repository;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void duplicatesAreSkipped() {
+        List<@Nullable Object[]> rows = List.of(
+                rate("1990-01-01", "1.5"),
+                rate("1990-01-01", "2.5"),
+                rate("1990-01-02", "3.5"));
+
+        assertEquals(List.of(), repository.insertIgnore("foreign_exchange_rate", RATE_COLUMNS, rows, r -> r, 10));
+        assertEquals(List.of(), repository.insertIgnore("foreign_exchange_rate", RATE_COLUMNS, rows, r -> r, 10));
+        assertEquals(0, new BigDecimal("1.5").compareTo(getRate("1990-01-01")));
+        assertEquals(0, new BigDecimal("3.5").compareTo(getRate("1990-01-02")));
+    }
+
+    @Test
+    void dataTruncationIsNotIgnored() {
+        @Nullable Object[] tooLargeRate = rate("1990-02-02", "12345678");
+        List<@Nullable Object[]> rows = List.of(rate("1990-02-01", "1.5"), tooLargeRate);
+
+        assertEquals(List.of(tooLargeRate),
+                repository.insertIgnore("foreign_exchange_rate", RATE_COLUMNS, rows, r -> r, 1));
+        assertEquals(0, new BigDecimal("1.5").compareTo(getRate("1990-02-01")));
+    }
+
+    @Test
+    void foreignKeyViolationIsNotIgnored() {
+        @Nullable Object[] transaction = {null, "batch-insert-test", "not-existing-portfolio", -1,
+                Instant.parse("1990-01-01T10:00:00Z"), 1};
+        List<@Nullable Object[]> rows = List.of(transaction);
+
+        assertEquals(rows, repository.insertIgnore("`transaction`", TRANSACTION_COLUMNS, rows, r -> r, 10));
+    }
+
+    private static @Nullable Object[] rate(String date, String rate) {
+        return new Object[]{LocalDate.parse(date), CURRENCY_PAIR, new BigDecimal(rate)};
+    }
+
+    private @Nullable BigDecimal getRate(String date) {
+        return jdbcTemplate.queryForObject(
+                "SELECT rate FROM foreign_exchange_rate WHERE currency_pair = ? AND `date` = ?",
+                BigDecimal.class, CURRENCY_PAIR, LocalDate.parse(date));
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * InvestBook
+ * Copyright (C) 2022  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.investbook.repository;
+
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.MariaDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Runs {@link BatchInsertRepositoryTest} against MariaDB, which differs from H2 in MySQL compatibility mode
+ * in handling of constraint violations by multi-row INSERT statements.
+ * Test is skipped without Docker, but is required in CI by {@code INVESTBOOK_MARIADB_TESTS=true} environment variable.
+ */
+@Testcontainers
+@EnabledIf("isEnabled")
+class MariaDbBatchInsertRepositoryTest extends BatchInsertRepositoryTest {
+
+    @Container
+    @ServiceConnection
+    static final MariaDBContainer<?> mariaDb = new MariaDBContainer<>("mariadb:11.4");
+
+    static boolean isEnabled() {
+        return Boolean.parseBoolean(System.getenv("INVESTBOOK_MARIADB_TESTS")) ||
+                DockerClientFactory.instance().isDockerAvailable();
+    }
+}
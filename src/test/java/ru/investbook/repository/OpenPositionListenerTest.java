@@ -0,0 +1,88 @@
+/*
+ * InvestBook
+ * Copyright (C) 2022  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package ru.investbook.repository;
+
+import org.junit.jupiter.api.Test;
+import org.spacious_team.broker.pojo.Portfolio;
+import org.spacious_team.broker.pojo.Security;
+import org.spacious_team.broker.pojo.SecurityType;
+import org.spacious_team.broker.pojo.Transaction;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.investbook.api.PortfolioRestController;
+import ru.investbook.api.SecurityRestController;
+import ru.investbook.api.TransactionRestController;
+import ru.investbook.entity.OpenPositionEntity;
+import ru.investbook.entity.OpenPositionEntityPk;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class OpenPositionListenerTest {
+
+    @Autowired
+    PortfolioRestController portfolioRestController;
+    @Autowired
+    SecurityRestController securityRestController;
+    @Autowired
+    TransactionRestController transactionRestController;
+    @Autowired
+    OpenPositionRepository openPositionRepository;
+
+    @Test
+    void openPositionIsRefreshedOnTransactionChange() {
+        portfolioRestController.createIfAbsent(Portfolio.builder().id("open-position-test").build());
+        int security = securityRestController.createIfAbsentAndGet(Security.builder()
+                        .type(SecurityType.STOCK)
+                        .ticker("OPEN_POSITION_TEST")
+                        .build())
+                .object()
+                .getId();
+        OpenPositionEntityPk pk = OpenPositionEntityPk.of("open-position-test", security);
+        Transaction buy = Transaction.builder()
+                .tradeId("1")
+                .portfolio("open-position-test")
+                .security(security)
+                .timestamp(Instant.parse("2024-01-01T10:00:00Z"))
+                .count(10)
+                .build();
+
+        Transaction savedBuy = transactionRestController.createIfAbsentAndGet(buy).object();
+        assertEquals(Optional.of(10), getCount(pk));
+
+        transactionRestController.createOrUpdate(savedBuy.toBuilder().count(15).build());
+        assertEquals(Optional.of(15), getCount(pk));
+
+        transactionRestController.insert(buy.toBuilder().tradeId("2").count(-15).build());
+        assertTrue(getCount(pk).isEmpty());
+
+        transactionRestController.deleteById(savedBuy.getId());
+        assertEquals(Optional.of(-15), getCount(pk));
+    }
+
+    private Optional<Integer> getCount(OpenPositionEntityPk pk) {
+        return openPositionRepository.findById(pk)
+                .map(OpenPositionEntity::getCount);
+    }
+}
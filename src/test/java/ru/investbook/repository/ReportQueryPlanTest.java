@@ -0,0 +1,257 @@
+/*
+ * InvestBook
+ * Copyright (C) 2022  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.investbook.repository;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Named;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.spacious_team.broker.pojo.CashFlowType;
+import org.spacious_team.broker.pojo.Portfolio;
+import org.spacious_team.broker.pojo.Security;
+import org.spacious_team.broker.pojo.SecurityType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.investbook.api.PortfolioRestController;
+import ru.investbook.api.SecurityRestController;
+
+import java.sql.Connection;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Named.named;
+
+/**
+ * Checks that SQL generated by Hibernate for report repository methods uses indexes instead of full table scan.
+ * Tables are filled before check, because optimizer may prefer table scan of empty table.
+ */
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ReportQueryPlanTest {
+
+    private static final List<String> PORTFOLIOS = List.of("query-plan-1", "query-plan-2");
+    private static final Instant FROM = Instant.parse("2021-01-01T00:00:00Z");
+    private static final Instant TO = Instant.parse("2022-01-01T00:00:00Z");
+    private static final Pattern TABLE_SCAN = Pattern.compile(
+            "(?i)PUBLIC\\.\"?(transaction|transaction_cash_flow|security_event_cash_flow|event_cash_flow|security_quote)\"?\\.tableScan");
+
+    @Autowired
+    SqlCaptor sqlCaptor;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    PortfolioRestController portfolioRestController;
+    @Autowired
+    SecurityRestController securityRestController;
+    @Autowired
+    TransactionRepository transactionRepository;
+    @Autowired
+    TransactionCashFlowRepository transactionCashFlowRepository;
+    @Autowired
+    SecurityEventCashFlowRepository securityEventCashFlowRepository;
+    @Autowired
+    EventCashFlowRepository eventCashFlowRepository;
+    @Autowired
+    SecurityQuoteRepository securityQuoteRepository;
+    List<Integer> securities = new ArrayList<>();
+
+    @BeforeAll
+    void fillTables() {
+        PORTFOLIOS.forEach(id -> portfolioRestController.createIfAbsent(Portfolio.builder().id(id).build()));
+        for (int i = 0; i < 20; i++) {
+            securities.add(securityRestController.createIfAbsentAndGet(Security.builder()
+                            .type(i % 2 == 0 ? SecurityType.STOCK : SecurityType.DERIVATIVE)
+                            .ticker("QUERY_PLAN_" + i)
+                            .build())
+                    .object()
+                    .getId());
+        }
+        List<Object[]> transactions = new ArrayList<>();
+        List<Object[]> securityEvents = new ArrayList<>();
+        List<Object[]> events = new ArrayList<>();
+        List<Object[]> quotes = new ArrayList<>();
+        Instant start = Instant.parse("2018-01-01T10:00:00Z");
+        for (int day = 0; day < 1500; day++) {
+            Timestamp timestamp = Timestamp.from(start.plus(Duration.ofDays(day)));
+            String portfolio = PORTFOLIOS.get(day % PORTFOLIOS.size());
+            int security = securities.get(day % securities.size());
+            transactions.add(new Object[]{"query-plan-" + day, portfolio, security, timestamp, 1 + day % 10});
+            securityEvents.add(new Object[]{portfolio, timestamp, security, 1, CashFlowType.DIVIDEND.getId(), 10, "RUB"});
+            events.add(new Object[]{portfolio, timestamp, CashFlowType.CASH.getId(), 1000 + day, "RUB"});
+            quotes.add(new Object[]{security, timestamp, 100});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO `transaction` (trade_id, portfolio, security, timestamp, count) " +
+                "VALUES (?, ?, ?, ?, ?)", transactions);
+        jdbcTemplate.update("INSERT INTO transaction_cash_flow (transaction_id, type, value, currency) " +
+                "SELECT id, " + CashFlowType.PRICE.getId() + ", -100, 'RUB' FROM `transaction` WHERE trade_id LIKE 'query-plan-%'");
+        jdbcTemplate.batchUpdate("INSERT INTO security_event_cash_flow (portfolio, timestamp, security, count, type, value, currency) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?)", securityEvents);
+        jdbcTemplate.batchUpdate("INSERT INTO event_cash_flow (portfolio, timestamp, type, value, currency) " +
+                "VALUES (?, ?, ?, ?, ?)", events);
+        jdbcTemplate.batchUpdate("INSERT INTO security_quote (security, timestamp, quote) VALUES (?, ?, ?)", quotes);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    /**
+     * Test context is shared with other tests, filled rows are removed
+     */
+    @AfterAll
+    void cleanTables() {
+        String portfolios = "('" + String.join("', '", PORTFOLIOS) + "')";
+        jdbcTemplate.update("DELETE FROM transaction_cash_flow WHERE transaction_id IN " +
+                "(SELECT id FROM `transaction` WHERE trade_id LIKE 'query-plan-%')");
+        jdbcTemplate.update("DELETE FROM `transaction` WHERE trade_id LIKE 'query-plan-%'");
+        jdbcTemplate.update("DELETE FROM security_event_cash_flow WHERE portfolio IN " + portfolios);
+        jdbcTemplate.update("DELETE FROM event_cash_flow WHERE portfolio IN " + portfolios);
+        jdbcTemplate.update("DELETE FROM security_quote WHERE security IN " +
+                "(SELECT id FROM security WHERE ticker LIKE 'QUERY_PLAN_%')");
+        jdbcTemplate.update("DELETE FROM open_position WHERE portfolio IN " + portfolios);
+        jdbcTemplate.update("DELETE FROM security WHERE ticker LIKE 'QUERY_PLAN_%'");
+        jdbcTemplate.update("DELETE FROM portfolio WHERE id IN " + portfolios);
+    }
+
+    static Stream<Named<Consumer<ReportQueryPlanTest>>> reportQueries() {
+        return Stream.of(
+                named("TransactionRepository.findBySecurityIdAndPortfolioInAndTimestampBetween...",
+                        t -> t.transactionRepository.findBySecurityIdAndPortfolioInAndTimestampBetweenOrderByTimestampAscTradeIdAsc(
+                                t.securities.getFirst(), PORTFOLIOS, FROM, TO)),
+                named("TransactionRepository.findBySecurityIdAndTimestampBetween...",
+                        t -> t.transactionRepository.findBySecurityIdAndTimestampBetweenOrderByTimestampAscTradeIdAsc(
+                                t.securities.getFirst(), FROM, TO)),
+                named("TransactionRepository.findBySecurityIdAndPortfolioAndTimestampBetweenBuyCount",
+                        t -> t.transactionRepository.findBySecurityIdAndPortfolioAndTimestampBetweenBuyCount(
+                                Security.builder().id(t.securities.getFirst()).build(),
+                                Portfolio.builder().id(PORTFOLIOS.getFirst()).build(), FROM, TO)),
+                named("TransactionRepository.findDistinctDerivativeByPortfolioInAndTimestampBetween...",
+                        t -> t.transactionRepository.findDistinctDerivativeByPortfolioInAndTimestampBetweenOrderByTimestampDesc(
+                                PORTFOLIOS, FROM, TO)),
+                named("TransactionCashFlowRepository.findByTransactionIdAndCashFlowType",
+                        t -> t.transactionCashFlowRepository.findByTransactionIdAndCashFlowType(1, CashFlowType.PRICE)),
+                named("TransactionCashFlowRepository.findDistinctCurrencyByCashFlowTypeIn",
+                        t -> t.transactionCashFlowRepository.findDistinctCurrencyByCashFlowTypeIn(
+                                Set.of(CashFlowType.PRICE.getId(), CashFlowType.ACCRUED_INTEREST.getId()))),
+                named("SecurityEventCashFlowRepository.findByPortfolioIdInAndSecurityIdAndCashFlowTypeIdAndTimestampBetween...",
+                        t -> t.securityEventCashFlowRepository
+                                .findByPortfolioIdInAndSecurityIdAndCashFlowTypeIdAndTimestampBetweenOrderByTimestampAsc(
+                                        PORTFOLIOS, t.securities.getFirst(), CashFlowType.DIVIDEND.getId(), FROM, TO)),
+                named("SecurityEventCashFlowRepository.findBySecurityIdAndCashFlowTypeIdInAndTimestampBetween...",
+                        t -> t.securityEventCashFlowRepository
+                                .findBySecurityIdAndCashFlowTypeIdInAndTimestampBetweenOrderByTimestampAsc(
+                                        t.securities.getFirst(),
+                                        Set.of(CashFlowType.DIVIDEND.getId(), CashFlowType.COUPON.getId()), FROM, TO)),
+                named("SecurityEventCashFlowRepository.findByPortfolioIdAndCashFlowTypeIdInAndTimestampBetween...",
+                        t -> t.securityEventCashFlowRepository
+                                .findByPortfolioIdAndCashFlowTypeIdInAndTimestampBetweenOrderByTimestampDesc(
+                                        PORTFOLIOS.getFirst(),
+                                        Set.of(CashFlowType.DIVIDEND.getId(), CashFlowType.COUPON.getId()), FROM, TO)),
+                named("EventCashFlowRepository.findByPortfolioIdInAndCashFlowTypeIdAndTimestampBetween...",
+                        t -> t.eventCashFlowRepository.findByPortfolioIdInAndCashFlowTypeIdAndTimestampBetweenOrderByTimestamp(
+                                PORTFOLIOS, CashFlowType.CASH.getId(), FROM, TO)),
+                named("EventCashFlowRepository.findByCashFlowTypeIdAndTimestampBetween...",
+                        t -> t.eventCashFlowRepository.findByCashFlowTypeIdAndTimestampBetweenOrderByTimestamp(
+                                CashFlowType.CASH.getId(), FROM, TO)),
+                named("SecurityQuoteRepository.findFirstBySecurityIdAndTimestampLessThan...",
+                        t -> t.securityQuoteRepository.findFirstBySecurityIdAndTimestampLessThanOrderByTimestampDesc(
+                                t.securities.getFirst(), TO)));
+    }
+
+    @ParameterizedTest
+    @MethodSource("reportQueries")
+    void queryUsesIndex(Consumer<ReportQueryPlanTest> query) {
+        sqlCaptor.statements.clear();
+        query.accept(this);
+        assertFalse(sqlCaptor.statements.isEmpty(), "SQL is not captured");
+        for (String sql : sqlCaptor.statements) {
+            String plan = explain(sql);
+            assertFalse(TABLE_SCAN.matcher(plan).find(), () -> "Full table scan: " + plan);
+        }
+    }
+
+    /**
+     * Binds stub values to SQL parameters, because H2 doesn't explain statement with unset parameters
+     */
+    private String explain(String sql) {
+        return jdbcTemplate.execute((Connection connection) -> {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+                ParameterMetaData metaData = statement.getParameterMetaData();
+                for (int i = 1; i <= metaData.getParameterCount(); i++) {
+                    switch (metaData.getParameterType(i)) {
+                        case Types.TINYINT, Types.SMALLINT, Types.INTEGER, Types.BIGINT, Types.DECIMAL, Types.NUMERIC ->
+                                statement.setInt(i, 1);
+                        case Types.DATE, Types.TIMESTAMP, Types.TIMESTAMP_WITH_TIMEZONE ->
+                                statement.setTimestamp(i, Timestamp.from(FROM));
+                        default -> statement.setString(i, "1");
+                    }
+                }
+                List<String> plan = new ArrayList<>();
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        plan.add(resultSet.getString(1));
+                    }
+                }
+                return String.join("\n", plan);
+            }
+        });
+    }
+
+    static class SqlCaptor implements StatementInspector {
+        private final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+
+    @TestConfiguration
+    static class SqlCaptorConfiguration {
+
+        @Bean
+        SqlCaptor sqlCaptor() {
+            return new SqlCaptor();
+        }
+
+        @Bean
+        HibernatePropertiesCustomizer sqlCaptorCustomizer(SqlCaptor sqlCaptor) {
+            return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, sqlCaptor);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * InvestBook
+ * Copyright (C) 2022  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.investbook.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.investbook.InvestbookProperties;
+import ru.investbook.repository.DataChangedEvent;
+import ru.investbook.repository.TransactionRepository;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class DashboardServiceTest {
+
+    private static final Duration REFRESH_DELAY = Duration.ofMillis(200);
+    private final AssetsAndCashService assetsAndCashService = mock(AssetsAndCashService.class);
+    private final DashboardService service = new DashboardService(
+            assetsAndCashService, mock(TransactionRepository.class), properties());
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void snapshotIsComputedOnceAfterSeveralChanges() {
+        service.getSnapshot();
+
+        for (int i = 0; i < 5; i++) {
+            service.onDataChanged(DataChangedEvent.other(null));
+        }
+
+        verify(assetsAndCashService, after(REFRESH_DELAY.toMillis() * 5).times(2)).getActivePortfolios();
+        assertFalse(service.isRefreshing());
+    }
+
+    @Test
+    void previousSnapshotIsReturnedWhileRefreshIsScheduled() {
+        DashboardSnapshot snapshot = service.getSnapshot();
+
+        service.onDataChanged(DataChangedEvent.other(null));
+
+        assertTrue(service.isRefreshing());
+        assertSame(snapshot, service.getSnapshot());
+        verify(assetsAndCashService, after(REFRESH_DELAY.toMillis() * 5).times(2)).getActivePortfolios();
+        assertNotSame(snapshot, service.getSnapshot());
+    }
+
+    private static InvestbookProperties properties() {
+        InvestbookProperties properties = new InvestbookProperties();
+        properties.setDashboardRefreshDelay(REFRESH_DELAY);
+        return properties;
+    }
+}
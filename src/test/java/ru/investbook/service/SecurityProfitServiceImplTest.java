@@ -0,0 +1,127 @@
+/*
+ * InvestBook
+ * Copyright (C) 2021  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.investbook.service;
+
+import org.junit.jupiter.api.Test;
+import org.spacious_team.broker.pojo.CashFlowType;
+import org.spacious_team.broker.pojo.Security;
+import org.spacious_team.broker.pojo.SecurityType;
+import org.spacious_team.broker.pojo.Transaction;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import ru.investbook.TestDataFactory;
+import ru.investbook.entity.TransactionCashFlowEntity;
+import ru.investbook.report.FifoPositions;
+import ru.investbook.report.FifoPositionsFactory;
+import ru.investbook.report.FifoPositionsFilter;
+import ru.investbook.report.TransactionCashFlows;
+import ru.investbook.report.TransactionCashFlowsFactory;
+import ru.investbook.report.ViewFilter;
+import ru.investbook.repository.TransactionCashFlowRepository;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Optional;
+
+import static java.util.Objects.requireNonNull;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.spacious_team.broker.pojo.CashFlowType.ACCRUED_INTEREST;
+import static org.spacious_team.broker.pojo.CashFlowType.COMMISSION;
+import static org.spacious_team.broker.pojo.CashFlowType.PRICE;
+
+/**
+ * Compares values calculated by bulk loaded cash flows with values of previous implementation,
+ * which selected cash flow of each transaction
+ */
+@SpringBootTest
+@Transactional
+class SecurityProfitServiceImplTest {
+
+    private static final String PORTFOLIO = "security-profit-test";
+
+    @Autowired
+    TestDataFactory testDataFactory;
+    @Autowired
+    SecurityProfitService securityProfitService;
+    @Autowired
+    FifoPositionsFactory fifoPositionsFactory;
+    @Autowired
+    TransactionCashFlowsFactory transactionCashFlowsFactory;
+    @Autowired
+    TransactionCashFlowRepository transactionCashFlowRepository;
+
+    @Test
+    void purchaseCostAndAccruedInterestAreSameAsSelectedByTransaction() {
+        testDataFactory.createPortfolio(PORTFOLIO);
+        int bondId = testDataFactory.createSecurity(SecurityType.BOND, "SECURITY_PROFIT_BOND");
+        createTrade(bondId, "1", "2024-01-10T10:00:00Z", 10, "-10000", "-50");
+        testDataFactory.createTransactionCashFlow(
+                testDataFactory.createTransaction(PORTFOLIO, bondId, "2", "2024-02-10T10:00:00Z", 5), PRICE, "-5100");
+        createTrade(bondId, "3", "2024-03-10T10:00:00Z", -10, "10500", "70");
+        Security bond = Security.builder().id(bondId).type(SecurityType.BOND).build();
+        FifoPositions positions = fifoPositionsFactory.get(bond, FifoPositionsFilter.of(
+                PORTFOLIO, ViewFilter.defaultFromDate, Instant.parse("2024-04-01T00:00:00Z")));
+        TransactionCashFlows cashFlows = transactionCashFlowsFactory.get(positions.getTransactions());
+
+        // all positions are closed by whole transactions, so purchase cost is a sum of prices
+        BigDecimal purchaseCost = securityProfitService.getPurchaseCost(bond, positions, cashFlows, "RUB");
+        assertEqualsNumber("-4600", purchaseCost);
+        assertEqualsNumber(getTotalByTransaction(positions, PRICE), purchaseCost);
+        assertEqualsNumber(purchaseCost, securityProfitService.getPurchaseCost(bond, positions, "RUB"));
+
+        BigDecimal accruedInterest = securityProfitService.getPurchaseAccruedInterest(bond, positions, cashFlows, "RUB");
+        assertEqualsNumber("20", accruedInterest);
+        assertEqualsNumber(getTotalByTransaction(positions, ACCRUED_INTEREST), accruedInterest);
+        assertEqualsNumber(accruedInterest, securityProfitService.getPurchaseAccruedInterest(bond, positions, "RUB"));
+
+        BigDecimal fee = securityProfitService.getTotal(positions.getTransactions(), cashFlows, COMMISSION, "RUB");
+        assertEqualsNumber("-2", fee);
+        assertEqualsNumber(getTotalByTransaction(positions, COMMISSION), fee);
+    }
+
+    private void createTrade(int security, String tradeId, String timestamp, int count, String price,
+                             String accruedInterest) {
+        int transactionId = testDataFactory.createTransaction(PORTFOLIO, security, tradeId, timestamp, count);
+        testDataFactory.createTransactionCashFlow(transactionId, PRICE, price);
+        testDataFactory.createTransactionCashFlow(transactionId, ACCRUED_INTEREST, accruedInterest);
+        testDataFactory.createTransactionCashFlow(transactionId, COMMISSION, "-1");
+    }
+
+    /**
+     * Previous implementation: cash flow is selected for each transaction
+     */
+    private BigDecimal getTotalByTransaction(FifoPositions positions, CashFlowType type) {
+        return positions.getTransactions()
+                .stream()
+                .map(Transaction::getId)
+                .map(id -> transactionCashFlowRepository.findByTransactionIdAndCashFlowType(requireNonNull(id), type))
+                .flatMap(Optional::stream)
+                .map(TransactionCashFlowEntity::getValue)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    private static void assertEqualsNumber(String expected, BigDecimal actual) {
+        assertEqualsNumber(new BigDecimal(expected), actual);
+    }
+
+    private static void assertEqualsNumber(BigDecimal expected, BigDecimal actual) {
+        assertEquals(0, expected.compareTo(actual), () -> "expected " + expected + ", but was " + actual);
+    }
+}
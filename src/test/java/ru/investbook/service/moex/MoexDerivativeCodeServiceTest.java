@@ -199,4 +199,22 @@ public class MoexDerivativeCodeServiceTest {
         boolean isOptionCode = (futuresCode != null);
         assertEquals(service.isOptionCode(optionCode), isOptionCode);
     }
-}
\ No newline at end of file
+
+    static Object[][] optionShortnameToUnderlyingFutures() {
+        return new Object[][]{
+                {"Si-6.21M270521CA75000", "Si-6.21"},
+                {"BR-7.20M250620CA-10", "BR-7.20"},
+                {"BR-7.16M270616CA 50", "BR-7.16"},
+                {"GAZPP220722CE 300", null},
+                {"Si75000BL1", null},
+                {"Si-6.21", null},
+                {"abc", null}
+        };
+    }
+
+    @ParameterizedTest
+    @MethodSource("optionShortnameToUnderlyingFutures")
+    void getOptionUnderlyingFuturesShortname(String contract, String expectedShortname) {
+        assertEquals(Optional.ofNullable(expectedShortname), service.getOptionUnderlyingFuturesShortname(contract));
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * InvestBook
+ * Copyright (C) 2022  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.investbook.service.moex;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.spacious_team.broker.pojo.SecurityQuote;
+import org.spacious_team.broker.pojo.SecurityType;
+import org.springframework.web.client.RestTemplate;
+import ru.investbook.InvestbookProperties;
+import ru.investbook.converter.SecurityQuoteConverter;
+import ru.investbook.entity.SecurityEntity;
+import ru.investbook.repository.SecurityQuoteRepository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.joining;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests quote updating against local Moex ISS stub
+ */
+@ExtendWith(MockitoExtension.class)
+class MoexIssSecurityQuoteServiceTest {
+
+    private static final List<String> secIds = List.of("AFLT", "MGNT", "OZON");
+    private final AtomicInteger securitiesRequests = new AtomicInteger();
+    private final AtomicInteger boardsRequests = new AtomicInteger();
+    private final AtomicInteger quoteRequests = new AtomicInteger();
+    private final AtomicInteger boardQuotesRequests = new AtomicInteger();
+    private final CountDownLatch quoteRequestReceived = new CountDownLatch(1);
+    private volatile CountDownLatch quoteResponseReleased = new CountDownLatch(0);
+    @Mock
+    MoexDerivativeCodeService moexDerivativeCodeService;
+    @Mock
+    SecurityQuoteConverter securityQuoteConverter;
+    @Mock
+    SecurityQuoteRepository securityQuoteRepository;
+    HttpServer issStub;
+    MoexIssClientImpl moexIssClient;
+    MoexIssSecurityQuoteService quoteService;
+    InvestbookProperties properties = new InvestbookProperties();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        issStub = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        issStub.createContext("/iss/", this::handle);
+        issStub.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        issStub.start();
+        String issUrl = "http://localhost:" + issStub.getAddress().getPort();
+        moexIssClient = new MoexIssClientImpl(moexDerivativeCodeService, new RestTemplate(), issUrl);
+        properties.setMoexIssMaxConcurrentRequests(2);
+        quoteService = new MoexIssSecurityQuoteService(
+                moexIssClient, moexDerivativeCodeService, securityQuoteConverter, securityQuoteRepository, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        issStub.stop(0);
+    }
+
+    @Test
+    void secIdAndMarketAreRequestedOnce() throws InterruptedException {
+        properties.setMoexIssBulkQuotes(false);
+        List<SecurityEntity> securities = getSecurities();
+
+        quoteService.updateQuotes(securities);
+        quoteService.updateQuotes(securities);
+
+        assertEquals(secIds.size(), securitiesRequests.get());
+        assertEquals(secIds.size(), boardsRequests.get());
+        assertEquals(2 * secIds.size(), quoteRequests.get());
+        assertEquals(0, boardQuotesRequests.get());
+        verify(securityQuoteRepository, times(2 * secIds.size())).save(any());
+    }
+
+    @Test
+    void quotesAreDownloadedByBoards() throws InterruptedException {
+        properties.setMoexIssBulkQuotes(true);
+        List<SecurityEntity> securities = getSecurities();
+
+        quoteService.updateQuotes(securities);
+
+        assertEquals(2, boardQuotesRequests.get()); // only shares boards are requested for stocks
+        assertEquals(1, securitiesRequests.get()); // OZON is not traded on TQBR stub board
+        assertEquals(1, quoteRequests.get());
+        verify(securityQuoteRepository, times(secIds.size())).save(any());
+    }
+
+    @Test
+    void securityWithIsinIsNotMatchedByTicker() throws InterruptedException {
+        properties.setMoexIssBulkQuotes(true);
+        SecurityEntity security = new SecurityEntity();
+        security.setId(1);
+        security.setType(SecurityType.STOCK);
+        security.setTicker("AFLT");
+        security.setIsin("RU000A0ZZZZ1"); // board AFLT row has other ISIN
+
+        quoteService.updateQuotes(List.of(security));
+
+        assertEquals(2, boardQuotesRequests.get());
+        assertEquals(1, quoteRequests.get());
+        ArgumentCaptor<SecurityQuote> quote = ArgumentCaptor.forClass(SecurityQuote.class);
+        verify(securityQuoteConverter).toEntity(quote.capture());
+        assertEquals(0, new BigDecimal("100.5").compareTo(quote.getValue().getQuote()));
+    }
+
+    @Test
+    void concurrentQuoteRequestsAreCoalesced() throws Exception {
+        MoexMarketDescription market = moexIssClient.getMarket("AFLT").orElseThrow();
+        quoteResponseReleased = new CountDownLatch(1);
+        int callers = 5;
+        List<Thread> callerThreads = new CopyOnWriteArrayList<>();
+        ThreadFactory threadFactory = task -> {
+            Thread thread = new Thread(task);
+            callerThreads.add(thread);
+            return thread;
+        };
+        List<Future<Optional<SecurityQuote>>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(callers, threadFactory)) {
+            for (int i = 0; i < callers; i++) {
+                futures.add(executor.submit(() -> moexIssClient.getQuote("AFLT", market)));
+            }
+            // stub holds the response until other callers wait for the in-flight request
+            assertTrue(quoteRequestReceived.await(10, TimeUnit.SECONDS));
+            awaitWaitingThreads(callerThreads, callers - 1);
+            quoteResponseReleased.countDown();
+        }
+        for (Future<Optional<SecurityQuote>> future : futures) {
+            assertTrue(future.get().isPresent());
+        }
+        assertEquals(1, quoteRequests.get());
+    }
+
+    private static void awaitWaitingThreads(Collection<Thread> threads, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (threads.stream().filter(thread -> thread.getState() == Thread.State.WAITING).count() < count) {
+            assertTrue(System.nanoTime() < deadline, "Callers are not waiting for in-flight request");
+            Thread.sleep(1);
+        }
+    }
+
+    private static List<SecurityEntity> getSecurities() {
+        List<SecurityEntity> securities = new ArrayList<>();
+        for (int i = 0; i < secIds.size(); i++) {
+            SecurityEntity security = new SecurityEntity();
+            security.setId(i + 1);
+            security.setType(SecurityType.STOCK);
+            security.setTicker(secIds.get(i));
+            securities.add(security);
+        }
+        return securities;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath();
+            String response;
+            if (path.equals("/iss/securities.json")) {
+                securitiesRequests.incrementAndGet();
+                String secId = exchange.getRequestURI().getQuery().replaceAll(".*q=", "");
+                response = table("securities", "\"secid\", \"shortname\", \"isin\"",
+                        "\"" + secId + "\", \"" + secId + "\", null");
+            } else if (path.startsWith("/iss/securities/")) {
+                boardsRequests.incrementAndGet();
+                response = table("boards", "\"is_primary\", \"engine\", \"market\", \"boardid\", \"currencyid\"",
+                        "1, \"stock\", \"shares\", \"TQBR\", \"SUR\"");
+            } else if (path.endsWith("/securities.json")) {
+                boardQuotesRequests.incrementAndGet();
+                String columns = "\"SECID\", \"SHORTNAME\", \"ISIN\", \"PREVDATE\", \"PREVADMITTEDQUOTE\"";
+                response = path.contains("/boards/TQBR/") ?
+                        table("securities", columns,
+                                "\"AFLT\", \"Аэрофлот\", \"RU0009062285\", \"2022-01-10\", 50.5",
+                                "\"MGNT\", \"Магнит ао\", \"RU000A0JKQU8\", \"2022-01-10\", 5000") :
+                        table("securities", columns);
+            } else {
+                quoteRequests.incrementAndGet();
+                quoteRequestReceived.countDown();
+                await(quoteResponseReleased);
+                String secId = path.substring(path.lastIndexOf('/') + 1, path.lastIndexOf(".json"));
+                response = table("securities", "\"SECID\", \"PREVDATE\", \"PREVADMITTEDQUOTE\"",
+                        "\"" + secId + "\", \"2022-01-10\", 100.5");
+            }
+            byte[] body = response.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    private static String table(String name, String columns, String... rows) {
+        return "{\"" + name + "\": {\"columns\": [" + columns + "], \"data\": [" +
+                Stream.of(rows).map(row -> "[" + row + "]").collect(joining(", ")) + "]}}";
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * InvestBook
+ * Copyright (C) 2021  Spacious Team <spacious-team@ya.ru>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ru.investbook;
+package ru.investbook.web.forms.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.investbook.TestDataFactory;
+import ru.investbook.repository.PortfolioRepository;
+import ru.investbook.service.DashboardService;
+import ru.investbook.service.DashboardSnapshot;
+import ru.investbook.web.forms.model.ArchivedPortfolioModel;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static ru.investbook.web.ControllerHelper.getInactivePortfolios;
+
+@SpringBootTest
+class PortfolioControllerTest {
+
+    private static final String PORTFOLIO = "archive-test";
+
+    @Autowired
+    PortfolioController portfolioController;
+    @Autowired
+    DashboardService dashboardService;
+    @Autowired
+    PortfolioRepository portfolioRepository;
+    @Autowired
+    TestDataFactory testData;
+
+    @Test
+    void archivedPortfolioIsRemovedFromDashboard() throws InterruptedException {
+        testData.createPortfolio(PORTFOLIO);
+        Set<String> inactivePortfolios = getInactivePortfolios(portfolioRepository);
+        assertTrue(dashboardService.refresh().portfolios().contains(PORTFOLIO));
+        try {
+            Set<String> archived = new HashSet<>(inactivePortfolios);
+            archived.add(PORTFOLIO);
+            portfolioController.postEventCashFlow(archive(archived));
+
+            assertTrue(dashboardService.isRefreshing());
+            assertFalse(awaitRefresh().portfolios().contains(PORTFOLIO));
+        } finally {
+            portfolioController.postEventCashFlow(archive(inactivePortfolios));
+        }
+    }
+
+    private DashboardSnapshot awaitRefresh() throws InterruptedException {
+        Instant deadline = Instant.now().plus(Duration.ofSeconds(30));
+        while (dashboardService.isRefreshing() && Instant.now().isBefore(deadline)) {
+            Thread.sleep(50);
+        }
+        assertFalse(dashboardService.isRefreshing(), "Home page data is not refreshed");
+        return dashboardService.getSnapshot();
+    }
+
+    private static ArchivedPortfolioModel archive(Set<String> portfolios) {
+        ArchivedPortfolioModel archive = new ArchivedPortfolioModel();
+        archive.setPortfolios(portfolios);
+        return archive;
+    }
+}